@@ -0,0 +1,472 @@
+package com.cdiom.backend.audit;
+
+import com.cdiom.backend.constant.AuditLogOverflowPolicy;
+import com.cdiom.backend.mapper.LoginLogMapper;
+import com.cdiom.backend.mapper.OperationLogCounterMapper;
+import com.cdiom.backend.mapper.OperationLogMapper;
+import com.cdiom.backend.model.LoginLog;
+import com.cdiom.backend.model.OperationLog;
+import com.cdiom.backend.service.IpLocationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 审计日志（登录日志、操作日志）异步批量写入
+ * <p>
+ * 业务线程只把日志放入有界环形队列（cdiom.audit-log.capacity），由独立的写入线程攒批后用多行 INSERT 落库：
+ * 攒满 batch-size 条或距批次第一条超过 flush-interval-ms 即写入；同一批操作日志的模块/类型计数合并后各更新一次。
+ * 队列已满时按 overflow-policy 处理（见 {@link AuditLogOverflowPolicy}）；溢出文件在写入线程空闲时补写入库。
+ * 批量写入因数据问题失败时逐条重试，只丢弃有问题的行；数据库不可用时整批按溢出策略处理。
+ * 应用关闭时写入线程写完队列中的全部日志后退出，超时未退出时由关闭线程写完剩余日志；关闭后提交的日志直接同步写入。
+ * 关闭异步写入（enabled=false）时每条日志在独立事务中同步写入。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    private static final String TYPE_LOGIN = "LOGIN";
+    private static final String TYPE_OPERATION = "OPERATION";
+
+    /**
+     * 溢出文件补写失败后的重试间隔
+     */
+    private static final long REPLAY_RETRY_MS = 30_000L;
+
+    private final OperationLogMapper operationLogMapper;
+    private final OperationLogCounterMapper operationLogCounterMapper;
+    private final LoginLogMapper loginLogMapper;
+    private final IpLocationService ipLocationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate syncTransaction;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final AuditLogOverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final Path spillPath;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<Object> queue;
+
+    @Value("${cdiom.operation-log.counter.enabled:true}")
+    private boolean counterEnabled;
+
+    private final Object spillLock = new Object();
+    private volatile boolean running;
+    private volatile boolean closed;
+    private Thread writerThread;
+    private long nextReplayAt;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder syncWrites = new LongAdder();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AuditLogWriter(OperationLogMapper operationLogMapper,
+                          OperationLogCounterMapper operationLogCounterMapper,
+                          LoginLogMapper loginLogMapper,
+                          IpLocationService ipLocationService,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${cdiom.audit-log.enabled:true}") boolean enabled,
+                          @Value("${cdiom.audit-log.capacity:10000}") int capacity,
+                          @Value("${cdiom.audit-log.batch-size:200}") int batchSize,
+                          @Value("${cdiom.audit-log.flush-interval-ms:500}") long flushIntervalMs,
+                          @Value("${cdiom.audit-log.overflow-policy:SPILL}") AuditLogOverflowPolicy overflowPolicy,
+                          @Value("${cdiom.audit-log.block-timeout-ms:2000}") long blockTimeoutMs,
+                          @Value("${cdiom.audit-log.spill-path:logs/audit-log-spill.jsonl}") String spillPath,
+                          @Value("${cdiom.audit-log.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.operationLogMapper = operationLogMapper;
+        this.operationLogCounterMapper = operationLogCounterMapper;
+        this.loginLogMapper = loginLogMapper;
+        this.ipLocationService = ipLocationService;
+        this.objectMapper = objectMapper;
+        this.syncTransaction = new TransactionTemplate(transactionManager);
+        this.syncTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillPath = StringUtils.hasText(spillPath) ? Paths.get(spillPath.trim()) : null;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::run, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 提交一条登录日志或操作日志，不等待落库
+     */
+    public void submit(Object record) {
+        if (!enabled || closed) {
+            writeNow(record);
+            return;
+        }
+        if (queue.offer(record)) {
+            submitted.increment();
+        } else {
+            overflow(record);
+        }
+        // 关闭过程中入队的日志可能已错过关闭线程的最后一次取出，由提交线程写完
+        if (closed) {
+            drainInCaller();
+        }
+    }
+
+    private void overflow(Object record) {
+        if (overflowPolicy == AuditLogOverflowPolicy.BLOCK) {
+            try {
+                if (queue.offer(record, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    submitted.increment();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 等待超时仍无空位，由提交线程同步写入
+            writeNow(record);
+            return;
+        }
+        if (overflowPolicy == AuditLogOverflowPolicy.SPILL && spill(List.of(record))) {
+            return;
+        }
+        long n = dropped.incrementAndGet();
+        if (n == 1 || n % 1000 == 0) {
+            log.warn("审计日志队列已满，累计丢弃 {} 条", n);
+        }
+    }
+
+    /**
+     * 在调用线程中以独立事务写入（不受调用方事务回滚影响）
+     */
+    private void writeNow(Object record) {
+        syncWrites.increment();
+        try {
+            syncTransaction.executeWithoutResult(status -> write(List.of(record)));
+            written.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("审计日志写入失败：{}", e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (running) {
+                        replaySpill();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Object next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch, overflowPolicy == AuditLogOverflowPolicy.SPILL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("审计日志写入线程异常：{}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在独立事务中写入一批（失败时整批回滚，不会留下部分写入的行和计数）；
+     * 数据库不可用时整批溢出到文件（spillOnFailure）或丢弃，其他错误逐条重试
+     *
+     * @return 是否全部写入或溢出（false 表示数据库不可用且未溢出）
+     */
+    private boolean flush(List<Object> batch, boolean spillOnFailure) {
+        try {
+            syncTransaction.executeWithoutResult(status -> write(batch));
+            written.add(batch.size());
+            return true;
+        } catch (DataAccessResourceFailureException | CannotCreateTransactionException e) {
+            log.error("审计日志写入失败（数据库不可用），{} 条：{}", batch.size(), e.getMessage());
+            if (spillOnFailure && spill(batch)) {
+                return true;
+            }
+            failed.add(batch.size());
+            return false;
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                log.error("审计日志写入失败，已丢弃：{}", e.getMessage());
+                return true;
+            }
+            log.warn("审计日志批量写入失败，逐条重试：{}", e.getMessage());
+            for (Object record : batch) {
+                flush(List.of(record), spillOnFailure);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 多行写入登录日志、操作日志，合并更新操作日志计数；本地未解析位置的登录日志提交IP定位回填（事务提交后执行）。
+     * 须在事务内调用
+     */
+    private void write(List<Object> batch) {
+        List<LoginLog> loginLogs = new ArrayList<>();
+        List<OperationLog> operationLogs = new ArrayList<>();
+        for (Object record : batch) {
+            if (record instanceof LoginLog loginLog) {
+                loginLogs.add(loginLog);
+            } else if (record instanceof OperationLog operationLog) {
+                operationLogs.add(operationLog);
+            }
+        }
+
+        if (!operationLogs.isEmpty()) {
+            operationLogMapper.insertRows(operationLogs);
+            if (counterEnabled) {
+                incrementCounters(operationLogs);
+            }
+        }
+        if (!loginLogs.isEmpty()) {
+            loginLogMapper.insertRows(loginLogs);
+            for (LoginLog loginLog : loginLogs) {
+                if (loginLog.getId() != null && loginLog.getIp() != null
+                        && loginLog.getIp().trim().equals(loginLog.getLocation())) {
+                    ipLocationService.backfillLoginLogLocation(loginLog.getId(), loginLog.getIp());
+                }
+            }
+        }
+    }
+
+    /**
+     * 成功操作（status 为空按表默认值成功计）按 日期 + 模块 + 类型 合并后累加计数。
+     * 更新失败时异常向上抛出，整批回滚后由 {@link #flush(List, boolean)} 逐条重试或溢出，日志行与计数保持一致
+     */
+    private void incrementCounters(List<OperationLog> operationLogs) {
+        Map<List<Object>, Long> counts = new LinkedHashMap<>();
+        for (OperationLog operationLog : operationLogs) {
+            if ((operationLog.getStatus() == null || operationLog.getStatus() == 1)
+                    && (operationLog.getModule() != null || operationLog.getOperationType() != null)) {
+                List<Object> key = new ArrayList<>(3);
+                key.add(operationLog.getOperationTime().toLocalDate());
+                key.add(operationLog.getModule());
+                key.add(operationLog.getOperationType());
+                counts.merge(key, 1L, Long::sum);
+            }
+        }
+        for (Map.Entry<List<Object>, Long> entry : counts.entrySet()) {
+            List<Object> key = entry.getKey();
+            operationLogCounterMapper.increment((LocalDate) key.get(0), (String) key.get(1), (String) key.get(2),
+                    entry.getValue());
+        }
+    }
+
+    /**
+     * 追加到溢出文件，每行一条 {"type":...,"record":{...}}
+     */
+    private boolean spill(List<Object> records) {
+        if (spillPath == null) {
+            return false;
+        }
+        synchronized (spillLock) {
+            try {
+                Path parent = spillPath.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (Object record : records) {
+                        Map<String, Object> line = new LinkedHashMap<>();
+                        line.put("type", record instanceof LoginLog ? TYPE_LOGIN : TYPE_OPERATION);
+                        line.put("record", record);
+                        writer.write(objectMapper.writeValueAsString(line));
+                        writer.newLine();
+                    }
+                }
+                spilled.add(records.size());
+                return true;
+            } catch (IOException e) {
+                log.error("审计日志写入溢出文件失败：{}, error={}", spillPath, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 写入线程空闲时把溢出文件补写入库；数据库不可用时剩余日志写回溢出文件，稍后重试
+     */
+    private void replaySpill() {
+        if (spillPath == null || System.currentTimeMillis() < nextReplayAt || !Files.exists(spillPath)) {
+            return;
+        }
+        Path replay = spillPath.resolveSibling(spillPath.getFileName() + ".replay");
+        List<Object> records = new ArrayList<>();
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replay)) {
+                    Files.move(spillPath, replay);
+                }
+            }
+            try (BufferedReader reader = Files.newBufferedReader(replay, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Object record = parseSpillLine(line);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("读取审计日志溢出文件失败：{}, error={}", replay, e.getMessage());
+            nextReplayAt = System.currentTimeMillis() + REPLAY_RETRY_MS;
+            return;
+        }
+
+        int replayed = 0;
+        for (int i = 0; i < records.size(); i += batchSize) {
+            List<Object> chunk = records.subList(i, Math.min(i + batchSize, records.size()));
+            if (!flush(new ArrayList<>(chunk), false)) {
+                spill(new ArrayList<>(records.subList(i, records.size())));
+                nextReplayAt = System.currentTimeMillis() + REPLAY_RETRY_MS;
+                break;
+            }
+            replayed += chunk.size();
+        }
+        try {
+            Files.deleteIfExists(replay);
+        } catch (IOException e) {
+            log.warn("删除审计日志溢出文件失败：{}, error={}", replay, e.getMessage());
+        }
+        if (replayed > 0) {
+            log.info("已从溢出文件补写审计日志 {} 条", replayed);
+        }
+    }
+
+    private Object parseSpillLine(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            String type = node.path("type").asText();
+            if (TYPE_LOGIN.equals(type)) {
+                return objectMapper.treeToValue(node.get("record"), LoginLog.class);
+            } else if (TYPE_OPERATION.equals(type)) {
+                return objectMapper.treeToValue(node.get("record"), OperationLog.class);
+            }
+            log.warn("审计日志溢出文件中存在未知类型：{}", type);
+        } catch (Exception e) {
+            log.warn("审计日志溢出文件中存在无法解析的行：{}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void drainInCaller() {
+        List<Object> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += batchSize) {
+            flush(new ArrayList<>(rest.subList(i, Math.min(i + batchSize, rest.size()))),
+                    overflowPolicy == AuditLogOverflowPolicy.SPILL);
+        }
+    }
+
+    /**
+     * 停止写入线程并写完队列中的日志（在数据源关闭前执行）
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closed = true;
+        if (writerThread.isAlive()) {
+            log.warn("审计日志写入线程未在 {} ms 内结束，由关闭线程写入剩余日志", shutdownTimeoutMs);
+        }
+        drainInCaller();
+        log.info("审计日志写入已停止：写入 {} 条，溢出 {} 条，丢弃 {} 条，失败 {} 条",
+                written.sum(), spilled.sum(), dropped.get(), failed.sum());
+    }
+
+    /**
+     * 队列与写入统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("overflowPolicy", overflowPolicy.name());
+        m.put("queueSize", queue.size());
+        m.put("capacity", queue.size() + queue.remainingCapacity());
+        m.put("submitted", submitted.sum());
+        m.put("written", written.sum());
+        m.put("spilled", spilled.sum());
+        m.put("dropped", dropped.get());
+        m.put("failed", failed.sum());
+        m.put("syncWrites", syncWrites.sum());
+        m.put("spillFileExists", spillPath != null && Files.exists(spillPath));
+        return m;
+    }
+}
@@ -0,0 +1,153 @@
+package com.cdiom.backend.cache;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 列表回填：按关联批量加载
+ * <p>
+ * 声明「记录的某个 ID 字段从某个关联加载并回填到记录上」，apply 时每个关联收集全部记录的 ID 后只加载一次，再逐条回填，
+ * 避免逐行 selectById。同一关联可绑定多个字段（如申请人、审批人都从用户关联加载），ID 合并为一次查询。
+ * 关联按首次声明的顺序加载，后加载的关联可在取键函数中通过 {@link Relation#get(Long)} 读取先加载关联的结果
+ * （如先加载用户，再按用户的角色ID加载角色）。
+ * 加载函数可用 {@link #byIds} 直接批量查询，也可用 {@link ReferenceDataCache} 的缓存批量读取。
+ * Relation 保存本次加载结果，按次创建，不要在请求之间共享。
+ *
+ * @param <T> 被回填的记录类型
+ * @author cdiom
+ */
+@Slf4j
+public final class BatchEnricher<T> {
+
+    private final Collection<T> records;
+    private final Map<Relation<?>, List<Binding<T, ?>>> bindings = new LinkedHashMap<>();
+
+    private BatchEnricher(Collection<T> records) {
+        this.records = records;
+    }
+
+    public static <T> BatchEnricher<T> of(Collection<T> records) {
+        return new BatchEnricher<>(records);
+    }
+
+    /**
+     * 声明关联
+     *
+     * @param name   关联名称（用于日志）
+     * @param loader 按 ID 集合批量加载，返回 ID -> 实体，不存在的 ID 不在结果中
+     */
+    public static <V> Relation<V> relation(String name, Function<Collection<Long>, Map<Long, V>> loader) {
+        return new Relation<>(name, loader);
+    }
+
+    /**
+     * 以 mapper 的 selectByIds 作为加载函数
+     */
+    public static <V> Function<Collection<Long>, Map<Long, V>> byIds(BaseMapper<V> mapper, Function<V, Long> idGetter) {
+        return ids -> {
+            Map<Long, V> map = new HashMap<>();
+            for (V value : mapper.selectByIds(ids)) {
+                map.put(idGetter.apply(value), value);
+            }
+            return map;
+        };
+    }
+
+    /**
+     * 绑定字段：按 key 取出的 ID 从关联加载，找到时调用 setter 回填；ID 为空或未找到时不回填
+     */
+    public <V> BatchEnricher<T> join(Relation<V> relation, Function<T, Long> key, BiConsumer<T, V> setter) {
+        bindings.computeIfAbsent(relation, r -> new ArrayList<>()).add(new Binding<>(key, setter));
+        return this;
+    }
+
+    public void apply() {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        int loads = 0;
+        for (Map.Entry<Relation<?>, List<Binding<T, ?>>> entry : bindings.entrySet()) {
+            if (load(entry.getKey(), entry.getValue())) {
+                loads++;
+            }
+        }
+        log.debug("列表回填：记录 {} 条，关联 {} 个，批量加载 {} 次", records.size(), bindings.size(), loads);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> boolean load(Relation<V> relation, List<Binding<T, ?>> list) {
+        Set<Long> ids = new HashSet<>();
+        for (Binding<T, ?> binding : list) {
+            for (T record : records) {
+                Long id = binding.key.apply(record);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        boolean loaded = relation.load(ids);
+        for (Binding<T, ?> binding : list) {
+            Binding<T, V> typed = (Binding<T, V>) binding;
+            for (T record : records) {
+                V value = relation.get(typed.key.apply(record));
+                if (value != null) {
+                    typed.setter.accept(record, value);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 关联：名称 + 批量加载函数，apply 后保存加载结果
+     */
+    public static final class Relation<V> {
+        private final String name;
+        private final Function<Collection<Long>, Map<Long, V>> loader;
+        private Map<Long, V> values = Collections.emptyMap();
+
+        private Relation(String name, Function<Collection<Long>, Map<Long, V>> loader) {
+            this.name = name;
+            this.loader = loader;
+        }
+
+        /**
+         * 已加载的实体；尚未加载、ID 为空或不存在时返回 null
+         */
+        public V get(Long id) {
+            return id != null ? values.get(id) : null;
+        }
+
+        private boolean load(Set<Long> ids) {
+            if (ids.isEmpty()) {
+                values = Collections.emptyMap();
+                return false;
+            }
+            values = loader.apply(ids);
+            log.trace("列表回填加载关联 {}：{} 个ID，命中 {} 条", name, ids.size(), values.size());
+            return true;
+        }
+    }
+
+    private static final class Binding<T, V> {
+        private final Function<T, Long> key;
+        private final BiConsumer<T, V> setter;
+
+        private Binding(Function<T, Long> key, BiConsumer<T, V> setter) {
+            this.key = key;
+            this.setter = setter;
+        }
+    }
+}
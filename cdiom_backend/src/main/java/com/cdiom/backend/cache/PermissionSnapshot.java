@@ -0,0 +1,75 @@
+package com.cdiom.backend.cache;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 用户有效权限快照（不可变）
+ * <p>
+ * 权限代码按 {@link PermissionSnapshotCache} 的代码字典映射为位，权限判断只做位测试；
+ * all 为 true 时（超级管理员）拥有全部权限。codes 保留原始权限代码集合，供需要完整列表的场景使用。
+ *
+ * @author cdiom
+ */
+public final class PermissionSnapshot {
+
+    private final Long userId;
+    private final boolean all;
+    private final BitSet bits;
+    private final Set<String> codes;
+
+    PermissionSnapshot(Long userId, boolean all, BitSet bits, Set<String> codes) {
+        this.userId = userId;
+        this.all = all;
+        this.bits = bits;
+        this.codes = Collections.unmodifiableSet(codes);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * 是否拥有全部权限（通配符 *）
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * 有效权限代码（只读）
+     */
+    public Set<String> getCodes() {
+        return codes;
+    }
+
+    /**
+     * 是否拥有 mask 中的全部权限
+     */
+    public boolean containsAll(BitSet mask) {
+        if (all) {
+            return true;
+        }
+        for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+            if (!bits.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否拥有 mask 中的任意一个权限
+     */
+    public boolean intersects(BitSet mask) {
+        return all || bits.intersects(mask);
+    }
+
+    /**
+     * 是否拥有字典下标为 index 的权限；index 小于 0（字典中不存在的代码）时返回 false
+     */
+    boolean has(int index) {
+        return all || (index >= 0 && bits.get(index));
+    }
+}
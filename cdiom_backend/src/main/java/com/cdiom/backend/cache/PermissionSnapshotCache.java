@@ -0,0 +1,306 @@
+package com.cdiom.backend.cache;
+
+import com.cdiom.backend.mapper.PermissionVersionMapper;
+import com.cdiom.backend.mapper.SysPermissionMapper;
+import com.cdiom.backend.mapper.SysUserMapper;
+import com.cdiom.backend.model.SysUser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户权限快照缓存
+ * <p>
+ * 每个用户的有效权限（角色权限 ∪ 直接权限，或仅自定义清单）加载一次后保存为 {@link PermissionSnapshot}，
+ * 权限代码经本类的代码字典映射为固定下标，@RequiresPermission 检查只做位测试，不再每次请求查询用户与权限表。
+ * 用户、角色、用户权限变更时调用 invalidateXxx：立即失效一次，事务提交后再失效一次；
+ * 影响权限的变更（角色、状态、权限）在事务提交后以独立事务把 sys_permission_version 加一，版本表异常不会回滚业务修改。
+ * 各节点每 cdiom.permission-cache.version-check-ms 读取版本号，发现变化即清空本机缓存，撤销的权限在数秒内于全部节点生效。
+ * 版本检查使用独立的单线程调度器，不与 @Scheduled 任务共用线程，不会被耗时的定时任务推迟。
+ * 版本表不可用时退化为按 cdiom.permission-cache.ttl-seconds 过期。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class PermissionSnapshotCache {
+
+    /**
+     * 超级管理员角色ID：拥有所有权限
+     */
+    private static final long SUPER_ADMIN_ROLE_ID = 6L;
+
+    /**
+     * 系统管理员角色ID
+     */
+    private static final long SYSTEM_ADMIN_ROLE_ID = 1L;
+
+    private final SysUserMapper userMapper;
+    private final SysPermissionMapper permissionMapper;
+    private final PermissionVersionMapper permissionVersionMapper;
+    private final ReferenceCache<PermissionSnapshot> snapshots;
+
+    /**
+     * 版本号在业务事务提交后单独提交
+     */
+    private final TransactionTemplate versionTransaction;
+
+    /**
+     * 权限代码字典：代码 -> 位下标，只增不减
+     */
+    private final Map<String, Integer> codeIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    private final long versionCheckMs;
+
+    private volatile Long lastVersion;
+
+    private ScheduledExecutorService versionChecker;
+
+    public PermissionSnapshotCache(SysUserMapper userMapper,
+                                   SysPermissionMapper permissionMapper,
+                                   PermissionVersionMapper permissionVersionMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${cdiom.permission-cache.enabled:true}") boolean enabled,
+                                   @Value("${cdiom.permission-cache.max-size:5000}") int maxSize,
+                                   @Value("${cdiom.permission-cache.ttl-seconds:300}") long ttlSeconds,
+                                   @Value("${cdiom.permission-cache.version-check-ms:3000}") long versionCheckMs) {
+        this.userMapper = userMapper;
+        this.permissionMapper = permissionMapper;
+        this.permissionVersionMapper = permissionVersionMapper;
+        this.versionTransaction = new TransactionTemplate(transactionManager);
+        this.versionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.versionCheckMs = Math.max(100, versionCheckMs);
+        this.snapshots = new ReferenceCache<>("permission", enabled ? maxSize : 0, ttlSeconds * 1000,
+                this::loadAll, PermissionSnapshot::getUserId);
+    }
+
+    /**
+     * 用户的权限快照；数据库异常时抛出，由调用方决定降级方式
+     */
+    public PermissionSnapshot get(Long userId) {
+        return snapshots.get(userId);
+    }
+
+    /**
+     * 是否拥有任意一个权限
+     */
+    public boolean hasAny(Long userId, String... permissionCodes) {
+        PermissionSnapshot snapshot = get(userId);
+        if (snapshot == null) {
+            return false;
+        }
+        for (String permissionCode : permissionCodes) {
+            if (permissionCode != null && snapshot.has(indexOf(permissionCode))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 权限代码在字典中的下标，不存在时分配新下标（启动时预解析接口权限用）
+     */
+    public int intern(String code) {
+        return codeIndex.computeIfAbsent(code, c -> nextIndex.getAndIncrement());
+    }
+
+    /**
+     * 用户基本信息（姓名、手机号等）变更后调用，只刷新本机快照，不通知其他节点
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidateNowAndAfterCommit(() -> snapshots.invalidate(userId));
+    }
+
+    /**
+     * 用户角色、状态或直接权限变更（含删除、恢复）后调用，提交后通知全部节点
+     */
+    public void invalidateUserPermissions(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidateNowAndAfterCommit(() -> snapshots.invalidate(userId));
+        bumpVersionAfterCommit();
+    }
+
+    /**
+     * 角色或角色权限变更后调用（影响该角色的全部用户，清空整个缓存），提交后通知全部节点
+     */
+    public void invalidateAll() {
+        invalidateNowAndAfterCommit(snapshots::invalidateAll);
+        bumpVersionAfterCommit();
+    }
+
+    @PostConstruct
+    public void startVersionCheck() {
+        versionChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "permission-version-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 任务抛出异常会终止后续调度，异常在此吞掉
+        versionChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkVersion();
+            } catch (Exception e) {
+                log.warn("权限版本检查失败：{}", e.getMessage());
+            }
+        }, versionCheckMs, versionCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopVersionCheck() {
+        if (versionChecker != null) {
+            versionChecker.shutdownNow();
+        }
+    }
+
+    /**
+     * 读取权限版本号，其他节点修改过权限时清空本机缓存
+     */
+    public void checkVersion() {
+        Long version;
+        try {
+            version = permissionVersionMapper.selectVersion();
+        } catch (Exception e) {
+            log.debug("读取权限版本号失败，权限缓存按过期时间刷新：{}", e.getMessage());
+            return;
+        }
+        Long previous = lastVersion;
+        lastVersion = version;
+        if (previous != null && !Objects.equals(previous, version)) {
+            snapshots.invalidateAll();
+            log.info("权限版本号已变化（{} -> {}），已清空权限缓存", previous, version);
+        }
+    }
+
+    /**
+     * 命中/未命中统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = snapshots.stats();
+        m.put("dictionarySize", codeIndex.size());
+        m.put("version", lastVersion);
+        return m;
+    }
+
+    private List<PermissionSnapshot> loadAll(Collection<Long> userIds) {
+        List<PermissionSnapshot> list = new ArrayList<>();
+        for (Long userId : userIds) {
+            list.add(load(userId));
+        }
+        return list;
+    }
+
+    /**
+     * 查询用户有效权限；用户不存在时返回空快照
+     */
+    private PermissionSnapshot load(Long userId) {
+        SysUser user = userMapper.selectById(userId);
+        if (user == null) {
+            log.warn("用户不存在，userId: {}", userId);
+            return snapshot(userId, false, new HashSet<>());
+        }
+
+        // 超级管理员（角色ID=6）拥有所有权限
+        if (user.getRoleId() != null && user.getRoleId() == SUPER_ADMIN_ROLE_ID) {
+            return snapshot(userId, true, new HashSet<>(List.of("*"))); // 通配符表示所有权限
+        }
+
+        // 查询用户的所有权限（角色权限 + 用户直接权限，或仅自定义清单）
+        List<String> permissionCodes = permissionMapper.selectAllPermissionCodesByUserId(userId);
+        Set<String> permissions = new HashSet<>();
+        if (permissionCodes != null) {
+            permissions.addAll(permissionCodes);
+        }
+        // 系统管理员（角色 1）且未启用「仅自定义权限」：保证具备日志查看权（与 init_permissions 中角色 1 一致，避免 sys_role_permission 漏配导致无法审计）
+        boolean customized =
+                user.getPermissionCustomized() != null && user.getPermissionCustomized() == 1;
+        if (user.getRoleId() != null && user.getRoleId() == SYSTEM_ADMIN_ROLE_ID && !customized) {
+            permissions.add("log:operation:view");
+            permissions.add("log:login:view");
+        }
+        if (permissions.isEmpty()) {
+            log.debug("用户 {} 没有配置权限，返回空权限集合", userId);
+        }
+        return snapshot(userId, permissions.contains("*"), permissions);
+    }
+
+    private PermissionSnapshot snapshot(Long userId, boolean all, Set<String> codes) {
+        BitSet bits = new BitSet();
+        for (String code : codes) {
+            bits.set(intern(code));
+        }
+        return new PermissionSnapshot(userId, all, bits, codes);
+    }
+
+    /**
+     * 代码在字典中的下标，不存在时返回 -1（没有任何用户拥有该权限）
+     */
+    private int indexOf(String code) {
+        Integer index = codeIndex.get(code);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 业务事务提交后在独立事务中把权限版本号加一（无事务时立即执行）；
+     * 业务修改此时已提交，版本表不可用时只记录日志，其他节点的权限缓存按过期时间刷新
+     */
+    private void bumpVersionAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpVersion();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bumpVersion();
+            }
+        });
+    }
+
+    private void bumpVersion() {
+        try {
+            versionTransaction.executeWithoutResult(status -> permissionVersionMapper.increment());
+        } catch (Exception e) {
+            log.warn("更新权限版本号失败，其他节点的权限缓存将按过期时间刷新：{}", e.getMessage());
+        }
+    }
+
+    private static void invalidateNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package com.cdiom.backend.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按主键缓存的参考数据（有界、带过期时间）
+ * <p>
+ * 条目按访问顺序淘汰，超过 maxSize 时移除最久未访问的条目；写入超过 ttl 的条目视为未命中并重新加载。
+ * 未命中的主键合并为一次批量查询。每次失效都会递增版本号，加载期间版本号发生变化时本次结果只返回给调用方、不写入缓存，
+ * 避免并发加载把失效前读到的旧数据重新放回。数据库中不存在（含逻辑删除）的主键不缓存。
+ * 缓存对象在调用方之间共享，只能读取，不得修改。
+ *
+ * @param <T> 实体类型
+ * @author cdiom
+ */
+public class ReferenceCache<T> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Function<Collection<Long>, List<T>> loader;
+    private final Function<T, Long> idGetter;
+
+    private final LinkedHashMap<Long, Entry<T>> entries;
+    private long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param name      缓存名称（用于统计输出）
+     * @param maxSize   最大条目数，不大于 0 时不缓存、每次直接查询
+     * @param ttlMillis 条目有效期（毫秒）
+     * @param loader    按主键批量查询
+     * @param idGetter  取实体主键
+     */
+    public ReferenceCache(String name, int maxSize, long ttlMillis,
+                          Function<Collection<Long>, List<T>> loader, Function<T, Long> idGetter) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.loader = loader;
+        this.idGetter = idGetter;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<T>> eldest) {
+                return size() > ReferenceCache.this.maxSize;
+            }
+        };
+    }
+
+    public T get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return getAll(List.of(id)).get(id);
+    }
+
+    /**
+     * 批量获取，未命中的主键合并为一次查询；返回 主键 -> 实体，不存在的主键不在结果中
+     */
+    public Map<Long, T> getAll(Collection<Long> ids) {
+        Map<Long, T> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long loadVersion;
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (Long id : ids) {
+                if (id == null || result.containsKey(id) || missing.contains(id)) {
+                    continue;
+                }
+                Entry<T> entry = entries.get(id);
+                if (entry != null && entry.expireAt > now) {
+                    result.put(id, entry.value);
+                    hits.increment();
+                } else {
+                    if (entry != null) {
+                        entries.remove(id);
+                    }
+                    missing.add(id);
+                    misses.increment();
+                }
+            }
+            loadVersion = version;
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        List<T> loaded = loader.apply(missing);
+        loads.increment();
+        long expireAt = System.currentTimeMillis() + ttlMillis;
+        synchronized (entries) {
+            boolean cacheable = maxSize > 0 && version == loadVersion;
+            for (T value : loaded) {
+                Long id = idGetter.apply(value);
+                result.put(id, value);
+                if (cacheable) {
+                    entries.put(id, new Entry<>(value, expireAt));
+                }
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (entries) {
+            version++;
+            entries.remove(id);
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            version++;
+            entries.clear();
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * 命中/未命中统计
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("name", name);
+        m.put("size", size);
+        m.put("maxSize", maxSize);
+        m.put("ttlSeconds", ttlMillis / 1000);
+        m.put("hits", hitCount);
+        m.put("misses", missCount);
+        m.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        m.put("loads", loads.sum());
+        m.put("invalidations", invalidations.sum());
+        return m;
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long expireAt;
+
+        private Entry(T value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
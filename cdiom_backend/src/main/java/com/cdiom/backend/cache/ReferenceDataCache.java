@@ -0,0 +1,146 @@
+package com.cdiom.backend.cache;
+
+import com.cdiom.backend.event.DrugInfoChangedEvent;
+import com.cdiom.backend.mapper.DrugInfoMapper;
+import com.cdiom.backend.mapper.SupplierMapper;
+import com.cdiom.backend.mapper.SysRoleMapper;
+import com.cdiom.backend.mapper.SysUserMapper;
+import com.cdiom.backend.model.DrugInfo;
+import com.cdiom.backend.model.Supplier;
+import com.cdiom.backend.model.SysRole;
+import com.cdiom.backend.model.SysUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户/角色/药品/供应商参考数据缓存
+ * <p>
+ * 列表与详情回填姓名、角色名、药品名、供应商名时按主键从内存读取，未命中的主键合并为一次批量查询。
+ * 对应的新增/修改/删除/恢复服务方法调用 invalidateXxx：立即失效一次，事务提交后再失效一次，
+ * 防止提交前有并发请求读到旧数据重新写入缓存。多实例部署时其他节点依赖过期时间（cdiom.reference-cache.ttl-seconds）收敛。
+ * 返回的实体为共享对象，只用于读取显示字段，不得修改；需要修改或校验最新状态的场景仍直接查库。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+
+    private final ReferenceCache<SysUser> users;
+    private final ReferenceCache<SysRole> roles;
+    private final ReferenceCache<DrugInfo> drugs;
+    private final ReferenceCache<Supplier> suppliers;
+
+    public ReferenceDataCache(SysUserMapper sysUserMapper,
+                              SysRoleMapper sysRoleMapper,
+                              DrugInfoMapper drugInfoMapper,
+                              SupplierMapper supplierMapper,
+                              @Value("${cdiom.reference-cache.enabled:true}") boolean enabled,
+                              @Value("${cdiom.reference-cache.max-size:5000}") int maxSize,
+                              @Value("${cdiom.reference-cache.ttl-seconds:600}") long ttlSeconds) {
+        int size = enabled ? maxSize : 0;
+        long ttlMillis = ttlSeconds * 1000;
+        this.users = new ReferenceCache<>("user", size, ttlMillis, sysUserMapper::selectByIds, SysUser::getId);
+        this.roles = new ReferenceCache<>("role", size, ttlMillis, sysRoleMapper::selectByIds, SysRole::getId);
+        this.drugs = new ReferenceCache<>("drug", size, ttlMillis, drugInfoMapper::selectByIds, DrugInfo::getId);
+        this.suppliers = new ReferenceCache<>("supplier", size, ttlMillis, supplierMapper::selectByIds, Supplier::getId);
+    }
+
+    public SysUser getUser(Long id) {
+        return users.get(id);
+    }
+
+    public Map<Long, SysUser> getUsers(Collection<Long> ids) {
+        return users.getAll(ids);
+    }
+
+    public SysRole getRole(Long id) {
+        return roles.get(id);
+    }
+
+    public Map<Long, SysRole> getRoles(Collection<Long> ids) {
+        return roles.getAll(ids);
+    }
+
+    public DrugInfo getDrug(Long id) {
+        return drugs.get(id);
+    }
+
+    public Map<Long, DrugInfo> getDrugs(Collection<Long> ids) {
+        return drugs.getAll(ids);
+    }
+
+    public Supplier getSupplier(Long id) {
+        return suppliers.get(id);
+    }
+
+    public Map<Long, Supplier> getSuppliers(Collection<Long> ids) {
+        return suppliers.getAll(ids);
+    }
+
+    public void invalidateUser(Long id) {
+        invalidateNowAndAfterCommit(users, id);
+    }
+
+    public void invalidateRole(Long id) {
+        invalidateNowAndAfterCommit(roles, id);
+    }
+
+    public void invalidateSupplier(Long id) {
+        invalidateNowAndAfterCommit(suppliers, id);
+    }
+
+    /**
+     * 药品变更沿用 DrugInfoChangedEvent（与关键字检索索引同一时机）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDrugInfoChanged(DrugInfoChangedEvent event) {
+        drugs.invalidate(event.getDrugId());
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        users.invalidateAll();
+        roles.invalidateAll();
+        drugs.invalidateAll();
+        suppliers.invalidateAll();
+        log.info("已清空参考数据缓存");
+    }
+
+    /**
+     * 各缓存命中/未命中统计
+     */
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        list.add(users.stats());
+        list.add(roles.stats());
+        list.add(drugs.stats());
+        list.add(suppliers.stats());
+        return list;
+    }
+
+    private static <T> void invalidateNowAndAfterCommit(ReferenceCache<T> cache, Long id) {
+        cache.invalidate(id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(id);
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.cdiom.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -50,6 +51,82 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 导出任务执行器
+     * 独立于业务异步线程池，线程数与队列均有上限，避免大批量导出占满数据库连接
+     */
+    @Bean(name = "exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${cdiom.export.job.max-concurrent:2}") int maxConcurrent,
+            @Value("${cdiom.export.job.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-job-");
+        // 拒绝策略：直接拒绝，由提交方提示稍后再试（不能退化为在请求线程中执行）
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 仪表盘统计查询执行器
+     * 不设队列：线程用满时直接拒绝，由发起请求的线程自行执行剩余查询（见 DashboardQueryExecutor）
+     */
+    @Bean(name = "dashboardExecutor")
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${cdiom.dashboard.query.pool-size:8}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("dashboard-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 登录日志IP定位回填执行器
+     * 线程与队列均有上限：登录高峰时高德接口变慢，多出的回填任务直接放弃，不占用登录线程与数据库连接
+     */
+    @Bean(name = "ipLocationExecutor")
+    public ThreadPoolTaskExecutor ipLocationExecutor(
+            @Value("${cdiom.ip-location.backfill-pool-size:2}") int poolSize,
+            @Value("${cdiom.ip-location.backfill-queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ip-location-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 推送执行器（工作队列计数计算与 WebSocket 发送）
+     * 线程与队列均有上限：慢客户端阻塞的发送只占用本线程池，不影响 @Scheduled 调度线程与其他会话
+     */
+    @Bean(name = "pushExecutor")
+    public ThreadPoolTaskExecutor pushExecutor(
+            @Value("${cdiom.push.pool-size:4}") int poolSize,
+            @Value("${cdiom.push.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("push-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
 }
 
 
@@ -3,6 +3,8 @@ package com.cdiom.backend.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.cdiom.backend.config.interceptor.QueryCountInnerInterceptor;
+import com.cdiom.backend.config.interceptor.StatementDeadlineInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,15 +17,24 @@ import org.springframework.context.annotation.Configuration;
 public class MyBatisPlusConfig {
 
     /**
-     * 分页插件配置
+     * 分页插件配置；SQL 计数插件放在分页插件之前，以便统计分页 count 语句
      */
     @Bean
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new QueryCountInnerInterceptor());
         PaginationInnerInterceptor paginationInnerInterceptor = new PaginationInnerInterceptor();
         paginationInnerInterceptor.setDbType(DbType.MYSQL);
         interceptor.addInnerInterceptor(paginationInnerInterceptor);
         return interceptor;
     }
+
+    /**
+     * 按线程截止时间设置语句超时（仪表盘并行统计查询使用）
+     */
+    @Bean
+    public StatementDeadlineInterceptor statementDeadlineInterceptor() {
+        return new StatementDeadlineInterceptor();
+    }
 }
 
@@ -44,6 +44,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/system/info", "/api/v1/logs/recent", "/api/v1/health").permitAll()
                         // 允许WebSocket连接
                         .requestMatchers("/api/v1/logs/stream/**").permitAll()
+                        // 推送通道在握手拦截器中校验连接票据
+                        .requestMatchers("/api/v1/push/**").permitAll()
                         // 允许访问静态资源
                         .requestMatchers("/static/**", "/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
                         // 所有API接口都需要认证
@@ -1,20 +1,26 @@
 package com.cdiom.backend.config;
 
+import com.cdiom.backend.config.interceptor.QueryCountInterceptor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Web MVC配置
- * 用于配置静态资源访问
+ * 用于配置静态资源访问、按请求统计 SQL 条数
  * 
  * @author cdiom
  */
 @Configuration
+@RequiredArgsConstructor
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private final QueryCountInterceptor queryCountInterceptor;
+
     @Value("${file.upload.path:./uploads}")
     private String uploadPath;
 
@@ -28,5 +34,11 @@ public class WebMvcConfig implements WebMvcConfigurer {
         registry.addResourceHandler(fileUrl + "/**")
                 .addResourceLocations("file:" + uploadPath + "/");
     }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(queryCountInterceptor)
+                .addPathPatterns("/api/v1/**");
+    }
 }
 
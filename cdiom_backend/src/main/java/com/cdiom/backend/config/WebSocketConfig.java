@@ -1,6 +1,10 @@
 package com.cdiom.backend.config;
 
 import com.cdiom.backend.controller.LogWebSocketHandler;
+import com.cdiom.backend.push.PushHandshakeInterceptor;
+import com.cdiom.backend.push.PushWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
@@ -10,19 +14,33 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 
 /**
  * WebSocket配置
- * 用于实时日志流
+ * 用于实时日志流、仪表盘计数与工作队列推送
  * 
  * @author cdiom
  */
 @Configuration
 @EnableWebSocket
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private final PushWebSocketHandler pushWebSocketHandler;
+    private final PushHandshakeInterceptor pushHandshakeInterceptor;
+
+    /**
+     * 允许建立推送连接的前端来源（逗号分隔），拒绝其他站点页面发起的跨站连接
+     */
+    @Value("${cdiom.websocket.allowed-origins:http://localhost:5173}")
+    private String[] allowedOrigins;
+
     @Override
     public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
         // 注册WebSocket处理器，允许跨域
         registry.addHandler(logWebSocketHandler(), "/api/v1/logs/stream")
                 .setAllowedOriginPatterns("*");
+        // 推送通道，只允许配置的前端来源，握手时校验连接票据
+        registry.addHandler(pushWebSocketHandler, "/api/v1/push")
+                .addInterceptors(pushHandshakeInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
     }
 
     @Bean
@@ -1,6 +1,7 @@
 package com.cdiom.backend.config.filter;
 
 import com.cdiom.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -36,9 +37,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
         String token = getTokenFromRequest(request);
 
-        if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
-            String role = jwtUtil.getRoleFromToken(token);
-            Long userId = jwtUtil.getUserIdFromToken(token);
+        // 同一请求只验签一次，结果保存在请求属性中供权限拦截器复用
+        Claims claims = StringUtils.hasText(token) ? jwtUtil.verify(request, token) : null;
+        if (claims != null) {
+            String role = jwtUtil.getRole(claims);
+            Long userId = jwtUtil.getUserId(claims);
 
             if (role != null && userId != null) {
                 // 创建认证对象
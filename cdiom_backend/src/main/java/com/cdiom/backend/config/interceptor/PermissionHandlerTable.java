@@ -0,0 +1,133 @@
+package com.cdiom.backend.config.interceptor;
+
+import com.cdiom.backend.annotation.RequiresPermission;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 接口权限表
+ * <p>
+ * 启动完成后遍历全部 Controller 方法，解析 {@link RequiresPermission}（方法上优先，其次类上），
+ * 权限代码预先映射为权限字典中的位，生成不可变的 方法 -> 权限要求 表。
+ * 请求时 {@link PermissionInterceptor} 只做一次查表和一次位运算，不再反射读取注解。
+ * 表中不存在的方法（启动完成前到达的请求等）现场解析，不写入表。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class PermissionHandlerTable {
+
+    private final PermissionSnapshotCache permissionSnapshotCache;
+
+    /**
+     * 方法 -> 权限要求；没有注解的方法为 Optional.empty()
+     */
+    private volatile Map<Method, Optional<PermissionRequirement>> requirements = Collections.emptyMap();
+
+    private volatile List<Map<String, Object>> entries = Collections.emptyList();
+
+    public PermissionHandlerTable(PermissionSnapshotCache permissionSnapshotCache) {
+        this.permissionSnapshotCache = permissionSnapshotCache;
+    }
+
+    /**
+     * RequestMappingHandlerMapping 创建时需要权限拦截器（依赖本类），不能注入，从刷新完成的上下文中获取
+     */
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (!event.getApplicationContext().containsBean("requestMappingHandlerMapping")) {
+            return;
+        }
+        RequestMappingHandlerMapping mapping = event.getApplicationContext()
+                .getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+
+        Map<Method, Optional<PermissionRequirement>> table = new HashMap<>();
+        List<Map<String, Object>> list = new ArrayList<>();
+        int protectedCount = 0;
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+            HandlerMethod handlerMethod = entry.getValue();
+            PermissionRequirement requirement = resolve(handlerMethod);
+            table.put(handlerMethod.getMethod(), Optional.ofNullable(requirement));
+            if (requirement != null) {
+                protectedCount++;
+            }
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("mapping", entry.getKey().toString());
+            m.put("handler", handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName());
+            m.put("permissions", requirement != null ? requirement.getCodes() : null);
+            m.put("requireAll", requirement != null && requirement.isRequireAll());
+            m.put("loginOnly", requirement != null && requirement.isLoginOnly());
+            m.put("source", requirement != null ? requirement.getSource() : null);
+            list.add(m);
+        }
+        list.sort((a, b) -> ((String) a.get("handler")).compareTo((String) b.get("handler")));
+
+        this.requirements = Collections.unmodifiableMap(table);
+        this.entries = Collections.unmodifiableList(list);
+        log.info("接口权限表已生成：接口 {} 个，需要权限 {} 个", table.size(), protectedCount);
+    }
+
+    /**
+     * 接口的权限要求，没有 @RequiresPermission 时返回 null
+     */
+    public PermissionRequirement requirementOf(HandlerMethod handlerMethod) {
+        Optional<PermissionRequirement> requirement = requirements.get(handlerMethod.getMethod());
+        if (requirement != null) {
+            return requirement.orElse(null);
+        }
+        return resolve(handlerMethod);
+    }
+
+    /**
+     * 权限表（用于审计），按处理方法排序
+     */
+    public List<Map<String, Object>> entries() {
+        return entries;
+    }
+
+    private PermissionRequirement resolve(HandlerMethod handlerMethod) {
+        // 优先使用方法上的注解，如果没有则使用类上的注解
+        RequiresPermission annotation = handlerMethod.getMethod().getAnnotation(RequiresPermission.class);
+        String source = "method";
+        if (annotation == null) {
+            annotation = handlerMethod.getBeanType().getAnnotation(RequiresPermission.class);
+            source = "class";
+        }
+        if (annotation == null) {
+            return null;
+        }
+
+        String[] values = annotation.value();
+        List<String> codes = new ArrayList<>();
+        BitSet mask = new BitSet();
+        if (values != null) {
+            for (String value : values) {
+                if (value == null || value.trim().isEmpty()) {
+                    continue;
+                }
+                codes.add(value);
+                mask.set(permissionSnapshotCache.intern(value));
+            }
+        }
+        boolean loginOnly = values == null || values.length == 0;
+        return new PermissionRequirement(codes, mask, annotation.requireAll(), loginOnly, source);
+    }
+}
@@ -1,10 +1,11 @@
 package com.cdiom.backend.config.interceptor;
 
-import com.cdiom.backend.annotation.RequiresPermission;
+import com.cdiom.backend.cache.PermissionSnapshot;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
 import com.cdiom.backend.common.Result;
-import com.cdiom.backend.service.PermissionService;
 import com.cdiom.backend.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -15,8 +16,6 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -31,7 +30,8 @@ import lombok.extern.slf4j.Slf4j;
 public class PermissionInterceptor implements HandlerInterceptor {
 
     private final JwtUtil jwtUtil;
-    private final PermissionService permissionService;
+    private final PermissionHandlerTable permissionHandlerTable;
+    private final PermissionSnapshotCache permissionSnapshotCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -44,67 +44,47 @@ public class PermissionInterceptor implements HandlerInterceptor {
             return true;
         }
 
-        HandlerMethod handlerMethod = (HandlerMethod) handler;
-        Method method = handlerMethod.getMethod();
-        
-        // 检查方法上的权限注解
-        RequiresPermission methodAnnotation = method.getAnnotation(RequiresPermission.class);
-        
-        // 检查类上的权限注解
-        RequiresPermission classAnnotation = handlerMethod.getBeanType().getAnnotation(RequiresPermission.class);
-        
-        // 优先使用方法上的注解，如果没有则使用类上的注解
-        RequiresPermission annotation = methodAnnotation != null ? methodAnnotation : classAnnotation;
-        
+        // 权限要求在启动时预解析（方法上的注解优先，其次类上的注解）
+        PermissionRequirement requirement = permissionHandlerTable.requirementOf((HandlerMethod) handler);
+
         // 如果没有权限注解，则允许访问
-        if (annotation == null) {
+        if (requirement == null) {
             return true;
         }
 
         // 获取Token
         String token = getTokenFromRequest(request);
-        if (!StringUtils.hasText(token) || !jwtUtil.validateToken(token)) {
+        Claims claims = StringUtils.hasText(token) ? jwtUtil.verify(request, token) : null;
+        if (claims == null) {
             writeUnauthorizedResponse(response, "未登录或Token已过期");
             return false;
         }
 
         // 获取用户ID
-        Long userId = jwtUtil.getUserIdFromToken(token);
+        Long userId = jwtUtil.getUserId(claims);
         if (userId == null) {
             writeUnauthorizedResponse(response, "无法获取用户信息");
             return false;
         }
 
         // 检查权限
-        String[] permissionCodes = annotation.value();
-        if (permissionCodes == null || permissionCodes.length == 0) {
+        if (requirement.isLoginOnly()) {
             // 如果没有指定权限代码，允许访问
             return true;
         }
-        
-        boolean requireAll = annotation.requireAll();
 
         try {
-            if (requireAll) {
-                // 要求所有权限都满足
-                for (String permissionCode : permissionCodes) {
-                    if (permissionCode == null || permissionCode.trim().isEmpty()) {
-                        continue;
-                    }
-                    if (!permissionService.hasPermission(userId, permissionCode)) {
-                        writeErrorResponse(response, "权限不足：" + permissionCode);
-                        return false;
-                    }
-                }
-            } else {
-                // 任意一个权限满足即可
-                if (!permissionService.hasAnyPermission(userId, permissionCodes)) {
-                    writeErrorResponse(response, "权限不足，需要以下权限之一：" + String.join(", ", permissionCodes));
-                    return false;
+            PermissionSnapshot snapshot = permissionSnapshotCache.get(userId);
+            if (!requirement.isSatisfiedBy(snapshot)) {
+                if (requirement.isRequireAll()) {
+                    writeErrorResponse(response, "权限不足：" + requirement.firstMissing(snapshot));
+                } else {
+                    writeErrorResponse(response, "权限不足，需要以下权限之一：" + String.join(", ", requirement.getCodes()));
                 }
+                return false;
             }
         } catch (Exception e) {
-            log.error("权限检查异常，userId: {}, permissionCodes: {}", userId, List.of(permissionCodes), e);
+            log.error("权限检查异常，userId: {}, permissionCodes: {}", userId, requirement.getCodes(), e);
             writeErrorResponse(response, "权限检查失败，请联系管理员");
             return false;
         }
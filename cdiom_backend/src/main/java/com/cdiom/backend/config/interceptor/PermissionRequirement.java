@@ -0,0 +1,76 @@
+package com.cdiom.backend.config.interceptor;
+
+import com.cdiom.backend.cache.PermissionSnapshot;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 接口权限要求（由 {@link com.cdiom.backend.annotation.RequiresPermission} 预解析，不可变）
+ * <p>
+ * codes 为去除空白后的权限代码，mask 为这些代码在权限字典中的位；
+ * 注解未指定任何权限代码时只要求登录（{@link #isLoginOnly()}）。
+ *
+ * @author cdiom
+ */
+public final class PermissionRequirement {
+
+    private final List<String> codes;
+    private final BitSet mask;
+    private final boolean requireAll;
+    private final boolean loginOnly;
+    private final String source;
+
+    PermissionRequirement(List<String> codes, BitSet mask, boolean requireAll, boolean loginOnly, String source) {
+        this.codes = Collections.unmodifiableList(codes);
+        this.mask = mask;
+        this.requireAll = requireAll;
+        this.loginOnly = loginOnly;
+        this.source = source;
+    }
+
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    public boolean isRequireAll() {
+        return requireAll;
+    }
+
+    public boolean isLoginOnly() {
+        return loginOnly;
+    }
+
+    /**
+     * 注解来源：method 或 class
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 用户权限是否满足要求
+     */
+    public boolean isSatisfiedBy(PermissionSnapshot snapshot) {
+        if (loginOnly) {
+            return true;
+        }
+        if (snapshot == null) {
+            return false;
+        }
+        return requireAll ? snapshot.containsAll(mask) : snapshot.intersects(mask);
+    }
+
+    /**
+     * 第一个未满足的权限代码（requireAll 检查失败时用于提示）
+     */
+    public String firstMissing(PermissionSnapshot snapshot) {
+        for (String code : codes) {
+            if (snapshot == null || !snapshot.getCodes().contains(code)) {
+                return code;
+            }
+        }
+        return null;
+    }
+}
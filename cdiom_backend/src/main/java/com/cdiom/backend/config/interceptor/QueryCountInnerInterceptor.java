@@ -0,0 +1,40 @@
+package com.cdiom.backend.config.interceptor;
+
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * MyBatis-Plus 内部拦截器：每条查询/更新语句为当前请求计数（见 {@link QueryCountInterceptor}）
+ * 分页插件的 count 语句不经过拦截链，按分页参数是否需要统计总数补计一条。
+ *
+ * @author cdiom
+ */
+public class QueryCountInnerInterceptor implements InnerInterceptor {
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) {
+        if (ParameterUtils.findPage(parameter).map(page -> page.searchCount()).orElse(false)) {
+            QueryCountInterceptor.increment();
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) {
+        QueryCountInterceptor.increment();
+    }
+
+    @Override
+    public void beforeUpdate(Executor executor, MappedStatement ms, Object parameter) {
+        QueryCountInterceptor.increment();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cdiom.backend.config.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 按请求统计执行的 SQL 条数
+ * 计数由 {@link QueryCountInnerInterceptor} 在请求线程上累加；超过阈值时打印警告，便于发现逐行查询（N+1），
+ * 其余请求在 debug 级别输出。异步线程（如导出任务）中的查询不计入。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    @Value("${cdiom.query-count.warn-threshold:30}")
+    private int warnThreshold;
+
+    /**
+     * 当前请求的 SQL 计数加一；不在请求线程上时忽略
+     */
+    public static void increment() {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+
+    /**
+     * 在当前线程开始计数（请求开始时调用，也可用于统计一段非请求代码执行的 SQL 条数）
+     */
+    public static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    /**
+     * 结束当前线程的计数并返回条数；未开始计数时返回 -1
+     */
+    public static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter != null ? counter[0] : -1;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request,
+                                @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        int count = stop();
+        if (count < 0) {
+            return;
+        }
+        if (warnThreshold > 0 && count >= warnThreshold) {
+            log.warn("请求执行 SQL 条数过多：{} {}，共 {} 条", request.getMethod(), request.getRequestURI(), count);
+        } else {
+            log.debug("请求执行 SQL：{} {}，共 {} 条", request.getMethod(), request.getRequestURI(), count);
+        }
+    }
+}
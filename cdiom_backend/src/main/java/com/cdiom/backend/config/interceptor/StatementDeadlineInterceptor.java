@@ -0,0 +1,56 @@
+package com.cdiom.backend.config.interceptor;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按当前线程的截止时间设置 JDBC 语句超时（Statement#setQueryTimeout）
+ * <p>
+ * 调用方在 {@link #set(long)} 与 {@link #clear()} 之间执行的每条 SQL，超时设为距截止时间的剩余秒数（向上取整，至少 1 秒），
+ * 且不超过语句原有的超时；截止时间已过时直接失败，不再执行。未设置截止时间的线程不受影响。
+ * MySQL 驱动在超时后取消正在执行的查询，查询线程与其占用的连接随之释放。
+ *
+ * @author cdiom
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class StatementDeadlineInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    /**
+     * 设置当前线程的截止时间（System.nanoTime() 基准）
+     */
+    public static void set(long deadlineNanos) {
+        DEADLINE.set(deadlineNanos);
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return invocation.proceed();
+        }
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new IllegalStateException("已超过查询截止时间");
+        }
+        Statement statement = (Statement) invocation.proceed();
+        int seconds = (int) Math.max(1, (TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 999) / 1000);
+        int current = statement.getQueryTimeout();
+        if (current == 0 || seconds < current) {
+            statement.setQueryTimeout(seconds);
+        }
+        return statement;
+    }
+}
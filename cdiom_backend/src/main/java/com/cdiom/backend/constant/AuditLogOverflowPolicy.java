@@ -0,0 +1,14 @@
+package com.cdiom.backend.constant;
+
+/**
+ * 审计日志（登录/操作日志）写入队列已满时的处理方式
+ */
+public enum AuditLogOverflowPolicy {
+
+    /** 等待队列空位，超过 block-timeout-ms 后在调用线程中直接写库（不丢日志，请求变慢） */
+    BLOCK,
+    /** 追加到本地文件（spill-path），写入线程空闲时再补写入库 */
+    SPILL,
+    /** 丢弃并计数 */
+    DROP
+}
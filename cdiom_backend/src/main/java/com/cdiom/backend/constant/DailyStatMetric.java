@@ -0,0 +1,47 @@
+package com.cdiom.backend.constant;
+
+/**
+ * 按天汇总的统计指标：来源表、时间列、过滤条件与可选的分组维度列，汇总结果存于 daily_stats
+ * （维度 0 为当天总数，同时标记该天已汇总；维度列非空时另存各维度值的计数）
+ */
+public enum DailyStatMetric {
+
+    LOGIN_SUCCESS("login_log", "login_time", "status = 1", null),
+    LOGIN_FAIL("login_log", "login_time", "status = 0", null),
+    OPERATION_SUCCESS("operation_log", "operation_time", "status = 1", null),
+    /** 已第二人确认入账的合格入库（与 InboundRecordMapper.countTodayInbound 一致） */
+    INBOUND_CONFIRMED("inbound_record", "create_time", "status = 'QUALIFIED' AND second_confirm_status = 'CONFIRMED'", null),
+    /** 已出库的申请（与 OutboundApplyMapper.countTodayOutbound 一致） */
+    OUTBOUND_DONE("outbound_apply", "outbound_time", "status = 'OUTBOUND'", null),
+    PURCHASE_ORDER_BY_PURCHASER("purchase_order", "create_time", null, "purchaser_id"),
+    PURCHASE_ORDER_BY_SUPPLIER("purchase_order", "create_time", null, "supplier_id"),
+    OUTBOUND_APPLY_BY_APPLICANT("outbound_apply", "create_time", null, "applicant_id");
+
+    private final String table;
+    private final String timeColumn;
+    private final String condition;
+    private final String dimColumn;
+
+    DailyStatMetric(String table, String timeColumn, String condition, String dimColumn) {
+        this.table = table;
+        this.timeColumn = timeColumn;
+        this.condition = condition;
+        this.dimColumn = dimColumn;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getTimeColumn() {
+        return timeColumn;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public String getDimColumn() {
+        return dimColumn;
+    }
+}
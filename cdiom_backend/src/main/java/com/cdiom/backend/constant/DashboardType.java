@@ -0,0 +1,18 @@
+package com.cdiom.backend.constant;
+
+/**
+ * 仪表盘类型：与范围ID（用户ID、供应商ID，全局仪表盘为空）一起作为仪表盘缓存的键
+ */
+public enum DashboardType {
+
+    /** 系统统计（全局） */
+    STATISTICS,
+    /** 仓库工作台（全局） */
+    WAREHOUSE,
+    /** 采购专员工作台（按采购员） */
+    PURCHASER,
+    /** 医护人员工作台（按申请人） */
+    MEDICAL_STAFF,
+    /** 供应商工作台（按供应商） */
+    SUPPLIER
+}
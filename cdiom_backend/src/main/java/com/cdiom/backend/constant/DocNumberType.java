@@ -0,0 +1,35 @@
+package com.cdiom.backend.constant;
+
+/**
+ * 单据号类型：单号格式为 前缀 + 日期（yyyyMMdd）+ 至少3位序号，序号按前缀和日期由 doc_sequence 分配
+ */
+public enum DocNumberType {
+
+    OUTBOUND_APPLY("OUT", "outbound_apply", "apply_number"),
+    PURCHASE_ORDER("ORD", "purchase_order", "order_number"),
+    INBOUND_RECORD("IN", "inbound_record", "record_number"),
+    INVENTORY_ADJUSTMENT("ADJ", "inventory_adjustment", "adjustment_number");
+
+    private final String prefix;
+    /** 业务表与单号列：当天首次分配时据此续接已有的最大单号 */
+    private final String table;
+    private final String column;
+
+    DocNumberType(String prefix, String table, String column) {
+        this.prefix = prefix;
+        this.table = table;
+        this.column = column;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+}
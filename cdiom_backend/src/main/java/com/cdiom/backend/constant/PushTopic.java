@@ -0,0 +1,44 @@
+package com.cdiom.backend.constant;
+
+/**
+ * 推送主题：客户端通过 /api/v1/push 订阅，数据变化时收到变化的计数（见 WorkQueuePushService）
+ */
+public enum PushTopic {
+
+    /** 仓库待办与今日出入库计数（全局），权限与仓库工作台一致 */
+    WAREHOUSE("warehouse", "inventory:view", "inbound:view", "outbound:execute", "outbound:apply:on-behalf",
+            "outbound:approve", "outbound:approve:special", "drug:manage"),
+    /** 本人出库申请按状态计数 */
+    MY_OUTBOUND_APPLY("my-outbound-apply", "outbound:view", "outbound:apply", "outbound:apply:on-behalf",
+            "outbound:approve", "outbound:approve:special", "outbound:execute"),
+    /** 本人（采购员）或本供应商的采购订单按状态计数 */
+    MY_PURCHASE_ORDER("my-purchase-order", "purchase:view", "drug:view", "drug:manage"),
+    /** 指定本人为第二操作人、待确认的入库单数（登录即可订阅） */
+    MY_INBOUND_CONFIRM("my-inbound-confirm");
+
+    private final String code;
+    /** 订阅所需权限（满足其一），为空时登录即可 */
+    private final String[] permissions;
+
+    PushTopic(String code, String... permissions) {
+        this.code = code;
+        this.permissions = permissions;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String[] getPermissions() {
+        return permissions;
+    }
+
+    public static PushTopic ofCode(String code) {
+        for (PushTopic topic : values()) {
+            if (topic.code.equals(code)) {
+                return topic;
+            }
+        }
+        return null;
+    }
+}
@@ -3,6 +3,7 @@ package com.cdiom.backend.controller;
 import com.cdiom.backend.common.Result;
 import com.cdiom.backend.model.AdminContactInfo;
 import com.cdiom.backend.model.SysUser;
+import com.cdiom.backend.push.PushTicketService;
 import com.cdiom.backend.service.AuthService;
 import com.cdiom.backend.service.PermissionService;
 import jakarta.servlet.http.Cookie;
@@ -12,6 +13,8 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -26,6 +29,7 @@ public class AuthController {
 
     private final AuthService authService;
     private final PermissionService permissionService;
+    private final PushTicketService pushTicketService;
 
     /**
      * 用户登录
@@ -103,6 +107,21 @@ public class AuthController {
         return Result.success(authService.getAdminContactForUsers());
     }
 
+    /**
+     * 签发推送通道连接票据（一次性、短时有效），前端以 /api/v1/push?ticket= 建立 WebSocket 连接
+     */
+    @PostMapping("/push-ticket")
+    public Result<Map<String, Object>> issuePushTicket() {
+        SysUser user = authService.getCurrentUser();
+        if (user == null) {
+            return Result.error(401, "未登录");
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("ticket", pushTicketService.issue(user.getId()));
+        data.put("expiresIn", pushTicketService.getTtlSeconds());
+        return Result.success(data);
+    }
+
     /**
      * 用户登出
      */
@@ -48,8 +48,8 @@ public class DashboardController {
      */
     @GetMapping("/login-trend")
     @RequiresPermission("log:login:view")
-    public Result<Map<String, Object>> getLoginTrend() {
-        Map<String, Object> trend = dashboardService.getLoginTrend();
+    public Result<Map<String, Object>> getLoginTrend(@RequestParam(defaultValue = "7") Integer days) {
+        Map<String, Object> trend = dashboardService.getLoginTrend(days);
         return Result.success(trend);
     }
 
@@ -59,8 +59,8 @@ public class DashboardController {
      */
     @GetMapping("/operation-statistics")
     @RequiresPermission("log:operation:view")
-    public Result<Map<String, Object>> getOperationStatistics() {
-        Map<String, Object> statistics = dashboardService.getOperationLogStatistics();
+    public Result<Map<String, Object>> getOperationStatistics(@RequestParam(defaultValue = "7") Integer days) {
+        Map<String, Object> statistics = dashboardService.getOperationLogStatistics(days);
         return Result.success(statistics);
     }
 
@@ -4,18 +4,21 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.annotation.RequiresPermission;
 import com.cdiom.backend.common.Result;
+import com.cdiom.backend.export.ExportJob;
+import com.cdiom.backend.export.ExportJobManager;
 import com.cdiom.backend.mapper.DrugInfoMapper;
 import com.cdiom.backend.model.DrugInfo;
 import com.cdiom.backend.model.SysUser;
 import com.cdiom.backend.service.AuthService;
 import com.cdiom.backend.service.DrugInfoService;
 import com.cdiom.backend.service.ExcelExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,7 +26,6 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * 药品信息管理控制器
@@ -38,6 +40,7 @@ public class DrugInfoController {
 
     private final DrugInfoService drugInfoService;
     private final ExcelExportService excelExportService;
+    private final ExportJobManager exportJobManager;
     private final AuthService authService;
     private final DrugInfoMapper drugInfoMapper;
 
@@ -242,9 +245,10 @@ public class DrugInfoController {
      */
     @GetMapping("/export")
     @RequiresPermission({"drug:manage"})
-    public ResponseEntity<byte[]> exportDrugInfoList(
+    public void exportDrugInfoList(
             @RequestParam(required = false) String keyword,
-            @RequestParam(required = false) Integer isSpecial) {
+            @RequestParam(required = false) Integer isSpecial,
+            HttpServletResponse response) {
         try {
             // 获取当前用户
             SysUser currentUser = authService.getCurrentUser();
@@ -252,44 +256,64 @@ public class DrugInfoController {
                 throw new RuntimeException("未登录或登录已过期");
             }
 
-            // 构建查询条件（与列表查询保持一致）
-            LambdaQueryWrapper<DrugInfo> wrapper = new LambdaQueryWrapper<>();
-            
-            if (StringUtils.hasText(keyword)) {
-                wrapper.and(w -> w.like(DrugInfo::getDrugName, keyword)
-                        .or().like(DrugInfo::getNationalCode, keyword)
-                        .or().like(DrugInfo::getApprovalNumber, keyword)
-                        .or().like(DrugInfo::getManufacturer, keyword));
-            }
-            
-            if (isSpecial != null) {
-                wrapper.eq(DrugInfo::getIsSpecial, isSpecial);
-            }
-            
-            wrapper.orderByDesc(DrugInfo::getCreateTime);
-            
-            // 查询所有数据（不分页）
-            List<DrugInfo> drugList = drugInfoMapper.selectList(wrapper);
-
-            // 生成Excel
-            byte[] excelBytes = excelExportService.exportDrugInfoList(drugList, currentUser);
+            LambdaQueryWrapper<DrugInfo> wrapper = buildExportWrapper(keyword, isSpecial);
 
             // 设置响应头
             String fileName = "药品列表_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
             String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.formData().name("attachment").filename(encodedFileName).build().toString());
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", encodedFileName);
-            headers.setContentLength(excelBytes.length);
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            // 边查询边写入响应流，不在内存中保留完整结果集和工作簿
+            excelExportService.exportDrugInfoList(
+                    () -> drugInfoMapper.streamList(wrapper), currentUser, response.getOutputStream());
+            response.flushBuffer();
         } catch (Exception e) {
             throw new RuntimeException("导出失败: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * 提交药品列表异步导出任务，通过 /api/v1/export-jobs 查询进度并下载
+     */
+    @PostMapping("/export-jobs")
+    @RequiresPermission({"drug:manage"})
+    public Result<ExportJob> submitExportJob(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Integer isSpecial) {
+        SysUser currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            return Result.error("未登录或登录已过期");
+        }
+        LambdaQueryWrapper<DrugInfo> wrapper = buildExportWrapper(keyword, isSpecial);
+        ExportJob job = exportJobManager.submit(currentUser, "DRUG", "药品列表",
+                () -> drugInfoMapper.selectCount(wrapper),
+                (out, progress) -> excelExportService.exportDrugInfoList(
+                        () -> drugInfoMapper.streamList(wrapper), currentUser, out, progress));
+        return Result.success("导出任务已提交", job);
+    }
+
+    /**
+     * 构建导出查询条件（与列表查询保持一致）
+     */
+    private LambdaQueryWrapper<DrugInfo> buildExportWrapper(String keyword, Integer isSpecial) {
+        LambdaQueryWrapper<DrugInfo> wrapper = new LambdaQueryWrapper<>();
 
+        if (StringUtils.hasText(keyword)) {
+            wrapper.and(w -> w.like(DrugInfo::getDrugName, keyword)
+                    .or().like(DrugInfo::getNationalCode, keyword)
+                    .or().like(DrugInfo::getApprovalNumber, keyword)
+                    .or().like(DrugInfo::getManufacturer, keyword));
+        }
+
+        if (isSpecial != null) {
+            wrapper.eq(DrugInfo::getIsSpecial, isSpecial);
+        }
+
+        // 流式查询为自定义 SQL，不会自动追加逻辑删除条件
+        wrapper.eq(DrugInfo::getDeleted, 0);
+        wrapper.orderByDesc(DrugInfo::getCreateTime);
+        return wrapper;
+    }
+}
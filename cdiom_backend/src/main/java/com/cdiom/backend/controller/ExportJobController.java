@@ -0,0 +1,79 @@
+package com.cdiom.backend.controller;
+
+import com.cdiom.backend.common.Result;
+import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.export.ExportJob;
+import com.cdiom.backend.export.ExportJobManager;
+import com.cdiom.backend.service.AuthService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 异步导出任务控制器
+ * 各业务模块通过 POST .../export-jobs 提交任务（沿用各自导出接口的权限），此处查询进度、下载与删除本人的任务
+ *
+ * @author cdiom
+ */
+@RestController
+@RequestMapping("/api/v1/export-jobs")
+@RequiredArgsConstructor
+public class ExportJobController {
+
+    private final ExportJobManager exportJobManager;
+    private final AuthService authService;
+
+    /**
+     * 当前用户的导出任务列表
+     */
+    @GetMapping
+    public Result<List<ExportJob>> listJobs() {
+        return Result.success(exportJobManager.listJobs(authService.getCurrentUserId()));
+    }
+
+    /**
+     * 查询导出任务进度
+     */
+    @GetMapping("/{id}")
+    public Result<ExportJob> getJob(@PathVariable String id) {
+        return Result.success(exportJobManager.getJob(id, authService.getCurrentUserId()));
+    }
+
+    /**
+     * 下载导出文件，支持 Range 请求（断点续传）
+     */
+    @GetMapping("/{id}/file")
+    public ResponseEntity<Resource> downloadFile(@PathVariable String id) {
+        ExportJob job = exportJobManager.getJob(id, authService.getCurrentUserId());
+        if (!ExportJob.STATUS_COMPLETED.equals(job.getStatus()) || !Files.exists(job.getFilePath())) {
+            throw new ServiceException("导出文件尚未生成或已过期");
+        }
+        String encodedFileName = URLEncoder.encode(job.getFileName(), StandardCharsets.UTF_8);
+        // 返回 Resource 时由 Spring MVC 处理 Range 头，按请求区间返回 206 Partial Content
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.formData().name("attachment").filename(encodedFileName).build().toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(new FileSystemResource(job.getFilePath()));
+    }
+
+    /**
+     * 删除已结束的导出任务及文件
+     */
+    @DeleteMapping("/{id}")
+    public Result<Void> deleteJob(@PathVariable String id) {
+        exportJobManager.removeJob(id, authService.getCurrentUserId());
+        return Result.success();
+    }
+}
@@ -3,23 +3,28 @@ package com.cdiom.backend.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.annotation.RequiresPermission;
 import com.cdiom.backend.common.Result;
+import com.cdiom.backend.export.ExportJob;
+import com.cdiom.backend.export.ExportJobManager;
 import com.cdiom.backend.mapper.InventoryMapper;
 import com.cdiom.backend.model.Inventory;
 import com.cdiom.backend.model.SysUser;
 import com.cdiom.backend.service.AuthService;
 import com.cdiom.backend.service.ExcelExportService;
+import com.cdiom.backend.service.InventoryMovementService;
 import com.cdiom.backend.service.InventoryService;
+import com.cdiom.backend.service.StockReservationService;
 import com.cdiom.backend.service.SysUserService;
 import com.cdiom.backend.util.SystemConfigUtil;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URLEncoder;
@@ -43,7 +48,10 @@ import java.util.Map;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
+    private final InventoryMovementService inventoryMovementService;
     private final ExcelExportService excelExportService;
+    private final ExportJobManager exportJobManager;
     private final AuthService authService;
     private final InventoryMapper inventoryMapper;
     private final SysUserService sysUserService;
@@ -51,6 +59,7 @@ public class InventoryController {
 
     /**
      * 分页查询库存列表
+     * 传 lastId（上一页最后一条的库存ID）时按键集翻页，深翻页无需扫描前面的行；searchCount=false 可跳过总数统计
      */
     @GetMapping
     public Result<Page<Inventory>> getInventoryList(
@@ -62,10 +71,12 @@ public class InventoryController {
             @RequestParam(required = false) String storageLocation,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDateStart,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDateEnd,
-            @RequestParam(required = false) Integer isSpecial) {
+            @RequestParam(required = false) Integer isSpecial,
+            @RequestParam(required = false) Long lastId,
+            @RequestParam(defaultValue = "true") Boolean searchCount) {
         Page<Inventory> inventoryPage = inventoryService.getInventoryList(
                 page, size, keyword, drugId, batchNumber, storageLocation,
-                expiryDateStart, expiryDateEnd, isSpecial);
+                expiryDateStart, expiryDateEnd, isSpecial, lastId, Boolean.TRUE.equals(searchCount));
         return Result.success(inventoryPage);
     }
 
@@ -121,6 +132,25 @@ public class InventoryController {
         return Result.success(m);
     }
 
+    /**
+     * 某药品的可用量：现有库存（未过期批次）、已审批出库申请占用、可用 = 现有 - 占用
+     */
+    @GetMapping("/availability")
+    public Result<Map<String, Object>> getStockAvailability(@RequestParam Long drugId) {
+        return Result.success(stockReservationService.getStockAvailability(drugId));
+    }
+
+    /**
+     * 某药品（可选批次）在指定时点的库存，由最近快照回放库存流水得出
+     */
+    @GetMapping("/stock-at")
+    public Result<Map<String, Object>> getStockAt(
+            @RequestParam Long drugId,
+            @RequestParam(required = false) String batchNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        return Result.success(inventoryMovementService.getStockAt(drugId, batchNumber, time));
+    }
+
     /**
      * 获取库存总量
      */
@@ -134,14 +164,15 @@ public class InventoryController {
      * 导出库存列表到Excel
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportInventoryList(
+    public void exportInventoryList(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long drugId,
             @RequestParam(required = false) String batchNumber,
             @RequestParam(required = false) String storageLocation,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDateStart,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDateEnd,
-            @RequestParam(required = false) Integer isSpecial) {
+            @RequestParam(required = false) Integer isSpecial,
+            HttpServletResponse response) {
         try {
             // 获取当前用户
             SysUser currentUser = authService.getCurrentUser();
@@ -150,30 +181,53 @@ public class InventoryController {
             }
 
             // 与分页列表使用同一套 JOIN 条件，避免导出与界面筛选不一致
-            List<Inventory> inventoryList = inventoryMapper.selectInventoryListWithJoin(
-                    keyword, drugId, batchNumber, storageLocation,
-                    expiryDateStart, expiryDateEnd, isSpecial);
-
-            // 生成Excel
-            byte[] excelBytes = excelExportService.exportInventoryList(inventoryList, currentUser);
-
             // 设置响应头
             String fileName = "库存列表_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
             String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", encodedFileName);
-            headers.setContentLength(excelBytes.length);
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.formData().name("attachment").filename(encodedFileName).build().toString());
+
+            // 边查询边写入响应流，不在内存中保留完整结果集和工作簿
+            excelExportService.exportInventoryList(
+                    () -> inventoryMapper.streamInventoryListWithJoin(
+                            keyword, null, drugId, batchNumber, storageLocation,
+                            expiryDateStart, expiryDateEnd, isSpecial),
+                    currentUser, response.getOutputStream());
+            response.flushBuffer();
         } catch (Exception e) {
             throw new RuntimeException("导出失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 提交库存列表异步导出任务，通过 /api/v1/export-jobs 查询进度并下载
+     */
+    @PostMapping("/export-jobs")
+    public Result<ExportJob> submitExportJob(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long drugId,
+            @RequestParam(required = false) String batchNumber,
+            @RequestParam(required = false) String storageLocation,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDateStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiryDateEnd,
+            @RequestParam(required = false) Integer isSpecial) {
+        SysUser currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            return Result.error("未登录或登录已过期");
+        }
+        ExportJob job = exportJobManager.submit(currentUser, "INVENTORY", "库存列表",
+                () -> inventoryMapper.countInventoryListWithJoin(
+                        keyword, null, drugId, batchNumber, storageLocation,
+                        expiryDateStart, expiryDateEnd, isSpecial),
+                (out, progress) -> excelExportService.exportInventoryList(
+                        () -> inventoryMapper.streamInventoryListWithJoin(
+                                keyword, null, drugId, batchNumber, storageLocation,
+                                expiryDateStart, expiryDateEnd, isSpecial),
+                        currentUser, out, progress));
+        return Result.success("导出任务已提交", job);
+    }
+
     @Data
     public static class StorageLocationUpdateRequest {
         @NotBlank(message = "存储位置不能为空")
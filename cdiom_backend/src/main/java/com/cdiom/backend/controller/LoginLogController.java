@@ -3,22 +3,24 @@ package com.cdiom.backend.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.annotation.RequiresPermission;
 import com.cdiom.backend.common.Result;
+import com.cdiom.backend.export.ExportJob;
+import com.cdiom.backend.export.ExportJobManager;
 import com.cdiom.backend.model.LoginLog;
 import com.cdiom.backend.model.SysUser;
 import com.cdiom.backend.service.AuthService;
 import com.cdiom.backend.service.ExcelExportService;
 import com.cdiom.backend.service.LoginLogService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * 登录日志控制器
@@ -34,6 +36,7 @@ public class LoginLogController {
     private final LoginLogService loginLogService;
     private final AuthService authService;
     private final ExcelExportService excelExportService;
+    private final ExportJobManager exportJobManager;
 
     /**
      * 分页查询登录日志列表
@@ -53,29 +56,51 @@ public class LoginLogController {
      * 导出登录日志（Excel，与当前筛选条件一致，最多 10000 条）
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportLoginLogs(
+    public void exportLoginLogs(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long userId,
-            @RequestParam(required = false) Integer status) {
+            @RequestParam(required = false) Integer status,
+            HttpServletResponse response) {
         try {
             SysUser currentUser = authService.getCurrentUser();
             if (currentUser == null) {
                 throw new RuntimeException("未登录或登录已过期");
             }
-            List<LoginLog> logs = loginLogService.listLogsForExport(keyword, userId, status);
-            byte[] excelBytes = excelExportService.exportLoginLogList(logs, currentUser);
             String fileName = "登录日志_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
             String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", encodedFileName);
-            headers.setContentLength(excelBytes.length);
-            return ResponseEntity.ok().headers(headers).body(excelBytes);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.formData().name("attachment").filename(encodedFileName).build().toString());
+
+            // 边查询边写入响应流，不在内存中保留完整结果集和工作簿
+            excelExportService.exportLoginLogList(
+                    () -> loginLogService.streamLogsForExport(keyword, userId, status),
+                    currentUser, response.getOutputStream());
+            response.flushBuffer();
         } catch (Exception e) {
             throw new RuntimeException("导出失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 提交登录日志异步导出任务（条件与同步导出一致，最多 10000 条），通过 /api/v1/export-jobs 查询进度并下载
+     */
+    @PostMapping("/export-jobs")
+    public Result<ExportJob> submitExportJob(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Integer status) {
+        SysUser currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            return Result.error("未登录或登录已过期");
+        }
+        ExportJob job = exportJobManager.submit(currentUser, "LOGIN_LOG", "登录日志",
+                () -> loginLogService.countLogsForExport(keyword, userId, status),
+                (out, progress) -> excelExportService.exportLoginLogList(
+                        () -> loginLogService.streamLogsForExport(keyword, userId, status), currentUser, out, progress));
+        return Result.success("导出任务已提交", job);
+    }
+
     /**
      * 根据ID查询登录日志
      */
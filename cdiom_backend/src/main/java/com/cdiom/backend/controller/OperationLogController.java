@@ -3,22 +3,24 @@ package com.cdiom.backend.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.annotation.RequiresPermission;
 import com.cdiom.backend.common.Result;
+import com.cdiom.backend.export.ExportJob;
+import com.cdiom.backend.export.ExportJobManager;
 import com.cdiom.backend.model.OperationLog;
 import com.cdiom.backend.model.SysUser;
 import com.cdiom.backend.service.AuthService;
 import com.cdiom.backend.service.ExcelExportService;
 import com.cdiom.backend.service.OperationLogService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * 操作日志控制器
@@ -34,6 +36,7 @@ public class OperationLogController {
     private final OperationLogService operationLogService;
     private final AuthService authService;
     private final ExcelExportService excelExportService;
+    private final ExportJobManager exportJobManager;
 
     /**
      * 分页查询操作日志列表
@@ -55,32 +58,55 @@ public class OperationLogController {
      * 导出操作日志（Excel，与当前筛选条件一致，最多 10000 条）
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportOperationLogs(
+    public void exportOperationLogs(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long userId,
             @RequestParam(required = false) String module,
             @RequestParam(required = false) String operationType,
-            @RequestParam(required = false) Integer status) {
+            @RequestParam(required = false) Integer status,
+            HttpServletResponse response) {
         try {
             SysUser currentUser = authService.getCurrentUser();
             if (currentUser == null) {
                 throw new RuntimeException("未登录或登录已过期");
             }
-            List<OperationLog> logs = operationLogService.listLogsForExport(
-                    keyword, userId, module, operationType, status);
-            byte[] excelBytes = excelExportService.exportOperationLogList(logs, currentUser);
             String fileName = "操作日志_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
             String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", encodedFileName);
-            headers.setContentLength(excelBytes.length);
-            return ResponseEntity.ok().headers(headers).body(excelBytes);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.formData().name("attachment").filename(encodedFileName).build().toString());
+
+            // 边查询边写入响应流，不在内存中保留完整结果集和工作簿
+            excelExportService.exportOperationLogList(
+                    () -> operationLogService.streamLogsForExport(keyword, userId, module, operationType, status),
+                    currentUser, response.getOutputStream());
+            response.flushBuffer();
         } catch (Exception e) {
             throw new RuntimeException("导出失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 提交操作日志异步导出任务（条件与同步导出一致，最多 10000 条），通过 /api/v1/export-jobs 查询进度并下载
+     */
+    @PostMapping("/export-jobs")
+    public Result<ExportJob> submitExportJob(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) Integer status) {
+        SysUser currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            return Result.error("未登录或登录已过期");
+        }
+        ExportJob job = exportJobManager.submit(currentUser, "OPERATION_LOG", "操作日志",
+                () -> operationLogService.countLogsForExport(keyword, userId, module, operationType, status),
+                (out, progress) -> excelExportService.exportOperationLogList(
+                        () -> operationLogService.streamLogsForExport(keyword, userId, module, operationType, status), currentUser, out, progress));
+        return Result.success("导出任务已提交", job);
+    }
+
     /**
      * 根据ID查询操作日志
      */
@@ -3,6 +3,8 @@ package com.cdiom.backend.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.annotation.RequiresPermission;
 import com.cdiom.backend.common.Result;
+import com.cdiom.backend.export.ExportJob;
+import com.cdiom.backend.export.ExportJobManager;
 import com.cdiom.backend.model.PurchaseOrder;
 import com.cdiom.backend.model.PurchaseOrderItem;
 import com.cdiom.backend.model.Supplier;
@@ -20,9 +22,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
@@ -52,6 +54,7 @@ public class PurchaseOrderController {
     private final SupplierService supplierService;
     private final JwtUtil jwtUtil;
     private final ExcelExportService excelExportService;
+    private final ExportJobManager exportJobManager;
     private final PurchaseOrderMapper purchaseOrderMapper;
 
     /**
@@ -552,12 +555,13 @@ public class PurchaseOrderController {
      * 导出采购订单列表到Excel
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportPurchaseOrderList(
+    public void exportPurchaseOrderList(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long supplierId,
             @RequestParam(required = false) Long purchaserId,
             @RequestParam(required = false) String status,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             // 获取当前用户
             SysUser currentUser = authService.getCurrentUser();
@@ -565,62 +569,84 @@ public class PurchaseOrderController {
                 throw new RuntimeException("未登录或登录已过期");
             }
             
-            // 如果是供应商角色，只能查看自己的订单
-            if (currentUser.getRoleId() != null && currentUser.getRoleId() == 5L) {
-                Supplier supplier = supplierService.findSupplierForUser(currentUser.getId(), currentUser.getPhone());
-                if (supplier != null) {
-                    supplierId = supplier.getId();
-                } else {
-                    supplierId = -1L;
-                }
-            }
-
-            // 构建查询条件（与列表查询保持一致）
-            LambdaQueryWrapper<PurchaseOrder> wrapper = new LambdaQueryWrapper<>();
-            
-            if (StringUtils.hasText(keyword)) {
-                wrapper.and(w -> w.like(PurchaseOrder::getOrderNumber, keyword)
-                        .or().like(PurchaseOrder::getLogisticsNumber, keyword));
-            }
-            
-            if (supplierId != null && supplierId != -1L) {
-                wrapper.eq(PurchaseOrder::getSupplierId, supplierId);
-            } else if (supplierId != null && supplierId == -1L) {
-                // 供应商用户没有关联的供应商记录，返回空结果
-                wrapper.eq(PurchaseOrder::getId, -1);
-            }
-            
-            if (purchaserId != null) {
-                wrapper.eq(PurchaseOrder::getPurchaserId, purchaserId);
-            }
-            
-            if (StringUtils.hasText(status)) {
-                wrapper.eq(PurchaseOrder::getStatus, status);
-            }
-            
-            wrapper.orderByDesc(PurchaseOrder::getCreateTime);
-            
-            // 查询所有数据（不分页）
-            List<PurchaseOrder> orderList = purchaseOrderMapper.selectList(wrapper);
-
-            // 生成Excel
-            byte[] excelBytes = excelExportService.exportPurchaseOrderList(orderList, currentUser);
+            LambdaQueryWrapper<PurchaseOrder> wrapper = buildExportWrapper(currentUser, keyword, supplierId, purchaserId, status);
 
             // 设置响应头
             String fileName = "采购订单列表_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
             String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.formData().name("attachment").filename(encodedFileName).build().toString());
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", encodedFileName);
-            headers.setContentLength(excelBytes.length);
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+            // 边查询边写入响应流，不在内存中保留完整结果集和工作簿
+            excelExportService.exportPurchaseOrderList(
+                    () -> purchaseOrderMapper.streamList(wrapper), currentUser, response.getOutputStream());
+            response.flushBuffer();
         } catch (Exception e) {
             throw new RuntimeException("导出失败: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * 提交采购订单列表异步导出任务，通过 /api/v1/export-jobs 查询进度并下载
+     */
+    @PostMapping("/export-jobs")
+    public Result<ExportJob> submitExportJob(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long supplierId,
+            @RequestParam(required = false) Long purchaserId,
+            @RequestParam(required = false) String status) {
+        SysUser currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            return Result.error("未登录或登录已过期");
+        }
+        LambdaQueryWrapper<PurchaseOrder> wrapper = buildExportWrapper(currentUser, keyword, supplierId, purchaserId, status);
+        ExportJob job = exportJobManager.submit(currentUser, "PURCHASE_ORDER", "采购订单列表",
+                () -> purchaseOrderMapper.selectCount(wrapper),
+                (out, progress) -> excelExportService.exportPurchaseOrderList(
+                        () -> purchaseOrderMapper.streamList(wrapper), currentUser, out, progress));
+        return Result.success("导出任务已提交", job);
+    }
+
+    /**
+     * 构建导出查询条件（与列表查询保持一致；供应商只能导出自己的订单）
+     */
+    private LambdaQueryWrapper<PurchaseOrder> buildExportWrapper(SysUser currentUser, String keyword, Long supplierId,
+                                                                 Long purchaserId, String status) {
+        // 如果是供应商角色，只能查看自己的订单
+        if (currentUser.getRoleId() != null && currentUser.getRoleId() == 5L) {
+            Supplier supplier = supplierService.findSupplierForUser(currentUser.getId(), currentUser.getPhone());
+            if (supplier != null) {
+                supplierId = supplier.getId();
+            } else {
+                supplierId = -1L;
+            }
+        }
+
+        // 构建查询条件（与列表查询保持一致）
+        LambdaQueryWrapper<PurchaseOrder> wrapper = new LambdaQueryWrapper<>();
+
+        if (StringUtils.hasText(keyword)) {
+            wrapper.and(w -> w.like(PurchaseOrder::getOrderNumber, keyword)
+                    .or().like(PurchaseOrder::getLogisticsNumber, keyword));
+        }
+
+        if (supplierId != null && supplierId != -1L) {
+            wrapper.eq(PurchaseOrder::getSupplierId, supplierId);
+        } else if (supplierId != null && supplierId == -1L) {
+            // 供应商用户没有关联的供应商记录，返回空结果
+            wrapper.eq(PurchaseOrder::getId, -1);
+        }
+
+        if (purchaserId != null) {
+            wrapper.eq(PurchaseOrder::getPurchaserId, purchaserId);
+        }
+
+        if (StringUtils.hasText(status)) {
+            wrapper.eq(PurchaseOrder::getStatus, status);
+        }
+
+        wrapper.orderByDesc(PurchaseOrder::getCreateTime);
+        return wrapper;
+    }
+}
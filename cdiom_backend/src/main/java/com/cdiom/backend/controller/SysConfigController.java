@@ -2,7 +2,12 @@ package com.cdiom.backend.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.annotation.RequiresPermission;
+import com.cdiom.backend.audit.AuditLogWriter;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
+import com.cdiom.backend.cache.ReferenceDataCache;
+import com.cdiom.backend.dashboard.DashboardCache;
 import com.cdiom.backend.common.Result;
+import com.cdiom.backend.config.interceptor.PermissionHandlerTable;
 import com.cdiom.backend.model.SysConfig;
 import com.cdiom.backend.service.SysConfigService;
 import com.cdiom.backend.util.LoginConfigUtil;
@@ -12,6 +17,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +34,11 @@ public class SysConfigController {
     private final SysConfigService sysConfigService;
     private final SystemConfigUtil systemConfigUtil;
     private final LoginConfigUtil loginConfigUtil;
+    private final ReferenceDataCache referenceDataCache;
+    private final DashboardCache dashboardCache;
+    private final PermissionSnapshotCache permissionSnapshotCache;
+    private final PermissionHandlerTable permissionHandlerTable;
+    private final AuditLogWriter auditLogWriter;
 
     /**
      * 各模块当前生效的运行时参数（与 sys_config 表映射，JWT 等对非法表值有回退）
@@ -45,6 +56,73 @@ public class SysConfigController {
         return Result.success(m);
     }
 
+    /**
+     * 用户/角色/药品/供应商参考数据缓存的命中统计
+     */
+    @GetMapping("/reference-cache")
+    public Result<List<Map<String, Object>>> getReferenceCacheStats() {
+        return Result.success(referenceDataCache.stats());
+    }
+
+    /**
+     * 清空参考数据缓存（直接改库后使用）
+     */
+    @DeleteMapping("/reference-cache")
+    public Result<Void> clearReferenceCache() {
+        referenceDataCache.invalidateAll();
+        return Result.success();
+    }
+
+    /**
+     * 仪表盘结果缓存的命中统计
+     */
+    @GetMapping("/dashboard-cache")
+    public Result<Map<String, Object>> getDashboardCacheStats() {
+        return Result.success(dashboardCache.stats());
+    }
+
+    /**
+     * 清空仪表盘结果缓存
+     */
+    @DeleteMapping("/dashboard-cache")
+    public Result<Void> clearDashboardCache() {
+        dashboardCache.invalidateAll();
+        return Result.success();
+    }
+
+    /**
+     * 用户权限快照缓存的命中统计与当前权限版本号
+     */
+    @GetMapping("/permission-cache")
+    public Result<Map<String, Object>> getPermissionCacheStats() {
+        return Result.success(permissionSnapshotCache.stats());
+    }
+
+    /**
+     * 清空全部节点的用户权限缓存（直接改库修改权限后使用）
+     */
+    @DeleteMapping("/permission-cache")
+    public Result<Void> clearPermissionCache() {
+        permissionSnapshotCache.invalidateAll();
+        return Result.success();
+    }
+
+    /**
+     * 接口权限表（启动时由 @RequiresPermission 生成），用于审计各接口需要的权限
+     */
+    @GetMapping("/permission-table")
+    public Result<List<Map<String, Object>>> getPermissionTable() {
+        return Result.success(permissionHandlerTable.entries());
+    }
+
+    /**
+     * 审计日志异步写入统计（队列长度、写入/溢出/丢弃/失败条数）
+     */
+    @GetMapping("/audit-log")
+    public Result<Map<String, Object>> getAuditLogStats() {
+        return Result.success(auditLogWriter.stats());
+    }
+
     /**
      * 分页查询参数配置列表
      */
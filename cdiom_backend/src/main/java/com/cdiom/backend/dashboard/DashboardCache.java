@@ -0,0 +1,258 @@
+package com.cdiom.backend.dashboard;
+
+import com.cdiom.backend.constant.DashboardType;
+import com.cdiom.backend.event.DrugInfoChangedEvent;
+import com.cdiom.backend.event.InventoryChangedEvent;
+import com.cdiom.backend.event.OutboundApplyChangedEvent;
+import com.cdiom.backend.event.PurchaseOrderChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘结果缓存
+ * <p>
+ * 按（仪表盘类型, 范围ID）缓存整份仪表盘结果：写入后 ttl-seconds 内直接返回；超过 ttl 但未超过 ttl + stale-seconds 时
+ * 先返回旧结果，同时提交到 dashboardExecutor 后台刷新（线程池满时本次不刷新）；更旧或不存在时在请求线程计算。
+ * 同一键的并发计算（含后台刷新）合并为一次，其余请求等待同一结果。
+ * 库存、出库申请、采购订单、药品变更事件在事务提交后使相关仪表盘失效；每次失效递增该键的版本号（清空全部时递增全局代次），
+ * 计算期间该键发生过失效的结果只返回给调用方、不写入缓存，其他键的失效不影响本键写入。
+ * 版本号按计算过的键保留（数量与仪表盘用户、供应商数同级），不随缓存条目清理。有统计项失败或超时（partial=true）的结果不缓存。
+ * 返回的 Map 在请求之间共享，只能读取。多实例部署时其他节点的缓存依赖过期时间收敛。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class DashboardCache {
+
+    private final TaskExecutor dashboardExecutor;
+
+    @Value("${cdiom.dashboard.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cdiom.dashboard.cache.ttl-seconds:15}")
+    private long ttlSeconds;
+
+    @Value("${cdiom.dashboard.cache.stale-seconds:60}")
+    private long staleSeconds;
+
+    @Value("${cdiom.dashboard.cache.max-entries:2000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Map<String, Object>>> loading = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DashboardCache(@Qualifier("dashboardExecutor") TaskExecutor dashboardExecutor) {
+        this.dashboardExecutor = dashboardExecutor;
+    }
+
+    /**
+     * 读取仪表盘，未命中时调用 loader 计算
+     *
+     * @param type    仪表盘类型
+     * @param scopeId 范围ID（用户ID/供应商ID），全局仪表盘传 null
+     * @param loader  计算整份仪表盘（可能在后台线程执行，不得依赖当前请求的上下文）
+     */
+    public Map<String, Object> get(DashboardType type, Long scopeId, Supplier<Map<String, Object>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = key(type, scopeId);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.createdAt;
+            if (age < ttlSeconds * 1000) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < (ttlSeconds + staleSeconds) * 1000) {
+                staleHits.increment();
+                refreshInBackground(key, loader);
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return load(key, loader);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        invalidate(DashboardType.WAREHOUSE, null);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOutboundApplyChanged(OutboundApplyChangedEvent event) {
+        invalidate(DashboardType.WAREHOUSE, null);
+        invalidate(DashboardType.MEDICAL_STAFF, event.getApplicantId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPurchaseOrderChanged(PurchaseOrderChangedEvent event) {
+        invalidate(DashboardType.WAREHOUSE, null);
+        invalidate(DashboardType.PURCHASER, event.getPurchaserId());
+        invalidate(DashboardType.SUPPLIER, event.getSupplierId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDrugInfoChanged(DrugInfoChangedEvent event) {
+        invalidate(DashboardType.WAREHOUSE, null);
+        invalidate(DashboardType.STATISTICS, null);
+    }
+
+    /**
+     * 使某个仪表盘失效；按范围区分的仪表盘 scopeId 为空时不处理
+     */
+    public void invalidate(DashboardType type, Long scopeId) {
+        if (scopeId == null && type != DashboardType.STATISTICS && type != DashboardType.WAREHOUSE) {
+            return;
+        }
+        String key = key(type, scopeId);
+        // 没有版本号的键从未开始计算，不需要递增
+        AtomicLong keyVersion = versions.get(key);
+        if (keyVersion != null) {
+            keyVersion.incrementAndGet();
+        }
+        entries.remove(key);
+        invalidations.increment();
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        entries.clear();
+        invalidations.increment();
+        log.info("已清空仪表盘缓存");
+    }
+
+    /**
+     * 命中统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("size", entries.size());
+        m.put("ttlSeconds", ttlSeconds);
+        m.put("staleSeconds", staleSeconds);
+        m.put("hits", hits.sum());
+        m.put("staleHits", staleHits.sum());
+        m.put("misses", misses.sum());
+        m.put("coalesced", coalesced.sum());
+        m.put("invalidations", invalidations.sum());
+        return m;
+    }
+
+    /**
+     * 在当前线程计算；同一键已有计算在进行时等待其结果，该计算失败时自行计算（不写缓存）
+     */
+    private Map<String, Object> load(String key, Supplier<Map<String, Object>> loader) {
+        CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                return loader.get();
+            }
+        }
+        try {
+            Map<String, Object> value = compute(key, loader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private void refreshInBackground(String key, Supplier<Map<String, Object>> loader) {
+        CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, future) != null) {
+            return;
+        }
+        Runnable refresh = () -> {
+            try {
+                future.complete(compute(key, loader));
+            } catch (RuntimeException e) {
+                log.warn("仪表盘缓存后台刷新失败：{}, error={}", key, e.getMessage());
+                future.completeExceptionally(e);
+            } finally {
+                loading.remove(key, future);
+            }
+        };
+        try {
+            dashboardExecutor.execute(refresh);
+        } catch (TaskRejectedException e) {
+            // 线程池已满：继续返回旧结果，下次读取时再尝试刷新
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private Map<String, Object> compute(String key, Supplier<Map<String, Object>> loader) {
+        AtomicLong keyVersion = versions.computeIfAbsent(key, k -> new AtomicLong());
+        long loadVersion = keyVersion.get();
+        long loadEpoch = epoch.get();
+        Map<String, Object> value = loader.get();
+        if (value == null || Boolean.TRUE.equals(value.get("partial"))
+                || keyVersion.get() != loadVersion || epoch.get() != loadEpoch) {
+            return value;
+        }
+        if (entries.size() >= maxEntries) {
+            purgeExpired();
+        }
+        Entry entry = new Entry(value, System.currentTimeMillis());
+        entries.put(key, entry);
+        // 写入与失效交错时撤回本次写入
+        if (keyVersion.get() != loadVersion || epoch.get() != loadEpoch) {
+            entries.remove(key, entry);
+        }
+        return value;
+    }
+
+    private void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - (ttlSeconds + staleSeconds) * 1000;
+        entries.values().removeIf(e -> e.createdAt < expireBefore);
+    }
+
+    private static String key(DashboardType type, Long scopeId) {
+        return scopeId != null ? type.name() + ":" + scopeId : type.name();
+    }
+
+    private static final class Entry {
+        private final Map<String, Object> value;
+        private final long createdAt;
+
+        private Entry(Map<String, Object> value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
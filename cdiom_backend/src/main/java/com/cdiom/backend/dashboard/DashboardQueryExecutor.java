@@ -0,0 +1,205 @@
+package com.cdiom.backend.dashboard;
+
+import com.cdiom.backend.config.interceptor.StatementDeadlineInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仪表盘统计并行查询
+ * <p>
+ * 一个仪表盘的各项统计互不依赖，登记到同一个 {@link QueryBatch} 后由若干工作者并行执行：
+ * 工作者提交到独立的 dashboardExecutor 线程池（线程池满时不排队），请求线程只等待结果；
+ * 一个工作者都提交不了时才由请求线程自己执行。单个仪表盘同时占用的数据库连接数不超过
+ * cdiom.dashboard.query.max-parallel-per-request。
+ * 整批最多等待 cdiom.dashboard.query.timeout-ms：每条 SQL 的 JDBC 语句超时设为距截止时间的剩余时间
+ * （{@link StatementDeadlineInterceptor}），超时的查询被取消并释放连接，未开始的查询不再执行；
+ * 未完成或执行失败的统计项取默认值，返回部分结果（{@link QueryBatch#isPartial()}）。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class DashboardQueryExecutor {
+
+    private final TaskExecutor dashboardExecutor;
+
+    @Value("${cdiom.dashboard.query.max-parallel-per-request:4}")
+    private int maxParallelPerRequest;
+
+    @Value("${cdiom.dashboard.query.timeout-ms:5000}")
+    private long timeoutMs;
+
+    public DashboardQueryExecutor(@Qualifier("dashboardExecutor") TaskExecutor dashboardExecutor) {
+        this.dashboardExecutor = dashboardExecutor;
+    }
+
+    /**
+     * 创建一批统计查询
+     *
+     * @param name 仪表盘名称（用于日志）
+     */
+    public QueryBatch newBatch(String name) {
+        return new QueryBatch(name);
+    }
+
+    /**
+     * 统计项结果：run 之后为查询结果，失败或超时时为默认值
+     */
+    @FunctionalInterface
+    public interface QueryResult<V> {
+        V get();
+    }
+
+    /**
+     * 一个仪表盘的统计查询：先 add 登记，再 run 并行执行，之后通过 add 返回的 {@link QueryResult} 读取结果
+     */
+    public final class QueryBatch {
+
+        private final String name;
+        private final List<Slot<?>> slots = new ArrayList<>();
+        private boolean partial;
+
+        private QueryBatch(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 登记一项统计
+         *
+         * @param key      统计项名称（用于日志）
+         * @param query    查询
+         * @param fallback 查询失败或超时时的默认值
+         * @return run 之后返回查询结果或默认值
+         */
+        public <V> QueryResult<V> add(String key, Callable<V> query, V fallback) {
+            Slot<V> slot = new Slot<>(key, query, fallback);
+            slots.add(slot);
+            return slot::get;
+        }
+
+        /**
+         * 并行执行已登记的查询，全部完成或超时后返回
+         */
+        public QueryBatch run() {
+            if (slots.isEmpty()) {
+                return this;
+            }
+            Queue<Slot<?>> pending = new ConcurrentLinkedQueue<>(slots);
+            CountDownLatch finished = new CountDownLatch(slots.size());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            Runnable worker = () -> {
+                StatementDeadlineInterceptor.set(deadline);
+                try {
+                    Slot<?> slot;
+                    while ((slot = pending.poll()) != null) {
+                        if (System.nanoTime() - deadline < 0) {
+                            slot.execute();
+                        }
+                        finished.countDown();
+                    }
+                } finally {
+                    StatementDeadlineInterceptor.clear();
+                }
+            };
+
+            int workers = Math.max(1, Math.min(maxParallelPerRequest, slots.size()));
+            int started = 0;
+            for (int i = 0; i < workers; i++) {
+                try {
+                    dashboardExecutor.execute(worker);
+                    started++;
+                } catch (TaskRejectedException e) {
+                    // 线程池已满：剩余查询由已启动的工作者执行
+                    break;
+                }
+            }
+            if (started == 0) {
+                // 线程池没有空闲线程：由请求线程执行（同样受语句超时约束）
+                worker.run();
+            }
+
+            try {
+                finished.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            List<String> degraded = new ArrayList<>();
+            for (Slot<?> slot : slots) {
+                if (!slot.freeze()) {
+                    degraded.add(slot.key);
+                }
+            }
+            if (!degraded.isEmpty()) {
+                partial = true;
+                log.warn("仪表盘 {} 部分统计未完成，已使用默认值：{}", name, degraded);
+            }
+            return this;
+        }
+
+        /**
+         * 是否有统计项因失败或超时使用了默认值
+         */
+        public boolean isPartial() {
+            return partial;
+        }
+    }
+
+    /**
+     * 单项统计：执行结果在 freeze 后固定，超时后才完成的查询不再改变已返回的值
+     */
+    private static final class Slot<V> {
+        private final String key;
+        private final Callable<V> query;
+        private final V fallback;
+        private V value;
+        private boolean succeeded;
+        private boolean frozen;
+
+        private Slot(String key, Callable<V> query, V fallback) {
+            this.key = key;
+            this.query = query;
+            this.fallback = fallback;
+        }
+
+        private void execute() {
+            V result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                log.warn("仪表盘统计项查询失败：{}, error={}", key, e.getMessage());
+                return;
+            }
+            synchronized (this) {
+                if (!frozen) {
+                    value = result;
+                    succeeded = true;
+                }
+            }
+        }
+
+        /**
+         * 固定结果，返回是否查询成功
+         */
+        private synchronized boolean freeze() {
+            frozen = true;
+            return succeeded;
+        }
+
+        private synchronized V get() {
+            return succeeded && value != null ? value : fallback;
+        }
+    }
+}
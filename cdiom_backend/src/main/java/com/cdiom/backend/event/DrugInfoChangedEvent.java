@@ -0,0 +1,19 @@
+package com.cdiom.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 药品信息新增、修改、逻辑删除或恢复后发布。
+ * 监听方应在事务提交后处理，回滚的变更不会被感知。
+ */
+@Getter
+public class DrugInfoChangedEvent extends ApplicationEvent {
+
+    private final Long drugId;
+
+    public DrugInfoChangedEvent(Object source, Long drugId) {
+        super(source);
+        this.drugId = drugId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cdiom.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 入库记录新增或第二人确认状态变化（确认、驳回、撤回、超时关闭）后发布。
+ * 监听方应在事务提交后处理，回滚的变更不会被感知。
+ */
+@Getter
+public class InboundRecordChangedEvent extends ApplicationEvent {
+
+    private final Long recordId;
+    /** 第二操作人（无第二人流程时为空） */
+    private final Long secondOperatorId;
+
+    public InboundRecordChangedEvent(Object source, Long recordId, Long secondOperatorId) {
+        super(source);
+        this.recordId = recordId;
+        this.secondOperatorId = secondOperatorId;
+    }
+}
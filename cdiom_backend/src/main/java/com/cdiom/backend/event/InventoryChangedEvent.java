@@ -0,0 +1,21 @@
+package com.cdiom.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 库存批次数量/货位发生变化后发布（入库、出库、库存调整、货位维护）。
+ * 监听方应在事务提交后处理，回滚的变更不会被感知。
+ */
+@Getter
+public class InventoryChangedEvent extends ApplicationEvent {
+
+    private final Long drugId;
+    private final String batchNumber;
+
+    public InventoryChangedEvent(Object source, Long drugId, String batchNumber) {
+        super(source);
+        this.drugId = drugId;
+        this.batchNumber = batchNumber;
+    }
+}
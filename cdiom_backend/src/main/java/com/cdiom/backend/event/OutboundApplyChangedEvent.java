@@ -0,0 +1,21 @@
+package com.cdiom.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 出库申请新增或状态变化（审批、第二审批、驳回、出库、取消、撤回）后发布。
+ * 监听方应在事务提交后处理，回滚的变更不会被感知。
+ */
+@Getter
+public class OutboundApplyChangedEvent extends ApplicationEvent {
+
+    private final Long applyId;
+    private final Long applicantId;
+
+    public OutboundApplyChangedEvent(Object source, Long applyId, Long applicantId) {
+        super(source);
+        this.applyId = applyId;
+        this.applicantId = applicantId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.cdiom.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 采购订单新增、修改、删除或状态变化（确认、拒绝、发货、取消、入库完成）后发布。
+ * 监听方应在事务提交后处理，回滚的变更不会被感知。
+ */
+@Getter
+public class PurchaseOrderChangedEvent extends ApplicationEvent {
+
+    private final Long orderId;
+    private final Long supplierId;
+    private final Long purchaserId;
+
+    public PurchaseOrderChangedEvent(Object source, Long orderId, Long supplierId, Long purchaserId) {
+        super(source);
+        this.orderId = orderId;
+        this.supplierId = supplierId;
+        this.purchaserId = purchaserId;
+    }
+}
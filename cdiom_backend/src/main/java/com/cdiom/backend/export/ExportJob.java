@@ -0,0 +1,103 @@
+package com.cdiom.backend.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * 异步导出任务（进程内状态，供前端轮询进度与下载）
+ *
+ * @author cdiom
+ */
+@Data
+public class ExportJob {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 任务ID（随机 UUID，同时作为临时文件名）
+     */
+    private String id;
+
+    /**
+     * 提交人ID
+     */
+    private Long userId;
+
+    /**
+     * 导出类型：DRUG/INVENTORY/PURCHASE_ORDER/OPERATION_LOG/LOGIN_LOG
+     */
+    private String type;
+
+    /**
+     * 下载文件名
+     */
+    private String fileName;
+
+    /**
+     * 状态：QUEUED/RUNNING/COMPLETED/FAILED
+     */
+    private volatile String status;
+
+    /**
+     * 预计总行数（开始执行后统计；未知时为 null）
+     */
+    private volatile Long totalRows;
+
+    /**
+     * 已写入的数据行数
+     */
+    private volatile long rowsWritten;
+
+    /**
+     * 生成完成后的文件大小（字节）
+     */
+    private volatile Long fileSize;
+
+    /**
+     * 失败原因
+     */
+    private volatile String errorMessage;
+
+    private LocalDateTime createTime;
+
+    private volatile LocalDateTime finishTime;
+
+    /**
+     * 过期时间（完成或失败后开始计时，过期后任务与文件一并清除）
+     */
+    private volatile LocalDateTime expireTime;
+
+    /**
+     * 文件路径（不对外暴露）
+     */
+    @JsonIgnore
+    private Path filePath;
+
+    /**
+     * 完成百分比：完成时为 100；执行中按已写入行数/总行数估算，最多 99
+     */
+    public int getPercent() {
+        if (STATUS_COMPLETED.equals(status)) {
+            return 100;
+        }
+        Long total = totalRows;
+        if (total == null || total <= 0) {
+            return 0;
+        }
+        return (int) Math.min(99, rowsWritten * 100 / total);
+    }
+
+    /**
+     * 是否仍在排队或执行中
+     */
+    @JsonIgnore
+    public boolean isActive() {
+        return STATUS_QUEUED.equals(status) || STATUS_RUNNING.equals(status);
+    }
+}
@@ -0,0 +1,217 @@
+package com.cdiom.backend.export;
+
+import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.model.SysUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 异步导出任务管理
+ * <p>
+ * 导出在独立的有界线程池中执行，边查询边写入上传目录下 exports/ 的临时文件，完成后改名为正式文件供下载；
+ * 每个用户同时排队/执行的任务数有上限，避免大批量导出挤占业务事务的线程与数据库连接。
+ * 任务状态仅保存在本进程内存中，完成或失败后保留一段时间，过期由定时任务清理任务与文件；重启时清空残留文件。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class ExportJobManager {
+
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final TaskExecutor exportExecutor;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${cdiom.export.job.per-user-limit:2}")
+    private int perUserLimit;
+
+    @Value("${cdiom.export.job.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobManager(@Qualifier("exportExecutor") TaskExecutor exportExecutor) {
+        this.exportExecutor = exportExecutor;
+    }
+
+    /**
+     * 导出写入逻辑：将数据写入给定输出流，并通过 progress 上报已写入行数
+     */
+    @FunctionalInterface
+    public interface ExportWriter {
+        void write(OutputStream out, LongConsumer progress) throws IOException;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cleanOnStartup() {
+        Path dir = exportDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        // 任务状态不跨进程保留，上次运行遗留的文件已无法下载
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("清理导出目录残留文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param user       提交人
+     * @param type       导出类型
+     * @param namePrefix 下载文件名前缀（如「药品列表」）
+     * @param counter    统计预计总行数（在任务线程中执行，用于计算进度）
+     * @param writer     导出写入逻辑
+     */
+    public ExportJob submit(SysUser user, String type, String namePrefix, LongSupplier counter, ExportWriter writer) {
+        ExportJob job = new ExportJob();
+        job.setId(UUID.randomUUID().toString().replace("-", ""));
+        job.setUserId(user.getId());
+        job.setType(type);
+        job.setFileName(namePrefix + "_" + LocalDateTime.now().format(FILE_TIME_FORMATTER) + ".xlsx");
+        job.setStatus(ExportJob.STATUS_QUEUED);
+        job.setCreateTime(LocalDateTime.now());
+        job.setFilePath(exportDir().resolve(job.getId() + ".xlsx"));
+
+        synchronized (this) {
+            long active = jobs.values().stream()
+                    .filter(j -> user.getId().equals(j.getUserId()) && j.isActive())
+                    .count();
+            if (active >= perUserLimit) {
+                throw new ServiceException("您已有 " + active + " 个导出任务正在进行，请等待完成后再提交");
+            }
+            jobs.put(job.getId(), job);
+        }
+
+        try {
+            exportExecutor.execute(() -> run(job, counter, writer, user));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new ServiceException("导出任务排队已满，请稍后再试");
+        }
+        return job;
+    }
+
+    private void run(ExportJob job, LongSupplier counter, ExportWriter writer, SysUser user) {
+        job.setStatus(ExportJob.STATUS_RUNNING);
+        Path target = job.getFilePath();
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            job.setTotalRows(counter.getAsLong());
+            Files.createDirectories(target.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                writer.write(out, job::setRowsWritten);
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            job.setFileSize(Files.size(target));
+            job.setStatus(ExportJob.STATUS_COMPLETED);
+            log.info("导出任务完成: id={}, type={}, user={}, rows={}",
+                    job.getId(), job.getType(), user.getUsername(), job.getRowsWritten());
+        } catch (Exception e) {
+            log.warn("导出任务失败: id={}, type={}, {}", job.getId(), job.getType(), e.getMessage());
+            job.setErrorMessage(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            job.setStatus(ExportJob.STATUS_FAILED);
+            deleteQuietly(part);
+        } finally {
+            job.setFinishTime(LocalDateTime.now());
+            job.setExpireTime(job.getFinishTime().plusMinutes(retentionMinutes));
+        }
+    }
+
+    /**
+     * 查询任务（仅限提交人本人）
+     */
+    public ExportJob getJob(String id, Long userId) {
+        ExportJob job = jobs.get(id);
+        if (job == null || !job.getUserId().equals(userId)) {
+            throw new ServiceException(404, "导出任务不存在或已过期");
+        }
+        return job;
+    }
+
+    /**
+     * 当前用户的任务列表（按提交时间倒序）
+     */
+    public List<ExportJob> listJobs(Long userId) {
+        List<ExportJob> result = new ArrayList<>();
+        for (ExportJob job : jobs.values()) {
+            if (job.getUserId().equals(userId)) {
+                result.add(job);
+            }
+        }
+        result.sort(Comparator.comparing(ExportJob::getCreateTime).reversed());
+        return result;
+    }
+
+    /**
+     * 删除已结束的任务及其文件
+     */
+    public void removeJob(String id, Long userId) {
+        ExportJob job = getJob(id, userId);
+        if (job.isActive()) {
+            throw new ServiceException("导出任务尚未完成，不能删除");
+        }
+        jobs.remove(id);
+        deleteQuietly(job.getFilePath());
+    }
+
+    /**
+     * 清理已过期的任务与文件
+     */
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        for (ExportJob job : jobs.values()) {
+            LocalDateTime expireTime = job.getExpireTime();
+            if (expireTime != null && expireTime.isBefore(now) && jobs.remove(job.getId(), job)) {
+                deleteQuietly(job.getFilePath());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Path exportDir() {
+        return Paths.get(uploadPath, "exports");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败: {}, {}", file, e.getMessage());
+        }
+    }
+}
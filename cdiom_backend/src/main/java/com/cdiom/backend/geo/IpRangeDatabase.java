@@ -0,0 +1,230 @@
+package com.cdiom.backend.geo;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地 IPv4 地址段库（只读，内存映射）
+ * <p>
+ * 文件格式（大端）：
+ * <pre>
+ * 头部 16 字节：magic "CDIP" | 版本 int | 地址段数 int | 字符串区偏移 int
+ * 地址段 12 字节/条，按起始地址升序且互不重叠：起始地址 uint32 | 结束地址 uint32 | 位置字符串偏移 int
+ * 字符串区：每个位置 uint16 长度 + UTF-8 字节，相同位置只存一份
+ * </pre>
+ * 查询对地址段做二分查找，不加锁、不分配缓冲区以外的内存；实例创建后不可变，可被多线程共享。
+ * 数据文件由 {@link #build(BufferedReader, Path)}（或 main 方法）从「起始IP,结束IP,位置」格式的 CSV 生成。
+ *
+ * @author cdiom
+ */
+public final class IpRangeDatabase {
+
+    private static final int MAGIC = 0x43444950;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int poolOffset;
+
+    private IpRangeDatabase(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("不是有效的IP地址段库文件");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("不支持的IP地址段库版本：" + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.poolOffset = buffer.getInt(12);
+        if (count < 0 || (long) HEADER_SIZE + (long) count * RECORD_SIZE > poolOffset || poolOffset > buffer.capacity()) {
+            throw new IllegalArgumentException("IP地址段库文件已损坏");
+        }
+    }
+
+    /**
+     * 以只读方式映射数据文件
+     */
+    public static IpRangeDatabase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IpRangeDatabase(mapped);
+        }
+    }
+
+    /**
+     * 地址段数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 查询 IPv4 地址所在地址段的位置；不是合法 IPv4 地址或不在任何地址段内时返回 null
+     */
+    public String lookup(String ip) {
+        long address = parseIpv4(ip);
+        if (address < 0) {
+            return null;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = HEADER_SIZE + mid * RECORD_SIZE;
+            long start = Integer.toUnsignedLong(buffer.getInt(record));
+            long end = Integer.toUnsignedLong(buffer.getInt(record + 4));
+            if (address < start) {
+                high = mid - 1;
+            } else if (address > end) {
+                low = mid + 1;
+            } else {
+                return readString(poolOffset + buffer.getInt(record + 8));
+            }
+        }
+        return null;
+    }
+
+    private String readString(int offset) {
+        int length = Short.toUnsignedInt(buffer.getShort(offset));
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析点分十进制 IPv4 地址为无符号整数，不合法时返回 -1（不做 DNS 解析）
+     */
+    static long parseIpv4(String ip) {
+        if (ip == null) {
+            return -1;
+        }
+        long address = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && octets < 3) {
+                address = (address << 8) | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (value < 0 || octets != 3) {
+            return -1;
+        }
+        return (address << 8) | value;
+    }
+
+    /**
+     * 由 CSV 生成数据文件：每行「起始IP,结束IP,位置」，空行与 # 开头的行忽略；地址段不得重叠
+     *
+     * @return 写入的地址段数
+     */
+    public static int build(BufferedReader csv, Path out) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        List<String> locations = new ArrayList<>();
+        String line;
+        int lineNo = 0;
+        while ((line = csv.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",", 3);
+            long start = parts.length == 3 ? parseIpv4(parts[0].trim()) : -1;
+            long end = parts.length == 3 ? parseIpv4(parts[1].trim()) : -1;
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException("第 " + lineNo + " 行格式不正确：" + line);
+            }
+            ranges.add(new long[]{start, end, locations.size()});
+            locations.add(parts[2].trim());
+        }
+        ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 1; i < ranges.size(); i++) {
+            if (ranges.get(i)[0] <= ranges.get(i - 1)[1]) {
+                throw new IllegalArgumentException("地址段重叠：" + formatIpv4(ranges.get(i)[0]));
+            }
+        }
+
+        Map<String, Integer> offsets = new HashMap<>();
+        List<byte[]> pool = new ArrayList<>();
+        int poolSize = 0;
+        int[] recordOffsets = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            String location = locations.get((int) ranges.get(i)[2]);
+            Integer offset = offsets.get(location);
+            if (offset == null) {
+                byte[] bytes = location.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IllegalArgumentException("位置过长：" + location);
+                }
+                offset = poolSize;
+                offsets.put(location, offset);
+                pool.add(bytes);
+                poolSize += 2 + bytes.length;
+            }
+            recordOffsets[i] = offset;
+        }
+
+        try (OutputStream os = Files.newOutputStream(out);
+             DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(ranges.size());
+            dos.writeInt(HEADER_SIZE + ranges.size() * RECORD_SIZE);
+            for (int i = 0; i < ranges.size(); i++) {
+                dos.writeInt((int) ranges.get(i)[0]);
+                dos.writeInt((int) ranges.get(i)[1]);
+                dos.writeInt(recordOffsets[i]);
+            }
+            for (byte[] bytes : pool) {
+                dos.writeShort(bytes.length);
+                dos.write(bytes);
+            }
+        }
+        return ranges.size();
+    }
+
+    private static String formatIpv4(long address) {
+        return ((address >> 24) & 0xFF) + "." + ((address >> 16) & 0xFF) + "." + ((address >> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    /**
+     * 生成数据文件：java -cp ... com.cdiom.backend.geo.IpRangeDatabase ip_ranges.csv ip_ranges.dat
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法：IpRangeDatabase <输入CSV> <输出文件>");
+            System.exit(1);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            int count = build(reader, Paths.get(args[1]));
+            System.out.println("已生成 " + count + " 个地址段：" + args[1]);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.cdiom.backend.inventory;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cdiom.backend.event.InventoryChangedEvent;
+import com.cdiom.backend.mapper.InventoryMapper;
+import com.cdiom.backend.model.Inventory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 常驻内存的按药品 FIFO 批次索引
+ * <p>
+ * 每个药品保存数量大于 0 的批次，按 (有效期, 批次号) 升序排列，用于可用量校验与 FIFO 出库规划，
+ * 读取无需访问数据库。库存变更事务提交后按 (药品, 批次) 回读单行刷新；定时对账任务全量比对 inventory 表兜底。
+ * 关闭开关（cdiom.inventory.batch-index.enabled=false）、尚未完成加载或当前事务已改过该药品时，
+ * 调用方应回退到数据库查询（见 {@link #canServe(Long)}）。
+ * 批次每次写入/替换同步维护 {@link InventoryExpiryHistogram}，近效期统计同样以 {@link #isAvailable()} 为准。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryBatchIndex {
+
+    private static final int LOCK_STRIPES = 64;
+
+    /** 事务资源键：当前事务内已变更库存的药品ID集合 */
+    private static final Object PENDING_DRUGS_KEY = new Object();
+
+    private static final Comparator<BatchEntry> FIFO_ORDER = Comparator
+            .comparing((BatchEntry b) -> b.expiryDate != null ? b.expiryDate : LocalDate.MAX)
+            .thenComparing(b -> b.batchNumber != null ? b.batchNumber : "");
+
+    private final InventoryMapper inventoryMapper;
+    private final InventoryExpiryHistogram expiryHistogram;
+
+    @Value("${cdiom.inventory.batch-index.enabled:true}")
+    private boolean enabled;
+
+    // 药品ID -> 批次槽位（批次列表整体替换，读取无锁）
+    private final Map<Long, DrugSlot> slots = new ConcurrentHashMap<>();
+
+    // 按药品分段的写锁：单批次刷新与对账替换互斥
+    private final Object[] locks = createLocks();
+
+    private volatile boolean ready;
+
+    /**
+     * 索引是否可用于查询（开关开启且已完成首次加载）
+     */
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("库存批次索引已关闭，可用量与 FIFO 查询走数据库");
+            return;
+        }
+        try {
+            expiryHistogram.rollForward(LocalDate.now());
+            reconcile();
+            ready = true;
+        } catch (Exception e) {
+            log.warn("库存批次索引加载失败，回退数据库查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 某药品能否由索引回答：当前事务内已改过该药品库存时，索引尚未包含未提交的变更，需回退数据库读自身写入
+     */
+    public boolean canServe(Long drugId) {
+        if (!isAvailable()) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_DRUGS_KEY);
+        return pending == null || !pending.contains(drugId);
+    }
+
+    /**
+     * 库存变更发生时（事务内）登记该药品，直到事务结束
+     */
+    @EventListener
+    public void onInventoryChanging(InventoryChangedEvent event) {
+        if (!enabled || event.getDrugId() == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_DRUGS_KEY);
+        if (pending == null) {
+            pending = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_DRUGS_KEY, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_DRUGS_KEY);
+                }
+            });
+        }
+        pending.add(event.getDrugId());
+    }
+
+    /**
+     * 库存变更提交后刷新对应批次；无事务调用时立即刷新
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled || event.getDrugId() == null || event.getBatchNumber() == null) {
+            return;
+        }
+        try {
+            refreshBatch(event.getDrugId(), event.getBatchNumber());
+        } catch (Exception e) {
+            // 刷新失败不影响已提交的业务，待下次对账修正
+            log.warn("库存批次索引刷新失败：药品ID={}, 批次号={}, error={}", event.getDrugId(), event.getBatchNumber(), e.getMessage());
+        }
+    }
+
+    /**
+     * 按 (药品, 批次) 回读数据库当前值并写入索引
+     */
+    public void refreshBatch(Long drugId, String batchNumber) {
+        synchronized (lockFor(drugId)) {
+            LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(Inventory::getDrugId, drugId);
+            wrapper.eq(Inventory::getBatchNumber, batchNumber);
+            Inventory row = inventoryMapper.selectOne(wrapper);
+
+            DrugSlot slot = slots.computeIfAbsent(drugId, k -> new DrugSlot());
+            List<BatchEntry> next = new ArrayList<>(slot.batches.size() + 1);
+            for (BatchEntry b : slot.batches) {
+                if (!batchNumber.equals(b.batchNumber)) {
+                    next.add(b);
+                } else {
+                    expiryHistogram.remove(b.expiryDate, b.quantity);
+                }
+            }
+            if (row != null && row.getQuantity() != null && row.getQuantity() > 0) {
+                BatchEntry entry = BatchEntry.of(row);
+                next.add(entry);
+                expiryHistogram.add(entry.expiryDate, entry.quantity);
+            }
+            next.sort(FIFO_ORDER);
+            slot.batches = Collections.unmodifiableList(next);
+            slot.version++;
+        }
+    }
+
+    /**
+     * 全量对账：以 inventory 表为准重建索引。
+     * 对账读取期间被单批次刷新过的药品跳过替换，避免旧快照覆盖新值。
+     *
+     * @return 与数据库不一致而被修正的药品数
+     */
+    public int reconcile() {
+        Map<Long, Long> versionsBefore = new HashMap<>();
+        for (Map.Entry<Long, DrugSlot> e : slots.entrySet()) {
+            versionsBefore.put(e.getKey(), e.getValue().version);
+        }
+
+        LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
+        wrapper.gt(Inventory::getQuantity, 0);
+        List<Inventory> rows = inventoryMapper.selectList(wrapper);
+
+        Map<Long, List<BatchEntry>> loaded = new HashMap<>();
+        for (Inventory row : rows) {
+            loaded.computeIfAbsent(row.getDrugId(), k -> new ArrayList<>()).add(BatchEntry.of(row));
+        }
+
+        int corrected = 0;
+        List<Long> drugIds = new ArrayList<>(loaded.keySet());
+        for (Long drugId : slots.keySet()) {
+            if (!loaded.containsKey(drugId)) {
+                drugIds.add(drugId);
+            }
+        }
+        for (Long drugId : drugIds) {
+            List<BatchEntry> fresh = loaded.getOrDefault(drugId, new ArrayList<>());
+            fresh.sort(FIFO_ORDER);
+            synchronized (lockFor(drugId)) {
+                DrugSlot slot = slots.get(drugId);
+                Long before = versionsBefore.get(drugId);
+                // 对账开始后才出现、被移除或版本变化的药品都已由单批次刷新写入新值，跳过
+                if (before == null ? slot != null : (slot == null || before != slot.version)) {
+                    continue;
+                }
+                if (slot == null) {
+                    slot = new DrugSlot();
+                    slots.put(drugId, slot);
+                }
+                if (!sameBatches(slot.batches, fresh)) {
+                    if (ready) {
+                        corrected++;
+                    }
+                    for (BatchEntry b : slot.batches) {
+                        expiryHistogram.remove(b.expiryDate, b.quantity);
+                    }
+                    for (BatchEntry b : fresh) {
+                        expiryHistogram.add(b.expiryDate, b.quantity);
+                    }
+                    slot.batches = Collections.unmodifiableList(fresh);
+                    slot.version++;
+                }
+                if (slot.batches.isEmpty()) {
+                    slots.remove(drugId);
+                }
+            }
+        }
+        if (corrected > 0) {
+            log.warn("库存批次索引对账修正 {} 个药品", corrected);
+        }
+        log.debug("库存批次索引对账完成：药品数={}, 批次数={}", slots.size(), rows.size());
+        return corrected;
+    }
+
+    /**
+     * 某药品未过期批次（按 FIFO 排序），返回副本
+     */
+    public List<Inventory> getAvailableBatches(Long drugId, LocalDate today) {
+        DrugSlot slot = slots.get(drugId);
+        List<Inventory> result = new ArrayList<>();
+        if (slot == null) {
+            return result;
+        }
+        for (BatchEntry b : slot.batches) {
+            if (b.expiryDate != null && !b.expiryDate.isBefore(today)) {
+                result.add(b.toInventory(drugId));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 某药品未过期批次的数量合计
+     */
+    public int getTotalAvailableQuantity(Long drugId, LocalDate today) {
+        DrugSlot slot = slots.get(drugId);
+        if (slot == null) {
+            return 0;
+        }
+        int total = 0;
+        for (BatchEntry b : slot.batches) {
+            if (b.expiryDate != null && !b.expiryDate.isBefore(today)) {
+                total += b.quantity;
+            }
+        }
+        return total;
+    }
+
+    private Object lockFor(Long drugId) {
+        return locks[Math.floorMod(drugId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] arr = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            arr[i] = new Object();
+        }
+        return arr;
+    }
+
+    private static boolean sameBatches(List<BatchEntry> a, List<BatchEntry> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            BatchEntry x = a.get(i);
+            BatchEntry y = b.get(i);
+            if (!x.batchNumber.equals(y.batchNumber) || x.quantity != y.quantity
+                    || !Objects.equals(x.expiryDate, y.expiryDate)
+                    || !Objects.equals(x.storageLocation, y.storageLocation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单个药品的批次列表
+     */
+    private static class DrugSlot {
+        volatile List<BatchEntry> batches = Collections.emptyList();
+        long version;
+    }
+
+    /**
+     * 批次快照（不可变）
+     */
+    private static class BatchEntry {
+        final Long id;
+        final String batchNumber;
+        final int quantity;
+        final LocalDate expiryDate;
+        final String storageLocation;
+        final LocalDate productionDate;
+        final String manufacturer;
+
+        BatchEntry(Long id, String batchNumber, int quantity, LocalDate expiryDate,
+                   String storageLocation, LocalDate productionDate, String manufacturer) {
+            this.id = id;
+            this.batchNumber = batchNumber;
+            this.quantity = quantity;
+            this.expiryDate = expiryDate;
+            this.storageLocation = storageLocation;
+            this.productionDate = productionDate;
+            this.manufacturer = manufacturer;
+        }
+
+        static BatchEntry of(Inventory row) {
+            return new BatchEntry(row.getId(), row.getBatchNumber(), row.getQuantity(), row.getExpiryDate(),
+                    row.getStorageLocation(), row.getProductionDate(), row.getManufacturer());
+        }
+
+        Inventory toInventory(Long drugId) {
+            Inventory inv = new Inventory();
+            inv.setId(id);
+            inv.setDrugId(drugId);
+            inv.setBatchNumber(batchNumber);
+            inv.setQuantity(quantity);
+            inv.setExpiryDate(expiryDate);
+            inv.setStorageLocation(storageLocation);
+            inv.setProductionDate(productionDate);
+            inv.setManufacturer(manufacturer);
+            return inv;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cdiom.backend.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 按有效期（天）分桶的库存直方图：每天一个桶，记录该天到期、数量大于 0 的批次数与数量合计
+ * <p>
+ * 由 {@link InventoryBatchIndex} 在批次写入/替换时增量维护，近效期红黄预警即为区间内各桶之和，
+ * 阈值在查询时传入，sys_config 中预警天数修改后立即生效，无需重建。
+ * 每日滚动时丢弃已过期日期的桶（此后对这些日期的增减直接忽略），直方图只保留今天及以后的到期日。
+ */
+@Slf4j
+@Component
+public class InventoryExpiryHistogram {
+
+    // 到期日(epochDay) -> 桶（不可变，整体替换）
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    // 小于该日期(epochDay)的桶已滚出，不再维护
+    private volatile long floorDay = Long.MIN_VALUE;
+
+    /**
+     * 增加一个批次
+     */
+    public void add(LocalDate expiryDate, int quantity) {
+        apply(expiryDate, 1, quantity);
+    }
+
+    /**
+     * 移除一个批次（quantity 为该批次写入时的数量）
+     */
+    public void remove(LocalDate expiryDate, int quantity) {
+        apply(expiryDate, -1, -quantity);
+    }
+
+    /**
+     * 有效期在 [from, to] 内的批次数
+     */
+    public long countBatches(LocalDate from, LocalDate to) {
+        long total = 0;
+        for (Bucket b : range(from, to).values()) {
+            total += b.count;
+        }
+        return total;
+    }
+
+    /**
+     * 有效期在 [from, to] 内的库存数量合计
+     */
+    public long sumQuantity(LocalDate from, LocalDate to) {
+        long total = 0;
+        for (Bucket b : range(from, to).values()) {
+            total += b.quantity;
+        }
+        return total;
+    }
+
+    /**
+     * 滚动到指定日期：丢弃更早到期日的桶
+     *
+     * @return 丢弃的桶数
+     */
+    public synchronized int rollForward(LocalDate today) {
+        long day = today.toEpochDay();
+        NavigableMap<Long, Bucket> expired = buckets.headMap(day, false);
+        int n = expired.size();
+        expired.clear();
+        floorDay = Math.max(floorDay, day);
+        return n;
+    }
+
+    private NavigableMap<Long, Bucket> range(LocalDate from, LocalDate to) {
+        long lo = Math.max(from.toEpochDay(), floorDay);
+        long hi = to.toEpochDay();
+        if (lo > hi) {
+            return Collections.emptyNavigableMap();
+        }
+        return buckets.subMap(lo, true, hi, true);
+    }
+
+    private synchronized void apply(LocalDate expiryDate, int countDelta, long quantityDelta) {
+        if (expiryDate == null) {
+            return;
+        }
+        long day = expiryDate.toEpochDay();
+        if (day < floorDay) {
+            return;
+        }
+        Bucket current = buckets.get(day);
+        long count = (current != null ? current.count : 0) + countDelta;
+        long quantity = (current != null ? current.quantity : 0) + quantityDelta;
+        if (count <= 0) {
+            if (count < 0 || quantity != 0) {
+                log.warn("近效期直方图桶计数异常：到期日={}, 批次数={}, 数量={}", expiryDate, count, quantity);
+            }
+            buckets.remove(day);
+        } else {
+            buckets.put(day, new Bucket(count, quantity));
+        }
+    }
+
+    /**
+     * 单日桶
+     */
+    private static class Bucket {
+        final long count;
+        final long quantity;
+
+        Bucket(long count, long quantity) {
+            this.count = count;
+            this.quantity = quantity;
+        }
+    }
+}
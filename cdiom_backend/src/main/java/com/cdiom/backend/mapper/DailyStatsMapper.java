@@ -0,0 +1,60 @@
+package com.cdiom.backend.mapper;
+
+import com.cdiom.backend.constant.DailyStatMetric;
+import com.cdiom.backend.model.vo.DailyStatRow;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 按天汇总统计Mapper
+ *
+ * @author cdiom
+ */
+@Mapper
+public interface DailyStatsMapper {
+
+    /**
+     * 从业务表按天（及维度列）分组计数，时间范围 [start, end)；dimId 非空时只统计该维度值。
+     * 无维度列的指标 dimId 固定为 0
+     */
+    @Select("<script>" +
+            "SELECT DATE(${m.timeColumn}) AS statDay, " +
+            "<choose><when test='m.dimColumn != null'>${m.dimColumn}</when><otherwise>0</otherwise></choose> AS dimId, " +
+            "COUNT(*) AS value FROM ${m.table} " +
+            "WHERE ${m.timeColumn} &gt;= #{start} AND ${m.timeColumn} &lt; #{end} " +
+            "<if test='m.condition != null'>AND ${m.condition} </if>" +
+            "<if test='dimId != null and m.dimColumn != null'>AND ${m.dimColumn} = #{dimId} </if>" +
+            "GROUP BY statDay, dimId" +
+            "</script>")
+    List<DailyStatRow> countByDay(@Param("m") DailyStatMetric metric,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end,
+                                  @Param("dimId") Long dimId);
+
+    /**
+     * 读取已汇总的计数：dimId 为 0 时只取总数行，否则同时取总数行（用于判断该天是否已汇总）与该维度值的行
+     */
+    @Select("SELECT stat_day AS statDay, metric, dim_id AS dimId, stat_value AS value FROM daily_stats " +
+            "WHERE metric = #{metric} AND stat_day BETWEEN #{from} AND #{to} AND dim_id IN (0, #{dimId}) " +
+            "ORDER BY stat_day")
+    List<DailyStatRow> selectRange(@Param("metric") String metric, @Param("dimId") long dimId,
+                                   @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 写入汇总结果（重复汇总同一天时覆盖）
+     */
+    @Insert("<script>" +
+            "INSERT INTO daily_stats (stat_day, metric, dim_id, stat_value) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.statDay}, #{r.metric}, #{r.dimId}, #{r.value})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE stat_value = VALUES(stat_value), update_time = NOW()" +
+            "</script>")
+    int upsert(@Param("rows") List<DailyStatRow> rows);
+}
@@ -0,0 +1,43 @@
+package com.cdiom.backend.mapper;
+
+import com.cdiom.backend.model.vo.DocSequenceLease;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+
+/**
+ * 单据号段Mapper
+ *
+ * @author cdiom
+ */
+@Mapper
+public interface DocSequenceMapper {
+
+    /**
+     * 单语句租用一段序号：next_value 前移 blockSize，新值经 LAST_INSERT_ID(expr) 作为生成主键带回。
+     * 返回受影响行数，0 表示当天记录尚未创建
+     */
+    @Update("UPDATE doc_sequence SET next_value = LAST_INSERT_ID(next_value + #{blockSize}) " +
+            "WHERE prefix = #{prefix} AND seq_day = #{seqDay}")
+    @Options(useGeneratedKeys = true, keyProperty = "leaseEnd")
+    int lease(DocSequenceLease lease);
+
+    /**
+     * 创建当天的序号记录（并发创建时以先插入者为准）
+     */
+    @Insert("INSERT IGNORE INTO doc_sequence (prefix, seq_day, next_value) VALUES (#{prefix}, #{seqDay}, #{nextValue})")
+    int insertIgnore(@Param("prefix") String prefix, @Param("seqDay") LocalDate seqDay, @Param("nextValue") long nextValue);
+
+    /**
+     * 业务表中以指定前缀开头的最大单号（序号位数可能超过3位，先按长度再按字典序取最大）
+     */
+    @Select("SELECT ${column} FROM ${table} WHERE ${column} LIKE CONCAT(#{numberPrefix}, '%') " +
+            "ORDER BY CHAR_LENGTH(${column}) DESC, ${column} DESC LIMIT 1")
+    String selectMaxNumber(@Param("table") String table, @Param("column") String column,
+                           @Param("numberPrefix") String numberPrefix);
+}
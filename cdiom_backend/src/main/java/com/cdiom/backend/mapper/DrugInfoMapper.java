@@ -1,11 +1,16 @@
 package com.cdiom.backend.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.cdiom.backend.model.DrugInfo;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -49,8 +54,14 @@ public interface DrugInfoMapper extends BaseMapper<DrugInfo> {
             "</if>" +
             "</script>")
     Long countDeletedDrugs(@Param("keyword") String keyword);
-}
 
+    /**
+     * 按条件流式读取（导出用）：MySQL 驱动逐行返回结果，需在事务内遍历并关闭 Cursor
+     */
+    @Select("SELECT * FROM drug_info ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<DrugInfo> streamList(@Param(Constants.WRAPPER) Wrapper<DrugInfo> wrapper);
+}
 
 
 
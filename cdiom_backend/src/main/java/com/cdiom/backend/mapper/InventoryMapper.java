@@ -2,13 +2,18 @@ package com.cdiom.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.model.vo.InventoryDecrement;
+import com.cdiom.backend.model.vo.KeywordMatch;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -63,6 +68,15 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
     @Update("UPDATE inventory SET quantity = quantity - #{quantity} WHERE drug_id = #{drugId} AND batch_number = #{batchNumber} AND quantity >= #{quantity}")
     int decreaseQuantityAtomically(@Param("drugId") Long drugId, @Param("batchNumber") String batchNumber, @Param("quantity") Integer quantity);
 
+    /**
+     * 单语句条件扣减并带回剩余数量：新值经 LAST_INSERT_ID(expr) 写入 OK 包，驱动作为生成主键返回，
+     * 无需先 SELECT ... FOR UPDATE，也无需再查一次。返回受影响行数，0 表示库存不足或记录不存在
+     */
+    @Update("UPDATE inventory SET quantity = LAST_INSERT_ID(quantity - #{quantity}) " +
+            "WHERE drug_id = #{drugId} AND batch_number = #{batchNumber} AND quantity >= #{quantity}")
+    @Options(useGeneratedKeys = true, keyProperty = "remainingQuantity")
+    int decreaseQuantityReturningRemaining(InventoryDecrement decrement);
+
     /**
      * 原子增加库存（使用数据库原子操作，防止并发问题）
      */
@@ -91,6 +105,7 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
      * SQL 定义在 resources/mapper/InventoryMapper.xml 中，避免注解内 XML 解析问题
      */
     List<Inventory> selectInventoryListWithJoin(@Param("keyword") String keyword,
+                                                 @Param("keywordMatch") KeywordMatch keywordMatch,
                                                  @Param("drugId") Long drugId,
                                                  @Param("batchNumber") String batchNumber,
                                                  @Param("storageLocation") String storageLocation,
@@ -98,6 +113,49 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
                                                  @Param("expiryDateEnd") LocalDate expiryDateEnd,
                                                  @Param("isSpecial") Integer isSpecial);
 
+    /**
+     * 流式读取库存列表（条件、排序与 selectInventoryListWithJoin 一致，导出用），需在事务内遍历并关闭 Cursor
+     */
+    Cursor<Inventory> streamInventoryListWithJoin(@Param("keyword") String keyword,
+                                                  @Param("keywordMatch") KeywordMatch keywordMatch,
+                                                  @Param("drugId") Long drugId,
+                                                  @Param("batchNumber") String batchNumber,
+                                                  @Param("storageLocation") String storageLocation,
+                                                  @Param("expiryDateStart") LocalDate expiryDateStart,
+                                                  @Param("expiryDateEnd") LocalDate expiryDateEnd,
+                                                  @Param("isSpecial") Integer isSpecial);
+
+    /**
+     * 数据库侧分页查询库存列表（条件与 selectInventoryListWithJoin 一致）
+     * keywordMatch 非空时以检索索引命中的药品/库存ID代替 keyword 的 LIKE 条件
+     * cursorId 非空时按 (expiry_date, create_time, id) 键集定位，忽略 offset；否则按 LIMIT offset, limit
+     */
+    List<Inventory> selectInventoryPageWithJoin(@Param("keyword") String keyword,
+                                                @Param("keywordMatch") KeywordMatch keywordMatch,
+                                                @Param("drugId") Long drugId,
+                                                @Param("batchNumber") String batchNumber,
+                                                @Param("storageLocation") String storageLocation,
+                                                @Param("expiryDateStart") LocalDate expiryDateStart,
+                                                @Param("expiryDateEnd") LocalDate expiryDateEnd,
+                                                @Param("isSpecial") Integer isSpecial,
+                                                @Param("cursorExpiryDate") LocalDate cursorExpiryDate,
+                                                @Param("cursorCreateTime") LocalDateTime cursorCreateTime,
+                                                @Param("cursorId") Long cursorId,
+                                                @Param("offset") long offset,
+                                                @Param("limit") int limit);
+
+    /**
+     * 库存列表总数（条件与 selectInventoryListWithJoin 一致）
+     */
+    Long countInventoryListWithJoin(@Param("keyword") String keyword,
+                                    @Param("keywordMatch") KeywordMatch keywordMatch,
+                                    @Param("drugId") Long drugId,
+                                    @Param("batchNumber") String batchNumber,
+                                    @Param("storageLocation") String storageLocation,
+                                    @Param("expiryDateStart") LocalDate expiryDateStart,
+                                    @Param("expiryDateEnd") LocalDate expiryDateEnd,
+                                    @Param("isSpecial") Integer isSpecial);
+
     /**
      * 近效期明细（与仪表盘预警区间一致，level=red 或 yellow）
      */
@@ -0,0 +1,52 @@
+package com.cdiom.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cdiom.backend.model.InventoryMovement;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存流水Mapper接口
+ * 
+ * @author cdiom
+ */
+@Mapper
+public interface InventoryMovementMapper extends BaseMapper<InventoryMovement> {
+
+    /**
+     * 多行追加流水（create_time 取数据库默认值）
+     */
+    @Insert("<script>" +
+            "INSERT INTO inventory_movement (drug_id, batch_number, movement_type, change_quantity, quantity_after) VALUES " +
+            "<foreach collection='rows' item='m' separator=','>" +
+            "(#{m.drugId}, #{m.batchNumber}, #{m.movementType}, #{m.changeQuantity}, #{m.quantityAfter})" +
+            "</foreach>" +
+            "</script>")
+    int insertRows(@Param("rows") List<InventoryMovement> rows);
+
+    /**
+     * 早于指定时间的最后一条流水ID（走 create_time 索引倒序取一条）
+     */
+    @Select("SELECT id FROM inventory_movement WHERE create_time < #{before} ORDER BY create_time DESC, id DESC LIMIT 1")
+    Long selectLastIdBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * 按批次汇总某药品（可选批次）在 (afterId, ∞) 且不晚于 time 的变动数量，changeQuantity 为合计值
+     */
+    @Select("<script>" +
+            "SELECT batch_number, SUM(change_quantity) AS change_quantity " +
+            "FROM inventory_movement WHERE drug_id = #{drugId} " +
+            "<if test='batchNumber != null'>AND batch_number = #{batchNumber} </if>" +
+            "AND id &gt; #{afterId} AND create_time &lt;= #{time} " +
+            "GROUP BY batch_number" +
+            "</script>")
+    List<InventoryMovement> sumChangesByBatch(@Param("drugId") Long drugId,
+                                              @Param("batchNumber") String batchNumber,
+                                              @Param("afterId") Long afterId,
+                                              @Param("time") LocalDateTime time);
+}
@@ -0,0 +1,30 @@
+package com.cdiom.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cdiom.backend.model.InventorySnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 库存快照Mapper接口
+ * 
+ * @author cdiom
+ */
+@Mapper
+public interface InventorySnapshotMapper extends BaseMapper<InventorySnapshot> {
+
+    /**
+     * 由上一快照加上 (fromId, toId] 区间的流水生成新快照，只写入数量非零的批次
+     */
+    @Insert("INSERT INTO inventory_snapshot (run_id, drug_id, batch_number, quantity) " +
+            "SELECT #{runId}, t.drug_id, t.batch_number, SUM(t.quantity) FROM (" +
+            "  SELECT drug_id, batch_number, quantity FROM inventory_snapshot WHERE run_id = #{prevRunId}" +
+            "  UNION ALL" +
+            "  SELECT drug_id, batch_number, change_quantity FROM inventory_movement WHERE id > #{fromId} AND id <= #{toId}" +
+            ") t GROUP BY t.drug_id, t.batch_number HAVING SUM(t.quantity) <> 0")
+    int insertRolledForward(@Param("runId") Long runId,
+                            @Param("prevRunId") Long prevRunId,
+                            @Param("fromId") Long fromId,
+                            @Param("toId") Long toId);
+}
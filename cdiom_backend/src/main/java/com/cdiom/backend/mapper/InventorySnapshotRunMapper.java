@@ -0,0 +1,30 @@
+package com.cdiom.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cdiom.backend.model.InventorySnapshotRun;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存快照批次Mapper接口
+ * 
+ * @author cdiom
+ */
+@Mapper
+public interface InventorySnapshotRunMapper extends BaseMapper<InventorySnapshotRun> {
+
+    /**
+     * 最近一次快照
+     */
+    @Select("SELECT * FROM inventory_snapshot_run ORDER BY id DESC LIMIT 1")
+    InventorySnapshotRun selectLatest();
+
+    /**
+     * 时点不晚于指定时间的最近一次快照
+     */
+    @Select("SELECT * FROM inventory_snapshot_run WHERE cutoff_time <= #{time} ORDER BY cutoff_time DESC, id DESC LIMIT 1")
+    InventorySnapshotRun selectLatestAtOrBefore(@Param("time") LocalDateTime time);
+}
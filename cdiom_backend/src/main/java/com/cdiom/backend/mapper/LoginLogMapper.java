@@ -1,8 +1,18 @@
 package com.cdiom.backend.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.cdiom.backend.model.LoginLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
 
 /**
  * 登录日志Mapper接口
@@ -11,5 +21,25 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface LoginLogMapper extends BaseMapper<LoginLog> {
+
+    /**
+     * 多行写入（审计日志批量落库），回填自增ID；status 为空时按表默认值（成功）
+     */
+    @Insert("<script>" +
+            "INSERT INTO login_log (user_id, username, ip, location, browser, os, status, msg, login_time) VALUES " +
+            "<foreach collection='rows' item='l' separator=','>" +
+            "(#{l.userId}, #{l.username}, #{l.ip}, #{l.location}, #{l.browser}, #{l.os}, IFNULL(#{l.status}, 1), " +
+            "#{l.msg}, #{l.loginTime})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "rows.id", keyColumn = "id")
+    int insertRows(@Param("rows") List<LoginLog> rows);
+
+    /**
+     * 按条件流式读取（导出用）：MySQL 驱动逐行返回结果，需在事务内遍历并关闭 Cursor
+     */
+    @Select("SELECT * FROM login_log ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<LoginLog> streamList(@Param(Constants.WRAPPER) Wrapper<LoginLog> wrapper);
 }
 
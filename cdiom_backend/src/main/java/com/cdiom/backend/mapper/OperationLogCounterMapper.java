@@ -0,0 +1,52 @@
+package com.cdiom.backend.mapper;
+
+import com.cdiom.backend.model.vo.NameCountRow;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 操作日志按天计数Mapper（operation_log_counter，按模块、操作类型各一行）
+ *
+ * @author cdiom
+ */
+@Mapper
+public interface OperationLogCounterMapper {
+
+    String DIM_MODULE = "MODULE";
+    String DIM_TYPE = "TYPE";
+
+    /**
+     * 当天模块、操作类型计数各加 count；为空的维度不计数，调用方保证至少一个不为空
+     */
+    @Insert("<script>" +
+            "INSERT INTO operation_log_counter (stat_day, dim_type, dim_value, cnt) VALUES " +
+            "<trim suffixOverrides=','>" +
+            "<if test='module != null'>(#{day}, 'MODULE', #{module}, #{count}),</if>" +
+            "<if test='operationType != null'>(#{day}, 'TYPE', #{operationType}, #{count}),</if>" +
+            "</trim> " +
+            "ON DUPLICATE KEY UPDATE cnt = cnt + VALUES(cnt)" +
+            "</script>")
+    int increment(@Param("day") LocalDate day,
+                  @Param("module") String module,
+                  @Param("operationType") String operationType,
+                  @Param("count") long count);
+
+    /**
+     * 某维度自 from 起（含）各值的计数之和
+     */
+    @Select("SELECT dim_value AS name, SUM(cnt) AS count FROM operation_log_counter " +
+            "WHERE dim_type = #{dimType} AND stat_day >= #{from} GROUP BY dim_value")
+    List<NameCountRow> sumSince(@Param("dimType") String dimType, @Param("from") LocalDate from);
+
+    /**
+     * 删除早于 day 的计数（随操作日志保留期清理）
+     */
+    @Delete("DELETE FROM operation_log_counter WHERE stat_day < #{day}")
+    int deleteBefore(@Param("day") LocalDate day);
+}
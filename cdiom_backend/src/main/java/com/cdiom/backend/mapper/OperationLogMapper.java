@@ -1,8 +1,20 @@
 package com.cdiom.backend.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.cdiom.backend.model.OperationLog;
+import com.cdiom.backend.model.vo.NameCountRow;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 操作日志Mapper接口
@@ -11,5 +23,38 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface OperationLogMapper extends BaseMapper<OperationLog> {
-}
 
+    /**
+     * 多行写入（审计日志批量落库），status 为空时按表默认值（成功）
+     */
+    @Insert("<script>" +
+            "INSERT INTO operation_log (user_id, username, module, operation_type, operation_content, request_method, " +
+            "request_url, request_params, ip, status, error_msg, operation_time) VALUES " +
+            "<foreach collection='rows' item='l' separator=','>" +
+            "(#{l.userId}, #{l.username}, #{l.module}, #{l.operationType}, #{l.operationContent}, #{l.requestMethod}, " +
+            "#{l.requestUrl}, #{l.requestParams}, #{l.ip}, IFNULL(#{l.status}, 1), #{l.errorMsg}, #{l.operationTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertRows(@Param("rows") List<OperationLog> rows);
+
+    /**
+     * 按条件流式读取（导出用）：MySQL 驱动逐行返回结果，需在事务内遍历并关闭 Cursor
+     */
+    @Select("SELECT * FROM operation_log ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<OperationLog> streamList(@Param(Constants.WRAPPER) Wrapper<OperationLog> wrapper);
+
+    /**
+     * 自 start 起成功操作按模块计数（走 idx_status_time_module_type 覆盖索引，不读取日志正文）
+     */
+    @Select("SELECT module AS name, COUNT(*) AS count FROM operation_log " +
+            "WHERE status = 1 AND operation_time >= #{start} AND module IS NOT NULL GROUP BY module")
+    List<NameCountRow> countByModuleSince(@Param("start") LocalDateTime start);
+
+    /**
+     * 自 start 起成功操作按操作类型计数（走 idx_status_time_module_type 覆盖索引，不读取日志正文）
+     */
+    @Select("SELECT operation_type AS name, COUNT(*) AS count FROM operation_log " +
+            "WHERE status = 1 AND operation_time >= #{start} AND operation_type IS NOT NULL GROUP BY operation_type")
+    List<NameCountRow> countByOperationTypeSince(@Param("start") LocalDateTime start);
+}
@@ -3,8 +3,11 @@ package com.cdiom.backend.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cdiom.backend.model.OutboundApplyItem;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,6 +23,27 @@ public interface OutboundApplyItemMapper extends BaseMapper<OutboundApplyItem> {
      */
     @Select("SELECT * FROM outbound_apply_item WHERE apply_id = #{applyId} ORDER BY id ASC")
     List<OutboundApplyItem> selectByApplyId(Long applyId);
+
+    /**
+     * 批量查询多个申请的明细（按申请ID、明细ID排序）
+     */
+    @Select("<script>" +
+            "SELECT * FROM outbound_apply_item WHERE apply_id IN " +
+            "<foreach collection='applyIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " ORDER BY apply_id ASC, id ASC" +
+            "</script>")
+    List<OutboundApplyItem> selectByApplyIds(@Param("applyIds") Collection<Long> applyIds);
+
+    /**
+     * 一条语句回写多行明细的实际出库数量
+     */
+    @Update("<script>" +
+            "UPDATE outbound_apply_item SET actual_quantity = CASE id " +
+            "<foreach collection='items' item='it'>WHEN #{it.id} THEN #{it.actualQuantity} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='items' item='it' open='(' separator=',' close=')'>#{it.id}</foreach>" +
+            "</script>")
+    int updateActualQuantities(@Param("items") List<OutboundApplyItem> items);
 }
 
 
@@ -2,7 +2,9 @@ package com.cdiom.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cdiom.backend.model.OutboundApply;
+import com.cdiom.backend.model.vo.NameCountRow;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
@@ -33,12 +35,10 @@ public interface OutboundApplyMapper extends BaseMapper<OutboundApply> {
      */
     @Select("SELECT DISTINCT department FROM outbound_apply WHERE department IS NOT NULL AND TRIM(department) != '' ORDER BY department")
     List<String> listDistinctDepartments();
-}
-
-
-
-
-
-
-
 
+    /**
+     * 某申请人的出库申请按状态计数
+     */
+    @Select("SELECT status AS name, COUNT(*) AS count FROM outbound_apply WHERE applicant_id = #{applicantId} GROUP BY status")
+    List<NameCountRow> countByStatusForApplicant(@Param("applicantId") Long applicantId);
+}
@@ -0,0 +1,27 @@
+package com.cdiom.backend.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 权限版本号Mapper（sys_permission_version，单行）
+ *
+ * @author cdiom
+ */
+@Mapper
+public interface PermissionVersionMapper {
+
+    /**
+     * 当前权限版本号，无记录时返回 null
+     */
+    @Select("SELECT version FROM sys_permission_version WHERE id = 1")
+    Long selectVersion();
+
+    /**
+     * 权限版本号加一
+     */
+    @Insert("INSERT INTO sys_permission_version (id, version) VALUES (1, 1) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1")
+    int increment();
+}
@@ -1,8 +1,18 @@
 package com.cdiom.backend.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.cdiom.backend.model.PurchaseOrder;
+import com.cdiom.backend.model.vo.OrderStatusSummaryRow;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
 
 /**
  * 采购订单Mapper接口
@@ -11,8 +21,39 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface PurchaseOrderMapper extends BaseMapper<PurchaseOrder> {
-}
 
+    /**
+     * 按条件流式读取（导出用）：MySQL 驱动逐行返回结果，需在事务内遍历并关闭 Cursor
+     */
+    @Select("SELECT * FROM purchase_order ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<PurchaseOrder> streamList(@Param(Constants.WRAPPER) Wrapper<PurchaseOrder> wrapper);
+
+    /**
+     * 某供应商或某采购员的订单按状态汇总（订单数、金额合计），supplierId / purchaserId 二选一；
+     * 走 idx_supplier_status_amount / idx_purchaser_status_amount 覆盖索引，只返回各状态一行。
+     * 两者都为空时不匹配任何订单（不会汇总全表）
+     */
+    @Select("<script>" +
+            "SELECT status, COUNT(*) AS orderCount, COALESCE(SUM(total_amount), 0) AS amount FROM purchase_order " +
+            "WHERE " +
+            "<choose>" +
+            "<when test='supplierId != null'>supplier_id = #{supplierId}" +
+            "<if test='purchaserId != null'> AND purchaser_id = #{purchaserId}</if></when>" +
+            "<when test='purchaserId != null'>purchaser_id = #{purchaserId}</when>" +
+            "<otherwise>1 = 0</otherwise>" +
+            "</choose> " +
+            "GROUP BY status" +
+            "</script>")
+    List<OrderStatusSummaryRow> summarizeByStatus(@Param("supplierId") Long supplierId,
+                                                  @Param("purchaserId") Long purchaserId);
+
+    /**
+     * 采购员下过订单的供应商数
+     */
+    @Select("SELECT COUNT(DISTINCT supplier_id) FROM purchase_order WHERE purchaser_id = #{purchaserId}")
+    long countDistinctSuppliersByPurchaser(@Param("purchaserId") Long purchaserId);
+}
 
 
 
@@ -0,0 +1,77 @@
+package com.cdiom.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cdiom.backend.model.StockReservation;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 出库库存占用Mapper接口
+ * 
+ * @author cdiom
+ */
+@Mapper
+public interface StockReservationMapper extends BaseMapper<StockReservation> {
+
+    /**
+     * 按 (药品, 批次) 汇总全部 ACTIVE 占用，quantity 为合计值
+     */
+    @Select("SELECT drug_id, batch_number, SUM(quantity) AS quantity FROM stock_reservation " +
+            "WHERE status = 'ACTIVE' GROUP BY drug_id, batch_number")
+    List<StockReservation> sumActiveGroupByBatch();
+
+    /**
+     * 按 (药品, 批次) 汇总指定药品的 ACTIVE 占用，quantity 为合计值
+     */
+    @Select("<script>" +
+            "SELECT drug_id, batch_number, SUM(quantity) AS quantity FROM stock_reservation " +
+            "WHERE status = 'ACTIVE' AND drug_id IN " +
+            "<foreach collection='drugIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " GROUP BY drug_id, batch_number" +
+            "</script>")
+    List<StockReservation> sumActiveByDrugIds(@Param("drugIds") Collection<Long> drugIds);
+
+    /**
+     * 查询指定申请的 ACTIVE 占用明细
+     */
+    @Select("<script>" +
+            "SELECT * FROM stock_reservation WHERE status = 'ACTIVE' AND apply_id IN " +
+            "<foreach collection='applyIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " ORDER BY apply_id ASC, id ASC" +
+            "</script>")
+    List<StockReservation> selectActiveByApplyIds(@Param("applyIds") Collection<Long> applyIds);
+
+    /**
+     * 将申请的 ACTIVE 占用改为目标状态（释放或出库）
+     */
+    @Update("UPDATE stock_reservation SET status = #{status}, update_time = NOW() " +
+            "WHERE apply_id = #{applyId} AND status = 'ACTIVE'")
+    int finishActiveByApplyId(@Param("applyId") Long applyId, @Param("status") String status);
+
+    /**
+     * 多行插入占用记录
+     */
+    @Insert("<script>" +
+            "INSERT INTO stock_reservation (apply_id, apply_item_id, drug_id, batch_number, quantity, status) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.applyId}, #{r.applyItemId}, #{r.drugId}, #{r.batchNumber}, #{r.quantity}, #{r.status})" +
+            "</foreach>" +
+            "</script>")
+    int insertRows(@Param("rows") List<StockReservation> rows);
+
+    /**
+     * 按药品ID升序锁定 drug_info 行，串行化同一药品的占用分配（固定加锁顺序避免死锁）
+     */
+    @Select("<script>" +
+            "SELECT id FROM drug_info WHERE id IN " +
+            "<foreach collection='drugIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " ORDER BY id FOR UPDATE" +
+            "</script>")
+    List<Long> lockDrugsForUpdate(@Param("drugIds") Collection<Long> drugIds);
+}
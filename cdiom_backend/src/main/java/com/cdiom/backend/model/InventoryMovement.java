@@ -0,0 +1,54 @@
+package com.cdiom.backend.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存流水实体类（只追加，随库存变更在同一事务内写入）
+ * 
+ * @author cdiom
+ */
+@Data
+@TableName("inventory_movement")
+public class InventoryMovement {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 药品ID
+     */
+    private Long drugId;
+
+    /**
+     * 批次号
+     */
+    private String batchNumber;
+
+    /**
+     * 类型：INBOUND-入库/OUTBOUND-出库/ADJUST-盘点调整
+     */
+    private String movementType;
+
+    /**
+     * 变动数量（入库为正，出库为负）
+     */
+    private Integer changeQuantity;
+
+    /**
+     * 变动后批次数量（批量出库时为空）
+     */
+    private Integer quantityAfter;
+
+    /**
+     * 创建时间（数据库默认值，毫秒精度）
+     */
+    private LocalDateTime createTime;
+}
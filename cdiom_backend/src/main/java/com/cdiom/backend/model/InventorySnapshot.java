@@ -0,0 +1,42 @@
+package com.cdiom.backend.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+/**
+ * 库存快照实体类（按批次，仅保存非零数量）
+ * 
+ * @author cdiom
+ */
+@Data
+@TableName("inventory_snapshot")
+public class InventorySnapshot {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 快照批次ID
+     */
+    private Long runId;
+
+    /**
+     * 药品ID
+     */
+    private Long drugId;
+
+    /**
+     * 批次号
+     */
+    private String batchNumber;
+
+    /**
+     * 快照时点数量
+     */
+    private Integer quantity;
+}
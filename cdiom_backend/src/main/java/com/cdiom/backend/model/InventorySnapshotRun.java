@@ -0,0 +1,43 @@
+package com.cdiom.backend.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存快照批次实体类：一次快照覆盖截至 cutoffTime（流水ID ≤ lastMovementId）的全部批次
+ * 
+ * @author cdiom
+ */
+@Data
+@TableName("inventory_snapshot_run")
+public class InventorySnapshotRun {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 快照时点
+     */
+    private LocalDateTime cutoffTime;
+
+    /**
+     * 已计入的最大流水ID
+     */
+    private Long lastMovementId;
+
+    /**
+     * 快照批次数
+     */
+    private Integer batchCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,64 @@
+package com.cdiom.backend.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 出库库存占用实体类（审批通过后按批次预留）
+ * 
+ * @author cdiom
+ */
+@Data
+@TableName("stock_reservation")
+public class StockReservation {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 出库申请ID
+     */
+    private Long applyId;
+
+    /**
+     * 出库申请明细ID
+     */
+    private Long applyItemId;
+
+    /**
+     * 药品ID
+     */
+    private Long drugId;
+
+    /**
+     * 批次号
+     */
+    private String batchNumber;
+
+    /**
+     * 占用数量
+     */
+    private Integer quantity;
+
+    /**
+     * 状态：ACTIVE-占用中/RELEASED-已释放/CONSUMED-已出库
+     */
+    private String status;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,20 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+
+/**
+ * 批量扣减库存的一行：某药品某批次扣减数量
+ */
+@Data
+public class BatchDelta {
+
+    private Long drugId;
+    private String batchNumber;
+    private Integer quantity;
+
+    public BatchDelta(Long drugId, String batchNumber, Integer quantity) {
+        this.drugId = drugId;
+        this.batchNumber = batchNumber;
+        this.quantity = quantity;
+    }
+}
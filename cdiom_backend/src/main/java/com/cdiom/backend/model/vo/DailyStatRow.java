@@ -0,0 +1,26 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * daily_stats 的一行：某天某指标在某维度值下的计数（dimId = 0 为当天总数）
+ */
+@Data
+@NoArgsConstructor
+public class DailyStatRow {
+
+    private LocalDate statDay;
+    private String metric;
+    private Long dimId;
+    private Long value;
+
+    public DailyStatRow(LocalDate statDay, String metric, Long dimId, Long value) {
+        this.statDay = statDay;
+        this.metric = metric;
+        this.dimId = dimId;
+        this.value = value;
+    }
+}
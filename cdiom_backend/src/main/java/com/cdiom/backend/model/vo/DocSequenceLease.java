@@ -0,0 +1,24 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 号段租用的入参与回写结果（leaseEnd 由租用语句经 LAST_INSERT_ID 带回）
+ */
+@Data
+public class DocSequenceLease {
+
+    private String prefix;
+    private LocalDate seqDay;
+    private Integer blockSize;
+    /** 租用后的 next_value，即本次号段 [leaseEnd - blockSize, leaseEnd) 的上界 */
+    private Long leaseEnd;
+
+    public DocSequenceLease(String prefix, LocalDate seqDay, Integer blockSize) {
+        this.prefix = prefix;
+        this.seqDay = seqDay;
+        this.blockSize = blockSize;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+
+/**
+ * 单条件原子扣减库存的入参与回写结果（remainingQuantity 由扣减语句经 LAST_INSERT_ID 带回）
+ */
+@Data
+public class InventoryDecrement {
+
+    private Long drugId;
+    private String batchNumber;
+    private Integer quantity;
+    /** 扣减后剩余数量；扣减成功且剩余为 0 时驱动不回传主键，保持为 null */
+    private Long remainingQuantity;
+
+    public InventoryDecrement(Long drugId, String batchNumber, Integer quantity) {
+        this.drugId = drugId;
+        this.batchNumber = batchNumber;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,20 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 关键字检索索引命中结果：作为库存列表的关键字条件替代 LIKE（药品ID 或 库存ID 命中其一即可）
+ */
+@Data
+public class KeywordMatch {
+
+    private List<Long> drugIds;
+    private List<Long> inventoryIds;
+
+    public KeywordMatch(List<Long> drugIds, List<Long> inventoryIds) {
+        this.drugIds = drugIds;
+        this.inventoryIds = inventoryIds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+
+/**
+ * 分组计数的一行：分组值与计数
+ */
+@Data
+public class NameCountRow {
+
+    private String name;
+    private Long count;
+}
@@ -0,0 +1,16 @@
+package com.cdiom.backend.model.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 采购订单按状态汇总的一行：订单数与金额合计
+ */
+@Data
+public class OrderStatusSummaryRow {
+
+    private String status;
+    private Long orderCount;
+    private BigDecimal amount;
+}
@@ -0,0 +1,43 @@
+package com.cdiom.backend.push;
+
+import com.cdiom.backend.constant.PushTopic;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 推送频道：主题 + 范围（全局主题范围为空；按人主题为 user + 用户ID，按供应商为 supplier + 供应商ID）
+ */
+@Getter
+@EqualsAndHashCode
+public final class PushChannel {
+
+    public static final String SCOPE_USER = "user";
+    public static final String SCOPE_SUPPLIER = "supplier";
+
+    private final PushTopic topic;
+    private final String scopeType;
+    private final Long scopeId;
+
+    private PushChannel(PushTopic topic, String scopeType, Long scopeId) {
+        this.topic = topic;
+        this.scopeType = scopeType;
+        this.scopeId = scopeId;
+    }
+
+    public static PushChannel global(PushTopic topic) {
+        return new PushChannel(topic, null, null);
+    }
+
+    public static PushChannel ofUser(PushTopic topic, Long userId) {
+        return new PushChannel(topic, SCOPE_USER, userId);
+    }
+
+    public static PushChannel ofSupplier(PushTopic topic, Long supplierId) {
+        return new PushChannel(topic, SCOPE_SUPPLIER, supplierId);
+    }
+
+    @Override
+    public String toString() {
+        return scopeType == null ? topic.getCode() : topic.getCode() + "@" + scopeType + ":" + scopeId;
+    }
+}
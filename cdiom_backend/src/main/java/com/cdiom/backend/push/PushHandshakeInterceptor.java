@@ -0,0 +1,66 @@
+package com.cdiom.backend.push;
+
+import com.cdiom.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * 推送通道握手认证：浏览器以查询参数 ticket 携带一次性连接票据（见 {@link PushTicketService}），
+ * 非浏览器客户端可用 Authorization 头携带 Token；不接受 Cookie 和查询参数中的 Token。
+ * 无效时拒绝握手（401），有效时把用户ID放入会话属性
+ *
+ * @author cdiom
+ */
+@Component
+@RequiredArgsConstructor
+public class PushHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String ATTR_USER_ID = "userId";
+
+    private final JwtUtil jwtUtil;
+    private final PushTicketService pushTicketService;
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                                   @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+        Long userId = request instanceof ServletServerHttpRequest servletRequest
+                ? authenticate(servletRequest.getServletRequest()) : null;
+        if (userId == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(ATTR_USER_ID, userId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                               @NonNull WebSocketHandler wsHandler, Exception exception) {
+        // 无需处理
+    }
+
+    private Long authenticate(HttpServletRequest request) {
+        String ticket = request.getParameter("ticket");
+        if (StringUtils.hasText(ticket)) {
+            return pushTicketService.redeem(ticket);
+        }
+        String bearerToken = request.getHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            Claims claims = jwtUtil.verify(bearerToken.substring(7));
+            return claims != null ? jwtUtil.getUserId(claims) : null;
+        }
+        return null;
+    }
+}
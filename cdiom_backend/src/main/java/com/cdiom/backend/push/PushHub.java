@@ -0,0 +1,350 @@
+package com.cdiom.backend.push;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 推送会话与订阅管理
+ * <p>
+ * 数据变化时只标记频道为脏（{@link #markDirty}），由定时 flush 对每个脏频道计算一次当前计数，
+ * 与上次推送的计数比较后只发送变化的项：同一周期内的多次变化合并为一条消息，每条消息序列化一次后发给该频道全部订阅者。
+ * 没有订阅者的频道不标记、不计算。
+ * 计数计算与发送都在 pushExecutor 中执行，不占用 @Scheduled 调度线程。每个会话有自己的待发送队列，
+ * 由 pushExecutor 逐条按序发送：待发送超过 buffer-size-limit 字节时丢弃最早的消息，
+ * 单次发送阻塞超过 send-time-limit-ms 时断开该会话；慢客户端只占住一个发送线程，不会拖慢其他订阅者。
+ * 每个频道的 delta 消息带连续序号 seq（snapshot 携带当前序号），客户端发现序号不连续（消息被丢弃）时应重新订阅或通过 REST 接口拉取。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+public class PushHub {
+
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor pushExecutor;
+
+    @Value("${cdiom.push.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${cdiom.push.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+
+    private final Map<String, Outbox> sessions = new ConcurrentHashMap<>();
+    private final Map<PushChannel, Set<String>> subscribers = new ConcurrentHashMap<>();
+    private final Map<PushChannel, Map<String, Object>> lastSent = new ConcurrentHashMap<>();
+    private final Set<PushChannel> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<PushChannel, AtomicLong> seqs = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    public PushHub(ObjectMapper objectMapper, @Qualifier("pushExecutor") TaskExecutor pushExecutor) {
+        this.objectMapper = objectMapper;
+        this.pushExecutor = pushExecutor;
+    }
+
+    public void register(WebSocketSession session) {
+        sessions.put(session.getId(), new Outbox(session));
+    }
+
+    /**
+     * 移除会话及其全部订阅
+     */
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+        for (PushChannel channel : new ArrayList<>(subscribers.keySet())) {
+            unsubscribe(sessionId, channel);
+        }
+    }
+
+    public void subscribe(String sessionId, PushChannel channel) {
+        subscribers.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    public void unsubscribe(String sessionId, PushChannel channel) {
+        subscribers.computeIfPresent(channel, (c, ids) -> {
+            ids.remove(sessionId);
+            if (ids.isEmpty()) {
+                lastSent.remove(c);
+                seqs.remove(c);
+                dirty.remove(c);
+                return null;
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * 会话当前订阅的频道
+     */
+    public List<PushChannel> channelsOf(String sessionId) {
+        List<PushChannel> list = new ArrayList<>();
+        subscribers.forEach((channel, ids) -> {
+            if (ids.contains(sessionId)) {
+                list.add(channel);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * 标记频道数据已变化，下次 flush 时重新计算并推送
+     */
+    public void markDirty(PushChannel channel) {
+        if (subscribers.containsKey(channel)) {
+            dirty.add(channel);
+        }
+    }
+
+    /**
+     * 把 {@link #flush} 交给 pushExecutor 执行后立即返回；上一次 flush 未结束时跳过（脏标记保留到下次）
+     */
+    public void submitFlush(Function<PushChannel, Map<String, Object>> loader) {
+        if (dirty.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pushExecutor.execute(() -> {
+                try {
+                    flush(loader);
+                } catch (Exception e) {
+                    log.warn("推送计数失败：{}", e.getMessage());
+                } finally {
+                    flushing.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            flushing.set(false);
+            log.debug("推送线程池已满，本周期跳过计数");
+        }
+    }
+
+    /**
+     * 计算全部脏频道并推送变化的项
+     *
+     * @param loader 计算频道当前的完整计数
+     */
+    public void flush(Function<PushChannel, Map<String, Object>> loader) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        for (PushChannel channel : new ArrayList<>(dirty)) {
+            dirty.remove(channel);
+            if (!subscribers.containsKey(channel)) {
+                continue;
+            }
+            Map<String, Object> data;
+            try {
+                data = loader.apply(channel);
+            } catch (Exception e) {
+                log.warn("推送频道计数失败：{}, error={}", channel, e.getMessage());
+                continue;
+            }
+            Map<String, Object> delta = diff(lastSent.put(channel, data), data);
+            if (!delta.isEmpty()) {
+                long next = seqs.computeIfAbsent(channel, c -> new AtomicLong()).incrementAndGet();
+                broadcast(channel, message("delta", channel, next, delta));
+            }
+        }
+    }
+
+    /**
+     * 订阅后向该会话发送完整计数
+     */
+    public void sendSnapshot(String sessionId, PushChannel channel, Map<String, Object> data) {
+        lastSent.putIfAbsent(channel, data);
+        long current = seqs.computeIfAbsent(channel, c -> new AtomicLong()).get();
+        send(sessionId, message("snapshot", channel, current, data));
+    }
+
+    /**
+     * 向单个会话发送消息（订阅应答、错误提示等）
+     */
+    public void send(String sessionId, Map<String, Object> message) {
+        Outbox outbox = sessions.get(sessionId);
+        if (outbox == null) {
+            return;
+        }
+        TextMessage text = toText(message);
+        if (text != null) {
+            deliver(outbox, text);
+        }
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    private void broadcast(PushChannel channel, Map<String, Object> message) {
+        Set<String> ids = subscribers.get(channel);
+        if (ids == null) {
+            return;
+        }
+        TextMessage text = toText(message);
+        if (text == null) {
+            return;
+        }
+        for (String id : new HashSet<>(ids)) {
+            Outbox outbox = sessions.get(id);
+            if (outbox != null) {
+                deliver(outbox, text);
+            }
+        }
+    }
+
+    /**
+     * 放入会话的待发送队列（超出缓冲上限时丢弃最早的消息），由 pushExecutor 按序发送，不阻塞调用线程
+     */
+    private void deliver(Outbox outbox, TextMessage text) {
+        if (!outbox.session.isOpen()) {
+            remove(outbox.session.getId());
+            return;
+        }
+        long started = outbox.sendStartedAt;
+        if (started > 0 && System.currentTimeMillis() - started > sendTimeLimitMs) {
+            close(outbox, "发送超时");
+            return;
+        }
+        outbox.queue.addLast(text);
+        outbox.bytes.addAndGet(text.getPayloadLength());
+        while (outbox.bytes.get() > bufferSizeLimit) {
+            TextMessage oldest = outbox.queue.pollFirst();
+            if (oldest == null) {
+                break;
+            }
+            outbox.bytes.addAndGet(-oldest.getPayloadLength());
+        }
+        scheduleDrain(outbox);
+    }
+
+    private void scheduleDrain(Outbox outbox) {
+        if (!outbox.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pushExecutor.execute(() -> drain(outbox));
+        } catch (TaskRejectedException e) {
+            outbox.draining.set(false);
+            close(outbox, "推送线程池已满");
+        }
+    }
+
+    /**
+     * 同一会话同时只有一个线程在发送，消息顺序与入队顺序一致
+     */
+    private void drain(Outbox outbox) {
+        try {
+            TextMessage text;
+            while ((text = outbox.queue.pollFirst()) != null) {
+                outbox.bytes.addAndGet(-text.getPayloadLength());
+                outbox.sendStartedAt = System.currentTimeMillis();
+                outbox.session.sendMessage(text);
+                outbox.sendStartedAt = 0;
+            }
+        } catch (Exception e) {
+            outbox.sendStartedAt = 0;
+            outbox.draining.set(false);
+            close(outbox, e.getMessage());
+            return;
+        }
+        outbox.draining.set(false);
+        // 释放标记后才入队的消息由本线程补发
+        if (!outbox.queue.isEmpty() && outbox.session.isOpen()) {
+            scheduleDrain(outbox);
+        }
+    }
+
+    /**
+     * 发送超时或连接异常：断开该会话，客户端重连后重新订阅
+     */
+    private void close(Outbox outbox, String reason) {
+        log.debug("推送发送失败，关闭会话：{}, reason={}", outbox.session.getId(), reason);
+        remove(outbox.session.getId());
+        outbox.queue.clear();
+        try {
+            outbox.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception ignored) {
+            // 会话已不可用
+        }
+    }
+
+    private static Map<String, Object> message(String type, PushChannel channel, long seq, Map<String, Object> data) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", type);
+        m.put("topic", channel.getTopic().getCode());
+        if (channel.getScopeType() != null) {
+            m.put("scope", channel.getScopeType());
+        }
+        m.put("seq", seq);
+        m.put("data", data);
+        return m;
+    }
+
+    private TextMessage toText(Map<String, Object> message) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("推送消息序列化失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 变化的项；上次有、本次没有的项按 0 推送
+     */
+    private static Map<String, Object> diff(Map<String, Object> previous, Map<String, Object> current) {
+        if (previous == null) {
+            return current;
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        current.forEach((k, v) -> {
+            if (!Objects.equals(previous.get(k), v)) {
+                delta.put(k, v);
+            }
+        });
+        previous.keySet().forEach(k -> {
+            if (!current.containsKey(k)) {
+                delta.put(k, 0L);
+            }
+        });
+        return delta;
+    }
+
+    /**
+     * 会话及其待发送队列
+     */
+    private static final class Outbox {
+        private final WebSocketSession session;
+        private final ConcurrentLinkedDeque<TextMessage> queue = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger bytes = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        /**
+         * 当前一次发送的开始时间，未在发送时为 0
+         */
+        private volatile long sendStartedAt;
+
+        private Outbox(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cdiom.backend.push;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 推送通道连接票据
+ * <p>
+ * 浏览器 WebSocket 无法设置请求头，不能把 JWT 放在握手请求里（查询参数会进入访问日志，Cookie 会被跨站页面带上）。
+ * 前端先以登录态调用 POST /api/v1/auth/push-ticket 换取随机票据，再以 ?ticket= 建立连接；
+ * 票据有效期 cdiom.push.ticket-ttl-seconds，握手时兑换一次即作废。
+ * 票据只保存在签发节点的内存中，多节点部署时推送连接需要会话粘滞。
+ *
+ * @author cdiom
+ */
+@Component
+public class PushTicketService {
+
+    private static final int TICKET_BYTES = 32;
+
+    /**
+     * 未兑换票据数超过该值时签发前先清理过期票据
+     */
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    @Value("${cdiom.push.ticket-ttl-seconds:30}")
+    private long ttlSeconds;
+
+    /**
+     * 为已登录用户签发票据
+     */
+    public String issue(Long userId) {
+        long now = System.currentTimeMillis();
+        if (tickets.size() > SWEEP_THRESHOLD) {
+            tickets.values().removeIf(t -> t.expiresAt <= now);
+        }
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(userId, now + ttlSeconds * 1000L));
+        return ticket;
+    }
+
+    /**
+     * 兑换票据（只能兑换一次），无效或已过期时返回 null
+     */
+    public Long redeem(String ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        Ticket t = tickets.remove(ticket);
+        if (t == null || t.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return t.userId;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    private static final class Ticket {
+        private final Long userId;
+        private final long expiresAt;
+
+        private Ticket(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.cdiom.backend.push;
+
+import com.cdiom.backend.constant.PushTopic;
+import com.cdiom.backend.service.PermissionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 推送通道（/api/v1/push）
+ * <p>
+ * 客户端发送 {"action":"subscribe","topic":"warehouse"} 订阅（主题见 {@link PushTopic}），按主题权限校验后返回
+ * {"type":"snapshot","topic":...,"seq":...,"data":{...}} 完整计数，之后数据变化时收到 type=delta 的变化项；
+ * {"action":"unsubscribe","topic":...} 取消订阅。按人、按供应商的主题由服务端根据登录用户确定范围。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushWebSocketHandler extends TextWebSocketHandler {
+
+    private final PushHub pushHub;
+    private final WorkQueuePushService workQueuePushService;
+    private final PermissionService permissionService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+        pushHub.register(session);
+        log.debug("推送连接已建立：{}, userId={}", session.getId(), userIdOf(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        pushHub.remove(session.getId());
+        log.debug("推送连接已关闭：{}", session.getId());
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+        String action;
+        PushTopic topic;
+        try {
+            JsonNode node = objectMapper.readTree(message.getPayload());
+            action = node.path("action").asText();
+            topic = PushTopic.ofCode(node.path("topic").asText());
+        } catch (Exception e) {
+            sendError(session, "消息格式不正确");
+            return;
+        }
+        if (topic == null) {
+            sendError(session, "未知的推送主题");
+            return;
+        }
+
+        Long userId = userIdOf(session);
+        if ("subscribe".equals(action)) {
+            String[] permissions = topic.getPermissions();
+            if (permissions.length > 0 && !permissionService.hasAnyPermission(userId, permissions)) {
+                sendError(session, "权限不足，无法订阅：" + topic.getCode());
+                return;
+            }
+            for (PushChannel channel : workQueuePushService.channelsFor(topic, userId)) {
+                pushHub.subscribe(session.getId(), channel);
+                pushHub.sendSnapshot(session.getId(), channel, workQueuePushService.snapshot(channel));
+            }
+        } else if ("unsubscribe".equals(action)) {
+            for (PushChannel channel : pushHub.channelsOf(session.getId())) {
+                if (channel.getTopic() == topic) {
+                    pushHub.unsubscribe(session.getId(), channel);
+                }
+            }
+        } else {
+            sendError(session, "不支持的操作：" + action);
+        }
+    }
+
+    private void sendError(WebSocketSession session, String msg) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "error");
+        m.put("message", msg);
+        pushHub.send(session.getId(), m);
+    }
+
+    private static Long userIdOf(WebSocketSession session) {
+        return (Long) session.getAttributes().get(PushHandshakeInterceptor.ATTR_USER_ID);
+    }
+}
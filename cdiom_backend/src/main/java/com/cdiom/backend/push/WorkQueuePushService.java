@@ -0,0 +1,162 @@
+package com.cdiom.backend.push;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cdiom.backend.cache.ReferenceDataCache;
+import com.cdiom.backend.constant.PushTopic;
+import com.cdiom.backend.event.InboundRecordChangedEvent;
+import com.cdiom.backend.event.InventoryChangedEvent;
+import com.cdiom.backend.event.OutboundApplyChangedEvent;
+import com.cdiom.backend.event.PurchaseOrderChangedEvent;
+import com.cdiom.backend.mapper.InboundRecordMapper;
+import com.cdiom.backend.mapper.OutboundApplyMapper;
+import com.cdiom.backend.mapper.PurchaseOrderMapper;
+import com.cdiom.backend.model.InboundRecord;
+import com.cdiom.backend.model.PurchaseOrder;
+import com.cdiom.backend.model.Supplier;
+import com.cdiom.backend.model.SysUser;
+import com.cdiom.backend.model.vo.NameCountRow;
+import com.cdiom.backend.model.vo.OrderStatusSummaryRow;
+import com.cdiom.backend.service.SupplierService;
+import com.cdiom.backend.service.impl.InboundRecordServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仓库待办与个人工作队列推送
+ * <p>
+ * 库存、出库申请、采购订单、入库记录的变更事件在事务提交后标记相关频道，
+ * 每 cdiom.push.flush-interval-ms 统一计算一次被标记频道的计数并推送变化项（见 {@link PushHub}），
+ * 日期变化时也会标记仓库频道，使今日出入库数在零点后归零，
+ * 客户端订阅后不必再轮询待审批出库数、今日出入库数、待第二人确认入库等接口。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkQueuePushService {
+
+    private final PushHub pushHub;
+    private final PurchaseOrderMapper purchaseOrderMapper;
+    private final OutboundApplyMapper outboundApplyMapper;
+    private final InboundRecordMapper inboundRecordMapper;
+    private final SupplierService supplierService;
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * 上次 flush 时的日期，跨天后今日出入库数需要归零重算
+     */
+    private volatile LocalDate currentDay = LocalDate.now();
+
+    /**
+     * 调度线程只提交任务，计数查询与发送在 pushExecutor 中执行
+     */
+    @Scheduled(fixedDelayString = "${cdiom.push.flush-interval-ms:1000}")
+    public void flush() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(currentDay)) {
+            currentDay = today;
+            pushHub.markDirty(PushChannel.global(PushTopic.WAREHOUSE));
+        }
+        pushHub.submitFlush(this::snapshot);
+    }
+
+    /**
+     * 用户订阅某主题时对应的频道
+     */
+    public List<PushChannel> channelsFor(PushTopic topic, Long userId) {
+        List<PushChannel> channels = new ArrayList<>();
+        if (topic == PushTopic.WAREHOUSE) {
+            channels.add(PushChannel.global(topic));
+            return channels;
+        }
+        channels.add(PushChannel.ofUser(topic, userId));
+        if (topic == PushTopic.MY_PURCHASE_ORDER) {
+            // 供应商账号同时订阅本供应商的订单
+            SysUser user = referenceDataCache.getUser(userId);
+            Supplier supplier = supplierService.findSupplierForUser(userId, user != null ? user.getPhone() : null);
+            if (supplier != null) {
+                channels.add(PushChannel.ofSupplier(topic, supplier.getId()));
+            }
+        }
+        return channels;
+    }
+
+    /**
+     * 频道当前的完整计数
+     */
+    public Map<String, Object> snapshot(PushChannel channel) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        PushTopic topic = channel.getTopic();
+        Long scopeId = channel.getScopeId();
+        if (topic == PushTopic.WAREHOUSE) {
+            LocalDateTime todayStart = LocalDate.now().atStartOfDay();
+            LocalDateTime todayEnd = todayStart.plusDays(1);
+            data.put("pendingInbound", purchaseOrderMapper.selectCount(
+                    new LambdaQueryWrapper<PurchaseOrder>().eq(PurchaseOrder::getStatus, "SHIPPED")));
+            data.put("pendingOutbound", outboundApplyMapper.countPendingOutbound());
+            data.put("pendingSecondConfirm", inboundRecordMapper.selectCount(new LambdaQueryWrapper<InboundRecord>()
+                    .eq(InboundRecord::getSecondConfirmStatus, InboundRecordServiceImpl.SECOND_CONFIRM_PENDING)));
+            data.put("todayInbound", inboundRecordMapper.countTodayInbound(todayStart, todayEnd));
+            data.put("todayOutbound", outboundApplyMapper.countTodayOutbound(todayStart, todayEnd));
+        } else if (topic == PushTopic.MY_OUTBOUND_APPLY) {
+            for (NameCountRow row : outboundApplyMapper.countByStatusForApplicant(scopeId)) {
+                data.put(row.getName(), row.getCount());
+            }
+        } else if (topic == PushTopic.MY_PURCHASE_ORDER) {
+            boolean bySupplier = PushChannel.SCOPE_SUPPLIER.equals(channel.getScopeType());
+            for (OrderStatusSummaryRow row : purchaseOrderMapper.summarizeByStatus(
+                    bySupplier ? scopeId : null, bySupplier ? null : scopeId)) {
+                data.put(row.getStatus(), row.getOrderCount());
+            }
+        } else if (topic == PushTopic.MY_INBOUND_CONFIRM) {
+            data.put("pendingSecondConfirm", inboundRecordMapper.selectCount(new LambdaQueryWrapper<InboundRecord>()
+                    .eq(InboundRecord::getSecondConfirmStatus, InboundRecordServiceImpl.SECOND_CONFIRM_PENDING)
+                    .eq(InboundRecord::getSecondOperatorId, scopeId)));
+        }
+        return data;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        pushHub.markDirty(PushChannel.global(PushTopic.WAREHOUSE));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOutboundApplyChanged(OutboundApplyChangedEvent event) {
+        pushHub.markDirty(PushChannel.global(PushTopic.WAREHOUSE));
+        if (event.getApplicantId() != null) {
+            pushHub.markDirty(PushChannel.ofUser(PushTopic.MY_OUTBOUND_APPLY, event.getApplicantId()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPurchaseOrderChanged(PurchaseOrderChangedEvent event) {
+        pushHub.markDirty(PushChannel.global(PushTopic.WAREHOUSE));
+        if (event.getPurchaserId() != null) {
+            pushHub.markDirty(PushChannel.ofUser(PushTopic.MY_PURCHASE_ORDER, event.getPurchaserId()));
+        }
+        if (event.getSupplierId() != null) {
+            pushHub.markDirty(PushChannel.ofSupplier(PushTopic.MY_PURCHASE_ORDER, event.getSupplierId()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInboundRecordChanged(InboundRecordChangedEvent event) {
+        pushHub.markDirty(PushChannel.global(PushTopic.WAREHOUSE));
+        if (event.getSecondOperatorId() != null) {
+            pushHub.markDirty(PushChannel.ofUser(PushTopic.MY_INBOUND_CONFIRM, event.getSecondOperatorId()));
+        }
+    }
+}
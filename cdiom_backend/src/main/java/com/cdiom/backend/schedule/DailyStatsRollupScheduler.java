@@ -0,0 +1,28 @@
+package com.cdiom.backend.schedule;
+
+import com.cdiom.backend.service.DailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按天汇总统计定时任务：把已结束日期的登录/操作/出入库/订单计数写入 daily_stats，趋势查询不再逐天 COUNT
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyStatsRollupScheduler {
+
+    private final DailyStatsService dailyStatsService;
+
+    @Scheduled(cron = "${cdiom.daily-stats.rollup-cron:0 5 * * * ?}")
+    public void rollUp() {
+        try {
+            int written = dailyStatsService.rollUp();
+            log.debug("按天汇总统计完成，写入 {} 行", written);
+        } catch (Exception e) {
+            log.warn("按天汇总统计任务异常: {}", e.getMessage());
+        }
+    }
+}
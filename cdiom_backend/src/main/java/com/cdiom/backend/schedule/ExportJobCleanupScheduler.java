@@ -0,0 +1,31 @@
+package com.cdiom.backend.schedule;
+
+import com.cdiom.backend.export.ExportJobManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 导出任务过期清理：删除超过保留时间的任务记录与导出文件
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExportJobCleanupScheduler {
+
+    private final ExportJobManager exportJobManager;
+
+    @Scheduled(fixedDelayString = "${cdiom.export.job.cleanup-interval-ms:300000}",
+            initialDelayString = "${cdiom.export.job.cleanup-interval-ms:300000}")
+    public void purgeExpired() {
+        try {
+            int removed = exportJobManager.purgeExpired();
+            if (removed > 0) {
+                log.info("已清理过期导出任务 {} 个", removed);
+            }
+        } catch (Exception e) {
+            log.warn("导出任务过期清理异常: {}", e.getMessage());
+        }
+    }
+}
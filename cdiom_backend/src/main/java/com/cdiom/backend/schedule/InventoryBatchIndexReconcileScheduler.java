@@ -0,0 +1,43 @@
+package com.cdiom.backend.schedule;
+
+import com.cdiom.backend.inventory.InventoryBatchIndex;
+import com.cdiom.backend.inventory.InventoryExpiryHistogram;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 库存批次索引定时对账：以 inventory 表为准修正内存索引（兜底事务外改库、刷新失败等情况）；
+ * 每日零点后将近效期直方图滚动到当天
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryBatchIndexReconcileScheduler {
+
+    private final InventoryBatchIndex inventoryBatchIndex;
+    private final InventoryExpiryHistogram inventoryExpiryHistogram;
+
+    @Scheduled(fixedDelayString = "${cdiom.inventory.batch-index.reconcile-interval-ms:600000}",
+            initialDelayString = "${cdiom.inventory.batch-index.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        if (!inventoryBatchIndex.isAvailable()) {
+            return;
+        }
+        try {
+            inventoryBatchIndex.reconcile();
+        } catch (Exception e) {
+            log.warn("库存批次索引对账任务异常: {}", e.getMessage());
+        }
+    }
+
+    /** 每日 0 点 0 分 5 秒执行 */
+    @Scheduled(cron = "5 0 0 * * ?")
+    public void rollExpiryHistogram() {
+        int dropped = inventoryExpiryHistogram.rollForward(LocalDate.now());
+        log.debug("近效期直方图滚动完成，丢弃已过期日期桶 {} 个", dropped);
+    }
+}
@@ -0,0 +1,27 @@
+package com.cdiom.backend.schedule;
+
+import com.cdiom.backend.service.InventoryMovementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库存快照定时任务：由上一快照与其后的库存流水生成新快照，限定时点库存查询的回放范围
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventorySnapshotScheduler {
+
+    private final InventoryMovementService inventoryMovementService;
+
+    @Scheduled(cron = "${cdiom.inventory.journal.snapshot-cron:0 30 2 * * ?}")
+    public void snapshot() {
+        try {
+            inventoryMovementService.takeSnapshot();
+        } catch (Exception e) {
+            log.warn("库存快照任务异常: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cdiom.backend.schedule;
+
+import com.cdiom.backend.search.KeywordSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 关键字检索索引定时重建：以 drug_info / inventory 为准修正内存倒排（兜底刷新失败、脚本改库及其他实例的写入）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeywordSearchIndexRebuildScheduler {
+
+    private final KeywordSearchIndex keywordSearchIndex;
+
+    @Scheduled(fixedDelayString = "${cdiom.search.index.rebuild-interval-ms:1800000}",
+            initialDelayString = "${cdiom.search.index.rebuild-interval-ms:1800000}")
+    public void rebuild() {
+        if (!keywordSearchIndex.isAvailable()) {
+            return;
+        }
+        try {
+            keywordSearchIndex.rebuild();
+        } catch (Exception e) {
+            log.warn("关键字检索索引重建任务异常: {}", e.getMessage());
+        }
+    }
+}
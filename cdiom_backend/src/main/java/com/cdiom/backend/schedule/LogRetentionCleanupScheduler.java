@@ -2,6 +2,7 @@ package com.cdiom.backend.schedule;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.cdiom.backend.mapper.LoginLogMapper;
+import com.cdiom.backend.mapper.OperationLogCounterMapper;
 import com.cdiom.backend.mapper.OperationLogMapper;
 import com.cdiom.backend.model.LoginLog;
 import com.cdiom.backend.model.OperationLog;
@@ -24,6 +25,7 @@ public class LogRetentionCleanupScheduler {
     private final SystemConfigUtil systemConfigUtil;
     private final LoginLogMapper loginLogMapper;
     private final OperationLogMapper operationLogMapper;
+    private final OperationLogCounterMapper operationLogCounterMapper;
 
     /** 每日凌晨 3 点执行 */
     @Scheduled(cron = "0 0 3 * * ?")
@@ -41,6 +43,7 @@ public class LogRetentionCleanupScheduler {
         LambdaQueryWrapper<OperationLog> w2 = new LambdaQueryWrapper<>();
         w2.lt(OperationLog::getOperationTime, threshold);
         int n2 = operationLogMapper.delete(w2);
+        operationLogCounterMapper.deleteBefore(threshold.toLocalDate());
 
         log.info("日志保留清理：删除登录日志 {} 条、操作日志 {} 条（保留最近 {} 年内的记录）", n1, n2, years);
     }
@@ -0,0 +1,28 @@
+package com.cdiom.backend.schedule;
+
+import com.cdiom.backend.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 出库占用视图定时重载：以 stock_reservation 表为准覆盖内存合计（兜底刷新失败及其他实例的占用变更）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationViewReloadScheduler {
+
+    private final StockReservationService stockReservationService;
+
+    @Scheduled(fixedDelayString = "${cdiom.inventory.reservation.reload-interval-ms:60000}",
+            initialDelayString = "${cdiom.inventory.reservation.reload-interval-ms:60000}")
+    public void reload() {
+        try {
+            stockReservationService.reloadView();
+        } catch (Exception e) {
+            log.warn("库存占用视图重载任务异常: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.cdiom.backend.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cdiom.backend.event.DrugInfoChangedEvent;
+import com.cdiom.backend.event.InventoryChangedEvent;
+import com.cdiom.backend.mapper.DrugInfoMapper;
+import com.cdiom.backend.mapper.InventoryMapper;
+import com.cdiom.backend.model.DrugInfo;
+import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.util.PinyinInitialUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 药品与库存批次的关键字检索索引（进程内 n-gram 倒排）
+ * <p>
+ * 每个字段按小写后的单字与相邻二字建立倒排；查询时取关键字全部二字（单字关键字取单字）的倒排交集作为候选，
+ * 再逐个校验字段是否包含关键字，结果与 LIKE '%kw%' 一致。药品名称额外索引拼音首字母（如 amxl）。
+ * 药品命中按字段权重与匹配方式（全等 > 前缀 > 包含）排序。
+ * 药品/库存写入事务提交后按 ID 回读刷新；定时全量重建兜底。关闭或未加载完成时调用方回退 LIKE 查询。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeywordSearchIndex {
+
+    private final DrugInfoMapper drugInfoMapper;
+    private final InventoryMapper inventoryMapper;
+
+    @Value("${cdiom.search.index.enabled:true}")
+    private boolean enabled;
+
+    // 药品ID -> 文档；gram -> 药品ID
+    private final Map<Long, DrugDoc> drugs = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> drugPostings = new ConcurrentHashMap<>();
+
+    // 库存ID -> 批次文档（仅数量大于 0 的批次）；gram -> 库存ID
+    private final Map<Long, BatchDoc> batches = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> batchPostings = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * 索引是否可用于查询（开关开启且已完成首次加载）
+     */
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("关键字检索索引已关闭，药品与库存关键字查询走 LIKE");
+            return;
+        }
+        try {
+            rebuild();
+            ready = true;
+        } catch (Exception e) {
+            log.warn("关键字检索索引加载失败，回退 LIKE 查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建：以 drug_info（未删除）与 inventory（数量大于 0）为准
+     */
+    public synchronized void rebuild() {
+        Map<Long, DrugDoc> freshDrugs = new HashMap<>();
+        for (DrugInfo d : drugInfoMapper.selectList(new LambdaQueryWrapper<>())) {
+            freshDrugs.put(d.getId(), DrugDoc.of(d));
+        }
+        LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
+        wrapper.gt(Inventory::getQuantity, 0);
+        Map<Long, BatchDoc> freshBatches = new HashMap<>();
+        for (Inventory inv : inventoryMapper.selectList(wrapper)) {
+            freshBatches.put(inv.getId(), BatchDoc.of(inv));
+        }
+
+        for (Long id : new ArrayList<>(drugs.keySet())) {
+            if (!freshDrugs.containsKey(id)) {
+                removeDrug(id);
+            }
+        }
+        freshDrugs.forEach(this::putDrug);
+        for (Long id : new ArrayList<>(batches.keySet())) {
+            if (!freshBatches.containsKey(id)) {
+                removeBatch(id);
+            }
+        }
+        freshBatches.forEach(this::putBatch);
+        log.debug("关键字检索索引重建完成：药品={}, 批次={}, 药品词项={}, 批次词项={}",
+                drugs.size(), batches.size(), drugPostings.size(), batchPostings.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDrugInfoChanged(DrugInfoChangedEvent event) {
+        if (!enabled || event.getDrugId() == null) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                DrugInfo d = drugInfoMapper.selectById(event.getDrugId());
+                if (d == null) {
+                    removeDrug(event.getDrugId());
+                } else {
+                    putDrug(d.getId(), DrugDoc.of(d));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("关键字检索索引刷新药品失败：药品ID={}, error={}", event.getDrugId(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled || event.getDrugId() == null || event.getBatchNumber() == null) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
+                wrapper.eq(Inventory::getDrugId, event.getDrugId());
+                wrapper.eq(Inventory::getBatchNumber, event.getBatchNumber());
+                Inventory inv = inventoryMapper.selectOne(wrapper);
+                if (inv == null) {
+                    return;
+                }
+                if (inv.getQuantity() == null || inv.getQuantity() <= 0) {
+                    removeBatch(inv.getId());
+                } else {
+                    putBatch(inv.getId(), BatchDoc.of(inv));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("关键字检索索引刷新批次失败：药品ID={}, 批次号={}, error={}", event.getDrugId(), event.getBatchNumber(), e.getMessage());
+        }
+    }
+
+    /**
+     * 按关键字检索药品，返回按相关度排序的药品ID
+     *
+     * @param includeManufacturer 是否匹配生产厂家
+     * @param isSpecial           特殊药品筛选，为空不筛选
+     */
+    public List<Long> searchDrugIds(String keyword, boolean includeManufacturer, Integer isSpecial) {
+        String q = normalize(keyword);
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Scored> hits = new ArrayList<>();
+        for (Long id : candidates(drugPostings, q)) {
+            DrugDoc doc = drugs.get(id);
+            if (doc == null || (isSpecial != null && !isSpecial.equals(doc.isSpecial))) {
+                continue;
+            }
+            int score = doc.score(q, includeManufacturer);
+            if (score > 0) {
+                hits.add(new Scored(id, score, doc.drugName.length()));
+            }
+        }
+        hits.sort(Comparator.comparingInt((Scored s) -> -s.score)
+                .thenComparingInt(s -> s.nameLength)
+                .thenComparing(s -> -s.id));
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (Scored s : hits) {
+            ids.add(s.id);
+        }
+        return ids;
+    }
+
+    /**
+     * 批次号或货位包含关键字的库存ID（数量大于 0 的批次）
+     */
+    public List<Long> searchInventoryIds(String keyword) {
+        String q = normalize(keyword);
+        List<Long> ids = new ArrayList<>();
+        if (q.isEmpty()) {
+            return ids;
+        }
+        for (Long id : candidates(batchPostings, q)) {
+            BatchDoc doc = batches.get(id);
+            if (doc != null && (doc.batchNumber.contains(q) || doc.storageLocation.contains(q))) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private void putDrug(Long id, DrugDoc doc) {
+        DrugDoc old = drugs.put(id, doc);
+        reindex(drugPostings, id, old != null ? old.grams() : Collections.emptySet(), doc.grams());
+    }
+
+    private void removeDrug(Long id) {
+        DrugDoc old = drugs.remove(id);
+        if (old != null) {
+            reindex(drugPostings, id, old.grams(), Collections.emptySet());
+        }
+    }
+
+    private void putBatch(Long id, BatchDoc doc) {
+        BatchDoc old = batches.put(id, doc);
+        reindex(batchPostings, id, old != null ? old.grams() : Collections.emptySet(), doc.grams());
+    }
+
+    private void removeBatch(Long id) {
+        BatchDoc old = batches.remove(id);
+        if (old != null) {
+            reindex(batchPostings, id, old.grams(), Collections.emptySet());
+        }
+    }
+
+    private static void reindex(Map<String, Set<Long>> postings, Long id, Set<String> before, Set<String> after) {
+        for (String g : before) {
+            if (!after.contains(g)) {
+                Set<Long> ids = postings.get(g);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(g);
+                    }
+                }
+            }
+        }
+        for (String g : after) {
+            if (!before.contains(g)) {
+                postings.computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    /**
+     * 候选集：关键字各 gram 倒排的交集（从最短的倒排开始）
+     */
+    private static Set<Long> candidates(Map<String, Set<Long>> postings, String q) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String g : queryGrams(q)) {
+            Set<Long> ids = postings.get(g);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static Set<String> queryGrams(String q) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (q.length() == 1) {
+            grams.add(q);
+            return grams;
+        }
+        for (int i = 0; i + 2 <= q.length(); i++) {
+            grams.add(q.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static void addGrams(Set<String> grams, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(text.substring(i, i + 1));
+            if (i + 2 <= text.length()) {
+                grams.add(text.substring(i, i + 2));
+            }
+        }
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 匹配得分：全等 3 倍、前缀 2 倍、包含 1 倍字段权重
+     */
+    private static int fieldScore(String text, String q, int weight) {
+        if (text.isEmpty() || !text.contains(q)) {
+            return 0;
+        }
+        if (text.equals(q)) {
+            return weight * 3;
+        }
+        return text.startsWith(q) ? weight * 2 : weight;
+    }
+
+    /**
+     * 药品文档（字段已小写，不可变）
+     */
+    private static class DrugDoc {
+        final String drugName;
+        final String nameInitials;
+        final String nationalCode;
+        final String approvalNumber;
+        final String manufacturer;
+        final Integer isSpecial;
+
+        DrugDoc(String drugName, String nameInitials, String nationalCode, String approvalNumber,
+                String manufacturer, Integer isSpecial) {
+            this.drugName = drugName;
+            this.nameInitials = nameInitials;
+            this.nationalCode = nationalCode;
+            this.approvalNumber = approvalNumber;
+            this.manufacturer = manufacturer;
+            this.isSpecial = isSpecial;
+        }
+
+        static DrugDoc of(DrugInfo d) {
+            return new DrugDoc(normalize(d.getDrugName()), PinyinInitialUtil.getInitials(d.getDrugName()),
+                    normalize(d.getNationalCode()), normalize(d.getApprovalNumber()),
+                    normalize(d.getManufacturer()), d.getIsSpecial());
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(grams, drugName);
+            addGrams(grams, nameInitials);
+            addGrams(grams, nationalCode);
+            addGrams(grams, approvalNumber);
+            addGrams(grams, manufacturer);
+            return grams;
+        }
+
+        int score(String q, boolean includeManufacturer) {
+            int score = Math.max(fieldScore(drugName, q, 100), fieldScore(nameInitials, q, 60));
+            score = Math.max(score, fieldScore(nationalCode, q, 80));
+            score = Math.max(score, fieldScore(approvalNumber, q, 70));
+            if (includeManufacturer) {
+                score = Math.max(score, fieldScore(manufacturer, q, 30));
+            }
+            return score;
+        }
+    }
+
+    /**
+     * 库存批次文档（字段已小写，不可变）
+     */
+    private static class BatchDoc {
+        final String batchNumber;
+        final String storageLocation;
+
+        BatchDoc(String batchNumber, String storageLocation) {
+            this.batchNumber = batchNumber;
+            this.storageLocation = storageLocation;
+        }
+
+        static BatchDoc of(Inventory inv) {
+            return new BatchDoc(normalize(inv.getBatchNumber()), normalize(inv.getStorageLocation()));
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(grams, batchNumber);
+            addGrams(grams, storageLocation);
+            return grams;
+        }
+    }
+
+    private static class Scored {
+        final long id;
+        final int score;
+        final int nameLength;
+
+        Scored(long id, int score, int nameLength) {
+            this.id = id;
+            this.score = score;
+            this.nameLength = nameLength;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.cdiom.backend.service;
+
+import com.cdiom.backend.constant.DailyStatMetric;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 按天汇总统计服务（仪表盘趋势）
+ *
+ * @author cdiom
+ */
+public interface DailyStatsService {
+
+    /**
+     * 指定日期范围内每天的计数（按日期升序，含首尾）：已结束的日期读 daily_stats，今天现场统计
+     *
+     * @param dimId 维度值（如采购员ID）；为 null 时取当天总数
+     */
+    List<Long> dailyCounts(DailyStatMetric metric, Long dimId, LocalDate from, LocalDate to);
+
+    /**
+     * 汇总已结束但尚未汇总的日期，并重算最近几天（数据可能延迟变更），返回写入的行数
+     */
+    int rollUp();
+}
@@ -18,14 +18,18 @@ public interface DashboardService {
     Map<String, Object> getStatistics();
 
     /**
-     * 获取最近登录趋势（最近7天）
+     * 获取最近登录趋势
+     *
+     * @param days 最近天数（默认7天，最多365天）
      */
-    Map<String, Object> getLoginTrend();
+    Map<String, Object> getLoginTrend(Integer days);
 
     /**
-     * 获取操作日志统计（最近7天）
+     * 获取操作日志统计
+     *
+     * @param days 每日操作数趋势的天数（默认7天，最多365天）
      */
-    Map<String, Object> getOperationLogStatistics();
+    Map<String, Object> getOperationLogStatistics(Integer days);
 
     /**
      * 获取仓库管理员仪表盘数据
@@ -0,0 +1,16 @@
+package com.cdiom.backend.service;
+
+import com.cdiom.backend.constant.DocNumberType;
+
+/**
+ * 单据号分配服务
+ *
+ * @author cdiom
+ */
+public interface DocSequenceService {
+
+    /**
+     * 分配下一个单号，格式：前缀 + 日期（yyyyMMdd）+ 3位序号（超过999时自然增加位数）
+     */
+    String nextNumber(DocNumberType type);
+}
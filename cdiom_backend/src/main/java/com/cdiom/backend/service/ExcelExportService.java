@@ -6,20 +6,25 @@ import com.cdiom.backend.model.LoginLog;
 import com.cdiom.backend.model.OperationLog;
 import com.cdiom.backend.model.PurchaseOrder;
 import com.cdiom.backend.model.SysUser;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 
 /**
  * Excel导出服务
+ * 数据由 MyBatis Cursor 逐行读取，经 SXSSF 流式写入输出流；Cursor 需在事务内遍历，故各导出方法为只读事务
  * 
  * @author cdiom
  */
@@ -29,366 +34,264 @@ public class ExcelExportService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final int EXCEL_CELL_MAX_CHARS = 32000;
+    /** SXSSF 内存中保留的行数，超出部分刷到临时文件 */
+    private static final int ROW_ACCESS_WINDOW = 500;
+    /** 参与列宽估算的数据行数 */
+    private static final int WIDTH_SAMPLE_ROWS = 200;
 
     /**
      * 导出药品列表到Excel
      */
-    public byte[] exportDrugInfoList(List<DrugInfo> drugList, SysUser exporter) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("药品列表");
-
-        // 创建样式
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = createDataStyle(workbook);
-
-        // 创建标题行
-        Row titleRow = sheet.createRow(0);
-        Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("药品信息列表");
-        titleCell.setCellStyle(headerStyle);
-        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 10));
+    @Transactional(readOnly = true)
+    public void exportDrugInfoList(Supplier<Cursor<DrugInfo>> source, SysUser exporter, OutputStream out) throws IOException {
+        exportDrugInfoList(source, exporter, out, null);
+    }
 
-        // 创建表头
-        Row headerRow = sheet.createRow(1);
-        String[] headers = {"ID", "国家本位码", "商品码", "药品名称", "剂型", "规格", "批准文号", 
+    /**
+     * 同上，progress 非空时按批回调已写入的数据行数（导出任务用于上报进度）
+     */
+    @Transactional(readOnly = true)
+    public void exportDrugInfoList(Supplier<Cursor<DrugInfo>> source, SysUser exporter, OutputStream out,
+            LongConsumer progress) throws IOException {
+        String[] headers = {"ID", "国家本位码", "商品码", "药品名称", "剂型", "规格", "批准文号",
                            "生产厂家", "是否特殊药品", "存储要求", "单位", "创建时间"};
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
+        try (Cursor<DrugInfo> rows = source.get()) {
+            writeSheet(out, "药品列表", "药品信息列表", headers, rows, drug -> new Object[]{
+                    drug.getId(),
+                    nullToEmpty(drug.getNationalCode()),
+                    nullToEmpty(drug.getProductCode()),
+                    nullToEmpty(drug.getDrugName()),
+                    nullToEmpty(drug.getDosageForm()),
+                    nullToEmpty(drug.getSpecification()),
+                    nullToEmpty(drug.getApprovalNumber()),
+                    nullToEmpty(drug.getManufacturer()),
+                    drug.getIsSpecial() != null && drug.getIsSpecial() == 1 ? "是" : "否",
+                    nullToEmpty(drug.getStorageRequirement()),
+                    nullToEmpty(drug.getUnit()),
+                    drug.getCreateTime() != null ? drug.getCreateTime().format(DATETIME_FORMATTER) : ""
+            }, exporter, progress);
         }
-
-        // 填充数据
-        int rowNum = 2;
-        for (DrugInfo drug : drugList) {
-            Row row = sheet.createRow(rowNum++);
-            int colNum = 0;
-            
-            Cell idCell = row.createCell(colNum++);
-            if (drug.getId() != null) {
-                idCell.setCellValue(drug.getId());
-            } else {
-                idCell.setCellValue("");
-            }
-            row.createCell(colNum++).setCellValue(drug.getNationalCode() != null ? drug.getNationalCode() : "");
-            row.createCell(colNum++).setCellValue(drug.getProductCode() != null ? drug.getProductCode() : "");
-            row.createCell(colNum++).setCellValue(drug.getDrugName() != null ? drug.getDrugName() : "");
-            row.createCell(colNum++).setCellValue(drug.getDosageForm() != null ? drug.getDosageForm() : "");
-            row.createCell(colNum++).setCellValue(drug.getSpecification() != null ? drug.getSpecification() : "");
-            row.createCell(colNum++).setCellValue(drug.getApprovalNumber() != null ? drug.getApprovalNumber() : "");
-            row.createCell(colNum++).setCellValue(drug.getManufacturer() != null ? drug.getManufacturer() : "");
-            row.createCell(colNum++).setCellValue(drug.getIsSpecial() != null && drug.getIsSpecial() == 1 ? "是" : "否");
-            row.createCell(colNum++).setCellValue(drug.getStorageRequirement() != null ? drug.getStorageRequirement() : "");
-            row.createCell(colNum++).setCellValue(drug.getUnit() != null ? drug.getUnit() : "");
-            row.createCell(colNum++).setCellValue(drug.getCreateTime() != null ? 
-                drug.getCreateTime().format(DATETIME_FORMATTER) : "");
-            
-            // 设置数据样式
-            for (int i = 0; i < colNum; i++) {
-                row.getCell(i).setCellStyle(dataStyle);
-            }
-        }
-
-        // 添加水印
-        addWatermark(sheet, exporter, workbook);
-
-        // 自动调整列宽
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, sheet.getColumnWidth(i) + 1000); // 增加一些额外宽度
-        }
-
-        // 写入到字节数组
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-        return outputStream.toByteArray();
     }
 
     /**
      * 导出库存列表到Excel
      */
-    public byte[] exportInventoryList(List<Inventory> inventoryList, SysUser exporter) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("库存列表");
-
-        // 创建样式
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = createDataStyle(workbook);
-
-        // 创建标题行
-        Row titleRow = sheet.createRow(0);
-        Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("库存信息列表");
-        titleCell.setCellStyle(headerStyle);
-        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 9));
+    @Transactional(readOnly = true)
+    public void exportInventoryList(Supplier<Cursor<Inventory>> source, SysUser exporter, OutputStream out) throws IOException {
+        exportInventoryList(source, exporter, out, null);
+    }
 
-        // 创建表头
-        Row headerRow = sheet.createRow(1);
-        String[] headers = {"ID", "药品ID", "批次号", "库存数量", "有效期至", "存储位置", 
+    /**
+     * 同上，progress 非空时按批回调已写入的数据行数（导出任务用于上报进度）
+     */
+    @Transactional(readOnly = true)
+    public void exportInventoryList(Supplier<Cursor<Inventory>> source, SysUser exporter, OutputStream out,
+            LongConsumer progress) throws IOException {
+        String[] headers = {"ID", "药品ID", "批次号", "库存数量", "有效期至", "存储位置",
                            "生产日期", "生产厂家", "备注", "创建时间"};
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
+        try (Cursor<Inventory> rows = source.get()) {
+            writeSheet(out, "库存列表", "库存信息列表", headers, rows, inventory -> new Object[]{
+                    inventory.getId(),
+                    inventory.getDrugId(),
+                    nullToEmpty(inventory.getBatchNumber()),
+                    inventory.getQuantity() != null ? inventory.getQuantity() : 0,
+                    inventory.getExpiryDate() != null ? inventory.getExpiryDate().format(DATE_FORMATTER) : "",
+                    nullToEmpty(inventory.getStorageLocation()),
+                    inventory.getProductionDate() != null ? inventory.getProductionDate().format(DATE_FORMATTER) : "",
+                    nullToEmpty(inventory.getManufacturer()),
+                    nullToEmpty(inventory.getRemark()),
+                    inventory.getCreateTime() != null ? inventory.getCreateTime().format(DATETIME_FORMATTER) : ""
+            }, exporter, progress);
         }
-
-        // 填充数据
-        int rowNum = 2;
-        for (Inventory inventory : inventoryList) {
-            Row row = sheet.createRow(rowNum++);
-            int colNum = 0;
-            
-            Cell idCell = row.createCell(colNum++);
-            if (inventory.getId() != null) {
-                idCell.setCellValue(inventory.getId());
-            } else {
-                idCell.setCellValue("");
-            }
-            Cell drugIdCell = row.createCell(colNum++);
-            if (inventory.getDrugId() != null) {
-                drugIdCell.setCellValue(inventory.getDrugId());
-            } else {
-                drugIdCell.setCellValue("");
-            }
-            row.createCell(colNum++).setCellValue(inventory.getBatchNumber() != null ? inventory.getBatchNumber() : "");
-            row.createCell(colNum++).setCellValue(inventory.getQuantity() != null ? inventory.getQuantity() : 0);
-            row.createCell(colNum++).setCellValue(inventory.getExpiryDate() != null ? 
-                inventory.getExpiryDate().format(DATE_FORMATTER) : "");
-            row.createCell(colNum++).setCellValue(inventory.getStorageLocation() != null ? inventory.getStorageLocation() : "");
-            row.createCell(colNum++).setCellValue(inventory.getProductionDate() != null ? 
-                inventory.getProductionDate().format(DATE_FORMATTER) : "");
-            row.createCell(colNum++).setCellValue(inventory.getManufacturer() != null ? inventory.getManufacturer() : "");
-            row.createCell(colNum++).setCellValue(inventory.getRemark() != null ? inventory.getRemark() : "");
-            row.createCell(colNum++).setCellValue(inventory.getCreateTime() != null ? 
-                inventory.getCreateTime().format(DATETIME_FORMATTER) : "");
-            
-            // 设置数据样式
-            for (int i = 0; i < colNum; i++) {
-                row.getCell(i).setCellStyle(dataStyle);
-            }
-        }
-
-        // 添加水印
-        addWatermark(sheet, exporter, workbook);
-
-        // 自动调整列宽
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, sheet.getColumnWidth(i) + 1000);
-        }
-
-        // 写入到字节数组
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-        return outputStream.toByteArray();
     }
 
     /**
      * 导出采购订单列表到Excel
      */
-    public byte[] exportPurchaseOrderList(List<PurchaseOrder> orderList, SysUser exporter) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("采购订单列表");
-
-        // 创建样式
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = createDataStyle(workbook);
-
-        // 创建标题行
-        Row titleRow = sheet.createRow(0);
-        Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("采购订单列表");
-        titleCell.setCellStyle(headerStyle);
-        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 9));
+    @Transactional(readOnly = true)
+    public void exportPurchaseOrderList(Supplier<Cursor<PurchaseOrder>> source, SysUser exporter, OutputStream out) throws IOException {
+        exportPurchaseOrderList(source, exporter, out, null);
+    }
 
-        // 创建表头
-        Row headerRow = sheet.createRow(1);
-        String[] headers = {"ID", "订单编号", "供应商ID", "采购员ID", "订单状态", "预计交货日期", 
+    /**
+     * 同上，progress 非空时按批回调已写入的数据行数（导出任务用于上报进度）
+     */
+    @Transactional(readOnly = true)
+    public void exportPurchaseOrderList(Supplier<Cursor<PurchaseOrder>> source, SysUser exporter, OutputStream out,
+            LongConsumer progress) throws IOException {
+        String[] headers = {"ID", "订单编号", "供应商ID", "采购员ID", "订单状态", "预计交货日期",
                            "物流单号", "发货日期", "订单总金额", "创建时间"};
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        // 填充数据
-        int rowNum = 2;
-        for (PurchaseOrder order : orderList) {
-            Row row = sheet.createRow(rowNum++);
-            int colNum = 0;
-            
-            Cell idCell = row.createCell(colNum++);
-            if (order.getId() != null) {
-                idCell.setCellValue(order.getId());
-            } else {
-                idCell.setCellValue("");
-            }
-            row.createCell(colNum++).setCellValue(order.getOrderNumber() != null ? order.getOrderNumber() : "");
-            Cell supplierIdCell = row.createCell(colNum++);
-            if (order.getSupplierId() != null) {
-                supplierIdCell.setCellValue(order.getSupplierId());
-            } else {
-                supplierIdCell.setCellValue("");
-            }
-            Cell purchaserIdCell = row.createCell(colNum++);
-            if (order.getPurchaserId() != null) {
-                purchaserIdCell.setCellValue(order.getPurchaserId());
-            } else {
-                purchaserIdCell.setCellValue("");
-            }
-            row.createCell(colNum++).setCellValue(order.getStatus() != null ? order.getStatus() : "");
-            row.createCell(colNum++).setCellValue(order.getExpectedDeliveryDate() != null ? 
-                order.getExpectedDeliveryDate().format(DATE_FORMATTER) : "");
-            row.createCell(colNum++).setCellValue(order.getLogisticsNumber() != null ? order.getLogisticsNumber() : "");
-            row.createCell(colNum++).setCellValue(order.getShipDate() != null ? 
-                order.getShipDate().format(DATETIME_FORMATTER) : "");
-            row.createCell(colNum++).setCellValue(order.getTotalAmount() != null ? 
-                order.getTotalAmount().doubleValue() : 0.0);
-            row.createCell(colNum++).setCellValue(order.getCreateTime() != null ? 
-                order.getCreateTime().format(DATETIME_FORMATTER) : "");
-            
-            // 设置数据样式
-            for (int i = 0; i < colNum; i++) {
-                row.getCell(i).setCellStyle(dataStyle);
-            }
-        }
-
-        // 添加水印
-        addWatermark(sheet, exporter, workbook);
-
-        // 自动调整列宽
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, sheet.getColumnWidth(i) + 1000);
+        try (Cursor<PurchaseOrder> rows = source.get()) {
+            writeSheet(out, "采购订单列表", "采购订单列表", headers, rows, order -> new Object[]{
+                    order.getId(),
+                    nullToEmpty(order.getOrderNumber()),
+                    order.getSupplierId(),
+                    order.getPurchaserId(),
+                    nullToEmpty(order.getStatus()),
+                    order.getExpectedDeliveryDate() != null ? order.getExpectedDeliveryDate().format(DATE_FORMATTER) : "",
+                    nullToEmpty(order.getLogisticsNumber()),
+                    order.getShipDate() != null ? order.getShipDate().format(DATETIME_FORMATTER) : "",
+                    order.getTotalAmount() != null ? order.getTotalAmount().doubleValue() : 0.0,
+                    order.getCreateTime() != null ? order.getCreateTime().format(DATETIME_FORMATTER) : ""
+            }, exporter, progress);
         }
-
-        // 写入到字节数组
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-        return outputStream.toByteArray();
     }
 
     /**
      * 导出操作日志到 Excel（与列表筛选条件一致的数据子集）
      */
-    public byte[] exportOperationLogList(List<OperationLog> logs, SysUser exporter) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("操作日志");
-
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = createDataStyle(workbook);
-
-        Row titleRow = sheet.createRow(0);
-        Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("操作日志");
-        titleCell.setCellStyle(headerStyle);
-        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 12));
+    @Transactional(readOnly = true)
+    public void exportOperationLogList(Supplier<Cursor<OperationLog>> source, SysUser exporter, OutputStream out) throws IOException {
+        exportOperationLogList(source, exporter, out, null);
+    }
 
-        Row headerRow = sheet.createRow(1);
+    /**
+     * 同上，progress 非空时按批回调已写入的数据行数（导出任务用于上报进度）
+     */
+    @Transactional(readOnly = true)
+    public void exportOperationLogList(Supplier<Cursor<OperationLog>> source, SysUser exporter, OutputStream out,
+            LongConsumer progress) throws IOException {
         String[] headers = {
                 "ID", "用户ID", "用户名", "操作模块", "操作类型", "操作内容", "请求方法", "请求URL",
                 "请求参数", "IP", "状态", "错误信息", "操作时间"
         };
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        int rowNum = 2;
-        for (OperationLog log : logs) {
-            Row row = sheet.createRow(rowNum++);
-            int col = 0;
-            setLongCell(row, col++, log.getId());
-            setLongCell(row, col++, log.getUserId());
-            row.createCell(col++).setCellValue(nullToEmpty(log.getUsername()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getModule()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getOperationType()));
-            row.createCell(col++).setCellValue(truncateForCell(log.getOperationContent()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getRequestMethod()));
-            row.createCell(col++).setCellValue(truncateForCell(log.getRequestUrl()));
-            row.createCell(col++).setCellValue(truncateForCell(log.getRequestParams()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getIp()));
-            row.createCell(col++).setCellValue(log.getStatus() != null && log.getStatus() == 1 ? "成功" : "失败");
-            row.createCell(col++).setCellValue(truncateForCell(log.getErrorMsg()));
-            row.createCell(col++).setCellValue(log.getOperationTime() != null
-                    ? log.getOperationTime().format(DATETIME_FORMATTER) : "");
-            for (int i = 0; i < headers.length; i++) {
-                row.getCell(i).setCellStyle(dataStyle);
-            }
+        try (Cursor<OperationLog> rows = source.get()) {
+            writeSheet(out, "操作日志", "操作日志", headers, rows, log -> new Object[]{
+                    log.getId(),
+                    log.getUserId(),
+                    nullToEmpty(log.getUsername()),
+                    nullToEmpty(log.getModule()),
+                    nullToEmpty(log.getOperationType()),
+                    truncateForCell(log.getOperationContent()),
+                    nullToEmpty(log.getRequestMethod()),
+                    truncateForCell(log.getRequestUrl()),
+                    truncateForCell(log.getRequestParams()),
+                    nullToEmpty(log.getIp()),
+                    log.getStatus() != null && log.getStatus() == 1 ? "成功" : "失败",
+                    truncateForCell(log.getErrorMsg()),
+                    log.getOperationTime() != null ? log.getOperationTime().format(DATETIME_FORMATTER) : ""
+            }, exporter, progress);
         }
-
-        addWatermark(sheet, exporter, workbook);
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, Math.min(sheet.getColumnWidth(i) + 1000, 255 * 256));
-        }
-
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-        return outputStream.toByteArray();
     }
 
     /**
      * 导出登录日志到 Excel
      */
-    public byte[] exportLoginLogList(List<LoginLog> logs, SysUser exporter) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("登录日志");
-
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        CellStyle dataStyle = createDataStyle(workbook);
-
-        Row titleRow = sheet.createRow(0);
-        Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("登录日志");
-        titleCell.setCellStyle(headerStyle);
-        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 9));
+    @Transactional(readOnly = true)
+    public void exportLoginLogList(Supplier<Cursor<LoginLog>> source, SysUser exporter, OutputStream out) throws IOException {
+        exportLoginLogList(source, exporter, out, null);
+    }
 
-        Row headerRow = sheet.createRow(1);
+    /**
+     * 同上，progress 非空时按批回调已写入的数据行数（导出任务用于上报进度）
+     */
+    @Transactional(readOnly = true)
+    public void exportLoginLogList(Supplier<Cursor<LoginLog>> source, SysUser exporter, OutputStream out,
+            LongConsumer progress) throws IOException {
         String[] headers = {
                 "ID", "用户ID", "用户名", "IP", "登录地点", "浏览器", "操作系统", "状态", "消息", "登录时间"
         };
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
+        try (Cursor<LoginLog> rows = source.get()) {
+            writeSheet(out, "登录日志", "登录日志", headers, rows, log -> new Object[]{
+                    log.getId(),
+                    log.getUserId(),
+                    nullToEmpty(log.getUsername()),
+                    nullToEmpty(log.getIp()),
+                    nullToEmpty(log.getLocation()),
+                    nullToEmpty(log.getBrowser()),
+                    nullToEmpty(log.getOs()),
+                    log.getStatus() != null && log.getStatus() == 1 ? "成功" : "失败",
+                    truncateForCell(log.getMsg()),
+                    log.getLoginTime() != null ? log.getLoginTime().format(DATETIME_FORMATTER) : ""
+            }, exporter, progress);
         }
+    }
+
+    /**
+     * 流式写出一个工作表：标题行、表头、数据行、水印。
+     * 内存中只保留最近 ROW_ACCESS_WINDOW 行，其余行刷到压缩临时文件；
+     * 列宽按表头与前 WIDTH_SAMPLE_ROWS 行估算，不再使用需要遍历全部行的 autoSizeColumn。
+     */
+    private <T> void writeSheet(OutputStream out, String sheetName, String title, String[] headers,
+                                Iterable<T> rows, Function<T, Object[]> rowMapper, SysUser exporter,
+                                LongConsumer progress) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(sheetName);
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle dataStyle = createDataStyle(workbook);
+            int lastColumn = headers.length - 1;
+
+            // 创建标题行
+            Row titleRow = sheet.createRow(0);
+            Cell titleCell = titleRow.createCell(0);
+            titleCell.setCellValue(title);
+            titleCell.setCellStyle(headerStyle);
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, lastColumn));
+
+            // 创建表头
+            int[] widthUnits = new int[headers.length];
+            Row headerRow = sheet.createRow(1);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+                widthUnits[i] = displayWidth(headers[i]);
+            }
+
+            // 逐行写入数据，同时对前若干行采样估算列宽
+            int rowNum = 2;
+            for (T item : rows) {
+                Object[] values = rowMapper.apply(item);
+                Row row = sheet.createRow(rowNum);
+                for (int i = 0; i < headers.length; i++) {
+                    Object value = i < values.length ? values[i] : null;
+                    Cell cell = row.createCell(i);
+                    if (value instanceof Number number) {
+                        cell.setCellValue(number.doubleValue());
+                    } else {
+                        cell.setCellValue(value != null ? value.toString() : "");
+                    }
+                    cell.setCellStyle(dataStyle);
+                    if (rowNum - 2 < WIDTH_SAMPLE_ROWS && value != null) {
+                        widthUnits[i] = Math.max(widthUnits[i], displayWidth(value.toString()));
+                    }
+                }
+                rowNum++;
+                if (progress != null && (rowNum - 2) % ROW_ACCESS_WINDOW == 0) {
+                    progress.accept(rowNum - 2);
+                }
+            }
+            if (progress != null) {
+                progress.accept(rowNum - 2);
+            }
+
+            // 添加水印
+            addWatermark(sheet, rowNum - 1, lastColumn, exporter, workbook);
 
-        int rowNum = 2;
-        for (LoginLog log : logs) {
-            Row row = sheet.createRow(rowNum++);
-            int col = 0;
-            setLongCell(row, col++, log.getId());
-            setLongCell(row, col++, log.getUserId());
-            row.createCell(col++).setCellValue(nullToEmpty(log.getUsername()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getIp()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getLocation()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getBrowser()));
-            row.createCell(col++).setCellValue(nullToEmpty(log.getOs()));
-            row.createCell(col++).setCellValue(log.getStatus() != null && log.getStatus() == 1 ? "成功" : "失败");
-            row.createCell(col++).setCellValue(truncateForCell(log.getMsg()));
-            row.createCell(col++).setCellValue(log.getLoginTime() != null
-                    ? log.getLoginTime().format(DATETIME_FORMATTER) : "");
             for (int i = 0; i < headers.length; i++) {
-                row.getCell(i).setCellStyle(dataStyle);
+                sheet.setColumnWidth(i, Math.min(widthUnits[i] * 256 + 1000, 255 * 256));
             }
-        }
 
-        addWatermark(sheet, exporter, workbook);
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, Math.min(sheet.getColumnWidth(i) + 1000, 255 * 256));
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
-        return outputStream.toByteArray();
+    /**
+     * 估算文本显示宽度（字符单位）：全角/中日韩字符按 2 计，其余按 1 计
+     */
+    private static int displayWidth(String s) {
+        int width = 0;
+        int limit = Math.min(s.length(), 255);
+        for (int i = 0; i < limit; i++) {
+            width += s.charAt(i) > 0x2E7F ? 2 : 1;
+        }
+        return width;
     }
 
     private static String nullToEmpty(String s) {
@@ -405,15 +308,6 @@ public class ExcelExportService {
         return s.substring(0, EXCEL_CELL_MAX_CHARS) + "...(已截断)";
     }
 
-    private static void setLongCell(Row row, int col, Long value) {
-        Cell c = row.createCell(col);
-        if (value != null) {
-            c.setCellValue(value);
-        } else {
-            c.setCellValue("");
-        }
-    }
-
     /**
      * 创建表头样式
      */
@@ -465,27 +359,24 @@ public class ExcelExportService {
     /**
      * 添加水印（导出人+导出时间）
      */
-    private void addWatermark(XSSFSheet sheet, SysUser exporter, XSSFWorkbook workbook) {
+    private void addWatermark(Sheet sheet, int lastRowNum, int maxColumn, SysUser exporter, Workbook workbook) {
         if (exporter == null) {
             return;
         }
-        
-        String watermarkText = String.format("导出人：%s | 导出时间：%s", 
+
+        String watermarkText = String.format("导出人：%s | 导出时间：%s",
             exporter.getUsername() != null ? exporter.getUsername() : "未知",
             LocalDateTime.now().format(DATETIME_FORMATTER));
-        
+
         // 在最后一行添加水印信息
-        int lastRowNum = sheet.getLastRowNum();
         Row watermarkRow = sheet.createRow(lastRowNum + 2);
         Cell watermarkCell = watermarkRow.createCell(0);
         watermarkCell.setCellValue(watermarkText);
         watermarkCell.setCellStyle(createWatermarkStyle(workbook));
-        
+
         // 合并单元格以显示完整水印
-        int maxColumn = sheet.getRow(1).getLastCellNum() - 1;
         if (maxColumn > 0) {
             sheet.addMergedRegion(new CellRangeAddress(lastRowNum + 2, lastRowNum + 2, 0, maxColumn));
         }
     }
 }
-
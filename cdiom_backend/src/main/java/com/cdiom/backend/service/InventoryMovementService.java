@@ -0,0 +1,24 @@
+package com.cdiom.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 库存流水与时点库存服务接口
+ * 
+ * @author cdiom
+ */
+public interface InventoryMovementService {
+
+    /**
+     * 某药品（可选批次）在指定时点的库存：取不晚于该时点的最近快照，回放其后的流水
+     */
+    Map<String, Object> getStockAt(Long drugId, String batchNumber, LocalDateTime time);
+
+    /**
+     * 生成一次新快照（上一快照 + 其后已稳定的流水）
+     *
+     * @return 新快照的批次数；无新流水时返回 -1（不生成）
+     */
+    int takeSnapshot();
+}
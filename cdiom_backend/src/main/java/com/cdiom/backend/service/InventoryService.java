@@ -2,8 +2,10 @@ package com.cdiom.backend.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.model.vo.BatchDelta;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,6 +20,14 @@ public interface InventoryService {
      */
     Page<Inventory> getInventoryList(Integer page, Integer size, String keyword, Long drugId, String batchNumber, String storageLocation, LocalDate expiryDateStart, LocalDate expiryDateEnd, Integer isSpecial);
 
+    /**
+     * 分页查询库存列表（数据库侧分页）
+     *
+     * @param lastId      上一页最后一条记录的库存ID；非空时按 (有效期, 创建时间, ID) 键集定位下一页，适合深翻页
+     * @param searchCount 是否统计总数（总数短时缓存）；为 false 时 total 不返回
+     */
+    Page<Inventory> getInventoryList(Integer page, Integer size, String keyword, Long drugId, String batchNumber, String storageLocation, LocalDate expiryDateStart, LocalDate expiryDateEnd, Integer isSpecial, Long lastId, boolean searchCount);
+
     /**
      * 根据ID查询库存信息
      */
@@ -40,8 +50,17 @@ public interface InventoryService {
 
     /**
      * 减少库存（出库时调用）
+     *
+     * @return 扣减后该批次剩余数量
+     */
+    int decreaseInventory(Long drugId, String batchNumber, Integer quantity);
+
+    /**
+     * 批量减少库存（多批次出库时调用）
+     * 按 (药品ID, 批次号) 排序后在同一事务连接上以 JDBC 批量一次提交，加锁顺序确定；
+     * 任一行库存不足时抛出异常并列出每一行的缺口，由事务整体回滚
      */
-    void decreaseInventory(Long drugId, String batchNumber, Integer quantity);
+    void decreaseInventoryBatch(List<BatchDelta> deltas);
 
     /**
      * 更新库存数量（库存调整时调用）
@@ -63,10 +82,20 @@ public interface InventoryService {
      */
     java.util.List<Inventory> getAvailableBatches(Long drugId, Integer requiredQuantity);
 
+    /**
+     * 获取药品全部可用批次（未过期且数量>0，按FIFO排序），不校验数量是否足够
+     */
+    List<Inventory> listAvailableBatches(Long drugId);
+
     /**
      * 获取某药品的可用库存总量（未过期且数量>0的批次合计，用于出库审批前校验）
      */
     int getTotalAvailableQuantity(Long drugId);
+
+    /**
+     * 有效期在 [from, to] 内且数量大于 0 的批次数（近效期预警统计）
+     */
+    long countExpiringBatches(LocalDate from, LocalDate to);
 }
 
 
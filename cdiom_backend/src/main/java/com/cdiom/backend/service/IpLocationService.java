@@ -14,6 +14,14 @@ public interface IpLocationService {
      * @return 地理位置信息，格式：国家 省份 城市，如果查询失败返回IP地址
      */
     String getLocationByIp(String ip);
+
+    /**
+     * 本地未能解析位置的登录日志：当前事务提交后异步查询高德IP定位，查到后回填 login_log.location
+     *
+     * @param loginLogId 登录日志ID
+     * @param ip IP地址
+     */
+    void backfillLoginLogLocation(Long loginLogId, String ip);
 }
 
 
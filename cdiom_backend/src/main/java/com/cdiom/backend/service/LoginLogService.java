@@ -2,8 +2,8 @@ package com.cdiom.backend.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.model.LoginLog;
+import org.apache.ibatis.cursor.Cursor;
 
-import java.util.List;
 
 /**
  * 登录日志服务接口
@@ -18,9 +18,14 @@ public interface LoginLogService {
     Page<LoginLog> getLogList(Integer page, Integer size, String keyword, Long userId, Integer status);
 
     /**
-     * 按与列表相同的条件查询日志，用于导出（最多 10000 条，按登录时间倒序）
+     * 按与列表相同的条件流式读取日志，用于导出（最多 10000 条，按登录时间倒序）；需在事务内遍历并关闭 Cursor
      */
-    List<LoginLog> listLogsForExport(String keyword, Long userId, Integer status);
+    Cursor<LoginLog> streamLogsForExport(String keyword, Long userId, Integer status);
+
+    /**
+     * 导出行数（与 streamLogsForExport 条件一致，不超过 EXPORT_MAX_ROWS），用于导出任务计算进度
+     */
+    long countLogsForExport(String keyword, Long userId, Integer status);
 
     int EXPORT_MAX_ROWS = 10_000;
 
@@ -30,7 +35,7 @@ public interface LoginLogService {
     LoginLog getLogById(Long id);
 
     /**
-     * 保存登录日志
+     * 保存登录日志（异步批量写入，返回时不保证已落库）
      */
     void saveLog(LoginLog log);
 }
@@ -2,8 +2,10 @@ package com.cdiom.backend.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.model.OperationLog;
+import org.apache.ibatis.cursor.Cursor;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.Map;
 
 /**
  * 操作日志服务接口
@@ -18,9 +20,14 @@ public interface OperationLogService {
     Page<OperationLog> getLogList(Integer page, Integer size, String keyword, Long userId, String module, String operationType, Integer status);
 
     /**
-     * 按与列表相同的条件查询日志，用于导出（最多 10000 条，按操作时间倒序）
+     * 按与列表相同的条件流式读取日志，用于导出（最多 10000 条，按操作时间倒序）；需在事务内遍历并关闭 Cursor
      */
-    List<OperationLog> listLogsForExport(String keyword, Long userId, String module, String operationType, Integer status);
+    Cursor<OperationLog> streamLogsForExport(String keyword, Long userId, String module, String operationType, Integer status);
+
+    /**
+     * 导出行数（与 streamLogsForExport 条件一致，不超过 EXPORT_MAX_ROWS），用于导出任务计算进度
+     */
+    long countLogsForExport(String keyword, Long userId, String module, String operationType, Integer status);
 
     int EXPORT_MAX_ROWS = 10_000;
 
@@ -30,20 +37,17 @@ public interface OperationLogService {
     OperationLog getLogById(Long id);
 
     /**
-     * 保存操作日志
+     * 保存操作日志（异步批量写入，返回时不保证已落库）
      */
     void saveLog(OperationLog log);
-}
-
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * 自 from（含）起成功操作按模块计数
+     */
+    Map<String, Long> countByModuleSince(LocalDate from);
 
+    /**
+     * 自 from（含）起成功操作按操作类型计数
+     */
+    Map<String, Long> countByOperationTypeSince(LocalDate from);
+}
@@ -0,0 +1,96 @@
+package com.cdiom.backend.service;
+
+import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.model.OutboundApplyItem;
+import com.cdiom.backend.model.StockReservation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 出库库存占用服务接口
+ * <p>
+ * 出库申请审批通过时按批次预留库存，驳回/取消/撤回时释放，执行出库时转为实际扣减。
+ * 可用量 = 现有库存（未过期批次） - 占用中的数量。
+ * 
+ * @author cdiom
+ */
+public interface StockReservationService {
+
+    /**
+     * 为申请明细按批次预留库存（指定批次的明细占用该批次，其余按 FIFO），可用量不足时抛出异常
+     */
+    void reserveForApply(Long applyId, List<OutboundApplyItem> items);
+
+    /**
+     * 释放申请的全部占用
+     *
+     * @return 释放的占用记录数
+     */
+    int releaseForApply(Long applyId);
+
+    /**
+     * 申请已出库：占用转为已出库
+     *
+     * @return 转换的占用记录数
+     */
+    int consumeForApply(Long applyId);
+
+    /**
+     * 申请是否存在占用中的记录
+     */
+    boolean hasActiveReservation(Long applyId);
+
+    /**
+     * 查询多个申请的占用中记录
+     */
+    List<StockReservation> listActiveByApplyIds(Collection<Long> applyIds);
+
+    /**
+     * 某药品各批次的占用合计（批次号 -> 数量）
+     */
+    Map<String, Integer> getReservedByBatch(Long drugId);
+
+    /**
+     * 多个药品各批次的占用合计（药品ID -> 批次号 -> 数量），无占用的药品不出现在结果中
+     */
+    Map<Long, Map<String, Integer>> getReservedByBatch(Collection<Long> drugIds);
+
+    /**
+     * 某药品未过期批次扣除占用后的可用量合计
+     */
+    int getAvailableQuantity(Long drugId);
+
+    /**
+     * 某药品未过期批次（FIFO 顺序），数量为扣除占用后的净可用量（不小于 0）。
+     * 占用取自内存视图（提交后或定时重载才更新），仅用于展示；扣减库存前使用 {@link #loadNetAvailableBatches}
+     *
+     * @param excluded 调用方自身的占用记录，其数量加回，不视为被占用；可为空
+     */
+    List<Inventory> listNetAvailableBatches(Long drugId, Collection<StockReservation> excluded);
+
+    /**
+     * 按药品ID升序锁定药品，锁持有到当前事务结束（须在事务内调用）；与审批时的占用分配互斥
+     */
+    void lockDrugs(Collection<Long> drugIds);
+
+    /**
+     * 从数据库读取多个药品的未过期批次（FIFO 顺序）及 ACTIVE 占用，数量为扣除占用后的净可用量（不小于 0）。
+     * 须先在同一事务内 {@link #lockDrugs} 这些药品，结果才不会被并发的占用分配改变
+     *
+     * @param excluded 调用方自身的占用记录，其数量加回，不视为被占用；可为空
+     * @return 药品ID -> 批次列表，没有可用批次的药品不出现在结果中
+     */
+    Map<Long, List<Inventory>> loadNetAvailableBatches(Collection<Long> drugIds, Collection<StockReservation> excluded);
+
+    /**
+     * 某药品的现有库存、占用与可用量
+     */
+    Map<String, Object> getStockAvailability(Long drugId);
+
+    /**
+     * 从 stock_reservation 表全量重载内存占用视图
+     */
+    void reloadView();
+}
@@ -127,7 +127,7 @@ public class AuthServiceImpl implements AuthService {
         loginLog.setIp(ip);
         loginLog.setBrowser(browser);
         loginLog.setOs(os);
-        // 异步获取IP定位（不阻塞登录流程）
+        // 本地IP库获取定位（不访问远程服务，未解析的由登录日志写入后异步回填）
         try {
             String location = ipLocationService.getLocationByIp(ip);
             loginLog.setLocation(location);
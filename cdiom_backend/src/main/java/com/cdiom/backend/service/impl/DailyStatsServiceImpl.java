@@ -0,0 +1,146 @@
+package com.cdiom.backend.service.impl;
+
+import com.cdiom.backend.constant.DailyStatMetric;
+import com.cdiom.backend.mapper.DailyStatsMapper;
+import com.cdiom.backend.model.vo.DailyStatRow;
+import com.cdiom.backend.service.DailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按天汇总统计服务实现
+ * <p>
+ * 已结束的日期由定时任务按天分组统计后写入 daily_stats，趋势查询对这些日期只做一次按主键范围的读取；
+ * 今天的数据每次现场统计。读取时发现某天尚未汇总（首次部署、定时任务未运行）则当场补汇总。
+ * 入库第二人确认等状态可能在单据创建后数天内变化，因此每次定时汇总都会重算最近 settle-days 天，更早的日期不再重算。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyStatsServiceImpl implements DailyStatsService {
+
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    private final DailyStatsMapper dailyStatsMapper;
+
+    @Value("${cdiom.daily-stats.backfill-days:365}")
+    private int backfillDays;
+
+    @Value("${cdiom.daily-stats.settle-days:3}")
+    private int settleDays;
+
+    @Override
+    public List<Long> dailyCounts(DailyStatMetric metric, Long dimId, LocalDate from, LocalDate to) {
+        long dim = dimId != null && metric.getDimColumn() != null ? dimId : 0L;
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, Long> counts = new HashMap<>();
+
+        LocalDate closedTo = to.isBefore(today) ? to : today.minusDays(1);
+        if (!from.isAfter(closedTo)) {
+            Set<LocalDate> rolledUp = new HashSet<>();
+            for (DailyStatRow row : dailyStatsMapper.selectRange(metric.name(), dim, from, closedTo)) {
+                if (row.getDimId() == 0L) {
+                    rolledUp.add(row.getStatDay());
+                }
+                if (row.getDimId() == dim) {
+                    counts.put(row.getStatDay(), row.getValue());
+                }
+            }
+            List<LocalDate> missing = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(closedTo); day = day.plusDays(1)) {
+                if (!rolledUp.contains(day)) {
+                    missing.add(day);
+                }
+            }
+            if (!missing.isEmpty()) {
+                for (DailyStatRow row : rollUpRange(metric, missing.get(0), missing.get(missing.size() - 1))) {
+                    if (row.getDimId() == dim) {
+                        counts.put(row.getStatDay(), row.getValue());
+                    }
+                }
+            }
+        }
+
+        if (!from.isAfter(today) && !to.isBefore(today)) {
+            long live = 0;
+            for (DailyStatRow row : dailyStatsMapper.countByDay(metric, today.atStartOfDay(),
+                    today.plusDays(1).atStartOfDay(), dim != 0L ? dim : null)) {
+                live += row.getValue();
+            }
+            counts.put(today, live);
+        }
+
+        List<Long> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            result.add(counts.getOrDefault(day, 0L));
+        }
+        return result;
+    }
+
+    @Override
+    public int rollUp() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate earliest = yesterday.minusDays(Math.max(0, backfillDays - 1));
+        LocalDate settleFrom = yesterday.minusDays(Math.max(0, settleDays - 1));
+        int written = 0;
+        for (DailyStatMetric metric : DailyStatMetric.values()) {
+            Set<LocalDate> rolledUp = new HashSet<>();
+            for (DailyStatRow row : dailyStatsMapper.selectRange(metric.name(), 0L, earliest, yesterday)) {
+                rolledUp.add(row.getStatDay());
+            }
+            LocalDate firstMissing = null;
+            for (LocalDate day = earliest; day.isBefore(settleFrom); day = day.plusDays(1)) {
+                if (!rolledUp.contains(day)) {
+                    firstMissing = day;
+                    break;
+                }
+            }
+            LocalDate rangeFrom = firstMissing != null ? firstMissing : settleFrom;
+            if (rangeFrom.isBefore(earliest)) {
+                rangeFrom = earliest;
+            }
+            written += rollUpRange(metric, rangeFrom, yesterday).size();
+        }
+        return written;
+    }
+
+    /**
+     * 按天分组统计 [from, to] 并写入 daily_stats：每天一条总数行（无数据时为 0，作为已汇总标记），
+     * 有维度列的指标另写各维度值的计数
+     */
+    private List<DailyStatRow> rollUpRange(DailyStatMetric metric, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        List<DailyStatRow> counted = dailyStatsMapper.countByDay(metric, from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay(), null);
+        Map<LocalDate, Long> totals = new HashMap<>();
+        List<DailyStatRow> rows = new ArrayList<>();
+        for (DailyStatRow row : counted) {
+            totals.merge(row.getStatDay(), row.getValue(), Long::sum);
+            if (metric.getDimColumn() != null && row.getDimId() != null && row.getDimId() != 0L) {
+                rows.add(new DailyStatRow(row.getStatDay(), metric.name(), row.getDimId(), row.getValue()));
+            }
+        }
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            rows.add(new DailyStatRow(day, metric.name(), 0L, totals.getOrDefault(day, 0L)));
+        }
+        for (int i = 0; i < rows.size(); i += UPSERT_BATCH_SIZE) {
+            dailyStatsMapper.upsert(rows.subList(i, Math.min(i + UPSERT_BATCH_SIZE, rows.size())));
+        }
+        log.debug("按天汇总统计：{} {} ~ {}，写入 {} 行", metric, from, to, rows.size());
+        return rows;
+    }
+}
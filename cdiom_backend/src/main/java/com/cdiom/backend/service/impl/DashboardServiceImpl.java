@@ -2,14 +2,25 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.constant.DailyStatMetric;
+import com.cdiom.backend.constant.DashboardType;
+import com.cdiom.backend.dashboard.DashboardCache;
+import com.cdiom.backend.dashboard.DashboardQueryExecutor;
+import com.cdiom.backend.dashboard.DashboardQueryExecutor.QueryBatch;
+import com.cdiom.backend.dashboard.DashboardQueryExecutor.QueryResult;
 import com.cdiom.backend.mapper.*;
 import com.cdiom.backend.model.*;
+import com.cdiom.backend.model.vo.OrderStatusSummaryRow;
+import com.cdiom.backend.service.DailyStatsService;
 import com.cdiom.backend.service.DashboardService;
+import com.cdiom.backend.service.InventoryService;
+import com.cdiom.backend.service.OperationLogService;
 import com.cdiom.backend.util.SystemConfigUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -18,6 +29,8 @@ import java.util.stream.Collectors;
 
 /**
  * 仪表盘服务实现类
+ * 各工作台的统计项互不依赖，经 {@link DashboardQueryExecutor} 并行查询，个别统计失败或超时时返回部分结果（partial=true）
+ * 系统统计与各工作台结果经 {@link DashboardCache} 短时缓存，业务变更事件提交后失效；部分结果与异常时的空结果不缓存
  * 
  * @author cdiom
  */
@@ -34,180 +47,118 @@ public class DashboardServiceImpl implements DashboardService {
     private final LoginLogMapper loginLogMapper;
     private final OperationLogMapper operationLogMapper;
     private final InventoryMapper inventoryMapper;
+    private final InventoryService inventoryService;
     private final InboundRecordMapper inboundRecordMapper;
     private final OutboundApplyMapper outboundApplyMapper;
     private final PurchaseOrderMapper purchaseOrderMapper;
     private final SystemConfigUtil systemConfigUtil;
+    private final DashboardQueryExecutor dashboardQueryExecutor;
+    private final DailyStatsService dailyStatsService;
+    private final OperationLogService operationLogService;
+    private final DashboardCache dashboardCache;
+
+    private static final int MAX_TREND_DAYS = 365;
+
+    private static final String[] PURCHASE_ORDER_STATUSES = {"PENDING", "REJECTED", "CONFIRMED", "SHIPPED", "RECEIVED", "CANCELLED"};
 
     @Override
     public Map<String, Object> getStatistics() {
-        Map<String, Object> statistics = new HashMap<>();
+        return dashboardCache.get(DashboardType.STATISTICS, null, this::loadStatistics);
+    }
+
+    private Map<String, Object> loadStatistics() {
+        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
+        QueryBatch batch = dashboardQueryExecutor.newBatch("系统统计");
 
         // 用户统计
-        LambdaQueryWrapper<SysUser> userWrapper = new LambdaQueryWrapper<>();
-        userWrapper.eq(SysUser::getDeleted, 0);
-        long userCount = sysUserMapper.selectCount(userWrapper);
-        
-        userWrapper.eq(SysUser::getStatus, 1);
-        long activeUserCount = sysUserMapper.selectCount(userWrapper);
-        
-        statistics.put("totalUsers", userCount);
-        statistics.put("activeUsers", activeUserCount);
-        statistics.put("disabledUsers", userCount - activeUserCount);
+        QueryResult<Long> userCount = batch.add("totalUsers", () -> sysUserMapper.selectCount(
+                new LambdaQueryWrapper<SysUser>().eq(SysUser::getDeleted, 0)), 0L);
+        QueryResult<Long> activeUserCount = batch.add("activeUsers", () -> sysUserMapper.selectCount(
+                new LambdaQueryWrapper<SysUser>().eq(SysUser::getDeleted, 0).eq(SysUser::getStatus, 1)), 0L);
 
         // 角色统计
-        LambdaQueryWrapper<SysRole> roleWrapper = new LambdaQueryWrapper<>();
-        roleWrapper.eq(SysRole::getDeleted, 0);
-        long roleCount = sysRoleMapper.selectCount(roleWrapper);
-        statistics.put("totalRoles", roleCount);
+        QueryResult<Long> roleCount = batch.add("totalRoles", () -> sysRoleMapper.selectCount(
+                new LambdaQueryWrapper<SysRole>().eq(SysRole::getDeleted, 0)), 0L);
 
         // 系统配置统计
-        LambdaQueryWrapper<SysConfig> configWrapper = new LambdaQueryWrapper<>();
-        configWrapper.eq(SysConfig::getDeleted, 0);
-        long configCount = sysConfigMapper.selectCount(configWrapper);
-        statistics.put("totalConfigs", configCount);
+        QueryResult<Long> configCount = batch.add("totalConfigs", () -> sysConfigMapper.selectCount(
+                new LambdaQueryWrapper<SysConfig>().eq(SysConfig::getDeleted, 0)), 0L);
 
         // 通知公告统计
-        LambdaQueryWrapper<SysNotice> noticeWrapper = new LambdaQueryWrapper<>();
-        noticeWrapper.eq(SysNotice::getDeleted, 0);
-        long noticeCount = sysNoticeMapper.selectCount(noticeWrapper);
-        
-        noticeWrapper.eq(SysNotice::getStatus, 1);
-        long activeNoticeCount = sysNoticeMapper.selectCount(noticeWrapper);
-        
-        statistics.put("totalNotices", noticeCount);
-        statistics.put("activeNotices", activeNoticeCount);
+        QueryResult<Long> noticeCount = batch.add("totalNotices", () -> sysNoticeMapper.selectCount(
+                new LambdaQueryWrapper<SysNotice>().eq(SysNotice::getDeleted, 0)), 0L);
+        QueryResult<Long> activeNoticeCount = batch.add("activeNotices", () -> sysNoticeMapper.selectCount(
+                new LambdaQueryWrapper<SysNotice>().eq(SysNotice::getDeleted, 0).eq(SysNotice::getStatus, 1)), 0L);
 
         // 药品信息统计
-        LambdaQueryWrapper<DrugInfo> drugWrapper = new LambdaQueryWrapper<>();
-        drugWrapper.eq(DrugInfo::getDeleted, 0);
-        long drugCount = drugInfoMapper.selectCount(drugWrapper);
-        
-        drugWrapper.eq(DrugInfo::getIsSpecial, 1);
-        long specialDrugCount = drugInfoMapper.selectCount(drugWrapper);
-        
-        statistics.put("totalDrugs", drugCount);
-        statistics.put("specialDrugs", specialDrugCount);
-        statistics.put("normalDrugs", drugCount - specialDrugCount);
+        QueryResult<Long> drugCount = batch.add("totalDrugs", () -> drugInfoMapper.selectCount(
+                new LambdaQueryWrapper<DrugInfo>().eq(DrugInfo::getDeleted, 0)), 0L);
+        QueryResult<Long> specialDrugCount = batch.add("specialDrugs", () -> drugInfoMapper.selectCount(
+                new LambdaQueryWrapper<DrugInfo>().eq(DrugInfo::getDeleted, 0).eq(DrugInfo::getIsSpecial, 1)), 0L);
 
         // 今日登录统计
-        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
-        LambdaQueryWrapper<LoginLog> loginWrapper = new LambdaQueryWrapper<>();
-        loginWrapper.ge(LoginLog::getLoginTime, todayStart);
-        loginWrapper.eq(LoginLog::getStatus, 1);
-        long todayLoginCount = loginLogMapper.selectCount(loginWrapper);
-        statistics.put("todayLogins", todayLoginCount);
+        QueryResult<Long> todayLoginCount = batch.add("todayLogins", () -> loginLogMapper.selectCount(
+                new LambdaQueryWrapper<LoginLog>().ge(LoginLog::getLoginTime, todayStart).eq(LoginLog::getStatus, 1)), 0L);
 
         // 今日操作统计
-        LambdaQueryWrapper<OperationLog> operationWrapper = new LambdaQueryWrapper<>();
-        operationWrapper.ge(OperationLog::getOperationTime, todayStart);
-        operationWrapper.eq(OperationLog::getStatus, 1);
-        long todayOperationCount = operationLogMapper.selectCount(operationWrapper);
-        statistics.put("todayOperations", todayOperationCount);
+        QueryResult<Long> todayOperationCount = batch.add("todayOperations", () -> operationLogMapper.selectCount(
+                new LambdaQueryWrapper<OperationLog>().ge(OperationLog::getOperationTime, todayStart).eq(OperationLog::getStatus, 1)), 0L);
 
+        batch.run();
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalUsers", userCount.get());
+        statistics.put("activeUsers", activeUserCount.get());
+        statistics.put("disabledUsers", userCount.get() - activeUserCount.get());
+        statistics.put("totalRoles", roleCount.get());
+        statistics.put("totalConfigs", configCount.get());
+        statistics.put("totalNotices", noticeCount.get());
+        statistics.put("activeNotices", activeNoticeCount.get());
+        statistics.put("totalDrugs", drugCount.get());
+        statistics.put("specialDrugs", specialDrugCount.get());
+        statistics.put("normalDrugs", drugCount.get() - specialDrugCount.get());
+        statistics.put("todayLogins", todayLoginCount.get());
+        statistics.put("todayOperations", todayOperationCount.get());
+        statistics.put("partial", batch.isPartial());
         return statistics;
     }
 
     @Override
-    public Map<String, Object> getLoginTrend() {
+    public Map<String, Object> getLoginTrend(Integer days) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(trendDays(days) - 1);
         Map<String, Object> result = new HashMap<>();
-        List<String> dates = new ArrayList<>();
-        List<Long> successCounts = new ArrayList<>();
-        List<Long> failCounts = new ArrayList<>();
-
-        // 获取最近7天的数据
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-
-            LambdaQueryWrapper<LoginLog> successWrapper = new LambdaQueryWrapper<>();
-            successWrapper.ge(LoginLog::getLoginTime, startOfDay);
-            successWrapper.lt(LoginLog::getLoginTime, endOfDay);
-            successWrapper.eq(LoginLog::getStatus, 1);
-            long successCount = loginLogMapper.selectCount(successWrapper);
-
-            LambdaQueryWrapper<LoginLog> failWrapper = new LambdaQueryWrapper<>();
-            failWrapper.ge(LoginLog::getLoginTime, startOfDay);
-            failWrapper.lt(LoginLog::getLoginTime, endOfDay);
-            failWrapper.eq(LoginLog::getStatus, 0);
-            long failCount = loginLogMapper.selectCount(failWrapper);
-
-            dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
-            successCounts.add(successCount);
-            failCounts.add(failCount);
-        }
-
-        result.put("dates", dates);
-        result.put("successCounts", successCounts);
-        result.put("failCounts", failCounts);
-
+        result.put("dates", trendDates(from, to));
+        result.put("successCounts", dailyStatsService.dailyCounts(DailyStatMetric.LOGIN_SUCCESS, null, from, to));
+        result.put("failCounts", dailyStatsService.dailyCounts(DailyStatMetric.LOGIN_FAIL, null, from, to));
         return result;
     }
 
     @Override
-    public Map<String, Object> getOperationLogStatistics() {
+    public Map<String, Object> getOperationLogStatistics(Integer days) {
         Map<String, Object> result = new HashMap<>();
-        List<String> dates = new ArrayList<>();
-        List<Long> counts = new ArrayList<>();
-        Map<String, Long> moduleStats = new HashMap<>();
-        Map<String, Long> typeStats = new HashMap<>();
-
-        // 获取最近7天的数据
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-
-            LambdaQueryWrapper<OperationLog> wrapper = new LambdaQueryWrapper<>();
-            wrapper.ge(OperationLog::getOperationTime, startOfDay);
-            wrapper.lt(OperationLog::getOperationTime, endOfDay);
-            wrapper.eq(OperationLog::getStatus, 1);
-            long count = operationLogMapper.selectCount(wrapper);
-
-            dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
-            counts.add(count);
-        }
 
-        // 获取模块统计（最近7天）
-        LocalDateTime sevenDaysAgo = LocalDate.now().minusDays(7).atStartOfDay();
-        LambdaQueryWrapper<OperationLog> moduleWrapper = new LambdaQueryWrapper<>();
-        moduleWrapper.ge(OperationLog::getOperationTime, sevenDaysAgo);
-        moduleWrapper.eq(OperationLog::getStatus, 1);
-        moduleWrapper.isNotNull(OperationLog::getModule);
-        List<OperationLog> moduleLogs = operationLogMapper.selectList(moduleWrapper);
-        
-        Map<String, Long> moduleCountMap = moduleLogs.stream()
-                .collect(Collectors.groupingBy(
-                        log -> log.getModule() != null ? log.getModule() : "其他",
-                        Collectors.counting()
-                ));
-        moduleStats.putAll(moduleCountMap);
-
-        // 获取操作类型统计（最近7天）
-        LambdaQueryWrapper<OperationLog> typeWrapper = new LambdaQueryWrapper<>();
-        typeWrapper.ge(OperationLog::getOperationTime, sevenDaysAgo);
-        typeWrapper.eq(OperationLog::getStatus, 1);
-        typeWrapper.isNotNull(OperationLog::getOperationType);
-        List<OperationLog> typeLogs = operationLogMapper.selectList(typeWrapper);
-        
-        Map<String, Long> typeCountMap = typeLogs.stream()
-                .collect(Collectors.groupingBy(
-                        log -> log.getOperationType() != null ? log.getOperationType() : "其他",
-                        Collectors.counting()
-                ));
-        typeStats.putAll(typeCountMap);
+        // 每日操作数（已结束的日期读按天汇总）
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(trendDays(days) - 1);
+        List<String> dates = trendDates(from, to);
+        List<Long> counts = dailyStatsService.dailyCounts(DailyStatMetric.OPERATION_SUCCESS, null, from, to);
 
         result.put("dates", dates);
         result.put("counts", counts);
-        result.put("moduleStats", moduleStats);
-        result.put("typeStats", typeStats);
+        // 模块、操作类型统计（与趋势同一时间范围，读按天计数表）
+        result.put("moduleStats", operationLogService.countByModuleSince(from));
+        result.put("typeStats", operationLogService.countByOperationTypeSince(from));
 
         return result;
     }
 
     @Override
     public Map<String, Object> getWarehouseDashboard() {
+        return dashboardCache.get(DashboardType.WAREHOUSE, null, this::loadWarehouseDashboard);
+    }
+
+    private Map<String, Object> loadWarehouseDashboard() {
         try {
             Map<String, Object> result = new HashMap<>();
             
@@ -217,120 +168,83 @@ public class DashboardServiceImpl implements DashboardService {
             int criticalDays = systemConfigUtil.getExpiryCriticalDays();
             LocalDate yellowBoundary = today.plusDays(warningDays);
             LocalDate redBoundary = today.plusDays(criticalDays);
+            LocalDateTime todayStart = today.atStartOfDay();
+            LocalDateTime todayEnd = today.plusDays(1).atStartOfDay();
+
+            QueryBatch batch = dashboardQueryExecutor.newBatch("仓库工作台");
 
             // 黄色预警：严重预警天数～预警天数之间（与红色区间不重复）
-            Long yellowWarningCount = inventoryMapper.countYellowExclusive(redBoundary, yellowBoundary);
-            if (yellowWarningCount == null) {
-                yellowWarningCount = 0L;
-            }
+            QueryResult<Long> yellowWarningCount = batch.add("yellowWarning",
+                    () -> inventoryService.countExpiringBatches(redBoundary.plusDays(1), yellowBoundary), 0L);
 
             // 红色预警：≤严重预警天数
-            Long redWarningCount = inventoryMapper.countRedWarning(today, redBoundary);
-            if (redWarningCount == null) {
-                redWarningCount = 0L;
-            }
+            QueryResult<Long> redWarningCount = batch.add("redWarning",
+                    () -> inventoryService.countExpiringBatches(today, redBoundary), 0L);
 
             // 待办任务统计
             // 待入库订单数：状态为SHIPPED（已发货）的订单
-            LambdaQueryWrapper<PurchaseOrder> pendingInboundWrapper = new LambdaQueryWrapper<>();
-            pendingInboundWrapper.eq(PurchaseOrder::getStatus, "SHIPPED");
-            long pendingInboundCount = purchaseOrderMapper.selectCount(pendingInboundWrapper);
+            QueryResult<Long> pendingInboundCount = batch.add("pendingInbound", () -> purchaseOrderMapper.selectCount(
+                    new LambdaQueryWrapper<PurchaseOrder>().eq(PurchaseOrder::getStatus, "SHIPPED")), 0L);
             
             // 待审批出库数：待第一审批(PENDING) + 待第二审批(PENDING_SECOND)
-            Long pendingOutboundCount = outboundApplyMapper.countPendingOutbound();
-            if (pendingOutboundCount == null) {
-                pendingOutboundCount = 0L;
-            }
+            QueryResult<Long> pendingOutboundCount = batch.add("pendingOutbound", outboundApplyMapper::countPendingOutbound, 0L);
 
             // 今日出入库统计
-            LocalDateTime todayStart = today.atStartOfDay();
-            LocalDateTime todayEnd = today.plusDays(1).atStartOfDay();
-            
-            // 今日入库数
-            Long todayInboundCount = inboundRecordMapper.countTodayInbound(todayStart, todayEnd);
-            if (todayInboundCount == null) {
-                todayInboundCount = 0L;
-            }
-            
-            // 今日出库数
-            Long todayOutboundCount = outboundApplyMapper.countTodayOutbound(todayStart, todayEnd);
-            if (todayOutboundCount == null) {
-                todayOutboundCount = 0L;
-            }
+            QueryResult<Long> todayInboundCount = batch.add("todayInbound",
+                    () -> inboundRecordMapper.countTodayInbound(todayStart, todayEnd), 0L);
+            QueryResult<Long> todayOutboundCount = batch.add("todayOutbound",
+                    () -> outboundApplyMapper.countTodayOutbound(todayStart, todayEnd), 0L);
 
             // 库存总量统计
-            Long totalInventory = inventoryMapper.getTotalInventory();
-            if (totalInventory == null) {
-                totalInventory = 0L;
-            }
+            QueryResult<Long> totalInventory = batch.add("totalInventory", inventoryMapper::getTotalInventory, 0L);
 
             // 最近7天出入库趋势
-            List<String> dates = new ArrayList<>();
-            List<Long> inboundCounts = new ArrayList<>();
-            List<Long> outboundCounts = new ArrayList<>();
-            for (int i = 6; i >= 0; i--) {
-                LocalDate date = LocalDate.now().minusDays(i);
-                LocalDateTime startOfDay = date.atStartOfDay();
-                LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-                
-                // 当日入库数
-                Long dayInboundCount = inboundRecordMapper.countTodayInbound(startOfDay, endOfDay);
-                if (dayInboundCount == null) {
-                    dayInboundCount = 0L;
-                }
-                
-                // 当日出库数
-                Long dayOutboundCount = outboundApplyMapper.countTodayOutbound(startOfDay, endOfDay);
-                if (dayOutboundCount == null) {
-                    dayOutboundCount = 0L;
-                }
-                
-                dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
-                inboundCounts.add(dayInboundCount);
-                outboundCounts.add(dayOutboundCount);
-            }
+            LocalDate trendFrom = today.minusDays(6);
+            List<String> dates = trendDates(trendFrom, today);
+            QueryResult<List<Long>> inboundCounts = batch.add("inboundTrend",
+                    () -> dailyStatsService.dailyCounts(DailyStatMetric.INBOUND_CONFIRMED, null, trendFrom, today), zeros(7));
+            QueryResult<List<Long>> outboundCounts = batch.add("outboundTrend",
+                    () -> dailyStatsService.dailyCounts(DailyStatMetric.OUTBOUND_DONE, null, trendFrom, today), zeros(7));
+
+            // 药品与通知简报（供仓库工作台展示，避免调用需系统管理权限的 /dashboard/statistics）
+            QueryResult<Long> drugCount = batch.add("totalDrugs", () -> drugInfoMapper.selectCount(
+                    new LambdaQueryWrapper<DrugInfo>().eq(DrugInfo::getDeleted, 0)), 0L);
+            QueryResult<Long> specialDrugCount = batch.add("specialDrugs", () -> drugInfoMapper.selectCount(
+                    new LambdaQueryWrapper<DrugInfo>().eq(DrugInfo::getDeleted, 0).eq(DrugInfo::getIsSpecial, 1)), 0L);
+            QueryResult<Long> noticeCount = batch.add("totalNotices", () -> sysNoticeMapper.selectCount(
+                    new LambdaQueryWrapper<SysNotice>().eq(SysNotice::getDeleted, 0)), 0L);
+            QueryResult<Long> activeNoticeCount = batch.add("activeNotices", () -> sysNoticeMapper.selectCount(
+                    new LambdaQueryWrapper<SysNotice>().eq(SysNotice::getDeleted, 0).eq(SysNotice::getStatus, 1)), 0L);
+
+            batch.run();
 
             Map<String, Long> nearExpiryWarning = new HashMap<>();
-            nearExpiryWarning.put("yellow", yellowWarningCount);
-            nearExpiryWarning.put("red", redWarningCount);
+            nearExpiryWarning.put("yellow", yellowWarningCount.get());
+            nearExpiryWarning.put("red", redWarningCount.get());
 
             Map<String, Long> pendingTasks = new HashMap<>();
-            pendingTasks.put("pendingInbound", pendingInboundCount);
-            pendingTasks.put("pendingOutbound", pendingOutboundCount);
+            pendingTasks.put("pendingInbound", pendingInboundCount.get());
+            pendingTasks.put("pendingOutbound", pendingOutboundCount.get());
 
             Map<String, Long> todayStats = new HashMap<>();
-            todayStats.put("inbound", todayInboundCount);
-            todayStats.put("outbound", todayOutboundCount);
+            todayStats.put("inbound", todayInboundCount.get());
+            todayStats.put("outbound", todayOutboundCount.get());
 
             result.put("nearExpiryWarning", nearExpiryWarning);
             result.put("expiryWarningDays", warningDays);
             result.put("expiryCriticalDays", criticalDays);
             result.put("pendingTasks", pendingTasks);
             result.put("todayStats", todayStats);
-            result.put("totalInventory", totalInventory);
+            result.put("totalInventory", totalInventory.get());
             result.put("dates", dates);
-            result.put("inboundCounts", inboundCounts);
-            result.put("outboundCounts", outboundCounts);
-
-            // 药品与通知简报（供仓库工作台展示，避免调用需系统管理权限的 /dashboard/statistics）
-            LambdaQueryWrapper<DrugInfo> drugWrapper = new LambdaQueryWrapper<>();
-            drugWrapper.eq(DrugInfo::getDeleted, 0);
-            long drugCount = drugInfoMapper.selectCount(drugWrapper);
-            drugWrapper.clear();
-            drugWrapper.eq(DrugInfo::getDeleted, 0).eq(DrugInfo::getIsSpecial, 1);
-            long specialDrugCount = drugInfoMapper.selectCount(drugWrapper);
-            result.put("totalDrugs", drugCount);
-            result.put("specialDrugs", specialDrugCount);
-            result.put("normalDrugs", drugCount - specialDrugCount);
-
-            LambdaQueryWrapper<SysNotice> noticeWrapper = new LambdaQueryWrapper<>();
-            noticeWrapper.eq(SysNotice::getDeleted, 0);
-            long noticeCount = sysNoticeMapper.selectCount(noticeWrapper);
-            noticeWrapper.clear();
-            noticeWrapper.eq(SysNotice::getDeleted, 0).eq(SysNotice::getStatus, 1);
-            long activeNoticeCount = sysNoticeMapper.selectCount(noticeWrapper);
-            result.put("totalNotices", noticeCount);
-            result.put("activeNotices", activeNoticeCount);
+            result.put("inboundCounts", inboundCounts.get());
+            result.put("outboundCounts", outboundCounts.get());
+            result.put("totalDrugs", drugCount.get());
+            result.put("specialDrugs", specialDrugCount.get());
+            result.put("normalDrugs", drugCount.get() - specialDrugCount.get());
+            result.put("totalNotices", noticeCount.get());
+            result.put("activeNotices", activeNoticeCount.get());
+            result.put("partial", batch.isPartial());
 
             return result;
         } catch (Exception e) {
@@ -365,6 +279,7 @@ public class DashboardServiceImpl implements DashboardService {
                 result.put("expiryWarningDays", 180);
                 result.put("expiryCriticalDays", 90);
             }
+            result.put("partial", true);
             return result;
         }
     }
@@ -383,66 +298,39 @@ public class DashboardServiceImpl implements DashboardService {
 
     @Override
     public Map<String, Object> getPurchaserDashboard(Long purchaserId) {
+        return dashboardCache.get(DashboardType.PURCHASER, purchaserId, () -> loadPurchaserDashboard(purchaserId));
+    }
+
+    private Map<String, Object> loadPurchaserDashboard(Long purchaserId) {
         try {
             Map<String, Object> result = new HashMap<>();
+            QueryBatch batch = dashboardQueryExecutor.newBatch("采购专员工作台");
             
-            // 订单统计
-            LambdaQueryWrapper<PurchaseOrder> allWrapper = new LambdaQueryWrapper<>();
-            allWrapper.eq(PurchaseOrder::getPurchaserId, purchaserId);
-            long totalOrders = purchaseOrderMapper.selectCount(allWrapper);
-            
-            // 订单状态统计
-            Map<String, Long> statusStats = new HashMap<>();
-            String[] statuses = {"PENDING", "REJECTED", "CONFIRMED", "SHIPPED", "RECEIVED", "CANCELLED"};
-            for (String status : statuses) {
-                LambdaQueryWrapper<PurchaseOrder> statusWrapper = new LambdaQueryWrapper<>();
-                statusWrapper.eq(PurchaseOrder::getPurchaserId, purchaserId);
-                statusWrapper.eq(PurchaseOrder::getStatus, status);
-                long count = purchaseOrderMapper.selectCount(statusWrapper);
-                statusStats.put(status, count);
-            }
-            
-            // 订单金额统计
-            List<PurchaseOrder> orders = purchaseOrderMapper.selectList(allWrapper);
-            double totalAmount = orders.stream()
-                    .filter(o -> o.getTotalAmount() != null)
-                    .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                    .sum();
+            // 订单数、状态统计与金额统计（按状态分组汇总，一次查询）
+            QueryResult<List<OrderStatusSummaryRow>> orderSummary = batch.add("orderSummary",
+                    () -> purchaseOrderMapper.summarizeByStatus(null, purchaserId), Collections.emptyList());
             
             // 最近7天订单趋势
-            List<String> dates = new ArrayList<>();
-            List<Long> orderCounts = new ArrayList<>();
-            for (int i = 6; i >= 0; i--) {
-                LocalDate date = LocalDate.now().minusDays(i);
-                LocalDateTime startOfDay = date.atStartOfDay();
-                LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-                
-                LambdaQueryWrapper<PurchaseOrder> trendWrapper = new LambdaQueryWrapper<>();
-                trendWrapper.eq(PurchaseOrder::getPurchaserId, purchaserId);
-                trendWrapper.ge(PurchaseOrder::getCreateTime, startOfDay);
-                trendWrapper.lt(PurchaseOrder::getCreateTime, endOfDay);
-                long count = purchaseOrderMapper.selectCount(trendWrapper);
-                
-                dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
-                orderCounts.add(count);
-            }
+            LocalDate today = LocalDate.now();
+            LocalDate trendFrom = today.minusDays(6);
+            List<String> dates = trendDates(trendFrom, today);
+            QueryResult<List<Long>> orderCounts = batch.add("orderTrend", () -> dailyStatsService.dailyCounts(
+                    DailyStatMetric.PURCHASE_ORDER_BY_PURCHASER, purchaserId, trendFrom, today), zeros(7));
             
             // 供应商统计
-            LambdaQueryWrapper<PurchaseOrder> supplierWrapper = new LambdaQueryWrapper<>();
-            supplierWrapper.eq(PurchaseOrder::getPurchaserId, purchaserId);
-            supplierWrapper.select(PurchaseOrder::getSupplierId);
-            List<PurchaseOrder> supplierOrders = purchaseOrderMapper.selectList(supplierWrapper);
-            long uniqueSuppliers = supplierOrders.stream()
-                    .map(PurchaseOrder::getSupplierId)
-                    .distinct()
-                    .count();
-            
-            result.put("totalOrders", totalOrders);
-            result.put("statusStats", statusStats);
-            result.put("totalAmount", totalAmount);
+            QueryResult<Long> uniqueSuppliers = batch.add("uniqueSuppliers",
+                    () -> purchaseOrderMapper.countDistinctSuppliersByPurchaser(purchaserId), 0L);
+
+            batch.run();
+
+            List<OrderStatusSummaryRow> summary = orderSummary.get();
+            result.put("totalOrders", orderCount(summary));
+            result.put("statusStats", orderStatusStats(summary));
+            result.put("totalAmount", orderAmount(summary, null));
             result.put("dates", dates);
-            result.put("orderCounts", orderCounts);
-            result.put("uniqueSuppliers", uniqueSuppliers);
+            result.put("orderCounts", orderCounts.get());
+            result.put("uniqueSuppliers", uniqueSuppliers.get());
+            result.put("partial", batch.isPartial());
             
             return result;
         } catch (Exception e) {
@@ -453,47 +341,45 @@ public class DashboardServiceImpl implements DashboardService {
 
     @Override
     public Map<String, Object> getMedicalStaffDashboard(Long applicantId) {
+        return dashboardCache.get(DashboardType.MEDICAL_STAFF, applicantId, () -> loadMedicalStaffDashboard(applicantId));
+    }
+
+    private Map<String, Object> loadMedicalStaffDashboard(Long applicantId) {
         try {
             Map<String, Object> result = new HashMap<>();
+            QueryBatch batch = dashboardQueryExecutor.newBatch("医护人员工作台");
             
             // 出库申请统计
-            LambdaQueryWrapper<OutboundApply> allWrapper = new LambdaQueryWrapper<>();
-            allWrapper.eq(OutboundApply::getApplicantId, applicantId);
-            long totalApplies = outboundApplyMapper.selectCount(allWrapper);
+            QueryResult<Long> totalApplies = batch.add("totalApplies", () -> outboundApplyMapper.selectCount(
+                    new LambdaQueryWrapper<OutboundApply>().eq(OutboundApply::getApplicantId, applicantId)), 0L);
             
             // 申请状态统计
-            Map<String, Long> statusStats = new HashMap<>();
+            Map<String, QueryResult<Long>> statusCounts = new LinkedHashMap<>();
             String[] statuses = {"PENDING", "PENDING_SECOND", "APPROVED", "REJECTED", "OUTBOUND", "CANCELLED"};
             for (String status : statuses) {
-                LambdaQueryWrapper<OutboundApply> statusWrapper = new LambdaQueryWrapper<>();
-                statusWrapper.eq(OutboundApply::getApplicantId, applicantId);
-                statusWrapper.eq(OutboundApply::getStatus, status);
-                long count = outboundApplyMapper.selectCount(statusWrapper);
-                statusStats.put(status, count);
+                statusCounts.put(status, batch.add("status:" + status, () -> outboundApplyMapper.selectCount(
+                        new LambdaQueryWrapper<OutboundApply>()
+                                .eq(OutboundApply::getApplicantId, applicantId)
+                                .eq(OutboundApply::getStatus, status)), 0L));
             }
             
             // 最近7天申请趋势
-            List<String> dates = new ArrayList<>();
-            List<Long> applyCounts = new ArrayList<>();
-            for (int i = 6; i >= 0; i--) {
-                LocalDate date = LocalDate.now().minusDays(i);
-                LocalDateTime startOfDay = date.atStartOfDay();
-                LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-                
-                LambdaQueryWrapper<OutboundApply> trendWrapper = new LambdaQueryWrapper<>();
-                trendWrapper.eq(OutboundApply::getApplicantId, applicantId);
-                trendWrapper.ge(OutboundApply::getCreateTime, startOfDay);
-                trendWrapper.lt(OutboundApply::getCreateTime, endOfDay);
-                long count = outboundApplyMapper.selectCount(trendWrapper);
-                
-                dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
-                applyCounts.add(count);
-            }
+            LocalDate today = LocalDate.now();
+            LocalDate trendFrom = today.minusDays(6);
+            List<String> dates = trendDates(trendFrom, today);
+            QueryResult<List<Long>> applyCounts = batch.add("applyTrend", () -> dailyStatsService.dailyCounts(
+                    DailyStatMetric.OUTBOUND_APPLY_BY_APPLICANT, applicantId, trendFrom, today), zeros(7));
+
+            batch.run();
+
+            Map<String, Long> statusStats = new HashMap<>();
+            statusCounts.forEach((status, count) -> statusStats.put(status, count.get()));
             
-            result.put("totalApplies", totalApplies);
+            result.put("totalApplies", totalApplies.get());
             result.put("statusStats", statusStats);
             result.put("dates", dates);
-            result.put("applyCounts", applyCounts);
+            result.put("applyCounts", applyCounts.get());
+            result.put("partial", batch.isPartial());
             
             return result;
         } catch (Exception e) {
@@ -504,71 +390,42 @@ public class DashboardServiceImpl implements DashboardService {
 
     @Override
     public Map<String, Object> getSupplierDashboard(Long supplierId) {
+        return dashboardCache.get(DashboardType.SUPPLIER, supplierId, () -> loadSupplierDashboard(supplierId));
+    }
+
+    private Map<String, Object> loadSupplierDashboard(Long supplierId) {
         try {
             Map<String, Object> result = new HashMap<>();
+            QueryBatch batch = dashboardQueryExecutor.newBatch("供应商工作台");
             
-            // 订单统计
-            LambdaQueryWrapper<PurchaseOrder> allWrapper = new LambdaQueryWrapper<>();
-            allWrapper.eq(PurchaseOrder::getSupplierId, supplierId);
-            long totalOrders = purchaseOrderMapper.selectCount(allWrapper);
-            
-            // 订单状态统计
-            Map<String, Long> statusStats = new HashMap<>();
-            String[] statuses = {"PENDING", "REJECTED", "CONFIRMED", "SHIPPED", "RECEIVED", "CANCELLED"};
-            for (String status : statuses) {
-                LambdaQueryWrapper<PurchaseOrder> statusWrapper = new LambdaQueryWrapper<>();
-                statusWrapper.eq(PurchaseOrder::getSupplierId, supplierId);
-                statusWrapper.eq(PurchaseOrder::getStatus, status);
-                long count = purchaseOrderMapper.selectCount(statusWrapper);
-                statusStats.put(status, count);
-            }
-            
-            // 订单金额统计
-            List<PurchaseOrder> orders = purchaseOrderMapper.selectList(allWrapper);
-            double totalAmount = orders.stream()
-                    .filter(o -> o.getTotalAmount() != null)
-                    .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                    .sum();
+            // 订单数、状态统计与金额统计（按状态分组汇总，一次查询）
+            QueryResult<List<OrderStatusSummaryRow>> orderSummary = batch.add("orderSummary",
+                    () -> purchaseOrderMapper.summarizeByStatus(supplierId, null), Collections.emptyList());
             
-            double pendingAmount = orders.stream()
-                    .filter(o -> o.getTotalAmount() != null && "PENDING".equals(o.getStatus()))
-                    .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                    .sum();
-            
-            double confirmedAmount = orders.stream()
-                    .filter(o -> o.getTotalAmount() != null && "CONFIRMED".equals(o.getStatus()))
-                    .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                    .sum();
+            // 最近30天订单趋势
+            LocalDate today = LocalDate.now();
+            LocalDate trendFrom = today.minusDays(29);
+            List<String> dates = trendDates(trendFrom, today);
+            QueryResult<List<Long>> orderCounts = batch.add("orderTrend", () -> dailyStatsService.dailyCounts(
+                    DailyStatMetric.PURCHASE_ORDER_BY_SUPPLIER, supplierId, trendFrom, today), zeros(30));
+
+            batch.run();
+
+            List<OrderStatusSummaryRow> summary = orderSummary.get();
+            Map<String, Long> statusStats = orderStatusStats(summary);
             
             // 待处理订单数（PENDING状态）
             long pendingOrders = statusStats.getOrDefault("PENDING", 0L);
             
-            // 最近30天订单趋势
-            List<String> dates = new ArrayList<>();
-            List<Long> orderCounts = new ArrayList<>();
-            for (int i = 29; i >= 0; i--) {
-                LocalDate date = LocalDate.now().minusDays(i);
-                LocalDateTime startOfDay = date.atStartOfDay();
-                LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-                
-                LambdaQueryWrapper<PurchaseOrder> trendWrapper = new LambdaQueryWrapper<>();
-                trendWrapper.eq(PurchaseOrder::getSupplierId, supplierId);
-                trendWrapper.ge(PurchaseOrder::getCreateTime, startOfDay);
-                trendWrapper.lt(PurchaseOrder::getCreateTime, endOfDay);
-                long count = purchaseOrderMapper.selectCount(trendWrapper);
-                
-                dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
-                orderCounts.add(count);
-            }
-            
-            result.put("totalOrders", totalOrders);
+            result.put("totalOrders", orderCount(summary));
             result.put("statusStats", statusStats);
-            result.put("totalAmount", totalAmount);
-            result.put("pendingAmount", pendingAmount);
-            result.put("confirmedAmount", confirmedAmount);
+            result.put("totalAmount", orderAmount(summary, null));
+            result.put("pendingAmount", orderAmount(summary, "PENDING"));
+            result.put("confirmedAmount", orderAmount(summary, "CONFIRMED"));
             result.put("pendingOrders", pendingOrders); // 待处理订单数
             result.put("dates", dates);
-            result.put("orderCounts", orderCounts);
+            result.put("orderCounts", orderCounts.get());
+            result.put("partial", batch.isPartial());
             
             return result;
         } catch (Exception e) {
@@ -577,6 +434,68 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
+    /**
+     * 订单总数（各状态订单数之和）
+     */
+    private static long orderCount(List<OrderStatusSummaryRow> summary) {
+        long count = 0;
+        for (OrderStatusSummaryRow row : summary) {
+            count += row.getOrderCount() != null ? row.getOrderCount() : 0L;
+        }
+        return count;
+    }
+
+    /**
+     * 各状态订单数，未出现的状态为 0
+     */
+    private static Map<String, Long> orderStatusStats(List<OrderStatusSummaryRow> summary) {
+        Map<String, Long> statusStats = new HashMap<>();
+        for (String status : PURCHASE_ORDER_STATUSES) {
+            statusStats.put(status, 0L);
+        }
+        for (OrderStatusSummaryRow row : summary) {
+            if (statusStats.containsKey(row.getStatus())) {
+                statusStats.put(row.getStatus(), row.getOrderCount());
+            }
+        }
+        return statusStats;
+    }
+
+    /**
+     * 订单金额合计；status 为空时为全部状态
+     */
+    private static double orderAmount(List<OrderStatusSummaryRow> summary, String status) {
+        BigDecimal amount = BigDecimal.ZERO;
+        for (OrderStatusSummaryRow row : summary) {
+            if (row.getAmount() != null && (status == null || status.equals(row.getStatus()))) {
+                amount = amount.add(row.getAmount());
+            }
+        }
+        return amount.doubleValue();
+    }
+
+    /**
+     * 趋势天数：默认 7 天，最多 365 天
+     */
+    private static int trendDays(Integer days) {
+        if (days == null || days < 1) {
+            return 7;
+        }
+        return Math.min(days, MAX_TREND_DAYS);
+    }
+
+    private static List<String> trendDates(LocalDate from, LocalDate to) {
+        List<String> dates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            dates.add(date.format(DateTimeFormatter.ofPattern("MM-dd")));
+        }
+        return dates;
+    }
+
+    private static List<Long> zeros(int days) {
+        return new ArrayList<>(Collections.nCopies(days, 0L));
+    }
+
     private Map<String, Object> getEmptyPurchaserDashboard() {
         Map<String, Object> result = new HashMap<>();
         result.put("totalOrders", 0L);
@@ -585,6 +504,7 @@ public class DashboardServiceImpl implements DashboardService {
         result.put("dates", new ArrayList<>());
         result.put("orderCounts", new ArrayList<>());
         result.put("uniqueSuppliers", 0L);
+        result.put("partial", true);
         return result;
     }
 
@@ -594,6 +514,7 @@ public class DashboardServiceImpl implements DashboardService {
         result.put("statusStats", new HashMap<String, Long>());
         result.put("dates", new ArrayList<>());
         result.put("applyCounts", new ArrayList<>());
+        result.put("partial", true);
         return result;
     }
 
@@ -606,6 +527,7 @@ public class DashboardServiceImpl implements DashboardService {
         result.put("confirmedAmount", 0.0);
         result.put("dates", new ArrayList<>());
         result.put("orderCounts", new ArrayList<>());
+        result.put("partial", true);
         return result;
     }
 }
@@ -0,0 +1,165 @@
+package com.cdiom.backend.service.impl;
+
+import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.constant.DocNumberType;
+import com.cdiom.backend.mapper.DocSequenceMapper;
+import com.cdiom.backend.model.vo.DocSequenceLease;
+import com.cdiom.backend.service.DocSequenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单据号分配服务实现
+ * <p>
+ * 允许跳号模式（默认）：每个节点以一条 UPDATE 从 doc_sequence 租用一段序号（独立事务立即提交），
+ * 之后在内存中原子递增发放，号段用完或跨天时再租用，单据创建的热路径不查库。
+ * 节点重启或单据事务回滚会留下未使用的号，多节点时各节点号段交错，单号整体唯一但不保证按时间连续。
+ * 关闭允许跳号时每次只租用一个序号，并加入调用方事务：行锁持有到单据提交，回滚时序号一并回滚，
+ * 同一前缀的单据创建因此串行化。
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Service
+public class DocSequenceServiceImpl implements DocSequenceService {
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final DocSequenceMapper docSequenceMapper;
+    private final TransactionTemplate leaseTransaction;
+    private final TransactionTemplate strictTransaction;
+
+    @Value("${cdiom.doc-sequence.block-size:20}")
+    private int blockSize;
+
+    @Value("${cdiom.doc-sequence.gap-tolerant:true}")
+    private boolean gapTolerant;
+
+    // 单号类型 -> 当前号段；租用新号段时按类型加锁
+    private final Map<DocNumberType, Block> blocks = new ConcurrentHashMap<>();
+    private final Map<DocNumberType, Object> leaseLocks = new EnumMap<>(DocNumberType.class);
+
+    public DocSequenceServiceImpl(DocSequenceMapper docSequenceMapper, PlatformTransactionManager transactionManager) {
+        this.docSequenceMapper = docSequenceMapper;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.strictTransaction = new TransactionTemplate(transactionManager);
+        this.strictTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        for (DocNumberType type : DocNumberType.values()) {
+            leaseLocks.put(type, new Object());
+        }
+    }
+
+    @Override
+    public String nextNumber(DocNumberType type) {
+        LocalDate today = LocalDate.now();
+        long sequence;
+        if (gapTolerant) {
+            sequence = nextFromBlock(type, today);
+        } else {
+            Long leaseEnd = strictTransaction.execute(status -> lease(type, today, 1));
+            sequence = leaseEnd - 1;
+        }
+        return type.getPrefix() + today.format(DAY_FORMATTER) + String.format("%03d", sequence);
+    }
+
+    private long nextFromBlock(DocNumberType type, LocalDate today) {
+        long sequence = takeFromCurrent(type, today);
+        if (sequence > 0) {
+            return sequence;
+        }
+        synchronized (leaseLocks.get(type)) {
+            // 等锁期间其他线程可能已租到新号段
+            sequence = takeFromCurrent(type, today);
+            if (sequence > 0) {
+                return sequence;
+            }
+            int size = Math.max(1, blockSize);
+            Long leaseEnd = leaseTransaction.execute(status -> lease(type, today, size));
+            Block block = new Block(today, leaseEnd - size, leaseEnd);
+            sequence = block.take();
+            blocks.put(type, block);
+            log.debug("租用单号段：{} {} [{}, {})", type.getPrefix(), today, leaseEnd - size, leaseEnd);
+            return sequence;
+        }
+    }
+
+    /**
+     * 从当前号段取号；号段不存在、已跨天或已用完时返回 0
+     */
+    private long takeFromCurrent(DocNumberType type, LocalDate today) {
+        Block block = blocks.get(type);
+        if (block == null || !block.day.equals(today)) {
+            return 0;
+        }
+        return block.take();
+    }
+
+    /**
+     * 租用 size 个序号，返回租用后的 next_value；当天记录不存在时按业务表已有最大单号创建
+     */
+    private Long lease(DocNumberType type, LocalDate day, int size) {
+        DocSequenceLease lease = new DocSequenceLease(type.getPrefix(), day, size);
+        if (docSequenceMapper.lease(lease) == 0) {
+            docSequenceMapper.insertIgnore(type.getPrefix(), day, seedValue(type, day));
+            if (docSequenceMapper.lease(lease) == 0) {
+                throw new ServiceException("单号分配失败，请稍后重试");
+            }
+        }
+        if (lease.getLeaseEnd() == null) {
+            throw new ServiceException("单号分配失败，请稍后重试");
+        }
+        return lease.getLeaseEnd();
+    }
+
+    /**
+     * 当天第一个可用序号：续接业务表中已有的最大单号（兼容切换前按计数生成的单号）
+     */
+    private long seedValue(DocNumberType type, LocalDate day) {
+        String numberPrefix = type.getPrefix() + day.format(DAY_FORMATTER);
+        String maxNumber = docSequenceMapper.selectMaxNumber(type.getTable(), type.getColumn(), numberPrefix);
+        if (maxNumber == null || maxNumber.length() <= numberPrefix.length()) {
+            return 1;
+        }
+        try {
+            return Long.parseLong(maxNumber.substring(numberPrefix.length())) + 1;
+        } catch (NumberFormatException e) {
+            log.warn("无法解析已有单号序号：{}，从1开始分配", maxNumber);
+            return 1;
+        }
+    }
+
+    /**
+     * 已租用的号段 [next, end)，按天有效
+     */
+    private static final class Block {
+        private final LocalDate day;
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(LocalDate day, long start, long end) {
+            this.day = day;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+
+        /**
+         * 取下一个序号，用完时返回 0
+         */
+        private long take() {
+            long value = next.getAndIncrement();
+            return value < end ? value : 0;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.event.DrugInfoChangedEvent;
 import com.cdiom.backend.mapper.DrugInfoMapper;
 import com.cdiom.backend.model.DrugInfo;
 import com.cdiom.backend.model.SupplierDrug;
 import com.cdiom.backend.model.SysUser;
 import com.cdiom.backend.model.vo.SupplierDrugVO;
+import com.cdiom.backend.search.KeywordSearchIndex;
 import com.cdiom.backend.service.AuthService;
 import com.cdiom.backend.service.DrugInfoService;
 import com.cdiom.backend.service.JisuApiService;
@@ -17,13 +19,17 @@ import com.cdiom.backend.common.exception.ServiceException;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -41,10 +47,16 @@ public class DrugInfoServiceImpl implements DrugInfoService {
     private final JisuApiService jisuApiService;
     private final SupplierDrugService supplierDrugService;
     private final AuthService authService;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public Page<DrugInfo> getDrugInfoList(Integer page, Integer size, String keyword, Integer isSpecial,
             String sortField, String sortOrder) {
+        if (StringUtils.hasText(keyword) && keywordSearchIndex.isAvailable()) {
+            return searchDrugInfoPage(page, size, keyword, isSpecial, sortField, sortOrder);
+        }
+
         Page<DrugInfo> pageParam = new Page<>(page, size);
         LambdaQueryWrapper<DrugInfo> wrapper = new LambdaQueryWrapper<>();
         
@@ -74,6 +86,31 @@ public class DrugInfoServiceImpl implements DrugInfoService {
         return drugInfoMapper.selectPage(pageParam, wrapper);
     }
 
+    /**
+     * 关键字经检索索引得到按相关度排序的药品ID，内存分页后只回表当前页
+     * （指定 sortField=id 时按ID排序，否则按相关度）
+     */
+    private Page<DrugInfo> searchDrugInfoPage(Integer page, Integer size, String keyword, Integer isSpecial,
+            String sortField, String sortOrder) {
+        List<Long> ids = keywordSearchIndex.searchDrugIds(keyword, true, isSpecial);
+        if (StringUtils.hasText(sortField) && "id".equalsIgnoreCase(sortField.trim())) {
+            boolean asc = StringUtils.hasText(sortOrder) && "asc".equalsIgnoreCase(sortOrder.trim());
+            ids.sort(asc ? Comparator.naturalOrder() : Comparator.reverseOrder());
+        }
+        Page<DrugInfo> pageParam = new Page<>(page, size, ids.size());
+        int from = (int) Math.min((long) (page - 1) * size, ids.size());
+        int to = Math.min(from + size, ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+        if (pageIds.isEmpty()) {
+            pageParam.setRecords(new ArrayList<>());
+            return pageParam;
+        }
+        Map<Long, DrugInfo> byId = drugInfoMapper.selectByIds(pageIds).stream()
+                .collect(Collectors.toMap(DrugInfo::getId, d -> d));
+        pageParam.setRecords(pageIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList()));
+        return pageParam;
+    }
+
     @Override
     public DrugInfo getDrugInfoById(Long id) {
         return drugInfoMapper.selectById(id);
@@ -160,6 +197,7 @@ public class DrugInfoServiceImpl implements DrugInfoService {
         
         // ========== 保存数据 ==========
         drugInfoMapper.insert(drugInfo);
+        applicationEventPublisher.publishEvent(new DrugInfoChangedEvent(this, drugInfo.getId()));
         return drugInfo;
     }
 
@@ -254,6 +292,7 @@ public class DrugInfoServiceImpl implements DrugInfoService {
         
         // ========== 更新数据 ==========
         drugInfoMapper.updateById(drugInfo);
+        applicationEventPublisher.publishEvent(new DrugInfoChangedEvent(this, drugInfo.getId()));
         return drugInfo;
     }
 
@@ -271,6 +310,7 @@ public class DrugInfoServiceImpl implements DrugInfoService {
         
         // 执行逻辑删除
         drugInfoMapper.deleteById(id);
+        applicationEventPublisher.publishEvent(new DrugInfoChangedEvent(this, id));
     }
 
     @Override
@@ -296,6 +336,7 @@ public class DrugInfoServiceImpl implements DrugInfoService {
         if (updated == 0) {
             throw new ServiceException("药品不存在或未被删除");
         }
+        applicationEventPublisher.publishEvent(new DrugInfoChangedEvent(this, id));
     }
 
     @Override
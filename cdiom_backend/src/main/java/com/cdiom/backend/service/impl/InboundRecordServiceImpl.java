@@ -3,7 +3,10 @@ package com.cdiom.backend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.cache.BatchEnricher;
+import com.cdiom.backend.cache.ReferenceDataCache;
 import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.constant.DocNumberType;
 import com.cdiom.backend.mapper.DrugInfoMapper;
 import com.cdiom.backend.mapper.InboundReceiptBatchMapper;
 import com.cdiom.backend.mapper.InboundRecordMapper;
@@ -16,10 +19,12 @@ import com.cdiom.backend.model.InboundRecord;
 import com.cdiom.backend.model.PurchaseOrder;
 import com.cdiom.backend.model.PurchaseOrderItem;
 import com.cdiom.backend.model.SysUser;
+import com.cdiom.backend.event.InboundRecordChangedEvent;
 import com.cdiom.backend.event.UnqualifiedInboundRecordedEvent;
 import com.cdiom.backend.inbound.InboundDispositionCodes;
 import com.cdiom.backend.model.vo.InboundSplitResult;
 import com.cdiom.backend.model.vo.OrderInboundRemainingRow;
+import com.cdiom.backend.service.DocSequenceService;
 import com.cdiom.backend.service.InboundRecordService;
 import com.cdiom.backend.service.InventoryService;
 import com.cdiom.backend.service.PurchaseOrderService;
@@ -40,11 +45,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -76,6 +78,8 @@ public class InboundRecordServiceImpl implements InboundRecordService {
     private final SysUserMapper sysUserMapper;
     private final InboundSecondConfirmMailNotifier inboundSecondConfirmMailNotifier;
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final DocSequenceService docSequenceService;
+    private final ReferenceDataCache referenceDataCache;
 
     @Value("${cdiom.inbound.second-confirm-timeout-hours:48}")
     private int secondConfirmTimeoutHours;
@@ -154,57 +158,19 @@ public class InboundRecordServiceImpl implements InboundRecordService {
      * 列表/详情：药品名、到货批次号、操作人用户名（便于追溯）
      */
     private void populateDisplayFields(List<InboundRecord> records) {
-        if (records == null || records.isEmpty()) {
-            return;
-        }
-        for (InboundRecord record : records) {
-            if (record.getDrugId() != null) {
-                DrugInfo drug = drugInfoMapper.selectById(record.getDrugId());
-                if (drug != null) {
-                    record.setDrugName(drug.getDrugName());
-                }
-            }
-        }
-        Set<Long> batchIds = records.stream()
-                .map(InboundRecord::getReceiptBatchId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        if (!batchIds.isEmpty()) {
-            List<InboundReceiptBatch> batches = inboundReceiptBatchMapper.selectList(
-                    new LambdaQueryWrapper<InboundReceiptBatch>().in(InboundReceiptBatch::getId, batchIds));
-            Map<Long, String> codeById = batches.stream()
-                    .collect(Collectors.toMap(InboundReceiptBatch::getId, InboundReceiptBatch::getBatchCode));
-            for (InboundRecord record : records) {
-                if (record.getReceiptBatchId() != null) {
-                    record.setReceiptBatchCode(codeById.get(record.getReceiptBatchId()));
-                }
-            }
-        }
-        Set<Long> userIds = new HashSet<>();
-        for (InboundRecord r : records) {
-            if (r.getOperatorId() != null) {
-                userIds.add(r.getOperatorId());
-            }
-            if (r.getSecondOperatorId() != null) {
-                userIds.add(r.getSecondOperatorId());
-            }
-        }
-        if (!userIds.isEmpty()) {
-            List<SysUser> users = sysUserMapper.selectList(
-                    new LambdaQueryWrapper<SysUser>().in(SysUser::getId, userIds));
-            Map<Long, String> nameById = users.stream().collect(Collectors.toMap(
-                    SysUser::getId,
-                    u -> u.getUsername() != null ? u.getUsername() : String.valueOf(u.getId()),
-                    (a, b) -> a));
-            for (InboundRecord r : records) {
-                if (r.getOperatorId() != null) {
-                    r.setOperatorName(nameById.get(r.getOperatorId()));
-                }
-                if (r.getSecondOperatorId() != null) {
-                    r.setSecondOperatorName(nameById.get(r.getSecondOperatorId()));
-                }
-            }
-        }
+        BatchEnricher.Relation<SysUser> users = BatchEnricher.relation("用户", referenceDataCache::getUsers);
+        BatchEnricher.of(records)
+                .join(BatchEnricher.relation("药品", referenceDataCache::getDrugs),
+                        InboundRecord::getDrugId, (r, drug) -> r.setDrugName(drug.getDrugName()))
+                .join(BatchEnricher.relation("到货批次", BatchEnricher.byIds(inboundReceiptBatchMapper, InboundReceiptBatch::getId)),
+                        InboundRecord::getReceiptBatchId, (r, batch) -> r.setReceiptBatchCode(batch.getBatchCode()))
+                .join(users, InboundRecord::getOperatorId, (r, u) -> r.setOperatorName(displayName(u)))
+                .join(users, InboundRecord::getSecondOperatorId, (r, u) -> r.setSecondOperatorName(displayName(u)))
+                .apply();
+    }
+
+    private static String displayName(SysUser user) {
+        return user.getUsername() != null ? user.getUsername() : String.valueOf(user.getId());
     }
 
     @Override
@@ -601,6 +567,7 @@ public class InboundRecordServiceImpl implements InboundRecordService {
         if (rows == 0) {
             throw new ServiceException("确认失败，单据状态已变化，请刷新后重试");
         }
+        publishRecordChanged(record);
 
         record = inboundRecordMapper.selectById(id);
         finalizeQualifiedInbound(record, drug);
@@ -636,6 +603,7 @@ public class InboundRecordServiceImpl implements InboundRecordService {
         if (rows == 0) {
             throw new ServiceException("驳回失败，单据状态已变化，请刷新后重试");
         }
+        publishRecordChanged(record);
         log.info("第二人驳回入库：入库单号={}, 原因={}", record.getRecordNumber(), reason);
         return inboundRecordMapper.selectById(id);
     }
@@ -664,6 +632,7 @@ public class InboundRecordServiceImpl implements InboundRecordService {
         if (rows == 0) {
             throw new ServiceException("撤回失败，单据状态已变化，请刷新后重试");
         }
+        publishRecordChanged(record);
         log.info("第一人撤回待确认入库：入库单号={}", record.getRecordNumber());
         return inboundRecordMapper.selectById(id);
     }
@@ -686,6 +655,7 @@ public class InboundRecordServiceImpl implements InboundRecordService {
             int rows = inboundRecordMapper.update(null, uw);
             if (rows > 0) {
                 n++;
+                publishRecordChanged(r);
                 log.info("入库待第二人确认已超时关闭：入库单号={}", r.getRecordNumber());
             }
         }
@@ -819,23 +789,20 @@ public class InboundRecordServiceImpl implements InboundRecordService {
 
     private InboundRecord createInboundWithGeneratedNumber(InboundRecord inboundRecord) {
         applyDispositionForUnqualified(inboundRecord);
-        String recordNumber = generateRecordNumber();
+        String recordNumber = docSequenceService.nextNumber(DocNumberType.INBOUND_RECORD);
         inboundRecord.setRecordNumber(recordNumber);
         inboundRecordMapper.insert(inboundRecord);
+        publishRecordChanged(inboundRecord);
         if ("UNQUALIFIED".equals(inboundRecord.getStatus())) {
             applicationEventPublisher.publishEvent(new UnqualifiedInboundRecordedEvent(this, inboundRecord));
         }
         return inboundRecord;
     }
 
-    private String generateRecordNumber() {
-        String dateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        LocalDate today = LocalDate.now();
-        LambdaQueryWrapper<InboundRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.ge(InboundRecord::getCreateTime, today.atStartOfDay());
-        wrapper.lt(InboundRecord::getCreateTime, today.plusDays(1).atStartOfDay());
-        long count = inboundRecordMapper.selectCount(wrapper);
-        String sequence = String.format("%03d", count + 1);
-        return "IN" + dateStr + sequence;
+    /**
+     * 入库记录新增或第二人确认状态变化后发布事件（工作队列推送等在事务提交后处理）
+     */
+    private void publishRecordChanged(InboundRecord record) {
+        applicationEventPublisher.publishEvent(new InboundRecordChangedEvent(this, record.getId(), record.getSecondOperatorId()));
     }
 }
@@ -3,10 +3,12 @@ package com.cdiom.backend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.constant.DocNumberType;
 import com.cdiom.backend.mapper.DrugInfoMapper;
 import com.cdiom.backend.mapper.InventoryAdjustmentMapper;
 import com.cdiom.backend.model.DrugInfo;
 import com.cdiom.backend.model.InventoryAdjustment;
+import com.cdiom.backend.service.DocSequenceService;
 import com.cdiom.backend.service.InventoryAdjustmentService;
 import com.cdiom.backend.service.InventoryService;
 import com.cdiom.backend.util.RetryUtil;
@@ -18,7 +20,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 /**
  * 库存调整服务实现类
@@ -33,6 +34,7 @@ public class InventoryAdjustmentServiceImpl implements InventoryAdjustmentServic
     private final InventoryAdjustmentMapper inventoryAdjustmentMapper;
     private final InventoryService inventoryService;
     private final DrugInfoMapper drugInfoMapper;
+    private final DocSequenceService docSequenceService;
 
     @Override
     public Page<InventoryAdjustment> getInventoryAdjustmentList(Integer page, Integer size, String keyword, Long drugId, String batchNumber, String adjustmentType, Long operatorId, LocalDate startDate, LocalDate endDate) {
@@ -145,7 +147,7 @@ public class InventoryAdjustmentServiceImpl implements InventoryAdjustmentServic
      */
     private InventoryAdjustment createAdjustmentWithGeneratedNumber(InventoryAdjustment adjustment) {
         // 1. 生成唯一单号
-        String adjustmentNumber = generateAdjustmentNumber();
+        String adjustmentNumber = docSequenceService.nextNumber(DocNumberType.INVENTORY_ADJUSTMENT);
         adjustment.setAdjustmentNumber(adjustmentNumber);
         
         // 2. 插入调整记录（若单号重复，会抛出DuplicateKeyException）
@@ -153,22 +155,6 @@ public class InventoryAdjustmentServiceImpl implements InventoryAdjustmentServic
         
         return adjustment;
     }
-
-    /**
-     * 生成调整单号
-     * 格式：ADJ + 日期（YYYYMMDD）+ 3位序号
-     */
-    private String generateAdjustmentNumber() {
-        String dateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        // 查询今天已生成的调整单数量
-        LocalDate today = LocalDate.now();
-        LambdaQueryWrapper<InventoryAdjustment> wrapper = new LambdaQueryWrapper<>();
-        wrapper.ge(InventoryAdjustment::getCreateTime, today.atStartOfDay());
-        wrapper.lt(InventoryAdjustment::getCreateTime, today.plusDays(1).atStartOfDay());
-        long count = inventoryAdjustmentMapper.selectCount(wrapper);
-        String sequence = String.format("%03d", count + 1);
-        return "ADJ" + dateStr + sequence;
-    }
 }
 
 
@@ -0,0 +1,116 @@
+package com.cdiom.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.mapper.InventoryMovementMapper;
+import com.cdiom.backend.mapper.InventorySnapshotMapper;
+import com.cdiom.backend.mapper.InventorySnapshotRunMapper;
+import com.cdiom.backend.model.InventoryMovement;
+import com.cdiom.backend.model.InventorySnapshot;
+import com.cdiom.backend.model.InventorySnapshotRun;
+import com.cdiom.backend.service.InventoryMovementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 库存流水与时点库存服务实现类
+ * <p>
+ * 快照只由上一快照加流水推导，不读 inventory 表，因此与流水严格衔接。
+ * 新快照只计入早于「当前时间 - 稳定期」的流水：流水ID在插入时分配、事务提交时才可见，
+ * 稳定期内可能仍有较小ID的流水未提交，留出稳定期避免被快照跳过。
+ * 
+ * @author cdiom
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryMovementServiceImpl implements InventoryMovementService {
+
+    /** 流水稳定期（分钟）：远大于业务事务时长 */
+    private static final long SETTLE_MINUTES = 5;
+
+    private final InventoryMovementMapper inventoryMovementMapper;
+    private final InventorySnapshotMapper inventorySnapshotMapper;
+    private final InventorySnapshotRunMapper inventorySnapshotRunMapper;
+
+    @Override
+    public Map<String, Object> getStockAt(Long drugId, String batchNumber, LocalDateTime time) {
+        if (drugId == null || time == null) {
+            throw new ServiceException("药品ID与查询时间不能为空");
+        }
+        String batch = StringUtils.hasText(batchNumber) ? batchNumber.trim() : null;
+        InventorySnapshotRun run = inventorySnapshotRunMapper.selectLatestAtOrBefore(time);
+        if (run == null) {
+            throw new ServiceException("查询时间早于库存流水启用时间，无法回放");
+        }
+
+        Map<String, Integer> byBatch = new TreeMap<>();
+        LambdaQueryWrapper<InventorySnapshot> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(InventorySnapshot::getRunId, run.getId());
+        wrapper.eq(InventorySnapshot::getDrugId, drugId);
+        wrapper.eq(batch != null, InventorySnapshot::getBatchNumber, batch);
+        for (InventorySnapshot s : inventorySnapshotMapper.selectList(wrapper)) {
+            byBatch.put(s.getBatchNumber(), s.getQuantity());
+        }
+        for (InventoryMovement m : inventoryMovementMapper.sumChangesByBatch(drugId, batch, run.getLastMovementId(), time)) {
+            byBatch.merge(m.getBatchNumber(), m.getChangeQuantity(), Integer::sum);
+        }
+
+        int total = 0;
+        List<Map<String, Object>> batches = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : byBatch.entrySet()) {
+            if (e.getValue() == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("batchNumber", e.getKey());
+            row.put("quantity", e.getValue());
+            batches.add(row);
+            total += e.getValue();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("drugId", drugId);
+        result.put("batchNumber", batch);
+        result.put("time", time);
+        result.put("quantity", total);
+        result.put("batches", batches);
+        result.put("snapshotTime", run.getCutoffTime());
+        return result;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int takeSnapshot() {
+        InventorySnapshotRun prev = inventorySnapshotRunMapper.selectLatest();
+        if (prev == null) {
+            throw new ServiceException("缺少初始库存快照，请先执行库存流水迁移脚本");
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(SETTLE_MINUTES);
+        Long lastId = inventoryMovementMapper.selectLastIdBefore(cutoff);
+        if (lastId == null || lastId <= prev.getLastMovementId()) {
+            return -1;
+        }
+
+        InventorySnapshotRun run = new InventorySnapshotRun();
+        run.setCutoffTime(cutoff);
+        run.setLastMovementId(lastId);
+        run.setBatchCount(0);
+        inventorySnapshotRunMapper.insert(run);
+        int batchCount = inventorySnapshotMapper.insertRolledForward(run.getId(), prev.getId(), prev.getLastMovementId(), lastId);
+        run.setBatchCount(batchCount);
+        inventorySnapshotRunMapper.updateById(run);
+        log.info("库存快照生成：快照ID={}, 时点={}, 流水ID区间=({}, {}], 批次数={}",
+                run.getId(), cutoff, prev.getLastMovementId(), lastId, batchCount);
+        return batchCount;
+    }
+}
@@ -3,20 +3,38 @@ package com.cdiom.backend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.event.InventoryChangedEvent;
+import com.cdiom.backend.inventory.InventoryBatchIndex;
+import com.cdiom.backend.inventory.InventoryExpiryHistogram;
 import com.cdiom.backend.mapper.InventoryMapper;
+import com.cdiom.backend.mapper.InventoryMovementMapper;
 import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.model.InventoryMovement;
+import com.cdiom.backend.model.vo.BatchDelta;
+import com.cdiom.backend.model.vo.InventoryDecrement;
+import com.cdiom.backend.model.vo.KeywordMatch;
+import com.cdiom.backend.search.KeywordSearchIndex;
 import com.cdiom.backend.service.InventoryService;
 import com.cdiom.backend.util.SystemConfigUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 库存服务实现类
@@ -28,28 +46,111 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class InventoryServiceImpl implements InventoryService {
 
+    /** 批量条件扣减：WHERE quantity >= 扣减量 保证不超扣，受影响行数为 0 即该行不足 */
+    private static final String BATCH_DECREASE_SQL =
+            "UPDATE inventory SET quantity = quantity - ? WHERE drug_id = ? AND batch_number = ? AND quantity >= ?";
+
+    /** 库存列表总数缓存有效期（毫秒），期间批次增减带来的总数偏差可接受 */
+    private static final long LIST_COUNT_CACHE_TTL_MS = 30_000L;
+    /** 库存列表总数缓存最大条目数（按筛选条件组合计） */
+    private static final int LIST_COUNT_CACHE_MAX_ENTRIES = 256;
+    /** 关键字检索命中ID超过该数量时（关键字过短、命中面过宽）改用 LIKE，避免超长 IN 列表 */
+    private static final int KEYWORD_MATCH_MAX_IDS = 2000;
+
     private final InventoryMapper inventoryMapper;
+    private final InventoryMovementMapper inventoryMovementMapper;
     private final SystemConfigUtil systemConfigUtil;
+    private final InventoryBatchIndex inventoryBatchIndex;
+    private final InventoryExpiryHistogram inventoryExpiryHistogram;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    // 库存列表总数缓存：key=筛选条件拼接, value=CachedCount{total, expireTime}
+    private final Map<String, CachedCount> listCountCache = new ConcurrentHashMap<>();
 
     @Override
     public Page<Inventory> getInventoryList(Integer page, Integer size, String keyword, Long drugId, String batchNumber, String storageLocation, LocalDate expiryDateStart, LocalDate expiryDateEnd, Integer isSpecial) {
-        // 统一使用 JOIN 查询，始终返回药品名称等信息，避免前端 drugName 为空
-        List<Inventory> allResults = inventoryMapper.selectInventoryListWithJoin(
-                keyword, drugId, batchNumber, storageLocation,
-                expiryDateStart, expiryDateEnd, isSpecial);
+        return getInventoryList(page, size, keyword, drugId, batchNumber, storageLocation,
+                expiryDateStart, expiryDateEnd, isSpecial, null, true);
+    }
+
+    @Override
+    public Page<Inventory> getInventoryList(Integer page, Integer size, String keyword, Long drugId, String batchNumber, String storageLocation, LocalDate expiryDateStart, LocalDate expiryDateEnd, Integer isSpecial, Long lastId, boolean searchCount) {
+        int current = page == null || page < 1 ? 1 : page;
+        int pageSize = size == null || size < 1 ? 10 : size;
+
+        // 键集游标：取上一页最后一行的排序键；游标行已删除或排序键缺失时退回 LIMIT/OFFSET
+        Inventory cursor = null;
+        if (lastId != null) {
+            cursor = inventoryMapper.selectById(lastId);
+            if (cursor != null && (cursor.getExpiryDate() == null || cursor.getCreateTime() == null)) {
+                cursor = null;
+            }
+        }
 
-        // 手动分页
-        int start = (page - 1) * size;
-        int end = Math.min(start + size, allResults.size());
-        List<Inventory> pageResults = start < allResults.size()
-                ? allResults.subList(start, end)
-                : new java.util.ArrayList<>();
+        // 统一使用 JOIN 查询，始终返回药品名称等信息，避免前端 drugName 为空
+        long offset = (long) (current - 1) * pageSize;
+        KeywordMatch keywordMatch = matchKeyword(keyword);
+        List<Inventory> records = inventoryMapper.selectInventoryPageWithJoin(
+                keyword, keywordMatch, drugId, batchNumber, storageLocation,
+                expiryDateStart, expiryDateEnd, isSpecial,
+                cursor != null ? cursor.getExpiryDate() : null,
+                cursor != null ? cursor.getCreateTime() : null,
+                cursor != null ? cursor.getId() : null,
+                offset, pageSize);
 
-        Page<Inventory> pageParam = new Page<>(page, size, allResults.size());
-        pageParam.setRecords(pageResults);
+        Page<Inventory> pageParam = new Page<>(current, pageSize, searchCount);
+        pageParam.setRecords(records);
+        if (searchCount) {
+            pageParam.setTotal(countInventoryList(keyword, keywordMatch, drugId, batchNumber, storageLocation,
+                    expiryDateStart, expiryDateEnd, isSpecial));
+        }
         return pageParam;
     }
 
+    /**
+     * 关键字先查检索索引得到命中的药品/库存ID；索引不可用或命中过多时返回 null，由 SQL 走 LIKE
+     */
+    private KeywordMatch matchKeyword(String keyword) {
+        if (!StringUtils.hasText(keyword) || !keywordSearchIndex.isAvailable()) {
+            return null;
+        }
+        List<Long> drugIds = keywordSearchIndex.searchDrugIds(keyword, false, null);
+        if (drugIds.size() > KEYWORD_MATCH_MAX_IDS) {
+            return null;
+        }
+        List<Long> inventoryIds = keywordSearchIndex.searchInventoryIds(keyword);
+        if (drugIds.size() + inventoryIds.size() > KEYWORD_MATCH_MAX_IDS) {
+            return null;
+        }
+        return new KeywordMatch(drugIds, inventoryIds);
+    }
+
+    /**
+     * 库存列表总数：同一筛选条件在 TTL 内复用上次结果，翻页时不重复 COUNT
+     */
+    private long countInventoryList(String keyword, KeywordMatch keywordMatch, Long drugId, String batchNumber, String storageLocation, LocalDate expiryDateStart, LocalDate expiryDateEnd, Integer isSpecial) {
+        String key = keyword + "|" + drugId + "|" + batchNumber + "|" + storageLocation + "|"
+                + expiryDateStart + "|" + expiryDateEnd + "|" + isSpecial;
+        long now = System.currentTimeMillis();
+        CachedCount cached = listCountCache.get(key);
+        if (cached != null && now < cached.expireTime) {
+            return cached.total;
+        }
+        Long total = inventoryMapper.countInventoryListWithJoin(keyword, keywordMatch, drugId, batchNumber, storageLocation,
+                expiryDateStart, expiryDateEnd, isSpecial);
+        long value = total != null ? total : 0L;
+        if (listCountCache.size() >= LIST_COUNT_CACHE_MAX_ENTRIES) {
+            listCountCache.entrySet().removeIf(entry -> now >= entry.getValue().expireTime);
+            if (listCountCache.size() >= LIST_COUNT_CACHE_MAX_ENTRIES) {
+                listCountCache.clear();
+            }
+        }
+        listCountCache.put(key, new CachedCount(value, now + LIST_COUNT_CACHE_TTL_MS));
+        return value;
+    }
+
     @Override
     public Inventory getInventoryById(Long id) {
         return inventoryMapper.selectById(id);
@@ -79,9 +180,11 @@ public class InventoryServiceImpl implements InventoryService {
             if (affectedRows == 0) {
                 throw new ServiceException("入库操作失败，请重试");
             }
+            applicationEventPublisher.publishEvent(new InventoryChangedEvent(this, drugId, batchNumber));
             
-            // 查询更新后的库存数量用于日志
+            // 查询更新后的库存数量用于日志与流水
             Inventory inventory = inventoryMapper.selectForUpdate(drugId, batchNumber);
+            recordMovement(drugId, batchNumber, "INBOUND", quantity, inventory != null ? inventory.getQuantity() : null);
             if (inventory != null) {
                 log.info("入库操作：药品ID={}, 批次号={}, 增加数量={}, 当前数量={}", drugId, batchNumber, quantity, inventory.getQuantity());
             } else {
@@ -117,43 +220,38 @@ public class InventoryServiceImpl implements InventoryService {
         }
         inv.setStorageLocation(trimmed);
         inventoryMapper.updateById(inv);
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(this, inv.getDrugId(), inv.getBatchNumber()));
         log.info("更新库存存储位置：id={}, drugId={}, batchNumber={}, location={}", inventoryId, inv.getDrugId(), inv.getBatchNumber(), trimmed);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void decreaseInventory(Long drugId, String batchNumber, Integer quantity) {
+    public int decreaseInventory(Long drugId, String batchNumber, Integer quantity) {
         try {
             if (quantity == null || quantity <= 0) {
                 throw new ServiceException("出库数量必须大于0");
             }
             
-            // 使用悲观锁查询库存，防止并发问题
-            Inventory inventory = inventoryMapper.selectForUpdate(drugId, batchNumber);
-            if (inventory == null) {
-                throw new ServiceException("库存不存在");
-            }
-            
-            // 检查库存是否充足
-            if (inventory.getQuantity() < quantity) {
-                throw new ServiceException("库存不足，当前库存：" + inventory.getQuantity() + "，需要出库：" + quantity);
-            }
-            
-            // 使用原子更新操作减少库存，确保并发安全
-            // 原子更新操作会在 WHERE 条件中检查 quantity >= quantity，确保库存充足
-            int affectedRows = inventoryMapper.decreaseQuantityAtomically(drugId, batchNumber, quantity);
+            // 单语句条件更新：WHERE quantity >= 扣减量 保证不超扣，成功时同时带回剩余数量
+            // 不再先 SELECT ... FOR UPDATE，行锁只在这一条 UPDATE 内持有，一次往返完成
+            InventoryDecrement decrement = new InventoryDecrement(drugId, batchNumber, quantity);
+            int affectedRows = inventoryMapper.decreaseQuantityReturningRemaining(decrement);
             if (affectedRows == 0) {
-                // 如果原子更新失败（可能是在检查后到更新前库存被其他事务修改），再次查询确认
-                Inventory currentInventory = inventoryMapper.selectForUpdate(drugId, batchNumber);
+                // 仅在被拒绝时才读一次当前库存，用于提示（不加锁）
+                Inventory currentInventory = getInventoryByDrugAndBatch(drugId, batchNumber);
                 if (currentInventory == null) {
                     throw new ServiceException("库存不存在");
                 }
                 throw new ServiceException("库存不足，当前库存：" + currentInventory.getQuantity() + "，需要出库：" + quantity);
             }
             
-            // 计算剩余数量用于日志（避免再次查询数据库）
-            int remainingQuantity = inventory.getQuantity() - quantity;
+            applicationEventPublisher.publishEvent(new InventoryChangedEvent(this, drugId, batchNumber));
+
+            // 剩余为 0 时驱动不回传 LAST_INSERT_ID，按 0 处理
+            int remainingQuantity = decrement.getRemainingQuantity() != null ? decrement.getRemainingQuantity().intValue() : 0;
+            recordMovement(drugId, batchNumber, "OUTBOUND", -quantity, remainingQuantity);
             log.info("减少库存：药品ID={}, 批次号={}, 减少数量={}, 剩余数量={}", drugId, batchNumber, quantity, remainingQuantity);
+            return remainingQuantity;
         } catch (ServiceException e) {
             throw e;
         } catch (Exception e) {
@@ -162,6 +260,77 @@ public class InventoryServiceImpl implements InventoryService {
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void decreaseInventoryBatch(List<BatchDelta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        // 同一 (药品, 批次) 合并为一行，再按 (药品ID, 批次号) 排序，保证所有事务以相同顺序加行锁，避免死锁
+        Map<String, BatchDelta> merged = new HashMap<>();
+        for (BatchDelta d : deltas) {
+            if (d.getDrugId() == null || !StringUtils.hasText(d.getBatchNumber())) {
+                throw new ServiceException("批量出库明细的药品ID与批次号不能为空");
+            }
+            if (d.getQuantity() == null || d.getQuantity() <= 0) {
+                throw new ServiceException("出库数量必须大于0");
+            }
+            String key = d.getDrugId() + "\0" + d.getBatchNumber();
+            merged.merge(key, new BatchDelta(d.getDrugId(), d.getBatchNumber(), d.getQuantity()),
+                    (a, b) -> new BatchDelta(a.getDrugId(), a.getBatchNumber(), a.getQuantity() + b.getQuantity()));
+        }
+        List<BatchDelta> sorted = new ArrayList<>(merged.values());
+        sorted.sort(Comparator.comparing(BatchDelta::getDrugId).thenComparing(BatchDelta::getBatchNumber));
+
+        // JdbcTemplate 与 MyBatis 共用当前事务连接；rewriteBatchedStatements=true 时整批一次往返发送
+        int[] counts = jdbcTemplate.batchUpdate(BATCH_DECREASE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                BatchDelta d = sorted.get(i);
+                ps.setInt(1, d.getQuantity());
+                ps.setLong(2, d.getDrugId());
+                ps.setString(3, d.getBatchNumber());
+                ps.setInt(4, d.getQuantity());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return sorted.size();
+            }
+        });
+
+        List<BatchDelta> rejected = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            if (counts[i] == 0) {
+                rejected.add(sorted.get(i));
+            }
+        }
+        if (!rejected.isEmpty()) {
+            // 仅在有行被拒绝时读一次当前库存，逐行给出缺口
+            List<String> shortfalls = new ArrayList<>();
+            for (BatchDelta d : rejected) {
+                Inventory current = getInventoryByDrugAndBatch(d.getDrugId(), d.getBatchNumber());
+                if (current == null) {
+                    shortfalls.add("药品ID=" + d.getDrugId() + " 批次" + d.getBatchNumber() + " 库存不存在");
+                } else {
+                    shortfalls.add("药品ID=" + d.getDrugId() + " 批次" + d.getBatchNumber()
+                            + " 当前库存" + current.getQuantity() + "，需要出库" + d.getQuantity());
+                }
+            }
+            throw new ServiceException("库存不足：" + String.join("；", shortfalls));
+        }
+
+        List<InventoryMovement> movements = new ArrayList<>(sorted.size());
+        for (BatchDelta d : sorted) {
+            movements.add(newMovement(d.getDrugId(), d.getBatchNumber(), "OUTBOUND", -d.getQuantity(), null));
+        }
+        inventoryMovementMapper.insertRows(movements);
+        for (BatchDelta d : sorted) {
+            applicationEventPublisher.publishEvent(new InventoryChangedEvent(this, d.getDrugId(), d.getBatchNumber()));
+        }
+        log.info("批量减少库存：{} 行（合并后 {} 行）", deltas.size(), sorted.size());
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void updateInventoryQuantity(Long drugId, String batchNumber, Integer newQuantity) {
@@ -176,8 +345,13 @@ public class InventoryServiceImpl implements InventoryService {
                 throw new ServiceException("库存不存在");
             }
             
+            int before = inventory.getQuantity() != null ? inventory.getQuantity() : 0;
             inventory.setQuantity(newQuantity);
             inventoryMapper.updateById(inventory);
+            if (newQuantity != before) {
+                recordMovement(drugId, batchNumber, "ADJUST", newQuantity - before, newQuantity);
+            }
+            applicationEventPublisher.publishEvent(new InventoryChangedEvent(this, drugId, batchNumber));
             log.info("更新库存数量：药品ID={}, 批次号={}, 新数量={}", drugId, batchNumber, newQuantity);
         } catch (ServiceException e) {
             throw e;
@@ -197,8 +371,8 @@ public class InventoryServiceImpl implements InventoryService {
         LocalDate yellowWarningDate = today.plusDays(expiryWarningDays);
         LocalDate redWarningDate = today.plusDays(expiryCriticalDays);
         
-        Long yellowCount = inventoryMapper.countYellowWarning(today, yellowWarningDate);
-        Long redCount = inventoryMapper.countRedWarning(today, redWarningDate);
+        Long yellowCount = countExpiringBatches(today, yellowWarningDate);
+        Long redCount = countExpiringBatches(today, redWarningDate);
         
         Map<String, Long> result = new HashMap<>();
         result.put("yellow", yellowCount);
@@ -214,14 +388,7 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public List<Inventory> getAvailableBatches(Long drugId, Integer requiredQuantity) {
-        LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Inventory::getDrugId, drugId);
-        wrapper.gt(Inventory::getQuantity, 0);
-        wrapper.ge(Inventory::getExpiryDate, LocalDate.now()); // 只返回未过期的批次
-        // 按有效期排序（最早到期的在前，FIFO）
-        wrapper.orderByAsc(Inventory::getExpiryDate);
-        
-        List<Inventory> batches = inventoryMapper.selectList(wrapper);
+        List<Inventory> batches = listAvailableBatches(drugId);
         
         // 计算累计数量，只返回足够数量的批次
         int totalQuantity = 0;
@@ -243,11 +410,71 @@ public class InventoryServiceImpl implements InventoryService {
         return resultBatches;
     }
 
+    @Override
+    public List<Inventory> listAvailableBatches(Long drugId) {
+        if (inventoryBatchIndex.canServe(drugId)) {
+            // 内存批次索引已按 (有效期, 批次号) 排好序，且只含未过期、数量>0 的批次
+            return inventoryBatchIndex.getAvailableBatches(drugId, LocalDate.now());
+        }
+        LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Inventory::getDrugId, drugId);
+        wrapper.gt(Inventory::getQuantity, 0);
+        wrapper.ge(Inventory::getExpiryDate, LocalDate.now()); // 只返回未过期的批次
+        // 按有效期排序（最早到期的在前，FIFO）
+        wrapper.orderByAsc(Inventory::getExpiryDate);
+        wrapper.orderByAsc(Inventory::getBatchNumber);
+        return inventoryMapper.selectList(wrapper);
+    }
+
     @Override
     public int getTotalAvailableQuantity(Long drugId) {
         if (drugId == null) return 0;
+        if (inventoryBatchIndex.canServe(drugId)) {
+            return inventoryBatchIndex.getTotalAvailableQuantity(drugId, LocalDate.now());
+        }
         Integer total = inventoryMapper.getTotalAvailableQuantityByDrugId(drugId, LocalDate.now());
         return total != null ? total : 0;
     }
-}
 
+    @Override
+    public long countExpiringBatches(LocalDate from, LocalDate to) {
+        // 直方图随批次索引增量维护，区间求和即可；索引不可用时回退区间 COUNT
+        if (inventoryBatchIndex.isAvailable()) {
+            return inventoryExpiryHistogram.countBatches(from, to);
+        }
+        Long count = inventoryMapper.countRedWarning(from, to);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 追加一条库存流水（与库存变更同一事务）
+     */
+    private void recordMovement(Long drugId, String batchNumber, String movementType, int changeQuantity, Integer quantityAfter) {
+        inventoryMovementMapper.insertRows(Collections.singletonList(
+                newMovement(drugId, batchNumber, movementType, changeQuantity, quantityAfter)));
+    }
+
+    private static InventoryMovement newMovement(Long drugId, String batchNumber, String movementType,
+                                                 int changeQuantity, Integer quantityAfter) {
+        InventoryMovement m = new InventoryMovement();
+        m.setDrugId(drugId);
+        m.setBatchNumber(batchNumber);
+        m.setMovementType(movementType);
+        m.setChangeQuantity(changeQuantity);
+        m.setQuantityAfter(quantityAfter);
+        return m;
+    }
+
+    /**
+     * 列表总数缓存项
+     */
+    private static class CachedCount {
+        final long total;
+        final long expireTime;
+
+        CachedCount(long total, long expireTime) {
+            this.total = total;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -1,30 +1,49 @@
 package com.cdiom.backend.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cdiom.backend.geo.IpRangeDatabase;
+import com.cdiom.backend.mapper.LoginLogMapper;
+import com.cdiom.backend.model.LoginLog;
 import com.cdiom.backend.service.IpLocationService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * IP地理位置查询服务实现类
- * 使用高德地图IP定位API
+ * <p>
+ * 登录时只查本地：先查 LRU 缓存，再在本地 IP 地址段库（cdiom.ip-location.db-path，内存映射 + 二分查找）中查找，
+ * 不访问任何远程服务，登录耗时与高德接口无关。
+ * 本地未能解析的公网 IP，在登录日志写入提交后由 ipLocationExecutor 异步调用高德IP定位API，
+ * 查到后回填 login_log.location 并写入缓存；线程池满时放弃本次回填。
  *
  * @author cdiom
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class IpLocationServiceImpl implements IpLocationService {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final LoginLogMapper loginLogMapper;
+    private final TaskExecutor ipLocationExecutor;
 
     /**
      * 高德IP定位API基础URL和Key（在配置文件中配置）
@@ -37,11 +56,58 @@ public class IpLocationServiceImpl implements IpLocationService {
     @Value("${amap.ip.key:}")
     private String amapKey;
 
+    @Value("${cdiom.ip-location.db-path:}")
+    private String dbPath;
+
+    @Value("${cdiom.ip-location.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${cdiom.ip-location.amap-backfill:true}")
+    private boolean amapBackfill;
+
     // 本地IP地址
     private static final String LOCAL_IP = "127.0.0.1";
     private static final String LOCALHOST = "localhost";
     private static final String LOCAL_IP_V6 = "0:0:0:0:0:0:0:1";
 
+    /**
+     * 缓存中表示「本地库未收录」的值
+     */
+    private static final String UNRESOLVED = "";
+
+    private volatile IpRangeDatabase database;
+
+    private final LinkedHashMap<String, String> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    public IpLocationServiceImpl(RestTemplate restTemplate,
+                                 ObjectMapper objectMapper,
+                                 LoginLogMapper loginLogMapper,
+                                 @Qualifier("ipLocationExecutor") TaskExecutor ipLocationExecutor) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.loginLogMapper = loginLogMapper;
+        this.ipLocationExecutor = ipLocationExecutor;
+    }
+
+    @PostConstruct
+    public void loadDatabase() {
+        if (!StringUtils.hasText(dbPath)) {
+            log.info("未配置本地IP地址段库（cdiom.ip-location.db-path），登录日志位置仅依赖高德异步回填");
+            return;
+        }
+        try {
+            database = IpRangeDatabase.open(Paths.get(dbPath.trim()));
+            log.info("已加载本地IP地址段库：{}，地址段 {} 个", dbPath, database.size());
+        } catch (Exception e) {
+            log.warn("加载本地IP地址段库失败：{}, error={}", dbPath, e.getMessage());
+        }
+    }
+
     @Override
     public String getLocationByIp(String ip) {
         // 处理空值或本地IP
@@ -52,17 +118,95 @@ public class IpLocationServiceImpl implements IpLocationService {
         ip = ip.trim();
 
         // 本地IP地址或内网IP，直接返回“内网IP”
-        if (LOCAL_IP.equals(ip) || LOCALHOST.equalsIgnoreCase(ip) || LOCAL_IP_V6.equals(ip)
-                || ip.startsWith("192.168.") || ip.startsWith("10.") || ip.startsWith("172.")) {
+        if (isInternal(ip)) {
             return "内网IP";
         }
 
-        // 如果未配置高德Key，则直接返回IP，避免无效请求
-        if (amapKey == null || amapKey.trim().isEmpty()) {
-            log.warn("高德IP定位未配置API Key，返回IP地址: {}", ip);
-            return ip;
+        String location = lookupLocal(ip);
+        // 本地未能解析时返回IP地址（可由高德异步回填）
+        return location != null ? location : ip;
+    }
+
+    @Override
+    public void backfillLoginLogLocation(Long loginLogId, String ip) {
+        if (!amapBackfill || loginLogId == null || ip == null || amapKey == null || amapKey.trim().isEmpty()) {
+            return;
+        }
+        String trimmedIp = ip.trim();
+        if (trimmedIp.isEmpty() || isInternal(trimmedIp)) {
+            return;
         }
+        Runnable task = () -> backfill(loginLogId, trimmedIp);
+        // 登录日志所在事务提交后再提交任务，保证回填时记录已可见
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(task);
+                }
+            });
+        } else {
+            submit(task);
+        }
+    }
 
+    private void submit(Runnable task) {
+        try {
+            ipLocationExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            log.debug("IP定位回填队列已满，跳过本次回填");
+        }
+    }
+
+    private void backfill(Long loginLogId, String ip) {
+        String location = lookupLocal(ip);
+        if (location == null) {
+            location = queryAmap(ip);
+            if (location == null) {
+                return;
+            }
+            synchronized (cache) {
+                cache.put(ip, location);
+            }
+        }
+        LambdaUpdateWrapper<LoginLog> uw = new LambdaUpdateWrapper<>();
+        uw.eq(LoginLog::getId, loginLogId).set(LoginLog::getLocation, location);
+        loginLogMapper.update(null, uw);
+    }
+
+    /**
+     * 缓存 + 本地地址段库查询，未收录时返回 null
+     */
+    private String lookupLocal(String ip) {
+        String cached;
+        synchronized (cache) {
+            cached = cache.get(ip);
+        }
+        if (cached != null) {
+            return cached.isEmpty() ? null : cached;
+        }
+        IpRangeDatabase db = database;
+        String location = db != null ? db.lookup(ip) : null;
+        if (location != null && location.isEmpty()) {
+            location = null;
+        }
+        if (db != null && cacheSize > 0) {
+            synchronized (cache) {
+                cache.put(ip, location != null ? location : UNRESOLVED);
+            }
+        }
+        return location;
+    }
+
+    private static boolean isInternal(String ip) {
+        return LOCAL_IP.equals(ip) || LOCALHOST.equalsIgnoreCase(ip) || LOCAL_IP_V6.equals(ip)
+                || ip.startsWith("192.168.") || ip.startsWith("10.") || ip.startsWith("172.");
+    }
+
+    /**
+     * 调用高德IP定位API，失败时返回 null
+     */
+    private String queryAmap(String ip) {
         try {
             // 构建高德IP定位请求URL
             String url = UriComponentsBuilder
@@ -98,7 +242,6 @@ public class IpLocationServiceImpl implements IpLocationService {
                         location.append(city);
                     }
 
-                    // 如果获取到了地址信息，返回；否则返回IP地址
                     if (location.length() > 0) {
                         return location.toString();
                     }
@@ -111,12 +254,8 @@ public class IpLocationServiceImpl implements IpLocationService {
             // 网络连接失败，可能是API服务不可用
             log.warn("高德IP地理位置API连接失败，IP: {}, 错误: {}", ip, e.getMessage());
         } catch (Exception e) {
-            // 其他异常，记录日志但不影响登录流程
             log.warn("高德IP地理位置查询异常，IP: {}, 错误: {}", ip, e.getMessage());
         }
-
-        // 查询失败时返回IP地址
-        return ip;
+        return null;
     }
 }
-
@@ -2,17 +2,16 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.audit.AuditLogWriter;
 import com.cdiom.backend.mapper.LoginLogMapper;
 import com.cdiom.backend.model.LoginLog;
 import com.cdiom.backend.service.LoginLogService;
 import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * 登录日志服务实现类
@@ -24,6 +23,7 @@ import java.util.List;
 public class LoginLogServiceImpl implements LoginLogService {
 
     private final LoginLogMapper loginLogMapper;
+    private final AuditLogWriter auditLogWriter;
 
     @Override
     public Page<LoginLog> getLogList(Integer page, Integer size, String keyword, Long userId, Integer status) {
@@ -33,10 +33,16 @@ public class LoginLogServiceImpl implements LoginLogService {
     }
 
     @Override
-    public List<LoginLog> listLogsForExport(String keyword, Long userId, Integer status) {
-        Page<LoginLog> pageParam = new Page<>(1, EXPORT_MAX_ROWS);
+    public Cursor<LoginLog> streamLogsForExport(String keyword, Long userId, Integer status) {
         LambdaQueryWrapper<LoginLog> wrapper = buildListWrapper(keyword, userId, status);
-        return loginLogMapper.selectPage(pageParam, wrapper).getRecords();
+        wrapper.last("LIMIT " + EXPORT_MAX_ROWS);
+        return loginLogMapper.streamList(wrapper);
+    }
+
+    @Override
+    public long countLogsForExport(String keyword, Long userId, Integer status) {
+        LambdaQueryWrapper<LoginLog> wrapper = buildListWrapper(keyword, userId, status);
+        return Math.min(loginLogMapper.selectCount(wrapper), EXPORT_MAX_ROWS);
     }
 
     private LambdaQueryWrapper<LoginLog> buildListWrapper(String keyword, Long userId, Integer status) {
@@ -62,12 +68,12 @@ public class LoginLogServiceImpl implements LoginLogService {
     }
 
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
     public void saveLog(LoginLog log) {
         if (log.getLoginTime() == null) {
             log.setLoginTime(LocalDateTime.now());
         }
-        loginLogMapper.insert(log);
+        // 异步批量写入；本地IP库未能解析（位置仍为IP）的记录写入后由写入器提交异步回填
+        auditLogWriter.submit(log);
     }
 }
 
@@ -2,26 +2,45 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.audit.AuditLogWriter;
+import com.cdiom.backend.mapper.OperationLogCounterMapper;
 import com.cdiom.backend.mapper.OperationLogMapper;
 import com.cdiom.backend.model.OperationLog;
+import com.cdiom.backend.model.vo.NameCountRow;
 import com.cdiom.backend.service.OperationLogService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 操作日志服务实现类
+ * <p>
+ * 日志交给 {@link AuditLogWriter} 异步批量写入，写入时同时累加 operation_log_counter 中当天的模块、操作类型计数，
+ * 仪表盘按模块/类型统计只读计数表，耗时与日志量无关。关闭计数表（cdiom.operation-log.counter.enabled=false）时
+ * 改为对 operation_log 做 GROUP BY 统计。
  * 
  * @author cdiom
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OperationLogServiceImpl implements OperationLogService {
 
     private final OperationLogMapper operationLogMapper;
+    private final OperationLogCounterMapper operationLogCounterMapper;
+    private final AuditLogWriter auditLogWriter;
+
+    @Value("${cdiom.operation-log.counter.enabled:true}")
+    private boolean counterEnabled;
 
     @Override
     public Page<OperationLog> getLogList(Integer page, Integer size, String keyword, Long userId, String module, String operationType, Integer status) {
@@ -31,10 +50,16 @@ public class OperationLogServiceImpl implements OperationLogService {
     }
 
     @Override
-    public List<OperationLog> listLogsForExport(String keyword, Long userId, String module, String operationType, Integer status) {
-        Page<OperationLog> pageParam = new Page<>(1, EXPORT_MAX_ROWS);
+    public Cursor<OperationLog> streamLogsForExport(String keyword, Long userId, String module, String operationType, Integer status) {
         LambdaQueryWrapper<OperationLog> wrapper = buildListWrapper(keyword, userId, module, operationType, status);
-        return operationLogMapper.selectPage(pageParam, wrapper).getRecords();
+        wrapper.last("LIMIT " + EXPORT_MAX_ROWS);
+        return operationLogMapper.streamList(wrapper);
+    }
+
+    @Override
+    public long countLogsForExport(String keyword, Long userId, String module, String operationType, Integer status) {
+        LambdaQueryWrapper<OperationLog> wrapper = buildListWrapper(keyword, userId, module, operationType, status);
+        return Math.min(operationLogMapper.selectCount(wrapper), EXPORT_MAX_ROWS);
     }
 
     private LambdaQueryWrapper<OperationLog> buildListWrapper(String keyword, Long userId, String module, String operationType, Integer status) {
@@ -66,11 +91,33 @@ public class OperationLogServiceImpl implements OperationLogService {
     }
 
     @Override
-    public void saveLog(OperationLog log) {
-        if (log.getOperationTime() == null) {
-            log.setOperationTime(LocalDateTime.now());
+    public void saveLog(OperationLog operationLog) {
+        if (operationLog.getOperationTime() == null) {
+            operationLog.setOperationTime(LocalDateTime.now());
+        }
+        auditLogWriter.submit(operationLog);
+    }
+
+    @Override
+    public Map<String, Long> countByModuleSince(LocalDate from) {
+        return toMap(counterEnabled
+                ? operationLogCounterMapper.sumSince(OperationLogCounterMapper.DIM_MODULE, from)
+                : operationLogMapper.countByModuleSince(from.atStartOfDay()));
+    }
+
+    @Override
+    public Map<String, Long> countByOperationTypeSince(LocalDate from) {
+        return toMap(counterEnabled
+                ? operationLogCounterMapper.sumSince(OperationLogCounterMapper.DIM_TYPE, from)
+                : operationLogMapper.countByOperationTypeSince(from.atStartOfDay()));
+    }
+
+    private static Map<String, Long> toMap(List<NameCountRow> rows) {
+        Map<String, Long> map = new HashMap<>();
+        for (NameCountRow row : rows) {
+            map.put(row.getName(), row.getCount());
         }
-        operationLogMapper.insert(log);
+        return map;
     }
 }
 
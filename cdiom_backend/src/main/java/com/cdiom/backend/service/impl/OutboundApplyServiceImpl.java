@@ -2,24 +2,32 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.cache.BatchEnricher;
+import com.cdiom.backend.cache.ReferenceDataCache;
 import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.constant.DocNumberType;
+import com.cdiom.backend.event.OutboundApplyChangedEvent;
 import com.cdiom.backend.mapper.DrugInfoMapper;
 import com.cdiom.backend.mapper.InventoryMapper;
 import com.cdiom.backend.mapper.OutboundApplyItemMapper;
 import com.cdiom.backend.mapper.OutboundApplyMapper;
-import com.cdiom.backend.mapper.SysRoleMapper;
 import com.cdiom.backend.mapper.SysUserMapper;
 import com.cdiom.backend.model.DrugInfo;
 import com.cdiom.backend.model.Inventory;
 import com.cdiom.backend.model.OutboundApply;
 import com.cdiom.backend.model.OutboundApplyItem;
+import com.cdiom.backend.model.StockReservation;
 import com.cdiom.backend.model.SysRole;
 import com.cdiom.backend.model.SysUser;
+import com.cdiom.backend.model.vo.BatchDelta;
+import com.cdiom.backend.service.DocSequenceService;
 import com.cdiom.backend.service.InventoryService;
 import com.cdiom.backend.service.OutboundApplyService;
+import com.cdiom.backend.service.StockReservationService;
 import com.cdiom.backend.util.RetryUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,8 +35,8 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -36,6 +44,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * 出库申请服务实现类
@@ -55,8 +64,11 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
     private final DrugInfoMapper drugInfoMapper;
     private final InventoryMapper inventoryMapper;
     private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
     private final SysUserMapper sysUserMapper;
-    private final SysRoleMapper sysRoleMapper;
+    private final DocSequenceService docSequenceService;
+    private final ReferenceDataCache referenceDataCache;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public Page<OutboundApply> getOutboundApplyList(Integer page, Integer size, String keyword, Long applicantId, Long approverId, String department, String status, LocalDate startDate, LocalDate endDate) {
@@ -96,9 +108,7 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
         wrapper.orderByDesc(OutboundApply::getCreateTime);
 
         Page<OutboundApply> pageResult = outboundApplyMapper.selectPage(pageParam, wrapper);
-        for (OutboundApply apply : pageResult.getRecords()) {
-            fillApplicantAndApproverNames(apply);
-        }
+        fillApplicantAndApproverNames(pageResult.getRecords());
         return pageResult;
     }
 
@@ -133,55 +143,32 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
     public OutboundApply getOutboundApplyById(Long id) {
         OutboundApply apply = outboundApplyMapper.selectById(id);
         if (apply != null) {
-            fillApplicantAndApproverNames(apply);
+            fillApplicantAndApproverNames(Collections.singletonList(apply));
         }
         return apply;
     }
 
     /**
      * 填充申请人、审批人的姓名与角色名（用于列表/详情展示，避免仅显示用户名与角色混淆）
+     * 涉及的用户、角色各批量加载一次（经参考数据缓存），不随申请数增加查询次数
      */
-    private void fillApplicantAndApproverNames(OutboundApply apply) {
-        if (apply.getApplicantId() != null) {
-            SysUser applicant = sysUserMapper.selectById(apply.getApplicantId());
-            if (applicant != null) {
-                apply.setApplicantName(applicant.getUsername());
-                if (applicant.getRoleId() != null) {
-                    SysRole role = sysRoleMapper.selectById(applicant.getRoleId());
-                    apply.setApplicantRoleName(role != null ? role.getRoleName() : null);
-                }
-            }
-        }
-        if (apply.getApproverId() != null) {
-            SysUser approver = sysUserMapper.selectById(apply.getApproverId());
-            if (approver != null) {
-                apply.setApproverName(approver.getUsername());
-                if (approver.getRoleId() != null) {
-                    SysRole role = sysRoleMapper.selectById(approver.getRoleId());
-                    apply.setApproverRoleName(role != null ? role.getRoleName() : null);
-                }
-            }
-        }
-        if (apply.getProxyRegistrarId() != null) {
-            SysUser proxy = sysUserMapper.selectById(apply.getProxyRegistrarId());
-            if (proxy != null) {
-                apply.setProxyRegistrarName(proxy.getUsername());
-                if (proxy.getRoleId() != null) {
-                    SysRole role = sysRoleMapper.selectById(proxy.getRoleId());
-                    apply.setProxyRegistrarRoleName(role != null ? role.getRoleName() : null);
-                }
-            }
-        }
-        if (apply.getSecondApproverId() != null) {
-            SysUser second = sysUserMapper.selectById(apply.getSecondApproverId());
-            if (second != null) {
-                apply.setSecondApproverName(second.getUsername());
-                if (second.getRoleId() != null) {
-                    SysRole role = sysRoleMapper.selectById(second.getRoleId());
-                    apply.setSecondApproverRoleName(role != null ? role.getRoleName() : null);
-                }
-            }
-        }
+    private void fillApplicantAndApproverNames(List<OutboundApply> applies) {
+        BatchEnricher.Relation<SysUser> users = BatchEnricher.relation("用户", referenceDataCache::getUsers);
+        BatchEnricher.Relation<SysRole> roles = BatchEnricher.relation("角色", referenceDataCache::getRoles);
+        BatchEnricher.of(applies)
+                .join(users, OutboundApply::getApplicantId, (a, u) -> a.setApplicantName(u.getUsername()))
+                .join(users, OutboundApply::getApproverId, (a, u) -> a.setApproverName(u.getUsername()))
+                .join(users, OutboundApply::getProxyRegistrarId, (a, u) -> a.setProxyRegistrarName(u.getUsername()))
+                .join(users, OutboundApply::getSecondApproverId, (a, u) -> a.setSecondApproverName(u.getUsername()))
+                .join(roles, a -> roleIdOf(users.get(a.getApplicantId())), (a, r) -> a.setApplicantRoleName(r.getRoleName()))
+                .join(roles, a -> roleIdOf(users.get(a.getApproverId())), (a, r) -> a.setApproverRoleName(r.getRoleName()))
+                .join(roles, a -> roleIdOf(users.get(a.getProxyRegistrarId())), (a, r) -> a.setProxyRegistrarRoleName(r.getRoleName()))
+                .join(roles, a -> roleIdOf(users.get(a.getSecondApproverId())), (a, r) -> a.setSecondApproverRoleName(r.getRoleName()))
+                .apply();
+    }
+
+    private static Long roleIdOf(SysUser user) {
+        return user != null ? user.getRoleId() : null;
     }
 
     @Override
@@ -259,7 +246,7 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             Map<String, Object> row = new HashMap<>();
             row.put("id", u.getId());
             row.put("username", u.getUsername());
-            SysRole role = u.getRoleId() != null ? sysRoleMapper.selectById(u.getRoleId()) : null;
+            SysRole role = referenceDataCache.getRole(u.getRoleId());
             row.put("roleName", role != null ? role.getRoleName() : null);
             out.add(row);
         }
@@ -317,17 +304,8 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             }
         }
 
-        // 审批前校验库存：无货或不足时不允许通过，避免只走流程无实际意义
-        List<String> insufficientList = new java.util.ArrayList<>();
-        for (OutboundApplyItem item : items) {
-            if (item.getQuantity() == null || item.getQuantity() <= 0) continue;
-            int available = inventoryService.getTotalAvailableQuantity(item.getDrugId());
-            if (available < item.getQuantity()) {
-                DrugInfo drug = drugInfoMapper.selectById(item.getDrugId());
-                String name = drug != null ? (drug.getDrugName() + (StringUtils.hasText(drug.getSpecification()) ? " " + drug.getSpecification() : "")) : "药品ID:" + item.getDrugId();
-                insufficientList.add(name + " 需要" + item.getQuantity() + " 可用" + available);
-            }
-        }
+        // 审批前校验库存：无货或不足时不允许通过，避免只走流程无实际意义（可用量已扣除其他申请的占用）
+        List<String> insufficientList = collectInsufficientStock(items);
         if (!insufficientList.isEmpty()) {
             throw new ServiceException("以下药品库存不足，无法审批通过：" + String.join("；", insufficientList));
         }
@@ -341,6 +319,7 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             apply.setFirstApproveTime(LocalDateTime.now());
             apply.setApproveTime(null);
             outboundApplyMapper.updateById(apply);
+            publishApplyChanged(apply);
             log.info("出库申请第一审批通过，待第二审批：申请ID={}, 第一审批人ID={}, 第二审批人ID={}", id, approverId, secondApproverId);
         } else {
             apply.setSecondApproverId(null);
@@ -348,8 +327,11 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             apply.setStatus("APPROVED");
             apply.setApproveTime(LocalDateTime.now());
             outboundApplyMapper.updateById(apply);
+            publishApplyChanged(apply);
             log.info("审批通过出库申请：申请ID={}, 审批人ID={}", id, approverId);
         }
+        // 第一审批通过即按批次占用库存，待第二审批期间不被其他申请挤占
+        stockReservationService.reserveForApply(id, items);
     }
 
     @Override
@@ -369,27 +351,21 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             throw new ServiceException("申请人和第二审批人不能是同一人");
         }
 
-        List<OutboundApplyItem> items = outboundApplyItemMapper.selectByApplyId(id);
-        List<String> insufficientList = new java.util.ArrayList<>();
-        for (OutboundApplyItem item : items) {
-            if (item.getQuantity() == null || item.getQuantity() <= 0) {
-                continue;
-            }
-            int available = inventoryService.getTotalAvailableQuantity(item.getDrugId());
-            if (available < item.getQuantity()) {
-                DrugInfo drug = drugInfoMapper.selectById(item.getDrugId());
-                String name = drug != null ? (drug.getDrugName() + (StringUtils.hasText(drug.getSpecification()) ? " " + drug.getSpecification() : "")) : "药品ID:" + item.getDrugId();
-                insufficientList.add(name + " 需要" + item.getQuantity() + " 可用" + available);
+        // 第一审批时已占用库存则无需再校验；启用占用台账前进入待第二审批的申请在此补占用
+        if (!stockReservationService.hasActiveReservation(id)) {
+            List<OutboundApplyItem> items = outboundApplyItemMapper.selectByApplyId(id);
+            List<String> insufficientList = collectInsufficientStock(items);
+            if (!insufficientList.isEmpty()) {
+                throw new ServiceException("以下药品库存不足，无法通过第二审批：" + String.join("；", insufficientList));
             }
-        }
-        if (!insufficientList.isEmpty()) {
-            throw new ServiceException("以下药品库存不足，无法通过第二审批：" + String.join("；", insufficientList));
+            stockReservationService.reserveForApply(id, items);
         }
 
         apply.setStatus("APPROVED");
         apply.setApproveTime(LocalDateTime.now());
         apply.setRejectOperatorId(null);
         outboundApplyMapper.updateById(apply);
+        publishApplyChanged(apply);
         log.info("出库申请第二审批通过：申请ID={}, 第二审批人ID={}", id, secondApproverUserId);
     }
 
@@ -427,6 +403,8 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
         apply.setApproveTime(LocalDateTime.now());
 
         outboundApplyMapper.updateById(apply);
+        publishApplyChanged(apply);
+        stockReservationService.releaseForApply(id);
 
         log.info("驳回出库申请：申请ID={}, 操作人ID={}, 状态原值={}, 驳回理由={}", id, approverId, st, rejectReason);
     }
@@ -448,6 +426,24 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             throw new ServiceException("出库明细条数与申请明细不一致，请刷新页面后重试");
         }
 
+        // 按药品ID顺序锁定本申请涉及的药品，与其他申请的审批占用、执行出库互斥；
+        // 锁内从数据库读取库存与 ACTIVE 占用（不使用内存占用视图，其他节点的占用同样可见）
+        Set<Long> drugIds = new TreeSet<>();
+        for (OutboundApplyItem item : items) {
+            drugIds.add(item.getDrugId());
+        }
+        stockReservationService.lockDrugs(drugIds);
+
+        // 本申请审批时的占用：批次池加回这部分数量，未指定批次的明细优先从占用批次出库
+        List<StockReservation> ownReservations = stockReservationService.listActiveByApplyIds(Collections.singletonList(id));
+        Map<Long, List<Inventory>> batchPools = stockReservationService.loadNetAvailableBatches(drugIds, ownReservations);
+        Map<Long, List<StockReservation>> reservationsByItem = new HashMap<>();
+        for (StockReservation r : ownReservations) {
+            reservationsByItem.computeIfAbsent(r.getApplyItemId(), k -> new ArrayList<>()).add(r);
+        }
+
+        List<BatchDelta> deltas = new ArrayList<>();
+
         // 执行出库（与申请明细按顺序一一对应，避免同一药品多行时错配）
         for (int i = 0; i < outboundItems.size(); i++) {
             Map<String, Object> outboundItem = outboundItems.get(i);
@@ -491,49 +487,82 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
                 throw new ServiceException("出库明细第" + (i + 1) + "项：实际出库数量格式不正确");
             }
             
-            // 如果指定了批次，从指定批次出库
+            // 先在内存中规划全部扣减行（同一药品多行时共用一份可用批次池，后行不会重复分配前行已占用的量），
+            // 最后一次性批量扣减；批次池已扣除其他申请的占用
+            List<Inventory> pool = batchPools.computeIfAbsent(drugId, d -> new ArrayList<>());
             if (StringUtils.hasText(batchNumber)) {
-                inventoryService.decreaseInventory(drugId, batchNumber, actualQuantity);
+                // 如果指定了批次，从指定批次出库；批次不在可用批次池中（已过期或已无库存）时不能出库
+                Inventory selected = null;
+                for (Inventory batch : pool) {
+                    if (batchNumber.equals(batch.getBatchNumber())) {
+                        selected = batch;
+                        break;
+                    }
+                }
+                if (selected == null) {
+                    throw new ServiceException("出库明细第" + (i + 1) + "项：批次" + batchNumber + "不可用（已过期或无库存）");
+                }
+                if (selected.getQuantity() < actualQuantity) {
+                    throw new ServiceException("出库明细第" + (i + 1) + "项：批次" + batchNumber + "可用数量不足（已扣除其他申请的占用），需要出库："
+                            + actualQuantity + "，可用数量：" + selected.getQuantity());
+                }
+                selected.setQuantity(selected.getQuantity() - actualQuantity);
+                deltas.add(new BatchDelta(drugId, batchNumber, actualQuantity));
             } else {
                 // 如果未指定批次，按FIFO原则出库
-                // getAvailableBatches 方法已经验证了总数量是否足够，并只返回足够数量的批次
-                List<Inventory> availableBatches = inventoryService.getAvailableBatches(drugId, actualQuantity);
-                int remainingQuantity = actualQuantity;
-                
-                // 在扣减前再次验证（双重保险）
-                int totalAvailableQuantity = availableBatches.stream()
+                int totalAvailableQuantity = pool.stream()
                         .mapToInt(Inventory::getQuantity)
                         .sum();
                 if (totalAvailableQuantity < actualQuantity) {
                     throw new ServiceException("库存不足，药品ID=" + drugId + "，需要出库：" + actualQuantity + "，可用数量：" + totalAvailableQuantity);
                 }
                 
-                // 按FIFO顺序扣减库存
-                for (Inventory batch : availableBatches) {
+                // 先从审批时占用的批次出库，余量再按FIFO顺序分配批次
+                int remainingQuantity = actualQuantity;
+                for (StockReservation r : reservationsByItem.getOrDefault(item.getId(), Collections.emptyList())) {
+                    for (Inventory batch : pool) {
+                        if (remainingQuantity <= 0) {
+                            break;
+                        }
+                        if (!batch.getBatchNumber().equals(r.getBatchNumber()) || batch.getQuantity() <= 0) {
+                            continue;
+                        }
+                        int batchQuantity = Math.min(remainingQuantity, Math.min(r.getQuantity(), batch.getQuantity()));
+                        batch.setQuantity(batch.getQuantity() - batchQuantity);
+                        deltas.add(new BatchDelta(drugId, batch.getBatchNumber(), batchQuantity));
+                        remainingQuantity -= batchQuantity;
+                    }
+                }
+                for (Inventory batch : pool) {
                     if (remainingQuantity <= 0) {
                         break;
                     }
-                    
+                    if (batch.getQuantity() <= 0) {
+                        continue;
+                    }
                     int batchQuantity = Math.min(remainingQuantity, batch.getQuantity());
-                    inventoryService.decreaseInventory(drugId, batch.getBatchNumber(), batchQuantity);
+                    batch.setQuantity(batch.getQuantity() - batchQuantity);
+                    deltas.add(new BatchDelta(drugId, batch.getBatchNumber(), batchQuantity));
                     remainingQuantity -= batchQuantity;
                 }
-                
-                // 理论上不应该到达这里（因为已经验证过），但保留作为最后一道防线
-                if (remainingQuantity > 0) {
-                    throw new ServiceException("库存扣减异常，药品ID=" + drugId + "，剩余未扣减数量：" + remainingQuantity);
-                }
             }
             
-            // 更新申请明细的实际出库数量
+            // 记录申请明细的实际出库数量
             item.setActualQuantity(actualQuantity);
-            outboundApplyItemMapper.updateById(item);
         }
+
+        // 一次批量扣减全部批次（按药品、批次排序加锁），再一次回写全部明细的实际出库数量
+        inventoryService.decreaseInventoryBatch(deltas);
+        if (!items.isEmpty()) {
+            outboundApplyItemMapper.updateActualQuantities(items);
+        }
+        stockReservationService.consumeForApply(id);
         
         // 更新申请状态
         apply.setStatus("OUTBOUND");
         apply.setOutboundTime(LocalDateTime.now());
         outboundApplyMapper.updateById(apply);
+        publishApplyChanged(apply);
         
         log.info("执行出库：申请ID={}, 出库时间={}", id, apply.getOutboundTime());
     }
@@ -552,6 +581,8 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
         
         apply.setStatus("CANCELLED");
         outboundApplyMapper.updateById(apply);
+        publishApplyChanged(apply);
+        stockReservationService.releaseForApply(id);
         
         log.info("取消出库申请：申请ID={}", id);
     }
@@ -571,6 +602,8 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
         }
         apply.setStatus("CANCELLED");
         outboundApplyMapper.updateById(apply);
+        publishApplyChanged(apply);
+        stockReservationService.releaseForApply(id);
         log.info("申请人撤回出库申请：申请ID={}, 申请人ID={}", id, applicantUserId);
     }
 
@@ -595,14 +628,18 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
     @Override
     public Map<String, Object> checkStockForApply(Long applyId) {
         List<OutboundApplyItem> items = outboundApplyItemMapper.selectByApplyId(applyId);
+        // 可用量扣除其他申请的占用；本申请已占用的部分仍计为可用
+        List<StockReservation> own = stockReservationService.listActiveByApplyIds(Collections.singletonList(applyId));
+        Map<Long, Integer> availableByDrug = new HashMap<>();
         List<Map<String, Object>> details = new java.util.ArrayList<>();
         boolean sufficient = true;
         for (OutboundApplyItem item : items) {
             int required = item.getQuantity() != null ? item.getQuantity() : 0;
-            int available = inventoryService.getTotalAvailableQuantity(item.getDrugId());
+            int available = availableByDrug.computeIfAbsent(item.getDrugId(),
+                    d -> stockReservationService.listNetAvailableBatches(d, own).stream().mapToInt(Inventory::getQuantity).sum());
             boolean itemOk = available >= required;
             if (!itemOk) sufficient = false;
-            DrugInfo drug = drugInfoMapper.selectById(item.getDrugId());
+            DrugInfo drug = referenceDataCache.getDrug(item.getDrugId());
             String drugName = drug != null ? (drug.getDrugName() + (StringUtils.hasText(drug.getSpecification()) ? " " + drug.getSpecification() : "")) : "药品ID:" + item.getDrugId();
             Map<String, Object> row = new java.util.HashMap<>();
             row.put("drugId", item.getDrugId());
@@ -653,15 +690,26 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
             return result;
         }
 
-        Set<Long> drugIds = new HashSet<>();
+        // 已审批申请的占用直接作为拣货行；无占用（启用占用台账前审批）的申请仍按 FIFO 模拟
+        List<Long> applyIds = new ArrayList<>();
         for (OutboundApply a : applies) {
-            List<OutboundApplyItem> its = outboundApplyItemMapper.selectByApplyId(a.getId());
-            for (OutboundApplyItem it : its) {
-                if (it.getDrugId() != null) {
-                    drugIds.add(it.getDrugId());
-                }
+            applyIds.add(a.getId());
+        }
+        Map<Long, List<StockReservation>> reservationsByItem = new HashMap<>();
+        for (StockReservation r : stockReservationService.listActiveByApplyIds(applyIds)) {
+            reservationsByItem.computeIfAbsent(r.getApplyItemId(), k -> new ArrayList<>()).add(r);
+        }
+
+        // 明细、药品各一次 IN 查询，之后的模拟全部在内存中进行
+        Map<Long, List<OutboundApplyItem>> itemsByApply = new HashMap<>();
+        Set<Long> drugIds = new HashSet<>();
+        for (OutboundApplyItem it : outboundApplyItemMapper.selectByApplyIds(applyIds)) {
+            itemsByApply.computeIfAbsent(it.getApplyId(), k -> new ArrayList<>()).add(it);
+            if (it.getDrugId() != null) {
+                drugIds.add(it.getDrugId());
             }
         }
+        Map<Long, DrugInfo> drugs = referenceDataCache.getDrugs(drugIds);
 
         Map<Long, List<SimBatch>> pool = new HashMap<>();
         if (!drugIds.isEmpty()) {
@@ -678,6 +726,14 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
                 sb.expiryDate = inv.getExpiryDate();
                 pool.computeIfAbsent(inv.getDrugId(), k -> new ArrayList<>()).add(sb);
             }
+            // 模拟池扣除全部占用，无占用申请只能分配剩余的量
+            Map<Long, Map<String, Integer>> reservedByDrug = stockReservationService.getReservedByBatch(pool.keySet());
+            for (Map.Entry<Long, List<SimBatch>> e : pool.entrySet()) {
+                Map<String, Integer> reserved = reservedByDrug.getOrDefault(e.getKey(), Collections.emptyMap());
+                for (SimBatch sb : e.getValue()) {
+                    sb.quantity = Math.max(0, sb.quantity - reserved.getOrDefault(sb.batchNumber, 0));
+                }
+            }
             for (List<SimBatch> list : pool.values()) {
                 list.sort(Comparator
                         .comparing((SimBatch b) -> b.expiryDate != null ? b.expiryDate : LocalDate.MAX)
@@ -686,18 +742,31 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
         }
 
         for (OutboundApply apply : applies) {
-            fillApplicantAndApproverNames(apply);
-            List<OutboundApplyItem> items = outboundApplyItemMapper.selectByApplyId(apply.getId());
+            List<OutboundApplyItem> items = itemsByApply.getOrDefault(apply.getId(), Collections.emptyList());
             for (OutboundApplyItem item : items) {
                 Long drugId = item.getDrugId();
                 int qty = item.getQuantity() != null ? item.getQuantity() : 0;
                 if (drugId == null || qty <= 0) {
                     continue;
                 }
-                DrugInfo drug = drugInfoMapper.selectById(drugId);
+                DrugInfo drug = drugs.get(drugId);
                 String drugName = drug != null ? drug.getDrugName() : ("药品ID:" + drugId);
                 String spec = drug != null ? drug.getSpecification() : null;
 
+                List<StockReservation> reservations = reservationsByItem.get(item.getId());
+                if (reservations != null) {
+                    for (StockReservation r : reservations) {
+                        SimBatch b = findSimBatch(pool.get(drugId), r.getBatchNumber());
+                        if (b == null) {
+                            warnings.add(String.format("申领单 %s：药品「%s」占用批次 %s 已无库存或已过期，执行时将按 FIFO 重新分配",
+                                    apply.getApplyNumber(), drugName, r.getBatchNumber()));
+                        }
+                        pickLines.add(buildPickLine(apply, drugId, drugName, spec, r.getBatchNumber(),
+                                b != null ? b.storageLocation : null, b != null ? b.expiryDate : null, r.getQuantity()));
+                    }
+                    continue;
+                }
+
                 String batchFromApply = item.getBatchNumber() != null ? item.getBatchNumber().trim() : null;
                 String batchNumber = StringUtils.hasText(batchFromApply) ? batchFromApply : null;
 
@@ -758,6 +827,25 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
         return result;
     }
 
+    /**
+     * 逐行比对扣除占用后的可用量，返回不足的药品描述
+     */
+    private List<String> collectInsufficientStock(List<OutboundApplyItem> items) {
+        List<String> insufficientList = new ArrayList<>();
+        for (OutboundApplyItem item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            int available = stockReservationService.getAvailableQuantity(item.getDrugId());
+            if (available < item.getQuantity()) {
+                DrugInfo drug = referenceDataCache.getDrug(item.getDrugId());
+                String name = drug != null ? (drug.getDrugName() + (StringUtils.hasText(drug.getSpecification()) ? " " + drug.getSpecification() : "")) : "药品ID:" + item.getDrugId();
+                insufficientList.add(name + " 需要" + item.getQuantity() + " 可用" + available);
+            }
+        }
+        return insufficientList;
+    }
+
     private static SimBatch findSimBatch(List<SimBatch> list, String batchNumber) {
         if (list == null || !StringUtils.hasText(batchNumber)) {
             return null;
@@ -796,7 +884,7 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
                     b.storageLocation, b.expiryDate, take));
         }
         if (remaining > 0) {
-            warnings.add(String.format("申领单 %s：药品「%s」FIFO 分配不足，尚缺 %d（可能与其他待执行单竞争库存）",
+            warnings.add(String.format("申领单 %s：药品「%s」FIFO 分配不足，尚缺 %d（可用量已扣除其他申请的占用）",
                     apply.getApplyNumber(), drugName, remaining));
         }
     }
@@ -818,7 +906,7 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
     }
 
     /**
-     * 拣货汇总模拟用：与当前库存快照一致，按审批顺序扣减，用于预估批次与货位（执行顺序不同则可能与实际略有差异）
+     * 拣货汇总模拟用：当前库存快照扣除占用后按审批顺序扣减，用于预估无占用申请的批次与货位（执行顺序不同则可能与实际略有差异）
      */
     private static class SimBatch {
         String batchNumber;
@@ -832,11 +920,12 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
      */
     private OutboundApply createApplyWithGeneratedNumber(OutboundApply outboundApply, List<Map<String, Object>> items) {
         // 1. 生成唯一单号
-        String applyNumber = generateApplyNumber();
+        String applyNumber = docSequenceService.nextNumber(DocNumberType.OUTBOUND_APPLY);
         outboundApply.setApplyNumber(applyNumber);
         
         // 2. 保存申请（若单号重复，会抛出DuplicateKeyException）
         outboundApplyMapper.insert(outboundApply);
+        publishApplyChanged(outboundApply);
         
         // 3. 保存申请明细
         for (int i = 0; i < items.size(); i++) {
@@ -890,19 +979,9 @@ public class OutboundApplyServiceImpl implements OutboundApplyService {
     }
 
     /**
-     * 生成申领单号
-     * 格式：OUT + 日期（YYYYMMDD）+ 3位序号
+     * 申请新增或状态变化后发布事件（仪表盘缓存等在事务提交后失效）
      */
-    private String generateApplyNumber() {
-        String dateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        // 查询今天已生成的申请数量
-        LocalDate today = LocalDate.now();
-        LambdaQueryWrapper<OutboundApply> wrapper = new LambdaQueryWrapper<>();
-        wrapper.ge(OutboundApply::getCreateTime, today.atStartOfDay());
-        wrapper.lt(OutboundApply::getCreateTime, today.plusDays(1).atStartOfDay());
-        long count = outboundApplyMapper.selectCount(wrapper);
-        String sequence = String.format("%03d", count + 1);
-        return "OUT" + dateStr + sequence;
+    private void publishApplyChanged(OutboundApply apply) {
+        applicationEventPublisher.publishEvent(new OutboundApplyChangedEvent(this, apply.getId(), apply.getApplicantId()));
     }
 }
-
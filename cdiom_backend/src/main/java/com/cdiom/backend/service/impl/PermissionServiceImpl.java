@@ -2,6 +2,8 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cdiom.backend.cache.PermissionSnapshot;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
 import com.cdiom.backend.common.exception.ServiceException;
 import com.cdiom.backend.mapper.SysPermissionMapper;
 import com.cdiom.backend.mapper.SysUserMapper;
@@ -31,6 +33,7 @@ public class PermissionServiceImpl implements PermissionService {
     private final SysPermissionMapper permissionMapper;
     private final SysUserMapper userMapper;
     private final SysUserPermissionMapper userPermissionMapper;
+    private final PermissionSnapshotCache permissionSnapshotCache;
 
     @Override
     public Set<String> getPermissionCodesByUserId(Long userId) {
@@ -39,35 +42,8 @@ public class PermissionServiceImpl implements PermissionService {
                 log.warn("用户ID为空，返回空权限集合");
                 return new HashSet<>();
             }
-            
-            SysUser user = userMapper.selectById(userId);
-            if (user == null) {
-                log.warn("用户不存在，userId: {}", userId);
-                return new HashSet<>();
-            }
-            
-            // 超级管理员（角色ID=6）拥有所有权限
-            if (user.getRoleId() != null && user.getRoleId() == 6) {
-                return new HashSet<>(List.of("*")); // 通配符表示所有权限
-            }
-            
-            // 查询用户的所有权限（角色权限 + 用户直接权限，或仅自定义清单）
-            List<String> permissionCodes = permissionMapper.selectAllPermissionCodesByUserId(userId);
-            Set<String> permissions = new HashSet<>();
-            if (!CollectionUtils.isEmpty(permissionCodes)) {
-                permissions.addAll(permissionCodes);
-            }
-            // 系统管理员（角色 1）且未启用「仅自定义权限」：保证具备日志查看权（与 init_permissions 中角色 1 一致，避免 sys_role_permission 漏配导致无法审计）
-            boolean customized =
-                    user.getPermissionCustomized() != null && user.getPermissionCustomized() == 1;
-            if (user.getRoleId() != null && user.getRoleId() == 1L && !customized) {
-                permissions.add("log:operation:view");
-                permissions.add("log:login:view");
-            }
-            if (permissions.isEmpty()) {
-                log.debug("用户 {} 没有配置权限，返回空权限集合", userId);
-            }
-            return permissions;
+            PermissionSnapshot snapshot = permissionSnapshotCache.get(userId);
+            return snapshot != null ? new HashSet<>(snapshot.getCodes()) : new HashSet<>();
         } catch (Exception e) {
             log.error("获取用户权限失败，userId: {}", userId, e);
             return new HashSet<>();
@@ -108,15 +84,7 @@ public class PermissionServiceImpl implements PermissionService {
             if (userId == null || permissionCode == null || permissionCode.trim().isEmpty()) {
                 return false;
             }
-            
-            Set<String> userPermissions = getPermissionCodesByUserId(userId);
-            
-            // 如果用户拥有通配符权限，则拥有所有权限
-            if (userPermissions.contains("*")) {
-                return true;
-            }
-            
-            return userPermissions.contains(permissionCode);
+            return permissionSnapshotCache.hasAny(userId, permissionCode);
         } catch (Exception e) {
             log.error("检查用户权限失败，userId: {}, permissionCode: {}", userId, permissionCode, e);
             return false;
@@ -129,20 +97,7 @@ public class PermissionServiceImpl implements PermissionService {
             if (userId == null || permissionCodes == null || permissionCodes.length == 0) {
                 return false;
             }
-            
-            Set<String> userPermissions = getPermissionCodesByUserId(userId);
-            
-            // 如果用户拥有通配符权限，则拥有所有权限
-            if (userPermissions.contains("*")) {
-                return true;
-            }
-            
-            for (String permissionCode : permissionCodes) {
-                if (permissionCode != null && userPermissions.contains(permissionCode)) {
-                    return true;
-                }
-            }
-            return false;
+            return permissionSnapshotCache.hasAny(userId, permissionCodes);
         } catch (Exception e) {
             log.error("检查用户权限失败，userId: {}, permissionCodes: {}", userId, List.of(permissionCodes), e);
             return false;
@@ -286,6 +241,7 @@ public class PermissionServiceImpl implements PermissionService {
             LambdaUpdateWrapper<SysUser> uw = new LambdaUpdateWrapper<>();
             uw.eq(SysUser::getId, userId).set(SysUser::getPermissionCustomized, 1);
             userMapper.update(null, uw);
+            permissionSnapshotCache.invalidateUserPermissions(userId);
 
             log.info("更新用户权限成功，userId: {}, permissionIds: {}", userId, permissionIds);
         } catch (Exception e) {
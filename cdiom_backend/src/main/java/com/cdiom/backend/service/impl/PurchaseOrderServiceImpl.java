@@ -2,21 +2,26 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.cache.BatchEnricher;
+import com.cdiom.backend.cache.ReferenceDataCache;
 import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.constant.DocNumberType;
+import com.cdiom.backend.event.PurchaseOrderChangedEvent;
 import com.cdiom.backend.mapper.DrugInfoMapper;
 import com.cdiom.backend.mapper.PurchaseOrderItemMapper;
 import com.cdiom.backend.mapper.PurchaseOrderMapper;
 import com.cdiom.backend.mapper.SupplierMapper;
-import com.cdiom.backend.model.DrugInfo;
 import com.cdiom.backend.model.PurchaseOrder;
 import com.cdiom.backend.model.PurchaseOrderItem;
 import com.cdiom.backend.model.Supplier;
 import com.cdiom.backend.model.SysNotice;
+import com.cdiom.backend.service.DocSequenceService;
 import com.cdiom.backend.service.InboundRecordService;
 import com.cdiom.backend.service.PurchaseOrderService;
 import com.cdiom.backend.service.SysNoticeService;
 import com.cdiom.backend.util.RetryUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
@@ -24,7 +29,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.HashMap;
@@ -49,6 +53,9 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     private final SysNoticeService sysNoticeService;
     private final SupplierMapper supplierMapper;
     private final DrugInfoMapper drugInfoMapper;
+    private final DocSequenceService docSequenceService;
+    private final ReferenceDataCache referenceDataCache;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * 构造函数注入
@@ -60,13 +67,19 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             @Lazy InboundRecordService inboundRecordService,
             SysNoticeService sysNoticeService,
             SupplierMapper supplierMapper,
-            DrugInfoMapper drugInfoMapper) {
+            DrugInfoMapper drugInfoMapper,
+            DocSequenceService docSequenceService,
+            ReferenceDataCache referenceDataCache,
+            ApplicationEventPublisher applicationEventPublisher) {
         this.purchaseOrderMapper = purchaseOrderMapper;
         this.purchaseOrderItemMapper = purchaseOrderItemMapper;
         this.inboundRecordService = inboundRecordService;
         this.sysNoticeService = sysNoticeService;
         this.supplierMapper = supplierMapper;
         this.drugInfoMapper = drugInfoMapper;
+        this.docSequenceService = docSequenceService;
+        this.referenceDataCache = referenceDataCache;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Override
@@ -117,23 +130,10 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         Page<PurchaseOrder> orderPage = purchaseOrderMapper.selectPage(pageParam, wrapper);
 
         // 为列表中的订单补充供应商名称，方便前端展示
-        List<PurchaseOrder> records = orderPage.getRecords();
-        if (records != null && !records.isEmpty()) {
-            Set<Long> supplierIds = records.stream()
-                    .map(PurchaseOrder::getSupplierId)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-            if (!supplierIds.isEmpty()) {
-                List<Supplier> suppliers = supplierMapper.selectByIds(supplierIds);
-                Map<Long, String> supplierNameMap = suppliers.stream()
-                        .collect(Collectors.toMap(Supplier::getId, Supplier::getName));
-                for (PurchaseOrder order : records) {
-                    if (order.getSupplierId() != null) {
-                        order.setSupplierName(supplierNameMap.get(order.getSupplierId()));
-                    }
-                }
-            }
-        }
+        BatchEnricher.of(orderPage.getRecords())
+                .join(BatchEnricher.relation("供应商", referenceDataCache::getSuppliers),
+                        PurchaseOrder::getSupplierId, (order, supplier) -> order.setSupplierName(supplier.getName()))
+                .apply();
 
         return orderPage;
     }
@@ -142,7 +142,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     public PurchaseOrder getPurchaseOrderById(Long id) {
         PurchaseOrder order = purchaseOrderMapper.selectById(id);
         if (order != null && order.getSupplierId() != null) {
-            Supplier supplier = supplierMapper.selectById(order.getSupplierId());
+            Supplier supplier = referenceDataCache.getSupplier(order.getSupplierId());
             if (supplier != null) {
                 order.setSupplierName(supplier.getName());
             }
@@ -156,7 +156,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         wrapper.eq(PurchaseOrder::getOrderNumber, orderNumber);
         PurchaseOrder order = purchaseOrderMapper.selectOne(wrapper);
         if (order != null && order.getSupplierId() != null) {
-            Supplier supplier = supplierMapper.selectById(order.getSupplierId());
+            Supplier supplier = referenceDataCache.getSupplier(order.getSupplierId());
             if (supplier != null) {
                 order.setSupplierName(supplier.getName());
             }
@@ -203,7 +203,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
      */
     private PurchaseOrder createOrderWithGeneratedNumber(PurchaseOrder purchaseOrder, List<PurchaseOrderItem> items) {
         // 1. 生成唯一单号（原有逻辑，此处保留格式兼容性）
-        String orderNumber = generateOrderNumber();
+        String orderNumber = docSequenceService.nextNumber(DocNumberType.PURCHASE_ORDER);
         purchaseOrder.setOrderNumber(orderNumber);
         
         // 2. 插入订单（若单号重复，会抛出DuplicateKeyException）
@@ -239,6 +239,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             item.setOrderId(purchaseOrder.getId());
             purchaseOrderItemMapper.insert(item);
         }
+        publishOrderChanged(purchaseOrder);
         
         log.info("创建采购订单：订单编号={}, 供应商ID={}, 总金额={}", purchaseOrder.getOrderNumber(), purchaseOrder.getSupplierId(), totalAmount);
         
@@ -264,6 +265,12 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             }
             
             purchaseOrderMapper.updateById(purchaseOrder);
+            publishOrderChanged(existing);
+            // 改了供应商或采购员时，新归属方的统计同样变化
+            if ((purchaseOrder.getSupplierId() != null && !purchaseOrder.getSupplierId().equals(existing.getSupplierId()))
+                    || (purchaseOrder.getPurchaserId() != null && !purchaseOrder.getPurchaserId().equals(existing.getPurchaserId()))) {
+                publishOrderChanged(purchaseOrder);
+            }
             return purchaseOrder;
         } catch (ServiceException e) {
             throw e;
@@ -276,6 +283,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     @Override
     @Transactional(rollbackFor = Throwable.class)
     public void deletePurchaseOrder(Long id) {
+        PurchaseOrder order = purchaseOrderMapper.selectById(id);
         // 删除订单明细（级联删除）
         LambdaQueryWrapper<PurchaseOrderItem> itemWrapper = new LambdaQueryWrapper<>();
         itemWrapper.eq(PurchaseOrderItem::getOrderId, id);
@@ -283,6 +291,9 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         
         // 删除订单
         purchaseOrderMapper.deleteById(id);
+        if (order != null) {
+            publishOrderChanged(order);
+        }
     }
 
     @Override
@@ -303,6 +314,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             }
             
             purchaseOrderMapper.updateById(order);
+            publishOrderChanged(order);
         } catch (ServiceException e) {
             throw e;
         } catch (Exception e) {
@@ -322,22 +334,13 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         }
 
         // 为订单明细补充药品名称和规格，方便前端详情展示
-        Set<Long> drugIds = items.stream()
-                .map(PurchaseOrderItem::getDrugId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        if (!drugIds.isEmpty()) {
-            List<DrugInfo> drugInfos = drugInfoMapper.selectByIds(drugIds);
-            Map<Long, DrugInfo> drugInfoMap = drugInfos.stream()
-                    .collect(Collectors.toMap(DrugInfo::getId, d -> d));
-            for (PurchaseOrderItem item : items) {
-                DrugInfo drug = drugInfoMap.get(item.getDrugId());
-                if (drug != null) {
-                    item.setDrugName(drug.getDrugName());
-                    item.setSpecification(drug.getSpecification());
-                }
-            }
-        }
+        BatchEnricher.of(items)
+                .join(BatchEnricher.relation("药品", referenceDataCache::getDrugs),
+                        PurchaseOrderItem::getDrugId, (item, drug) -> {
+                            item.setDrugName(drug.getDrugName());
+                            item.setSpecification(drug.getSpecification());
+                        })
+                .apply();
 
         return items;
     }
@@ -397,6 +400,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             }
             order.setStatus("CONFIRMED");
             purchaseOrderMapper.updateById(order);
+            publishOrderChanged(order);
             log.info("确认采购订单：订单ID={}, 订单编号={}", id, order.getOrderNumber());
         } catch (ServiceException e) {
             throw e;
@@ -423,6 +427,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             order.setStatus("REJECTED");
             order.setRejectReason(reason);
             purchaseOrderMapper.updateById(order);
+            publishOrderChanged(order);
             log.info("拒绝采购订单：订单ID={}, 订单编号={}, 拒绝理由={}", id, order.getOrderNumber(), reason);
         } catch (ServiceException e) {
             throw e;
@@ -450,6 +455,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             order.setLogisticsNumber(logisticsNumber);
             order.setShipDate(java.time.LocalDateTime.now());
             purchaseOrderMapper.updateById(order);
+            publishOrderChanged(order);
 
             createInboundShipNotice(order, id, logisticsNumber);
 
@@ -484,6 +490,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
                 order.setRemark((StringUtils.hasText(order.getRemark()) ? order.getRemark() + "\n" : "") + "取消原因：" + reason);
             }
             purchaseOrderMapper.updateById(order);
+            publishOrderChanged(order);
             log.info("取消采购订单：订单ID={}, 订单编号={}, 取消原因={}", id, order.getOrderNumber(), reason);
         } catch (ServiceException e) {
             throw e;
@@ -514,6 +521,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
                 order.setShipDate(java.time.LocalDateTime.now());
             }
             purchaseOrderMapper.updateById(order);
+            publishOrderChanged(order);
             log.info("更新物流单号：订单ID={}, 订单编号={}, 物流单号={}", id, order.getOrderNumber(), logisticsNumber);
         } catch (ServiceException e) {
             throw e;
@@ -526,7 +534,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     // 发货后写入库提醒通知（失败不影响发货事务）
     private void createInboundShipNotice(PurchaseOrder order, Long id, String logisticsNumber) {
         try {
-            Supplier supplier = supplierMapper.selectById(order.getSupplierId());
+            Supplier supplier = referenceDataCache.getSupplier(order.getSupplierId());
             String supplierName = supplier != null ? supplier.getName() : "未知供应商";
             String shipDateStr = order.getShipDate() != null
                     ? order.getShipDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
@@ -552,16 +560,11 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         }
     }
 
-    private String generateOrderNumber() {
-        String dateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        // 查询今天已生成的订单数量
-        LocalDate today = LocalDate.now();
-        LambdaQueryWrapper<PurchaseOrder> wrapper = new LambdaQueryWrapper<>();
-        wrapper.ge(PurchaseOrder::getCreateTime, today.atStartOfDay());
-        wrapper.lt(PurchaseOrder::getCreateTime, today.plusDays(1).atStartOfDay());
-        long count = purchaseOrderMapper.selectCount(wrapper);
-        String sequence = String.format("%03d", count + 1);
-        return "ORD" + dateStr + sequence;
+    /**
+     * 订单变更后发布事件（仪表盘缓存等在事务提交后失效）
+     */
+    private void publishOrderChanged(PurchaseOrder order) {
+        applicationEventPublisher.publishEvent(new PurchaseOrderChangedEvent(
+                this, order.getId(), order.getSupplierId(), order.getPurchaserId()));
     }
 }
-
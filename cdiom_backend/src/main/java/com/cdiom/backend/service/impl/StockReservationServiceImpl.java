@@ -0,0 +1,372 @@
+package com.cdiom.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cdiom.backend.common.exception.ServiceException;
+import com.cdiom.backend.mapper.DrugInfoMapper;
+import com.cdiom.backend.mapper.InventoryMapper;
+import com.cdiom.backend.mapper.StockReservationMapper;
+import com.cdiom.backend.model.DrugInfo;
+import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.model.OutboundApplyItem;
+import com.cdiom.backend.model.StockReservation;
+import com.cdiom.backend.service.InventoryService;
+import com.cdiom.backend.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 出库库存占用服务实现类
+ * <p>
+ * 占用以 stock_reservation 表为准；内存中按 (药品, 批次) 保存 ACTIVE 占用合计供可用量、拣货汇总读取，
+ * 占用变更事务提交后按药品回读刷新，定时任务全量重载兜底（多实例时同步其他节点的变更）。
+ * 
+ * @author cdiom
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+    private static final String STATUS_RELEASED = "RELEASED";
+    private static final String STATUS_CONSUMED = "CONSUMED";
+
+    private final StockReservationMapper stockReservationMapper;
+    private final InventoryMapper inventoryMapper;
+    private final DrugInfoMapper drugInfoMapper;
+    private final InventoryService inventoryService;
+
+    // 药品ID -> (批次号 -> ACTIVE 占用合计)，内层 Map 整体替换、只读
+    private final Map<Long, Map<String, Integer>> reservedView = new ConcurrentHashMap<>();
+
+    private volatile boolean viewReady;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reloadView();
+        } catch (Exception e) {
+            log.warn("库存占用视图加载失败，占用查询走数据库: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void reloadView() {
+        Map<Long, Map<String, Integer>> loaded = groupByDrug(stockReservationMapper.sumActiveGroupByBatch());
+        reservedView.keySet().retainAll(loaded.keySet());
+        reservedView.putAll(loaded);
+        viewReady = true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void reserveForApply(Long applyId, List<OutboundApplyItem> items) {
+        Map<Long, List<OutboundApplyItem>> itemsByDrug = new TreeMap<>();
+        for (OutboundApplyItem item : items) {
+            if (item.getDrugId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            itemsByDrug.computeIfAbsent(item.getDrugId(), k -> new ArrayList<>()).add(item);
+        }
+        if (itemsByDrug.isEmpty()) {
+            return;
+        }
+
+        // 按药品ID顺序锁定，同一药品的占用分配串行执行；锁内读取的库存与占用均为最新提交值
+        Set<Long> drugIds = itemsByDrug.keySet();
+        lockDrugs(drugIds);
+        Map<Long, List<Inventory>> pools = loadNetAvailableBatches(drugIds, null);
+
+        List<StockReservation> rows = new ArrayList<>();
+        List<String> insufficientList = new ArrayList<>();
+        for (Map.Entry<Long, List<OutboundApplyItem>> entry : itemsByDrug.entrySet()) {
+            Long drugId = entry.getKey();
+            List<Inventory> pool = pools.getOrDefault(drugId, Collections.emptyList());
+            for (OutboundApplyItem item : entry.getValue()) {
+                int need = item.getQuantity();
+                String batchNumber = item.getBatchNumber() != null ? item.getBatchNumber().trim() : null;
+                if (StringUtils.hasText(batchNumber)) {
+                    Inventory batch = null;
+                    for (Inventory b : pool) {
+                        if (batchNumber.equals(b.getBatchNumber())) {
+                            batch = b;
+                            break;
+                        }
+                    }
+                    int available = batch != null ? batch.getQuantity() : 0;
+                    if (available < need) {
+                        insufficientList.add(drugLabel(drugId) + " 批次" + batchNumber + " 需要" + need + " 可用" + available);
+                        continue;
+                    }
+                    batch.setQuantity(available - need);
+                    rows.add(newReservation(applyId, item, batchNumber, need));
+                } else {
+                    int available = pool.stream().mapToInt(Inventory::getQuantity).sum();
+                    if (available < need) {
+                        insufficientList.add(drugLabel(drugId) + " 需要" + need + " 可用" + available);
+                        continue;
+                    }
+                    int remaining = need;
+                    for (Inventory b : pool) {
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        if (b.getQuantity() <= 0) {
+                            continue;
+                        }
+                        int take = Math.min(remaining, b.getQuantity());
+                        b.setQuantity(b.getQuantity() - take);
+                        rows.add(newReservation(applyId, item, b.getBatchNumber(), take));
+                        remaining -= take;
+                    }
+                }
+            }
+        }
+        if (!insufficientList.isEmpty()) {
+            throw new ServiceException("以下药品可用库存不足（已扣除其他已审批申请的占用）：" + String.join("；", insufficientList));
+        }
+
+        stockReservationMapper.insertRows(rows);
+        refreshViewAfterCommit(drugIds);
+        log.info("出库申请占用库存：申请ID={}, 占用记录数={}", applyId, rows.size());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int releaseForApply(Long applyId) {
+        return finishActive(applyId, STATUS_RELEASED);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int consumeForApply(Long applyId) {
+        return finishActive(applyId, STATUS_CONSUMED);
+    }
+
+    @Override
+    public boolean hasActiveReservation(Long applyId) {
+        LambdaQueryWrapper<StockReservation> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(StockReservation::getApplyId, applyId);
+        wrapper.eq(StockReservation::getStatus, STATUS_ACTIVE);
+        return stockReservationMapper.exists(wrapper);
+    }
+
+    @Override
+    public List<StockReservation> listActiveByApplyIds(Collection<Long> applyIds) {
+        if (applyIds == null || applyIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return stockReservationMapper.selectActiveByApplyIds(applyIds);
+    }
+
+    @Override
+    public Map<String, Integer> getReservedByBatch(Long drugId) {
+        if (viewReady) {
+            return reservedView.getOrDefault(drugId, Collections.emptyMap());
+        }
+        return groupByDrug(stockReservationMapper.sumActiveByDrugIds(Collections.singletonList(drugId)))
+                .getOrDefault(drugId, Collections.emptyMap());
+    }
+
+    @Override
+    public Map<Long, Map<String, Integer>> getReservedByBatch(Collection<Long> drugIds) {
+        if (drugIds == null || drugIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (viewReady) {
+            Map<Long, Map<String, Integer>> result = new HashMap<>();
+            for (Long drugId : drugIds) {
+                Map<String, Integer> reserved = reservedView.get(drugId);
+                if (reserved != null) {
+                    result.put(drugId, reserved);
+                }
+            }
+            return result;
+        }
+        return groupByDrug(stockReservationMapper.sumActiveByDrugIds(drugIds));
+    }
+
+    @Override
+    public int getAvailableQuantity(Long drugId) {
+        int total = 0;
+        for (Inventory batch : listNetAvailableBatches(drugId, null)) {
+            total += batch.getQuantity();
+        }
+        return total;
+    }
+
+    @Override
+    public List<Inventory> listNetAvailableBatches(Long drugId, Collection<StockReservation> excluded) {
+        List<Inventory> batches = inventoryService.listAvailableBatches(drugId);
+        Map<String, Integer> reserved = getReservedByBatch(drugId);
+        if (reserved.isEmpty()) {
+            return batches;
+        }
+        Map<String, Integer> own = new HashMap<>();
+        if (excluded != null) {
+            for (StockReservation r : excluded) {
+                if (drugId.equals(r.getDrugId())) {
+                    own.merge(r.getBatchNumber(), r.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        for (Inventory batch : batches) {
+            int held = reserved.getOrDefault(batch.getBatchNumber(), 0) - own.getOrDefault(batch.getBatchNumber(), 0);
+            if (held > 0) {
+                batch.setQuantity(Math.max(0, batch.getQuantity() - held));
+            }
+        }
+        return batches;
+    }
+
+    @Override
+    public void lockDrugs(Collection<Long> drugIds) {
+        if (drugIds == null || drugIds.isEmpty()) {
+            return;
+        }
+        stockReservationMapper.lockDrugsForUpdate(drugIds);
+    }
+
+    @Override
+    public Map<Long, List<Inventory>> loadNetAvailableBatches(Collection<Long> drugIds, Collection<StockReservation> excluded) {
+        Map<Long, List<Inventory>> pools = new HashMap<>();
+        if (drugIds == null || drugIds.isEmpty()) {
+            return pools;
+        }
+        Map<Long, Map<String, Integer>> reserved = groupByDrug(stockReservationMapper.sumActiveByDrugIds(drugIds));
+        Map<Long, Map<String, Integer>> own = new HashMap<>();
+        if (excluded != null) {
+            for (StockReservation r : excluded) {
+                own.computeIfAbsent(r.getDrugId(), k -> new HashMap<>())
+                        .merge(r.getBatchNumber(), r.getQuantity(), Integer::sum);
+            }
+        }
+
+        LambdaQueryWrapper<Inventory> wrapper = new LambdaQueryWrapper<>();
+        wrapper.in(Inventory::getDrugId, drugIds);
+        wrapper.gt(Inventory::getQuantity, 0);
+        wrapper.ge(Inventory::getExpiryDate, LocalDate.now());
+        wrapper.orderByAsc(Inventory::getExpiryDate).orderByAsc(Inventory::getBatchNumber);
+        for (Inventory row : inventoryMapper.selectList(wrapper)) {
+            Map<String, Integer> drugReserved = reserved.getOrDefault(row.getDrugId(), Collections.emptyMap());
+            Map<String, Integer> drugOwn = own.getOrDefault(row.getDrugId(), Collections.emptyMap());
+            int held = Math.max(0, drugReserved.getOrDefault(row.getBatchNumber(), 0)
+                    - drugOwn.getOrDefault(row.getBatchNumber(), 0));
+            row.setQuantity(Math.max(0, row.getQuantity() - held));
+            pools.computeIfAbsent(row.getDrugId(), k -> new ArrayList<>()).add(row);
+        }
+        return pools;
+    }
+
+    @Override
+    public Map<String, Object> getStockAvailability(Long drugId) {
+        int onHand = inventoryService.getTotalAvailableQuantity(drugId);
+        int available = getAvailableQuantity(drugId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("drugId", drugId);
+        result.put("onHand", onHand);
+        result.put("reserved", onHand - available);
+        result.put("available", available);
+        return result;
+    }
+
+    private int finishActive(Long applyId, String status) {
+        List<StockReservation> active = stockReservationMapper.selectActiveByApplyIds(Collections.singletonList(applyId));
+        if (active.isEmpty()) {
+            return 0;
+        }
+        int n = stockReservationMapper.finishActiveByApplyId(applyId, status);
+        Set<Long> drugIds = new TreeSet<>();
+        for (StockReservation r : active) {
+            drugIds.add(r.getDrugId());
+        }
+        refreshViewAfterCommit(drugIds);
+        log.info("出库申请占用结束：申请ID={}, 状态={}, 记录数={}", applyId, status, n);
+        return n;
+    }
+
+    /**
+     * 占用变更提交后按药品回读刷新视图；无事务时立即刷新
+     */
+    private void refreshViewAfterCommit(Collection<Long> drugIds) {
+        List<Long> ids = new ArrayList<>(drugIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshView(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    refreshView(ids);
+                } catch (Exception e) {
+                    // 刷新失败不影响已提交的业务，待下次全量重载修正
+                    log.warn("库存占用视图刷新失败：药品ID={}, error={}", ids, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void refreshView(List<Long> drugIds) {
+        Map<Long, Map<String, Integer>> loaded = groupByDrug(stockReservationMapper.sumActiveByDrugIds(drugIds));
+        for (Long drugId : drugIds) {
+            Map<String, Integer> batches = loaded.get(drugId);
+            if (batches == null) {
+                reservedView.remove(drugId);
+            } else {
+                reservedView.put(drugId, batches);
+            }
+        }
+    }
+
+    private static Map<Long, Map<String, Integer>> groupByDrug(List<StockReservation> sums) {
+        Map<Long, Map<String, Integer>> result = new HashMap<>();
+        for (StockReservation s : sums) {
+            if (s.getQuantity() == null || s.getQuantity() <= 0) {
+                continue;
+            }
+            result.computeIfAbsent(s.getDrugId(), k -> new HashMap<>()).put(s.getBatchNumber(), s.getQuantity());
+        }
+        result.replaceAll((k, v) -> Collections.unmodifiableMap(v));
+        return result;
+    }
+
+    private static StockReservation newReservation(Long applyId, OutboundApplyItem item, String batchNumber, int quantity) {
+        StockReservation r = new StockReservation();
+        r.setApplyId(applyId);
+        r.setApplyItemId(item.getId());
+        r.setDrugId(item.getDrugId());
+        r.setBatchNumber(batchNumber);
+        r.setQuantity(quantity);
+        r.setStatus(STATUS_ACTIVE);
+        return r;
+    }
+
+    private String drugLabel(Long drugId) {
+        DrugInfo drug = drugInfoMapper.selectById(drugId);
+        if (drug == null) {
+            return "药品ID:" + drugId;
+        }
+        return drug.getDrugName() + (StringUtils.hasText(drug.getSpecification()) ? " " + drug.getSpecification() : "");
+    }
+}
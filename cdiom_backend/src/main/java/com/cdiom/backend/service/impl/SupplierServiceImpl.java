@@ -2,6 +2,7 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.cache.ReferenceDataCache;
 import com.cdiom.backend.common.exception.ServiceException;
 import com.cdiom.backend.mapper.PurchaseOrderMapper;
 import com.cdiom.backend.mapper.SupplierDrugMapper;
@@ -29,6 +30,7 @@ public class SupplierServiceImpl implements SupplierService {
     private final SupplierMapper supplierMapper;
     private final PurchaseOrderMapper purchaseOrderMapper;
     private final SupplierDrugMapper supplierDrugMapper;
+    private final ReferenceDataCache referenceDataCache;
 
     @Override
     public Page<Supplier> getSupplierList(Integer page, Integer size, String keyword, Integer status, Integer auditStatus) {
@@ -145,6 +147,7 @@ public class SupplierServiceImpl implements SupplierService {
         }
         
         supplierMapper.updateById(supplier);
+        referenceDataCache.invalidateSupplier(supplier.getId());
         return supplier;
     }
 
@@ -174,6 +177,7 @@ public class SupplierServiceImpl implements SupplierService {
         
         // 执行逻辑删除
         supplierMapper.deleteById(id);
+        referenceDataCache.invalidateSupplier(id);
         log.info("供应商删除成功，ID: {}", id);
     }
 
@@ -189,6 +193,7 @@ public class SupplierServiceImpl implements SupplierService {
         }
         supplier.setStatus(status);
         supplierMapper.updateById(supplier);
+        referenceDataCache.invalidateSupplier(id);
     }
 
     @Override
@@ -213,6 +218,7 @@ public class SupplierServiceImpl implements SupplierService {
         }
         
         supplierMapper.updateById(supplier);
+        referenceDataCache.invalidateSupplier(id);
     }
 }
 
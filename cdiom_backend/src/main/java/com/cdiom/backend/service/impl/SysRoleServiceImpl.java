@@ -2,6 +2,8 @@ package com.cdiom.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
+import com.cdiom.backend.cache.ReferenceDataCache;
 import com.cdiom.backend.common.exception.ServiceException;
 import com.cdiom.backend.mapper.SysRoleMapper;
 import com.cdiom.backend.model.SysRole;
@@ -23,6 +25,8 @@ import java.time.LocalDateTime;
 public class SysRoleServiceImpl implements SysRoleService {
 
     private final SysRoleMapper sysRoleMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final PermissionSnapshotCache permissionSnapshotCache;
 
     @Override
     public Page<SysRole> getRoleList(Integer page, Integer size, String keyword, Integer status) {
@@ -89,6 +93,11 @@ public class SysRoleServiceImpl implements SysRoleService {
         
         role.setUpdateTime(LocalDateTime.now());
         sysRoleMapper.updateById(role);
+        referenceDataCache.invalidateRole(role.getId());
+        // 只改名称、代码、描述不影响权限，不通知其他节点
+        if (role.getStatus() != null && !role.getStatus().equals(existRole.getStatus())) {
+            permissionSnapshotCache.invalidateAll();
+        }
         return role;
     }
 
@@ -96,6 +105,8 @@ public class SysRoleServiceImpl implements SysRoleService {
     @Transactional(rollbackFor = Exception.class)
     public void deleteRole(Long id) {
         sysRoleMapper.deleteById(id);
+        referenceDataCache.invalidateRole(id);
+        permissionSnapshotCache.invalidateAll();
     }
 
     @Override
@@ -108,6 +119,8 @@ public class SysRoleServiceImpl implements SysRoleService {
         role.setStatus(status);
         role.setUpdateTime(LocalDateTime.now());
         sysRoleMapper.updateById(role);
+        referenceDataCache.invalidateRole(id);
+        permissionSnapshotCache.invalidateAll();
     }
 }
 
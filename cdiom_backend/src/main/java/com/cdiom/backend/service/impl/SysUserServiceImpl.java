@@ -3,6 +3,8 @@ package com.cdiom.backend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
+import com.cdiom.backend.cache.ReferenceDataCache;
 import com.cdiom.backend.common.exception.ServiceException;
 import com.cdiom.backend.mapper.SysPermissionMapper;
 import com.cdiom.backend.mapper.SysUserMapper;
@@ -41,6 +43,8 @@ public class SysUserServiceImpl implements SysUserService {
     private final PermissionService permissionService;
     private final SysPermissionMapper permissionMapper;
     private final SysUserPermissionMapper userPermissionMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final PermissionSnapshotCache permissionSnapshotCache;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     @Override
@@ -225,11 +229,28 @@ public class SysUserServiceImpl implements SysUserService {
             user.setPassword(existUser.getPassword());
         }
         
+        // 角色、状态、自定义权限标记变化时通知全部节点，只改资料时只刷新本机快照
+        boolean permissionChanged = changed(user.getRoleId(), existUser.getRoleId())
+                || changed(user.getStatus(), existUser.getStatus())
+                || changed(user.getPermissionCustomized(), existUser.getPermissionCustomized());
         user.setUpdateTime(LocalDateTime.now());
         sysUserMapper.updateById(user);
+        referenceDataCache.invalidateUser(user.getId());
+        if (permissionChanged) {
+            permissionSnapshotCache.invalidateUserPermissions(user.getId());
+        } else {
+            permissionSnapshotCache.invalidateUser(user.getId());
+        }
         return user;
     }
 
+    /**
+     * updateById 忽略 null 字段，新值为 null 视为未修改
+     */
+    private static boolean changed(Object newValue, Object oldValue) {
+        return newValue != null && !newValue.equals(oldValue);
+    }
+
     private void assertTargetIsNotCurrentUser(Long targetUserId, String message) {
         if (targetUserId == null) {
             return;
@@ -245,6 +266,8 @@ public class SysUserServiceImpl implements SysUserService {
     public void deleteUser(Long id) {
         assertTargetIsNotCurrentUser(id, "不能删除当前登录账号");
         sysUserMapper.deleteById(id);
+        referenceDataCache.invalidateUser(id);
+        permissionSnapshotCache.invalidateUserPermissions(id);
     }
 
     @Override
@@ -265,6 +288,8 @@ public class SysUserServiceImpl implements SysUserService {
         user.setStatus(status);
         user.setUpdateTime(LocalDateTime.now());
         sysUserMapper.updateById(user);
+        referenceDataCache.invalidateUser(id);
+        permissionSnapshotCache.invalidateUserPermissions(id);
     }
 
     @Override
@@ -326,6 +351,8 @@ public class SysUserServiceImpl implements SysUserService {
         if (updated == 0) {
             throw new ServiceException("用户不存在或已被永久删除");
         }
+        referenceDataCache.invalidateUser(id);
+        permissionSnapshotCache.invalidateUserPermissions(id);
     }
 
     @Override
@@ -339,6 +366,8 @@ public class SysUserServiceImpl implements SysUserService {
         if (deletedCount == 0) {
             throw new ServiceException("用户不存在或已被永久删除");
         }
+        referenceDataCache.invalidateUser(id);
+        permissionSnapshotCache.invalidateUserPermissions(id);
     }
 
     @Override
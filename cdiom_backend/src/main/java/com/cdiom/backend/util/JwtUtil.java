@@ -1,35 +1,75 @@
 package com.cdiom.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * JWT工具类
- * 
+ * <p>
+ * 签名密钥与解析器在启动时按 jwt.secret 构建一次，之后复用。
+ * 验签通过且未过期的 Claims 按 Token 的 SHA-256 摘要缓存（cdiom.jwt-cache.*），条目在 Token 过期或缓存有效期到达时失效；
+ * 同一请求内过滤器、拦截器、控制器通过 {@link #verify(HttpServletRequest, String)} 共用一次验证结果。
+ * 缓存的 Claims 为共享对象，只能读取。
+ *
  * @author cdiom
  */
 @Component
 public class JwtUtil {
 
+    /**
+     * 请求属性：本次请求已验证的 Token 与 Claims
+     */
+    private static final String VERIFIED_ATTRIBUTE = JwtUtil.class.getName() + ".verified";
+
     private final SystemConfigUtil systemConfigUtil;
 
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${cdiom.jwt-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${cdiom.jwt-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    private final LinkedHashMap<String, CachedClaims> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedClaims> eldest) {
+            return size() > cacheMaxSize;
+        }
+    };
+
     public JwtUtil(@Lazy SystemConfigUtil systemConfigUtil) {
         this.systemConfigUtil = systemConfigUtil;
     }
 
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+    }
+
     /**
      * 生成Token
      */
@@ -48,9 +88,7 @@ public class JwtUtil {
         Date now = new Date();
         long ttlMs = systemConfigUtil.getJwtExpirationMillis();
         Date expiryDate = new Date(now.getTime() + ttlMs);
-        
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        
+
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
@@ -61,23 +99,64 @@ public class JwtUtil {
     }
 
     /**
-     * 从Token中获取Claims
+     * 验证Token并返回Claims（同一请求只验证一次）；Token 无效或已过期时返回 null
+     */
+    public Claims verify(HttpServletRequest request, String token) {
+        if (token == null) {
+            return null;
+        }
+        Object attribute = request.getAttribute(VERIFIED_ATTRIBUTE);
+        if (attribute instanceof VerifiedToken cached && cached.token.equals(token)) {
+            return cached.claims;
+        }
+        Claims claims = verify(token);
+        request.setAttribute(VERIFIED_ATTRIBUTE, new VerifiedToken(token, claims));
+        return claims;
+    }
+
+    /**
+     * 验证Token并返回Claims；Token 无效或已过期时返回 null
+     */
+    public Claims verify(String token) {
+        try {
+            Claims claims = getClaimsFromToken(token);
+            return claims.getExpiration().before(new Date()) ? null : claims;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 从Token中获取Claims（验签失败或已过期时抛出异常）
      */
     public Claims getClaimsFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            CachedClaims cached = verified.get(digest);
+            if (cached != null && cached.expireAt > now) {
+                return cached.claims;
+            }
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        if (cacheMaxSize > 0 && claims.getExpiration() != null) {
+            long expireAt = Math.min(claims.getExpiration().getTime(), now + cacheTtlSeconds * 1000);
+            if (expireAt > now) {
+                synchronized (verified) {
+                    verified.put(digest, new CachedClaims(claims, expireAt));
+                }
+            }
+        }
+        return claims;
     }
 
     /**
      * 从Token中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return Long.valueOf(claims.get("userId").toString());
+        return getUserId(getClaimsFromToken(token));
     }
 
     /**
@@ -92,8 +171,7 @@ public class JwtUtil {
      * 从Token中获取角色
      */
     public String getRoleFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get("role");
+        return getRole(getClaimsFromToken(token));
     }
 
     /**
@@ -103,16 +181,54 @@ public class JwtUtil {
         return getRoleFromToken(token);
     }
 
+    /**
+     * 从Claims中获取用户ID
+     */
+    public Long getUserId(Claims claims) {
+        Object userId = claims.get("userId");
+        return userId != null ? Long.valueOf(userId.toString()) : null;
+    }
+
+    /**
+     * 从Claims中获取角色
+     */
+    public String getRole(Claims claims) {
+        return (String) claims.get("role");
+    }
+
     /**
      * 验证Token是否有效
      */
     public Boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
+    private static String digest(String token) {
         try {
-            Claims claims = getClaimsFromToken(token);
-            return !claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-}
 
+    private static final class CachedClaims {
+        private final Claims claims;
+        private final long expireAt;
+
+        private CachedClaims(Claims claims, long expireAt) {
+            this.claims = claims;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class VerifiedToken {
+        private final String token;
+        private final Claims claims;
+
+        private VerifiedToken(String token, Claims claims) {
+            this.token = token;
+            this.claims = claims;
+        }
+    }
+}
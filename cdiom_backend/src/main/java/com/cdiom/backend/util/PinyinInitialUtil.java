@@ -0,0 +1,71 @@
+package com.cdiom.backend.util;
+
+import java.nio.charset.Charset;
+
+/**
+ * 汉字拼音首字母工具类
+ * 基于 GB2312 一级汉字（3755 个常用字）按拼音排序的编码区间取首字母，不依赖拼音库；
+ * 二级汉字及生僻字无法识别时跳过，字母数字原样保留（转小写）
+ * 
+ * @author cdiom
+ */
+public class PinyinInitialUtil {
+
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    // 各声母首字对应的 GB2312 编码（区位码连续，按拼音排序），最后一项为一级汉字结束位置
+    private static final int[] BOUNDARIES = {
+            0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE, 0xBBF7,
+            0xBFA6, 0xC0AC, 0xC2E8, 0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB, 0xC8F6,
+            0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA
+    };
+
+    private static final char[] INITIALS = {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', 'l', 'm',
+            'n', 'o', 'p', 'q', 'r', 's', 't', 'w', 'x', 'y', 'z'
+    };
+
+    private PinyinInitialUtil() {
+    }
+
+    /**
+     * 取字符串的拼音首字母串，如「阿莫西林」返回「amxl」
+     */
+    public static String getInitials(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (Character.isLetterOrDigit(c)) {
+                    sb.append(Character.toLowerCase(c));
+                }
+                continue;
+            }
+            char initial = initialOf(c);
+            if (initial != 0) {
+                sb.append(initial);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char initialOf(char c) {
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if (bytes.length != 2) {
+            return 0;
+        }
+        int code = ((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF);
+        if (code < BOUNDARIES[0] || code >= BOUNDARIES[BOUNDARIES.length - 1]) {
+            return 0;
+        }
+        for (int i = INITIALS.length - 1; i >= 0; i--) {
+            if (code >= BOUNDARIES[i]) {
+                return INITIALS[i];
+            }
+        }
+        return 0;
+    }
+}
@@ -111,7 +111,8 @@ CREATE TABLE IF NOT EXISTS `operation_log` (
     KEY `idx_module` (`module`),
     KEY `idx_operation_type` (`operation_type`),
     KEY `idx_status` (`status`),
-    KEY `idx_operation_time` (`operation_time`)
+    KEY `idx_operation_time` (`operation_time`),
+    KEY `idx_status_time_module_type` (`status`, `operation_time`, `module`, `operation_type`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='操作日志表';
 
 CREATE TABLE IF NOT EXISTS `login_log` (
@@ -352,6 +353,7 @@ CREATE TABLE IF NOT EXISTS `inventory` (
     KEY `idx_expiry_date` (`expiry_date`),
     KEY `idx_quantity` (`quantity`),
     KEY `idx_create_time` (`create_time`),
+    KEY `idx_expiry_create_id` (`expiry_date` ASC, `create_time` DESC, `id` DESC),
     CONSTRAINT `fk_inventory_drug` FOREIGN KEY (`drug_id`) REFERENCES `drug_info` (`id`),
     CONSTRAINT `chk_quantity_non_negative` CHECK (`quantity` >= 0)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存表';
@@ -376,6 +378,8 @@ CREATE TABLE IF NOT EXISTS `purchase_order` (
     KEY `idx_purchaser_id` (`purchaser_id`),
     KEY `idx_status` (`status`),
     KEY `idx_create_time` (`create_time`),
+    KEY `idx_supplier_status_amount` (`supplier_id`, `status`, `total_amount`),
+    KEY `idx_purchaser_status_amount` (`purchaser_id`, `status`, `total_amount`, `supplier_id`),
     CONSTRAINT `fk_purchase_order_supplier` FOREIGN KEY (`supplier_id`) REFERENCES `supplier` (`id`),
     CONSTRAINT `fk_purchase_order_purchaser` FOREIGN KEY (`purchaser_id`) REFERENCES `sys_user` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='采购订单';
@@ -509,6 +513,91 @@ CREATE TABLE IF NOT EXISTS `outbound_apply_item` (
     CONSTRAINT `fk_outbound_apply_item_drug` FOREIGN KEY (`drug_id`) REFERENCES `drug_info` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='出库申请明细';
 
+CREATE TABLE IF NOT EXISTS `stock_reservation` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `apply_id` BIGINT NOT NULL,
+    `apply_item_id` BIGINT NOT NULL,
+    `drug_id` BIGINT NOT NULL,
+    `batch_number` VARCHAR(100) NOT NULL,
+    `quantity` INT NOT NULL,
+    `status` VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' COMMENT 'ACTIVE/RELEASED/CONSUMED',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_apply_id_status` (`apply_id`, `status`),
+    KEY `idx_drug_status_batch` (`drug_id`, `status`, `batch_number`),
+    CONSTRAINT `fk_stock_reservation_apply` FOREIGN KEY (`apply_id`) REFERENCES `outbound_apply` (`id`) ON DELETE CASCADE,
+    CONSTRAINT `fk_stock_reservation_drug` FOREIGN KEY (`drug_id`) REFERENCES `drug_info` (`id`),
+    CONSTRAINT `chk_stock_reservation_quantity_positive` CHECK (`quantity` > 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='出库库存占用（审批通过后按批次预留）';
+
+CREATE TABLE IF NOT EXISTS `inventory_movement` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `drug_id` BIGINT NOT NULL,
+    `batch_number` VARCHAR(100) NOT NULL,
+    `movement_type` VARCHAR(20) NOT NULL COMMENT 'INBOUND/OUTBOUND/ADJUST',
+    `change_quantity` INT NOT NULL COMMENT '变动数量（入库为正，出库为负）',
+    `quantity_after` INT DEFAULT NULL COMMENT '变动后批次数量（批量出库时为空）',
+    `create_time` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (`id`),
+    KEY `idx_drug_batch_time` (`drug_id`, `batch_number`, `create_time`, `change_quantity`),
+    KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存流水（只追加）';
+
+CREATE TABLE IF NOT EXISTS `inventory_snapshot_run` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `cutoff_time` DATETIME(3) NOT NULL COMMENT '快照时点：不晚于该时间的流水均已计入',
+    `last_movement_id` BIGINT NOT NULL COMMENT '已计入的最大流水ID',
+    `batch_count` INT NOT NULL DEFAULT 0,
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_cutoff_time` (`cutoff_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存快照批次';
+
+CREATE TABLE IF NOT EXISTS `inventory_snapshot` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `run_id` BIGINT NOT NULL,
+    `drug_id` BIGINT NOT NULL,
+    `batch_number` VARCHAR(100) NOT NULL,
+    `quantity` INT NOT NULL,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_run_drug_batch` (`run_id`, `drug_id`, `batch_number`),
+    CONSTRAINT `fk_inventory_snapshot_run` FOREIGN KEY (`run_id`) REFERENCES `inventory_snapshot_run` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存快照（按批次，仅保存非零数量）';
+
+CREATE TABLE IF NOT EXISTS `doc_sequence` (
+    `prefix` VARCHAR(16) NOT NULL COMMENT '单号前缀（OUT/ORD/IN/ADJ）',
+    `seq_day` DATE NOT NULL COMMENT '单号日期',
+    `next_value` BIGINT NOT NULL COMMENT '下一个未分配的序号',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`prefix`, `seq_day`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='单据号段（各节点按块租用序号）';
+
+CREATE TABLE IF NOT EXISTS `daily_stats` (
+    `stat_day` DATE NOT NULL COMMENT '统计日期',
+    `metric` VARCHAR(64) NOT NULL COMMENT '指标（DailyStatMetric 枚举名）',
+    `dim_id` BIGINT NOT NULL DEFAULT 0 COMMENT '维度值（如采购员/供应商/申请人ID），0 为当天总数',
+    `stat_value` BIGINT NOT NULL DEFAULT 0 COMMENT '计数',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`metric`, `dim_id`, `stat_day`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='按天汇总统计';
+
+CREATE TABLE IF NOT EXISTS `operation_log_counter` (
+    `stat_day` DATE NOT NULL COMMENT '统计日期',
+    `dim_type` VARCHAR(16) NOT NULL COMMENT '维度：MODULE-操作模块/TYPE-操作类型',
+    `dim_value` VARCHAR(50) NOT NULL COMMENT '模块名或操作类型',
+    `cnt` BIGINT NOT NULL DEFAULT 0 COMMENT '成功操作数',
+    PRIMARY KEY (`dim_type`, `stat_day`, `dim_value`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='操作日志按天计数';
+
+CREATE TABLE IF NOT EXISTS `sys_permission_version` (
+    `id` TINYINT NOT NULL COMMENT '固定为 1',
+    `version` BIGINT NOT NULL DEFAULT 0 COMMENT '权限版本号',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='权限版本号（多节点权限缓存失效）';
+INSERT IGNORE INTO `sys_permission_version` (`id`, `version`) VALUES (1, 0);
+
 CREATE TABLE IF NOT EXISTS `inventory_adjustment` (
     `id` BIGINT NOT NULL AUTO_INCREMENT,
     `adjustment_number` VARCHAR(50) NOT NULL,
@@ -694,6 +783,9 @@ CREATE TABLE IF NOT EXISTS `supplier_approval_log` (
 -- 6. 基础种子数据（角色、管理员、配置、公告）
 -- ============================================
 
+-- 库存流水起点：空库存的初始快照，时点回放查询以此为基线
+INSERT INTO `inventory_snapshot_run` (`cutoff_time`, `last_movement_id`, `batch_count`) VALUES (NOW(3), 0, 0);
+
 INSERT INTO `sys_role` (`id`, `role_name`, `role_code`, `description`, `status`) VALUES
 (1, '系统管理员', 'SUPER_ADMIN', '系统管理员，拥有所有权限', 1),
 (2, '仓库管理员', 'WAREHOUSE_ADMIN', '仓库管理员，负责药品入库、出库、库存管理', 1),
@@ -0,0 +1,11 @@
+-- 按天汇总统计表：仪表盘趋势（登录、操作、出入库、采购订单、出库申请）对已结束的日期只读汇总结果，今天现场统计
+-- 由定时任务增量写入，读取时发现未汇总的日期会当场补汇总，无需预置数据
+-- 执行前请备份数据库
+CREATE TABLE IF NOT EXISTS `daily_stats` (
+    `stat_day` DATE NOT NULL COMMENT '统计日期',
+    `metric` VARCHAR(64) NOT NULL COMMENT '指标（DailyStatMetric 枚举名）',
+    `dim_id` BIGINT NOT NULL DEFAULT 0 COMMENT '维度值（如采购员/供应商/申请人ID），0 为当天总数',
+    `stat_value` BIGINT NOT NULL DEFAULT 0 COMMENT '计数',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`metric`, `dim_id`, `stat_day`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='按天汇总统计';
@@ -0,0 +1,10 @@
+-- 单据号段表：出库申请/采购订单/入库记录/库存调整单号改为按块租用序号，不再按当天单据数 COUNT 生成
+-- 当天首次租用时按业务表中已有的最大单号续号，无需预置数据
+-- 执行前请备份数据库
+CREATE TABLE IF NOT EXISTS `doc_sequence` (
+    `prefix` VARCHAR(16) NOT NULL COMMENT '单号前缀（OUT/ORD/IN/ADJ）',
+    `seq_day` DATE NOT NULL COMMENT '单号日期',
+    `next_value` BIGINT NOT NULL COMMENT '下一个未分配的序号',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`prefix`, `seq_day`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='单据号段（各节点按块租用序号）';
@@ -0,0 +1,44 @@
+-- 库存流水（只追加）与按批次快照：支持「某时点某药品/批次库存」回放查询
+-- 执行前请备份数据库，并在停止后端服务期间执行（初始快照须与之后的流水衔接，期间不能有库存变动）
+
+CREATE TABLE IF NOT EXISTS `inventory_movement` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `drug_id` BIGINT NOT NULL,
+    `batch_number` VARCHAR(100) NOT NULL,
+    `movement_type` VARCHAR(20) NOT NULL COMMENT 'INBOUND/OUTBOUND/ADJUST',
+    `change_quantity` INT NOT NULL COMMENT '变动数量（入库为正，出库为负）',
+    `quantity_after` INT DEFAULT NULL COMMENT '变动后批次数量（批量出库时为空）',
+    `create_time` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (`id`),
+    KEY `idx_drug_batch_time` (`drug_id`, `batch_number`, `create_time`, `change_quantity`),
+    KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存流水（只追加）';
+
+CREATE TABLE IF NOT EXISTS `inventory_snapshot_run` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `cutoff_time` DATETIME(3) NOT NULL COMMENT '快照时点：不晚于该时间的流水均已计入',
+    `last_movement_id` BIGINT NOT NULL COMMENT '已计入的最大流水ID',
+    `batch_count` INT NOT NULL DEFAULT 0,
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_cutoff_time` (`cutoff_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存快照批次';
+
+CREATE TABLE IF NOT EXISTS `inventory_snapshot` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `run_id` BIGINT NOT NULL,
+    `drug_id` BIGINT NOT NULL,
+    `batch_number` VARCHAR(100) NOT NULL,
+    `quantity` INT NOT NULL,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_run_drug_batch` (`run_id`, `drug_id`, `batch_number`),
+    CONSTRAINT `fk_inventory_snapshot_run` FOREIGN KEY (`run_id`) REFERENCES `inventory_snapshot_run` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='库存快照（按批次，仅保存非零数量）';
+
+-- 初始快照：以当前 inventory 为基线，早于此时点的库存无法回放
+INSERT INTO `inventory_snapshot_run` (`cutoff_time`, `last_movement_id`, `batch_count`)
+SELECT NOW(3), 0, COUNT(*) FROM `inventory` WHERE `quantity` <> 0;
+
+INSERT INTO `inventory_snapshot` (`run_id`, `drug_id`, `batch_number`, `quantity`)
+SELECT (SELECT MAX(`id`) FROM `inventory_snapshot_run`), `drug_id`, `batch_number`, `quantity`
+FROM `inventory` WHERE `quantity` <> 0;
@@ -0,0 +1,14 @@
+-- 权限版本号：用户/角色/权限变更时加一，各节点定时读取，发现变化后清空本机的用户权限缓存
+-- 直接用 SQL 修改 sys_role_permission、sys_user_permission、sys_permission 后，请同时执行末尾的 UPDATE，使各节点在数秒内生效
+-- 执行前请备份数据库
+CREATE TABLE IF NOT EXISTS `sys_permission_version` (
+    `id` TINYINT NOT NULL COMMENT '固定为 1',
+    `version` BIGINT NOT NULL DEFAULT 0 COMMENT '权限版本号',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='权限版本号（多节点权限缓存失效）';
+
+INSERT IGNORE INTO `sys_permission_version` (`id`, `version`) VALUES (1, 0);
+
+-- 手工修改权限数据后执行：
+-- UPDATE `sys_permission_version` SET `version` = `version` + 1 WHERE `id` = 1;
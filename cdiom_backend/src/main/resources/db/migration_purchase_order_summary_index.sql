@@ -0,0 +1,7 @@
+-- 采购订单按供应商/采购员 + 状态汇总的覆盖索引：采购员、供应商工作台的订单数与金额统计按状态分组，只读索引不回表
+-- 执行前请备份数据库
+-- 如果报错 "Duplicate key name"，说明索引已存在，可以忽略
+
+ALTER TABLE `purchase_order` ADD INDEX `idx_supplier_status_amount` (`supplier_id`, `status`, `total_amount`);
+
+ALTER TABLE `purchase_order` ADD INDEX `idx_purchaser_status_amount` (`purchaser_id`, `status`, `total_amount`, `supplier_id`);
@@ -0,0 +1,23 @@
+-- 出库申请审批通过后按批次预留库存（占用台账）
+-- 可用量 = 现有库存 - ACTIVE 占用；驳回/取消/撤回释放，执行出库时转为实际扣减
+-- 执行前请备份数据库
+CREATE TABLE IF NOT EXISTS `stock_reservation` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `apply_id` BIGINT NOT NULL,
+    `apply_item_id` BIGINT NOT NULL,
+    `drug_id` BIGINT NOT NULL,
+    `batch_number` VARCHAR(100) NOT NULL,
+    `quantity` INT NOT NULL,
+    `status` VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' COMMENT 'ACTIVE/RELEASED/CONSUMED',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`id`),
+    KEY `idx_apply_id_status` (`apply_id`, `status`),
+    KEY `idx_drug_status_batch` (`drug_id`, `status`, `batch_number`),
+    CONSTRAINT `fk_stock_reservation_apply` FOREIGN KEY (`apply_id`) REFERENCES `outbound_apply` (`id`) ON DELETE CASCADE,
+    CONSTRAINT `fk_stock_reservation_drug` FOREIGN KEY (`drug_id`) REFERENCES `drug_info` (`id`),
+    CONSTRAINT `chk_stock_reservation_quantity_positive` CHECK (`quantity` > 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='出库库存占用（审批通过后按批次预留）';
+
+-- 存量已审批未出库的申请（APPROVED / PENDING_SECOND）没有占用记录，执行出库时仍按原 FIFO 逻辑分配；
+-- 如需让其占用库存，可在低峰期由管理员重新审批，或接受其在出库时按实时库存校验。
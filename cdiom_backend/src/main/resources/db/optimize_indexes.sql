@@ -23,6 +23,12 @@ ALTER TABLE `inventory` ADD INDEX `idx_drug_expiry` (`drug_id`, `expiry_date`);
 -- 如果报错 "Duplicate key name 'idx_location_expiry'"，说明索引已存在，可以忽略
 ALTER TABLE `inventory` ADD INDEX `idx_location_expiry` (`storage_location`, `expiry_date`);
 
+-- 添加联合索引：列方向与库存列表排序键 (expiry_date ASC, create_time DESC, id DESC) 一致（MySQL 8 降序索引），
+-- 排序与键集翻页可直接按索引顺序读取，不需要 filesort
+-- 如果报错 "Duplicate key name 'idx_expiry_create_id'"，说明索引已存在；早期版本建的是全升序索引，需先执行：
+-- ALTER TABLE `inventory` DROP INDEX `idx_expiry_create_id`;
+ALTER TABLE `inventory` ADD INDEX `idx_expiry_create_id` (`expiry_date` ASC, `create_time` DESC, `id` DESC);
+
 -- ============================================
 -- 2. 药品信息表（drug_info）索引优化
 -- ============================================
@@ -0,0 +1,195 @@
+package com.cdiom.backend.benchmark;
+
+import com.cdiom.backend.mapper.InventoryMapper;
+import com.cdiom.backend.model.Inventory;
+import com.cdiom.backend.model.vo.InventoryDecrement;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 同一库存行并发扣减的行锁等待对比
+ * <p>
+ * 50 个线程各自以独立事务对同一批次扣减 1，比较两种做法：
+ * 修改前的 SELECT ... FOR UPDATE + 条件 UPDATE（两次往返都持有行锁），与现在的单条 LAST_INSERT_ID 条件 UPDATE。
+ * 记录总耗时、单次事务平均/P99 耗时，以及 SHOW GLOBAL STATUS 中 Innodb_row_lock_waits / Innodb_row_lock_time 的增量
+ * （全局计数，运行期间应避免其他负载）。最后校验剩余库存与扣减次数一致。
+ * <p>
+ * 需要可连接的 MySQL（application-local.yml 中的 cdiom_db，已建表且 drug_info 至少有一行），
+ * 运行：mvn test -Pmysql-benchmark -Dtest=InventoryDecrementLockBenchmark
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Tag("mysql-benchmark")
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=60")
+public class InventoryDecrementLockBenchmark {
+
+    private static final int THREADS = 50;
+
+    private static final int DECREMENTS_PER_THREAD = 40;
+
+    private static final int INITIAL_QUANTITY = 1_000_000;
+
+    @Autowired
+    private InventoryMapper inventoryMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long drugId;
+
+    private String batchNumber;
+
+    @BeforeEach
+    void setUp() {
+        drugId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM drug_info", Long.class);
+        assumeTrue(drugId != null, "drug_info 为空，无法插入基准库存行");
+        batchNumber = "BENCH-LOCK-" + System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO inventory (drug_id, batch_number, quantity, expiry_date, remark) "
+                        + "VALUES (?, ?, ?, ?, ?)",
+                drugId, batchNumber, INITIAL_QUANTITY, LocalDate.now().plusYears(1), "基准测试数据");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batchNumber != null) {
+            jdbcTemplate.update("DELETE FROM inventory WHERE drug_id = ? AND batch_number = ?", drugId, batchNumber);
+        }
+    }
+
+    @Test
+    void compareLockWait() throws Exception {
+        // 预热连接池与语句缓存，不计入结果
+        int decremented = run("预热", this::decreaseWithConditionalUpdate).operations;
+
+        Result selectForUpdate = run("SELECT ... FOR UPDATE + UPDATE", this::decreaseWithSelectForUpdate);
+        Result conditionalUpdate = run("条件 UPDATE", this::decreaseWithConditionalUpdate);
+        decremented += selectForUpdate.operations + conditionalUpdate.operations;
+
+        log.info("行锁等待次数：{} -> {}，行锁等待总时长：{} ms -> {} ms",
+                selectForUpdate.lockWaits, conditionalUpdate.lockWaits,
+                selectForUpdate.lockTimeMs, conditionalUpdate.lockTimeMs);
+        assertEquals(INITIAL_QUANTITY - decremented, quantity());
+    }
+
+    /**
+     * 修改前的扣减：先加锁读取并检查库存，再条件更新
+     */
+    private void decreaseWithSelectForUpdate() {
+        Inventory inventory = inventoryMapper.selectForUpdate(drugId, batchNumber);
+        if (inventory == null || inventory.getQuantity() < 1) {
+            throw new IllegalStateException("库存不足");
+        }
+        if (inventoryMapper.decreaseQuantityAtomically(drugId, batchNumber, 1) == 0) {
+            throw new IllegalStateException("扣减失败");
+        }
+    }
+
+    /**
+     * 现在的扣减：一条条件 UPDATE 同时带回剩余数量
+     */
+    private void decreaseWithConditionalUpdate() {
+        if (inventoryMapper.decreaseQuantityReturningRemaining(new InventoryDecrement(drugId, batchNumber, 1)) == 0) {
+            throw new IllegalStateException("扣减失败");
+        }
+    }
+
+    private Result run(String name, Runnable decrement) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        Map<String, Long> before = rowLockStatus();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    long[] latencies = new long[DECREMENTS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < DECREMENTS_PER_THREAD; i++) {
+                        long begin = System.nanoTime();
+                        transaction.executeWithoutResult(status -> decrement.run());
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return latencies;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            long[] all = new long[THREADS * DECREMENTS_PER_THREAD];
+            int n = 0;
+            for (Future<long[]> future : futures) {
+                for (long latency : future.get(5, TimeUnit.MINUTES)) {
+                    all[n++] = latency;
+                }
+            }
+            long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            Map<String, Long> after = rowLockStatus();
+
+            Arrays.sort(all);
+            double avgMs = Arrays.stream(all).average().orElse(0) / 1_000_000.0;
+            double p99Ms = all[(int) Math.ceil(all.length * 0.99) - 1] / 1_000_000.0;
+            Result result = new Result(all.length,
+                    after.getOrDefault("Innodb_row_lock_waits", 0L) - before.getOrDefault("Innodb_row_lock_waits", 0L),
+                    after.getOrDefault("Innodb_row_lock_time", 0L) - before.getOrDefault("Innodb_row_lock_time", 0L));
+            log.info("{}：{} 线程 × {} 次，总耗时 {} ms，单次平均 {} ms，P99 {} ms，行锁等待 {} 次，共 {} ms",
+                    name, THREADS, DECREMENTS_PER_THREAD, wallMs, String.format("%.2f", avgMs),
+                    String.format("%.2f", p99Ms), result.lockWaits, result.lockTimeMs);
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Map<String, Long> rowLockStatus() {
+        Map<String, Long> status = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SHOW GLOBAL STATUS LIKE 'Innodb_row_lock%'")) {
+            status.put(String.valueOf(row.get("Variable_name")), Long.valueOf(String.valueOf(row.get("Value"))));
+        }
+        return status;
+    }
+
+    private int quantity() {
+        Integer quantity = jdbcTemplate.queryForObject(
+                "SELECT quantity FROM inventory WHERE drug_id = ? AND batch_number = ?",
+                Integer.class, drugId, batchNumber);
+        return quantity != null ? quantity : -1;
+    }
+
+    private static final class Result {
+        private final int operations;
+        private final long lockWaits;
+        private final long lockTimeMs;
+
+        private Result(int operations, long lockWaits, long lockTimeMs) {
+            this.operations = operations;
+            this.lockWaits = lockWaits;
+            this.lockTimeMs = lockTimeMs;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.cdiom.backend.benchmark;
+
+import com.cdiom.backend.annotation.RequiresPermission;
+import com.cdiom.backend.cache.PermissionSnapshotCache;
+import com.cdiom.backend.config.filter.JwtAuthenticationFilter;
+import com.cdiom.backend.config.interceptor.PermissionHandlerTable;
+import com.cdiom.backend.config.interceptor.PermissionInterceptor;
+import com.cdiom.backend.mapper.PermissionVersionMapper;
+import com.cdiom.backend.mapper.SysPermissionMapper;
+import com.cdiom.backend.mapper.SysUserMapper;
+import com.cdiom.backend.model.SysUser;
+import com.cdiom.backend.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 一次受保护请求的 JWT 验签开销
+ * <p>
+ * baseline：修改前的做法，过滤器、权限拦截器、控制器各自取 userId/role 等，每次都用 Keys.hmacShaKeyFor 重建密钥并重新解析，共五次；
+ * filterChain：JwtAuthenticationFilter + PermissionInterceptor 经 {@link JwtUtil#verify(jakarta.servlet.http.HttpServletRequest, String)}
+ * 共用同一请求的验证结果，cacheMaxSize=0 时每个请求验签一次，默认值时命中 Token 摘要缓存。
+ * 权限快照的 Mapper 为 Mock，不需要数据库。
+ * <p>
+ * 运行：mvn test -Pbenchmark
+ *
+ * @author cdiom
+ */
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterChainBenchmark {
+
+    private static final String SECRET = "cdiom-benchmark-secret-key-at-least-256-bits-long";
+
+    private static final long USER_ID = 1001L;
+
+    private static final String PERMISSION = "drug:view";
+
+    @State(Scope.Benchmark)
+    public static class Baseline {
+
+        byte[] secretBytes;
+        String token;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            secretBytes = SECRET.getBytes(StandardCharsets.UTF_8);
+            token = token(Keys.hmacShaKeyFor(secretBytes));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilterChain {
+
+        @Param({"0", "10000"})
+        int cacheMaxSize;
+
+        String token;
+        JwtAuthenticationFilter filter;
+        PermissionInterceptor permissionInterceptor;
+        HandlerMethod handlerMethod;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            JwtUtil jwtUtil = new JwtUtil(null);
+            ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+            ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+            ReflectionTestUtils.setField(jwtUtil, "cacheTtlSeconds", 300L);
+            jwtUtil.init();
+            token = token(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)));
+
+            SysUser user = new SysUser();
+            user.setId(USER_ID);
+            user.setRoleId(2L);
+            SysUserMapper userMapper = mock(SysUserMapper.class);
+            when(userMapper.selectById(any())).thenReturn(user);
+            SysPermissionMapper permissionMapper = mock(SysPermissionMapper.class);
+            when(permissionMapper.selectAllPermissionCodesByUserId(any())).thenReturn(List.of(PERMISSION));
+            PermissionSnapshotCache snapshotCache = new PermissionSnapshotCache(userMapper, permissionMapper,
+                    mock(PermissionVersionMapper.class), mock(PlatformTransactionManager.class),
+                    true, 5000, 300, 3000);
+
+            // 与启动时相同，预先生成接口权限表
+            handlerMethod = new HandlerMethod(new BenchmarkController(), "list");
+            PermissionHandlerTable handlerTable = new PermissionHandlerTable(snapshotCache);
+            RequestMappingHandlerMapping mapping = mock(RequestMappingHandlerMapping.class);
+            when(mapping.getHandlerMethods()).thenReturn(
+                    Map.of(RequestMappingInfo.paths("/api/v1/benchmark").build(), handlerMethod));
+            ApplicationContext context = mock(ApplicationContext.class);
+            when(context.containsBean(anyString())).thenReturn(true);
+            when(context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class))
+                    .thenReturn(mapping);
+            handlerTable.onContextRefreshed(new ContextRefreshedEvent(context));
+
+            filter = new JwtAuthenticationFilter(jwtUtil);
+            permissionInterceptor = new PermissionInterceptor(jwtUtil, handlerTable, snapshotCache);
+            if (!request(this)) {
+                throw new IllegalStateException("基准请求未通过权限检查");
+            }
+        }
+    }
+
+    /**
+     * 修改前：每次读取 Claims 都重建密钥与解析器并验签
+     */
+    @Benchmark
+    public void baseline(Baseline state, Blackhole blackhole) {
+        for (int i = 0; i < 5; i++) {
+            SecretKey key = Keys.hmacShaKeyFor(state.secretBytes);
+            blackhole.consume(Jwts.parser().verifyWith(key).build().parseSignedClaims(state.token).getPayload());
+        }
+    }
+
+    /**
+     * 修改后：过滤器与权限拦截器共用一次验证结果
+     */
+    @Benchmark
+    public boolean filterChain(FilterChain state) throws Exception {
+        return request(state);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        assertFalse(new Runner(new OptionsBuilder()
+                .include(JwtFilterChainBenchmark.class.getName())
+                .build()).run().isEmpty());
+    }
+
+    private static boolean request(FilterChain state) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/benchmark");
+        request.addHeader("Authorization", "Bearer " + state.token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            state.filter.doFilter(request, response, new MockFilterChain());
+            return state.permissionInterceptor.preHandle(request, response, state.handlerMethod);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static String token(SecretKey key) {
+        Date now = new Date();
+        return Jwts.builder()
+                .claims(Map.of("userId", USER_ID, "username", "benchmark", "role", "WAREHOUSE_ADMIN"))
+                .subject("benchmark")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(key)
+                .compact();
+    }
+
+    public static class BenchmarkController {
+
+        @RequiresPermission(PERMISSION)
+        public void list() {
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.cdiom.backend.benchmark;
+
+import com.cdiom.backend.config.interceptor.QueryCountInterceptor;
+import com.cdiom.backend.service.OutboundApplyService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 拣货汇总（getOutboundPickSummary）的 SQL 条数随申领单数的变化
+ * <p>
+ * 分别插入 10 / 100 / 1000 张当日已审批的申领单（每张两行明细，各用一个互不重叠的历史日期），
+ * 经 {@link QueryCountInterceptor} 统计一次汇总执行的 SQL 条数并记录耗时。
+ * 明细、药品、库存、占用均为 IN 查询，条数不应随申领单数增长；药品走引用缓存，后面几轮只会更少。
+ * 数据在测试事务中插入，结束后回滚。
+ * <p>
+ * 需要可连接的 MySQL（application-local.yml 中的 cdiom_db，已建表且 sys_user、drug_info 至少各有一行），
+ * 运行：mvn test -Pmysql-benchmark -Dtest=OutboundPickSummaryQueryCountBenchmark
+ *
+ * @author cdiom
+ */
+@Slf4j
+@Tag("mysql-benchmark")
+@SpringBootTest
+@Transactional
+public class OutboundPickSummaryQueryCountBenchmark {
+
+    private static final int[] APPLY_COUNTS = {10, 100, 1000};
+
+    private static final int ITEMS_PER_APPLY = 2;
+
+    @Autowired
+    private OutboundApplyService outboundApplyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queryCountDoesNotGrowWithApplies() {
+        Long applicantId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM sys_user", Long.class);
+        List<Long> drugIds = jdbcTemplate.queryForList("SELECT id FROM drug_info ORDER BY id LIMIT 20", Long.class);
+        assumeTrue(applicantId != null && !drugIds.isEmpty(), "sys_user 或 drug_info 为空，无法插入申领单");
+
+        Map<Integer, Integer> queryCounts = new LinkedHashMap<>();
+        for (int i = 0; i < APPLY_COUNTS.length; i++) {
+            int applyCount = APPLY_COUNTS[i];
+            LocalDate day = LocalDate.of(2000, 1, 1).plusDays(i);
+            insertApprovedApplies(applyCount, day, applicantId, drugIds);
+
+            long begin = System.nanoTime();
+            QueryCountInterceptor.start();
+            Map<String, Object> summary;
+            try {
+                summary = outboundApplyService.getOutboundPickSummary(day, "approve_day");
+            } finally {
+                queryCounts.put(applyCount, QueryCountInterceptor.stop());
+            }
+            long elapsedMs = (System.nanoTime() - begin) / 1_000_000;
+
+            assertEquals(applyCount, summary.get("applyCount"));
+            log.info("拣货汇总：申领单 {} 张，明细 {} 行，SQL {} 条，耗时 {} ms",
+                    applyCount, applyCount * ITEMS_PER_APPLY, queryCounts.get(applyCount), elapsedMs);
+        }
+
+        int first = queryCounts.get(APPLY_COUNTS[0]);
+        for (Map.Entry<Integer, Integer> entry : queryCounts.entrySet()) {
+            assertTrue(entry.getValue() <= first,
+                    "申领单 " + entry.getKey() + " 张时 SQL 条数 " + entry.getValue() + " 多于 " + first);
+        }
+    }
+
+    private void insertApprovedApplies(int count, LocalDate day, Long applicantId, List<Long> drugIds) {
+        String prefix = "BENCH-" + day + "-";
+        LocalDateTime approveTime = day.atTime(9, 0);
+        List<Object[]> applies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            applies.add(new Object[]{prefix + i, applicantId, "APPROVED", approveTime.plusSeconds(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO outbound_apply (apply_number, applicant_id, status, approve_time) "
+                + "VALUES (?, ?, ?, ?)", applies);
+
+        List<Long> applyIds = jdbcTemplate.queryForList(
+                "SELECT id FROM outbound_apply WHERE apply_number LIKE ? ORDER BY id", Long.class, prefix + "%");
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 0; i < applyIds.size(); i++) {
+            for (int j = 0; j < ITEMS_PER_APPLY; j++) {
+                items.add(new Object[]{applyIds.get(i), drugIds.get((i + j) % drugIds.size()), 1});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO outbound_apply_item (apply_id, drug_id, quantity) VALUES (?, ?, ?)",
+                items);
+    }
+}